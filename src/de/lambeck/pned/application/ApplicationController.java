@@ -6,8 +6,10 @@ import java.awt.event.WindowEvent;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.swing.*;
@@ -20,14 +22,24 @@ import de.lambeck.pned.elements.data.DataArc;
 import de.lambeck.pned.elements.data.DataPlace;
 import de.lambeck.pned.elements.data.DataTransition;
 import de.lambeck.pned.elements.data.IDataElement;
+import de.lambeck.pned.elements.data.IDataNode;
 import de.lambeck.pned.elements.gui.GuiTransition;
 import de.lambeck.pned.elements.gui.IGuiArc;
 import de.lambeck.pned.elements.gui.IGuiElement;
 import de.lambeck.pned.elements.gui.IGuiPlace;
 import de.lambeck.pned.exceptions.PNIllegalStateException;
 import de.lambeck.pned.exceptions.PNInvalidParameterException;
+import de.lambeck.pned.exceptions.PNNoSuchElementException;
 import de.lambeck.pned.filesystem.FSInfo;
-import de.lambeck.pned.filesystem.pnml.PNMLWriter;
+import de.lambeck.pned.filesystem.journal.EditJournal;
+import de.lambeck.pned.filesystem.journal.EditJournalEntry;
+import de.lambeck.pned.filesystem.journal.RecoveredJournal;
+import de.lambeck.pned.filesystem.paging.ModelPager;
+import de.lambeck.pned.filesystem.pnml.PNMLModelWriter;
+import de.lambeck.pned.filesystem.session.ESessionCommand;
+import de.lambeck.pned.filesystem.session.SessionRecorder;
+import de.lambeck.pned.filesystem.watch.IPnmlFileChangeListener;
+import de.lambeck.pned.filesystem.watch.PnmlFileWatcher;
 import de.lambeck.pned.gui.menuBar.MenuBar;
 import de.lambeck.pned.gui.popupMenu.PopupMenuForTransitions;
 import de.lambeck.pned.gui.settings.SizeSlider;
@@ -35,12 +47,23 @@ import de.lambeck.pned.gui.statusBar.StatusBar;
 import de.lambeck.pned.gui.toolBar.PnedToolBar;
 import de.lambeck.pned.i18n.I18NManager;
 import de.lambeck.pned.models.data.DataModelController;
+import de.lambeck.pned.models.data.DataModelDiff;
 import de.lambeck.pned.models.data.IDataElementChanges;
 import de.lambeck.pned.models.data.IDataModel;
 import de.lambeck.pned.models.data.IDataModelController;
 import de.lambeck.pned.models.data.validation.*;
 import de.lambeck.pned.models.gui.*;
+import de.lambeck.pned.models.gui.overlay.PerformanceHudOverlay;
+import de.lambeck.pned.monitoring.EEditorEventType;
+import de.lambeck.pned.monitoring.EditorEvents;
+import de.lambeck.pned.monitoring.EditorMetrics;
+import de.lambeck.pned.monitoring.EdtWatchdog;
+import de.lambeck.pned.monitoring.IEditorEvent;
+import de.lambeck.pned.monitoring.MBeanManager;
+import de.lambeck.pned.monitoring.StartupTimings;
 import de.lambeck.pned.util.ConsoleLogger;
+import de.lambeck.pned.util.logging.LogConfig;
+import de.lambeck.pned.util.logging.Logger;
 
 /**
  * Extends the abstract application controller. Observes the application (e.g.
@@ -51,11 +74,14 @@ import de.lambeck.pned.util.ConsoleLogger;
  *
  */
 public class ApplicationController extends AbstractApplicationController
-        implements IDataElementChanges, IGuiElementChanges {
+        implements IDataElementChanges, IGuiElementChanges, IPnmlFileChangeListener {
 
     /** Show debug messages? */
     private static boolean debug = false;
 
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(ApplicationController.class);
+
     /** The application title to begin with */
     private static String initialTitle = "Petri net Editor  —  Thomas Lambeck, MatrNr. 4128320";
 
@@ -106,11 +132,38 @@ public class ApplicationController extends AbstractApplicationController
      */
     private List<String> modifiedDataModels = new ArrayList<String>();
 
+    /**
+     * The journal of all edit operations since the models were last saved.
+     * (For the recovery after a crash.)
+     */
+    private EditJournal editJournal;
+
+    /** The watcher for changes of the open files by other programs */
+    private PnmlFileWatcher fileWatcher;
+
+    /**
+     * The external changes of files which were not active when the changes
+     * were detected. (Will be applied when the file is activated.)
+     */
+    private Map<String, IDataModel> pendingExternalChanges = new HashMap<String, IDataModel>();
+
+    /** The MXBeans for JConsole/VisualVM (statistics of editor and models) */
+    private MBeanManager mbeanManager;
+
+    /** Pages out the models of inactive tabs if the heap gets too full */
+    private ModelPager modelPager;
+
+    /** Show the performance HUD on all draw panels? */
+    private boolean performanceHudVisible = false;
+
     /* Validation controller and validators */
 
     /** Reference to the {@link ValidationController} */
     private ValidationController validationController;
 
+    /** Has the validation controller (thread) been started? */
+    private boolean validationControllerStarted = false;
+
     /**
      * The name of the {@link StartPlacesValidator} (for requests of individual
      * validations)
@@ -145,10 +198,14 @@ public class ApplicationController extends AbstractApplicationController
 
     /**
      * Constructs the application controller for the specified main frame
-     * (application window).
+     * (application window).<BR>
+     * <BR>
+     * Note: frame == null is allowed for a headless JVM (e.g. the replay of
+     * recorded sessions against the controllers): no menu, tool and status
+     * bar, no title.
      * 
      * @param frame
-     *            The main frame (window) of the application
+     *            The main frame (window) of the application; null for none
      * @param i18n
      *            The manager for localized strings
      * @param stBar
@@ -159,33 +216,41 @@ public class ApplicationController extends AbstractApplicationController
     @SuppressWarnings("hiding")
     public ApplicationController(JFrame frame, I18NManager i18n, StatusBar stBar) throws PNIllegalStateException {
         super(frame, i18n, stBar);
-        mainFrame.addComponentListener(new ComponentResizeListener(this));
+        if (mainFrame != null) {
+            mainFrame.addComponentListener(new ComponentResizeListener(this));
 
-        /*
-         * Replace the DefaultCloseOperation with the application controllers
-         * windowClosing() method to observe the state of the application.
-         */
-        mainFrame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
-        mainFrame.addWindowListener(this);
-        mainFrame.addWindowStateListener(this);
+            /*
+             * Replace the DefaultCloseOperation with the application
+             * controllers windowClosing() method to observe the state of the
+             * application.
+             */
+            mainFrame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+            mainFrame.addWindowListener(this);
+            mainFrame.addWindowStateListener(this);
+        }
 
         /* Add controllers */
         try {
             addControllers(i18n);
         } catch (PNIllegalStateException e) {
-            /* Remove all Listeners */
-            mainFrame.removeWindowStateListener(this);
-            mainFrame.removeWindowListener(this);
+            if (mainFrame != null) {
+                /* Remove all Listeners */
+                mainFrame.removeWindowStateListener(this);
+                mainFrame.removeWindowListener(this);
 
-            /* ...reset DefaultCloseOperation */
-            mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+                /* ...reset DefaultCloseOperation */
+                mainFrame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            }
 
             /* ...and quit */
             throw new PNIllegalStateException(e.getMessage(), e);
         }
+        StartupTimings.phaseFinished("Controllers and actions");
 
-        /* Add validators to the validation controller. */
-        addValidators(i18n);
+        /*
+         * Note: The validators are added (and the validation controller is
+         * started) with the first tab. See startValidationController()
+         */
 
         /*
          * Create and set up the content pane (BEFORE adding menu, tool and
@@ -197,20 +262,22 @@ public class ApplicationController extends AbstractApplicationController
         this.contentPane = new JPanel(new BorderLayout());
         this.contentPane.add(tabbedPane, BorderLayout.CENTER);
 
-        mainFrame.setContentPane(contentPane);
+        if (mainFrame != null) {
+            mainFrame.setContentPane(contentPane);
 
-        /* Add menu, tool and status bar. */
-        MenuBar menuBar = new MenuBar(frame, i18n, allActions);
-        mainFrame.setJMenuBar(menuBar);
+            /* Add menu, tool and status bar. */
+            MenuBar menuBar = new MenuBar(frame, i18n, allActions);
+            mainFrame.setJMenuBar(menuBar);
 
-        JToolBar toolBar = new PnedToolBar(this, i18n, allActions);
-        mainFrame.add(toolBar, BorderLayout.PAGE_START);
+            JToolBar toolBar = new PnedToolBar(this, i18n, allActions);
+            mainFrame.add(toolBar, BorderLayout.PAGE_START);
 
-        mainFrame.getContentPane().add(statusBar, BorderLayout.SOUTH);
+            mainFrame.getContentPane().add(statusBar, BorderLayout.SOUTH);
 
-        /* Additional settings */
-        Dimension preferredSize = getScreenDependingMinimumSize();
-        mainFrame.setPreferredSize(preferredSize);
+            /* Additional settings */
+            Dimension preferredSize = getScreenDependingMinimumSize();
+            mainFrame.setPreferredSize(preferredSize);
+        }
 
         /* CTRL+TAB switch tabs in a JTabbedPane */
         setupTabTraversalKeys(tabbedPane);
@@ -220,14 +287,16 @@ public class ApplicationController extends AbstractApplicationController
          * (CTRL+TAB) to cycle through the tabs.
          */
         this.tabbedPane.requestFocus();
+        StartupTimings.phaseFinished("Menu, tool and status bar");
 
         // TODO Create a HashMap with all names and messages in the current
         // language and pass only needed (already localized) Strings to
         // methods/other classes? (So that static methods as in FSInfo.java can
         // use localized messages.)
 
-        /* Start the validation controller (thread). */
-        this.validationController.start();
+        /* Replay the changes which were not saved in the last session. */
+        recoverEditJournals();
+        StartupTimings.phaseFinished("Recovery of edit journals");
     }
 
     /**
@@ -244,8 +313,14 @@ public class ApplicationController extends AbstractApplicationController
         this.allActions = this.actionManager.getAllActions();
         this.popupActions = this.actionManager.getPopupActions();
 
+        this.editJournal = new EditJournal(EditJournal.getDefaultJournalDir());
+        this.fileWatcher = new PnmlFileWatcher(this);
         this.dataModelController = new DataModelController(this, i18n);
         this.guiModelController = new GuiModelController(this, i18n, this.popupActions);
+        this.mbeanManager = new MBeanManager(this.dataModelController, this.guiModelController);
+        this.modelPager = new ModelPager(this.dataModelController, this.guiModelController);
+        EdtWatchdog.start();
+        SessionRecorder.startFromSystemProperty();
 
         try {
             this.validationController = new ValidationController(this.dataModelController, i18n);
@@ -259,6 +334,25 @@ public class ApplicationController extends AbstractApplicationController
         }
     }
 
+    /**
+     * Adds the validators and starts the {@link ValidationController} (thread)
+     * when the first tab is added.<BR>
+     * <BR>
+     * Note: Validators are not needed for the first frame (without open
+     * files).
+     */
+    private void startValidationController() {
+        if (this.validationControllerStarted)
+            return;
+        this.validationControllerStarted = true;
+
+        /* Add validators to the validation controller. */
+        addValidators(this.i18n);
+
+        /* Start the validation controller (thread). */
+        this.validationController.start();
+    }
+
     /**
      * Adds all necessary {@link IValidator} to the
      * {@link ValidationController}.
@@ -420,7 +514,15 @@ public class ApplicationController extends AbstractApplicationController
      */
     private void closeApplication() {
         this.validationController.interrupt();
-        mainFrame.dispose();
+        this.fileWatcher.shutdown();
+        this.editJournal.shutdown();
+        this.modelPager.shutdown();
+        this.mbeanManager.unregisterAll();
+        EdtWatchdog.stop();
+        SessionRecorder.stop();
+        LogConfig.flush();
+        if (mainFrame != null)
+            mainFrame.dispose();
         System.exit(0);
     }
 
@@ -491,6 +593,12 @@ public class ApplicationController extends AbstractApplicationController
 
         /* Update the current models/draw panels of data and GUI controller. */
         if (activeFile != null) {
+            /* Restore the models if they were paged out while inactive. */
+            if (!modelPager.modelActivated(activeFile)) {
+                pageInFailed(activeFile);
+                return;
+            }
+
             IDataModel newActiveDataModel = dataModelController.getDataModel(activeFile);
             if (newActiveDataModel == null) {
                 System.err.println("setActiveFile, DataModel for '" + activeFile + "' does not exist!");
@@ -521,6 +629,19 @@ public class ApplicationController extends AbstractApplicationController
         /* Update the Actions (buttons) */
         this.actionManager.enableActionsForOpenFiles(this.activeFile);
 
+        /* Apply external changes which were detected while inactive. */
+        if (activeFile != null && pendingExternalChanges.containsKey(activeFile)) {
+            final String modelName = activeFile;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    IDataModel reloadedModel = pendingExternalChanges.get(modelName);
+                    if (reloadedModel != null)
+                        externalPnmlFileChanged(modelName, reloadedModel);
+                }
+            });
+        }
+
         if (debug) {
             System.out.println("ApplicationController.setActiveFile, new active file: " + this.activeFile);
         }
@@ -533,6 +654,9 @@ public class ApplicationController extends AbstractApplicationController
      *            The full path name of the current PNML file
      */
     private void updateApplicationTitle(String fullName) {
+        if (mainFrame == null)
+            return; // No window (headless)
+
         String title = getAppTitleString(fullName);
         mainFrame.setTitle(title);
     }
@@ -581,12 +705,43 @@ public class ApplicationController extends AbstractApplicationController
         setActiveFile(tabIndex);
     }
 
+    /**
+     * Records the specified menu command (if a session is recorded).
+     * 
+     * @param command
+     *            The {@link ESessionCommand}
+     * @param values
+     *            The values of the command
+     */
+    private void recordCommand(ESessionCommand command, String... values) {
+        if (SessionRecorder.isRecording())
+            SessionRecorder.record(command, this.activeFile, values);
+    }
+
+    /**
+     * Records the specified menu command of a popup menu with the location of
+     * the popup menu (if a session is recorded).
+     * 
+     * @param command
+     *            The {@link ESessionCommand}
+     */
+    private void recordPopupCommand(ESessionCommand command) {
+        if (!SessionRecorder.isRecording())
+            return;
+
+        IDrawPanel drawPanel = guiModelController.getCurrentDrawPanel();
+        Point popupMenuLocation = (drawPanel == null) ? null : drawPanel.getPopupMenuLocation();
+        SessionRecorder.record(command, this.activeFile, popupMenuLocation);
+    }
+
     /* Implemented menu commands for the Actions */
 
     /**
      * Callback for {@link FileNewAction}, creates a new file.
      */
     public void menuCmd_FileNew() {
+        recordCommand(ESessionCommand.FILE_NEW);
+
         if (debug) {
             String testMsg = "Menu command: FileNew";
             setInfo_Status(testMsg, EStatusMessageLevel.INFO);
@@ -617,6 +772,8 @@ public class ApplicationController extends AbstractApplicationController
      *            The file chosen by the user
      */
     public void menuCmd_FileOpen(File pnmlFile) {
+        recordCommand(ESessionCommand.FILE_OPEN, (pnmlFile == null) ? "" : pnmlFile.getPath());
+
         if (debug) {
             String testMsg = "Menu command: FileOpen...";
             setInfo_Status(testMsg, EStatusMessageLevel.INFO);
@@ -639,6 +796,8 @@ public class ApplicationController extends AbstractApplicationController
      * Callback for {@link FileCloseAction}, closes the active file.
      */
     public void menuCmd_FileClose() {
+        recordCommand(ESessionCommand.FILE_CLOSE);
+
         if (debug) {
             String testMsg = "Menu command: FileClose";
             setInfo_Status(testMsg, EStatusMessageLevel.INFO);
@@ -658,6 +817,8 @@ public class ApplicationController extends AbstractApplicationController
      * Callback for {@link FileSaveAction}, saves the active file.
      */
     public void menuCmd_FileSave() {
+        recordCommand(ESessionCommand.FILE_SAVE);
+
         if (debug) {
             String testMsg = "Menu command: FileSave";
             setInfo_Status(testMsg, EStatusMessageLevel.INFO);
@@ -688,6 +849,8 @@ public class ApplicationController extends AbstractApplicationController
      *            The file chosen by the user
      */
     public void menuCmd_FileSaveAs(File pnmlFile) {
+        recordCommand(ESessionCommand.FILE_SAVE_AS, (pnmlFile == null) ? "" : pnmlFile.getPath());
+
         if (debug) {
             String testMsg = "Menu command: FileSaveAs...";
             setInfo_Status(testMsg, EStatusMessageLevel.INFO);
@@ -711,6 +874,8 @@ public class ApplicationController extends AbstractApplicationController
      * Callback for {@link AppExitAction}, closes the application
      */
     public void menuCmd_AppExit() {
+        recordCommand(ESessionCommand.APP_EXIT);
+
         if (debug) {
             String testMsg = "Menu command: AppExit";
             setInfo_Status(testMsg, EStatusMessageLevel.INFO);
@@ -732,6 +897,8 @@ public class ApplicationController extends AbstractApplicationController
      * {@link EditUndoAction}.
      */
     public void menuCmd_EditUndo() {
+        recordCommand(ESessionCommand.EDIT_UNDO);
+
         if (debug) {
             String testMsg = "Menu command: EditUndo";
             setInfo_Status(testMsg, EStatusMessageLevel.INFO);
@@ -759,6 +926,8 @@ public class ApplicationController extends AbstractApplicationController
      * {@link EditRedoAction}.
      */
     public void menuCmd_EditRedo() {
+        recordCommand(ESessionCommand.EDIT_REDO);
+
         if (debug) {
             String testMsg = "Menu command: EditRedo";
             setInfo_Status(testMsg, EStatusMessageLevel.INFO);
@@ -786,6 +955,8 @@ public class ApplicationController extends AbstractApplicationController
      * Petri net.
      */
     public void menuCmd_EditRename() {
+        recordCommand(ESessionCommand.EDIT_RENAME);
+
         if (!isFileOpen())
             return;
 
@@ -806,6 +977,8 @@ public class ApplicationController extends AbstractApplicationController
      * Petri net.
      */
     public void menuCmd_EditDelete() {
+        recordCommand(ESessionCommand.EDIT_DELETE);
+
         if (!isFileOpen())
             return;
 
@@ -826,6 +999,8 @@ public class ApplicationController extends AbstractApplicationController
      * the current {@link IGuiModel}/{@link IDrawPanel}.
      */
     public void menuCmd_SelectAll() {
+        recordCommand(ESessionCommand.SELECT_ALL);
+
         if (!isFileOpen())
             return;
 
@@ -846,6 +1021,8 @@ public class ApplicationController extends AbstractApplicationController
      * {@link IGuiElement} to the foreground.
      */
     public void menuCmd_ElementToTheForeground() {
+        recordCommand(ESessionCommand.ELEMENT_TO_THE_FOREGROUND);
+
         if (!isFileOpen())
             return;
 
@@ -866,6 +1043,8 @@ public class ApplicationController extends AbstractApplicationController
      * {@link IGuiElement} to the foreground.
      */
     public void menuCmd_ElementToTheBackground() {
+        recordCommand(ESessionCommand.ELEMENT_TO_THE_BACKGROUND);
+
         if (!isFileOpen())
             return;
 
@@ -886,6 +1065,8 @@ public class ApplicationController extends AbstractApplicationController
      * {@link IGuiElement} 1 layer up.
      */
     public void menuCmd_ElementOneLayerUp() {
+        recordCommand(ESessionCommand.ELEMENT_ONE_LAYER_UP);
+
         if (!isFileOpen())
             return;
 
@@ -906,6 +1087,8 @@ public class ApplicationController extends AbstractApplicationController
      * {@link IGuiElement} 1 layer down.
      */
     public void menuCmd_ElementOneLayerDown() {
+        recordCommand(ESessionCommand.ELEMENT_ONE_LAYER_DOWN);
+
         if (!isFileOpen())
             return;
 
@@ -926,6 +1109,8 @@ public class ApplicationController extends AbstractApplicationController
      * the current {@link IGuiModel}.
      */
     public void menuCmd_NewPlace() {
+        recordPopupCommand(ESessionCommand.NEW_PLACE);
+
         /* Called only from popup menus */
         guiModelController.createNewPlaceInCurrentGuiModel();
     }
@@ -935,6 +1120,8 @@ public class ApplicationController extends AbstractApplicationController
      * {@link GuiTransition} in the current {@link IGuiModel}.
      */
     public void menuCmd_NewTransition() {
+        recordPopupCommand(ESessionCommand.NEW_TRANSITION);
+
         /* Called only from popup menus */
         guiModelController.createNewTransitionInCurrentGuiModel();
     }
@@ -944,6 +1131,8 @@ public class ApplicationController extends AbstractApplicationController
      * source of the new {@link IGuiArc} in the current {@link IGuiModel}.
      */
     public void menuCmd_NewArcFromHere() {
+        recordPopupCommand(ESessionCommand.NEW_ARC_FROM_HERE);
+
         /* Called only from popup menus */
         guiModelController.checkActivateDrawArcMode();
     }
@@ -954,7 +1143,7 @@ public class ApplicationController extends AbstractApplicationController
      * location.
      */
     public void menuCmd_FireTransition() {
-        /* Called only from popup menus */
+        /* Called only from popup menus (recorded by the GUI controller) */
         guiModelController.fireGuiTransition();
     }
 
@@ -963,6 +1152,8 @@ public class ApplicationController extends AbstractApplicationController
      * tokens and enabled transitions.
      */
     public void menuCmd_StopSimulation() {
+        recordCommand(ESessionCommand.STOP_SIMULATION);
+
         if (!isFileOpen())
             return;
 
@@ -985,6 +1176,48 @@ public class ApplicationController extends AbstractApplicationController
         setInfo_Status(message, EStatusMessageLevel.INFO);
     }
 
+    /**
+     * Callback for {@link ViewPerformanceHudAction}, shows or hides the
+     * performance HUD on all draw panels. (Also on draw panels for files which
+     * will be opened later.)
+     * 
+     * @param visible
+     *            True = show the HUD; false = hide the HUD
+     */
+    public void menuCmd_ViewPerformanceHud(boolean visible) {
+        recordCommand(ESessionCommand.VIEW_PERFORMANCE_HUD, Boolean.toString(visible));
+
+        if (debug) {
+            String testMsg = "Menu command: ViewPerformanceHud (" + visible + ")";
+            setInfo_Status(testMsg, EStatusMessageLevel.INFO);
+            System.out.println(testMsg);
+        }
+
+        this.performanceHudVisible = visible;
+
+        for (String modelName : fileList) {
+            IDrawPanel drawPanel = guiModelController.getDrawPanel(modelName);
+            if (drawPanel != null)
+                updatePerformanceHud(drawPanel);
+        }
+    }
+
+    /**
+     * Shows or hides the performance HUD on the specified draw panel
+     * (depending on the current setting).
+     * 
+     * @param drawPanel
+     *            The {@link IDrawPanel}
+     */
+    private void updatePerformanceHud(IDrawPanel drawPanel) {
+        if (!performanceHudVisible) {
+            drawPanel.setPerformanceHud(null);
+        } else if (!drawPanel.isPerformanceHudVisible()) {
+            drawPanel.setPerformanceHud(
+                    new PerformanceHudOverlay(drawPanel, dataModelController, guiModelController));
+        }
+    }
+
     /**
      * Scrolls the current {@link IDrawPanel} so that start place and enabled
      * transitions are visible.<BR>
@@ -1001,23 +1234,28 @@ public class ApplicationController extends AbstractApplicationController
         waitForCurrentDataModelChecked();
 
         Rectangle startPlaceArea = guiModelController.getCurrentGuiModelStartPlaceArea();
-        ConsoleLogger.logIfDebug(debug, "startPlaceArea: " + startPlaceArea);
+        if (logger.isDebugEnabled()) {
+            logger.debug("startPlaceArea: " + startPlaceArea);
+        }
         if (startPlaceArea == null)
             return;
 
         List<Rectangle> enabledTransitionsAreas = guiModelController.getCurrentGuiModelEnabledTransitionsAreas();
-        ConsoleLogger.logIfDebug(debug, "enabledTransitionsAreas: " + enabledTransitionsAreas);
+        if (logger.isDebugEnabled()) {
+            logger.debug("enabledTransitionsAreas: " + enabledTransitionsAreas);
+        }
 
         Rectangle aRect = startPlaceArea;
         if (enabledTransitionsAreas != null)
             aRect = combineAreas(aRect, enabledTransitionsAreas);
 
-        IDrawPanel drawPanel = getCurrentDrawPanel();
+        IDrawPanel drawPanel = guiModelController.getCurrentDrawPanel();
         /* This draw panel can be scrolled within the parent JViewPort. */
         if (drawPanel == null)
             return;
 
-        ((JPanel) drawPanel).scrollRectToVisible(aRect);
+        /* The draw panel might be zoomed. */
+        ((JPanel) drawPanel).scrollRectToVisible(drawPanel.modelToView(aRect));
     }
 
     /**
@@ -1034,23 +1272,32 @@ public class ApplicationController extends AbstractApplicationController
         boolean modelChecked = false;
 
         modelChecked = dataModelController.getCurrentModel().isModelChecked();
-        for (int i = 0; i < MAX_CYCLES; i++) {
-            /* Data model was checked already? */
-            if (modelChecked)
-                return;
+        if (modelChecked)
+            return;
 
-            /* Wait */
-            try {
-                // Thread.sleep(CHECK_INTERVAL);
-                java.util.concurrent.TimeUnit.MILLISECONDS.sleep(CHECK_INTERVAL);
-            } catch (InterruptedException e) {
-                return;
+        EdtWatchdog.beginOperation("Wait for the validation of " + activeFile);
+        try {
+            for (int i = 0; i < MAX_CYCLES; i++) {
+                /* Data model was checked already? */
+                if (modelChecked)
+                    return;
+
+                /* Wait */
+                try {
+                    // Thread.sleep(CHECK_INTERVAL);
+                    java.util.concurrent.TimeUnit.MILLISECONDS.sleep(CHECK_INTERVAL);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Waited " + CHECK_INTERVAL + " ms.");
+                }
+
+                /* Check again */
+                modelChecked = dataModelController.getCurrentModel().isModelChecked();
             }
-            String message = "Waited " + CHECK_INTERVAL + " ms.";
-            ConsoleLogger.logIfDebug(debug, message);
-
-            /* Check again */
-            modelChecked = dataModelController.getCurrentModel().isModelChecked();
+        } finally {
+            EdtWatchdog.endOperation();
         }
     }
 
@@ -1065,66 +1312,22 @@ public class ApplicationController extends AbstractApplicationController
      * @return A {@link Rectangle} that contains all specified areas
      */
     private Rectangle combineAreas(Rectangle startArea, List<Rectangle> areasToAdd) {
-        ConsoleLogger.logIfDebug(debug, "startArea: " + startArea.toString());
+        if (logger.isDebugEnabled()) {
+            logger.debug("startArea: " + startArea.toString());
+        }
 
         Rectangle resultArea = startArea;
         for (Rectangle r : areasToAdd) {
-            ConsoleLogger.logIfDebug(debug, "Adding: " + r.toString());
+            if (logger.isDebugEnabled()) {
+                logger.debug("Adding: " + r.toString());
+            }
             resultArea.add(r);
         }
 
-        ConsoleLogger.logIfDebug(debug, "resultArea: " + resultArea.toString());
-        return resultArea;
-    }
-
-    /**
-     * Returns the current {@link IDrawPanel}. This is the draw panel on the
-     * current tab.
-     * 
-     * @return {@link IDrawPanel} or null on errors
-     */
-    private IDrawPanel getCurrentDrawPanel() {
-        Component component = tabbedPane.getSelectedComponent();
-        component = tabbedPane.getSelectedComponent();
-
-        Component scrollPaneCandidate = component.getComponentAt(1, 1);
-        // System.out.println(scrollPaneCandidate.toString());
-
-        JScrollPane scrollPane = null;
-        if (scrollPaneCandidate instanceof JScrollPane) {
-            scrollPane = (JScrollPane) scrollPaneCandidate;
-        }
-        if (scrollPane == null) {
-            System.err.println("Could not determine the JScrollPane!");
-            return null;
-        }
-        // scrollPane.getViewport().setViewPosition(new Point(0, 0));
-
-        Component viewPortCandidate = scrollPane.getComponentAt(1, 1);
-        // System.out.println(viewPortCandidate.toString());
-
-        JViewport viewPort = null;
-        if (viewPortCandidate instanceof JViewport) {
-            viewPort = (JViewport) viewPortCandidate;
+        if (logger.isDebugEnabled()) {
+            logger.debug("resultArea: " + resultArea.toString());
         }
-        if (viewPort == null) {
-            System.err.println("Could not determine the JViewport!");
-            return null;
-        }
-
-        Component drawPanelCandidate = viewPortCandidate.getComponentAt(1, 1);
-        // System.out.println(drawPanelCandidate.toString());
-
-        IDrawPanel drawPanel = null;
-        if (drawPanelCandidate instanceof IDrawPanel) {
-            drawPanel = (IDrawPanel) drawPanelCandidate;
-        }
-        if (drawPanel == null) {
-            System.err.println("Could not determine the IDrawPanel!");
-            return null;
-        }
-
-        return drawPanel;
+        return resultArea;
     }
 
     /**
@@ -1186,6 +1389,8 @@ public class ApplicationController extends AbstractApplicationController
 
         /* Add the draw panel to a scroll pane on a new tab. */
         addTabForDrawPanel(drawPanel, validationMessagesPanel, fullName, displayName);
+
+        mbeanManager.modelAdded(fullName);
     }
 
     /**
@@ -1263,6 +1468,11 @@ public class ApplicationController extends AbstractApplicationController
         IValidationMsgPanel validationMessagesPanel = dataModelController.getValidationMessagePanel(canonicalPath);
 
         addTabForDrawPanel(drawPanel, validationMessagesPanel, canonicalPath, displayName);
+
+        /* Watch the file for changes by other programs. */
+        fileWatcher.watch(canonicalPath);
+
+        mbeanManager.modelAdded(canonicalPath);
     }
 
     /**
@@ -1283,6 +1493,9 @@ public class ApplicationController extends AbstractApplicationController
      */
     private void addTabForDrawPanel(DrawPanel drawPanel, IValidationMsgPanel validationMsgPanel, String fullName,
             String displayName) {
+        /* The first tab needs the validators. */
+        startValidationController();
+
         /*
          * Add the path to the list of files. Use the (unique) canonical path
          * name if the file is a file on the file system.
@@ -1298,6 +1511,7 @@ public class ApplicationController extends AbstractApplicationController
         /* Add the draw panel to a scroll pane on a new tab. */
         JScrollPane scrollPanel = new JScrollPane();
         scrollPanel.setViewportView(drawPanel);
+        updatePerformanceHud(drawPanel);
 
         JPanel documentPanel = new JPanel(new BorderLayout());
         documentPanel.add(scrollPanel, BorderLayout.CENTER);
@@ -1512,6 +1726,34 @@ public class ApplicationController extends AbstractApplicationController
         return result;
     }
 
+    /**
+     * Informs the user that the models of the specified file could not be
+     * paged in and closes its tab. (The controllers have released the models
+     * when paging out, so the tab cannot be used anymore.)<BR>
+     * <BR>
+     * Note: The tab is closed later because closing it activates another tab
+     * (setActiveFile() is running).
+     * 
+     * @param modelName
+     *            The name of the model
+     */
+    private void pageInFailed(final String modelName) {
+        String message = i18n.getMessage("errPageInFailed").replace("%modelName%", modelName);
+        System.err.println(message);
+
+        if (mainFrame != null && !GraphicsEnvironment.isHeadless()) {
+            String title = ApplicationController.initialTitle;
+            JOptionPane.showMessageDialog(mainFrame, message, title, JOptionPane.ERROR_MESSAGE);
+        }
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                disposeFile(modelName);
+            }
+        });
+    }
+
     /**
      * Disposes the specified file (tab, draw panel, data and GUI model) without
      * further questions.
@@ -1546,6 +1788,13 @@ public class ApplicationController extends AbstractApplicationController
          * appController.setActiveFile(tabIndex).
          */
 
+        /* Stop watching the file. */
+        fileWatcher.unwatch(modelName);
+        pendingExternalChanges.remove(modelName);
+
+        mbeanManager.modelRemoved(modelName);
+        modelPager.modelRemoved(modelName);
+
         /* Dispose data model and GUI model (+ draw panel) */
         dataModelController.removeDataModel(modelName);
         guiModelController.removeGuiModel(modelName);
@@ -1767,7 +2016,7 @@ public class ApplicationController extends AbstractApplicationController
 
     /**
      * Sends the content of the specified {@link IDataModel} to the
-     * {@link PNMLWriter}.
+     * {@link PNMLModelWriter}.
      * 
      * @param model
      *            The specified model
@@ -1783,87 +2032,37 @@ public class ApplicationController extends AbstractApplicationController
         if (isParamUndefined(saveAsFullName, "writeToPnmlFile", "saveAsFullName"))
             return ExitCode.UNEXPECTED_ERROR;
 
-        PNMLWriter writer = getPnmlWriter(saveAsFullName);
-        if (isParamUndefined(writer, "writeToPnmlFile", "writer"))
-            return ExitCode.UNEXPECTED_ERROR;
-
         /*
-         * Start the document
+         * Write the document
          * 
          * Exit codes of the writer: 0 if completed without errors; 1 on IO
          * errors; 2 on XML errors
          */
-        int returnValue = writer.startXMLDocument();
-        if (returnValue > 0)
-            return ExitCode.OPERATION_FAILED;
-
-        /* Get the List with all elements. */
-        List<IDataElement> dataElements = model.getElements();
-
-        /* Write all places in this model */
-        for (IDataElement element : dataElements) {
-            if (element instanceof DataPlace) {
-                String id = element.getId();
-                String label = ((DataPlace) element).getName();
-                String xPosition = Integer.toString(((DataPlace) element).getPosition().x);
-                String yPosition = Integer.toString(((DataPlace) element).getPosition().y);
-                String initialTokens = ((DataPlace) element).getTokensCount().toPnedString();
-
-                returnValue = writer.addPlace(id, label, xPosition, yPosition, initialTokens);
-                if (returnValue > 0)
-                    return ExitCode.OPERATION_FAILED;
-            }
-        }
-
-        /* Write all transitions in this model */
-        for (IDataElement element : dataElements) {
-            if (element instanceof DataTransition) {
-                String id = element.getId();
-                String label = ((DataTransition) element).getName();
-                String xPosition = Integer.toString(((DataTransition) element).getPosition().x);
-                String yPosition = Integer.toString(((DataTransition) element).getPosition().y);
-
-                returnValue = writer.addTransition(id, label, xPosition, yPosition);
-                if (returnValue > 0)
-                    return ExitCode.OPERATION_FAILED;
-            }
-        }
-
-        /* Write all arcs in this model */
-        for (IDataElement element : dataElements) {
-            if (element instanceof DataArc) {
-                String id = element.getId();
-                String source = ((DataArc) element).getSourceId();
-                String target = ((DataArc) element).getTargetId();
-
-                returnValue = writer.addArc(id, source, target);
-                if (returnValue > 0)
-                    return ExitCode.OPERATION_FAILED;
-            }
+        File pnml = new File(saveAsFullName);
+        IEditorEvent event = EditorEvents.begin(EEditorEventType.SAVE);
+        long start = System.nanoTime();
+        int returnValue;
+        EdtWatchdog.beginOperation("Save " + saveAsFullName);
+        try {
+            returnValue = PNMLModelWriter.write(model, pnml);
+        } finally {
+            EdtWatchdog.endOperation();
         }
-
-        /* Finish the document */
-        int result = writer.finishXMLDocument();
-        if (result > 0)
+        EditorMetrics.recordSave(System.nanoTime() - start);
+        event.commit(saveAsFullName, model.getElementsView().size(), Integer.toString(returnValue));
+        if (returnValue != 0)
             return ExitCode.OPERATION_FAILED;
 
         /* Reset the modified state of this data model! */
         model.setModified(false, false);
 
-        return ExitCode.OPERATION_SUCCESSFUL;
-    }
+        /* The PNML file contains all journaled changes now. */
+        editJournal.discard(model.getModelName());
 
-    /**
-     * Returns a writer for PNML files.
-     * 
-     * @param saveAsFullName
-     *            The full path name of the file to be written
-     * @return {@link PNMLWriter} initialized with the specified file.
-     */
-    private PNMLWriter getPnmlWriter(String saveAsFullName) {
-        File pnml = new File(saveAsFullName);
-        PNMLWriter writer = new PNMLWriter(pnml);
-        return writer;
+        /* This is not an external change. */
+        fileWatcher.fileWritten(FSInfo.getCanonicalPath(saveAsFullName));
+
+        return ExitCode.OPERATION_SUCCESSFUL;
     }
 
     /**
@@ -1959,6 +2158,14 @@ public class ApplicationController extends AbstractApplicationController
          */
 
         updateTabInfo(modelName, canonicalPath, displayName);
+
+        /* Watch the new file instead of the old file. */
+        fileWatcher.unwatch(modelName);
+        pendingExternalChanges.remove(modelName);
+        fileWatcher.watch(canonicalPath);
+
+        mbeanManager.modelRenamed(modelName, canonicalPath);
+        modelPager.modelRenamed(modelName, canonicalPath);
     }
 
     /**
@@ -2008,7 +2215,7 @@ public class ApplicationController extends AbstractApplicationController
      */
     private boolean isFileOpen() {
         if (this.activeFile == null || this.activeFile.equals("")) {
-            ConsoleLogger.logIfDebug(debug, "No file open.");
+            logger.debug("No file open.");
             return false;
         }
 
@@ -2198,6 +2405,292 @@ public class ApplicationController extends AbstractApplicationController
         ApplicationController.debug = b;
     }
 
+    /* Edit journal */
+
+    /**
+     * @return The {@link EditJournal} for all edit operations since the models
+     *         were last saved
+     */
+    public EditJournal getEditJournal() {
+        return this.editJournal;
+    }
+
+    /* Session replay */
+
+    /**
+     * Activates the tab of the specified model. (For the replay of recorded
+     * sessions.)
+     * 
+     * @param modelName
+     *            The name of the model
+     * @return true if the model is the active model now; false if there is no
+     *         tab for this model
+     */
+    public boolean activateFile(String modelName) {
+        if (modelName.equals(this.activeFile))
+            return true;
+
+        if (getTabIndexForFile(modelName) == -1)
+            return false;
+
+        activateTabForFile(modelName);
+        return true;
+    }
+
+    /**
+     * @return The {@link IGuiModelController} (for the replay of the mouse
+     *         commands of recorded sessions)
+     */
+    public IGuiModelController getGuiModelController() {
+        return this.guiModelController;
+    }
+
+    /**
+     * Replays all journals which were left over by the previous session (e.g.
+     * after a crash) on the last saved version of their files.
+     */
+    private void recoverEditJournals() {
+        List<RecoveredJournal> journals = editJournal.getRecoverableJournals();
+        for (RecoveredJournal journal : journals) {
+            recoverEditJournal(journal);
+        }
+
+        /* Update the Actions (buttons) */
+        if (journals.size() > 0)
+            this.actionManager.enableActionsForOpenFiles(this.activeFile);
+    }
+
+    /**
+     * Opens the last saved version of the file (or a new file if the model
+     * was never saved) and replays the specified journal on it.
+     * 
+     * @param journal
+     *            The {@link RecoveredJournal}
+     */
+    private void recoverEditJournal(RecoveredJournal journal) {
+        String modelName = journal.getModelName();
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("ApplicationController.recoverEditJournal", modelName);
+        }
+
+        /* The replayed entries are written into a new journal. */
+        editJournal.discard(modelName);
+
+        if (FSInfo.isFileSystemFile(modelName)) {
+            addNewModelFromFile(new File(modelName));
+            if (!fileList.contains(modelName))
+                return; // File not accepted (Message already shown.)
+        } else {
+            addNewEmptyFile();
+            refreshActiveFile();
+        }
+
+        /*
+         * Replay all entries like user input: through the GUI model controller
+         * which passes all changes to the data model.
+         */
+        List<EditJournalEntry> entries = journal.getEntries();
+        for (EditJournalEntry entry : entries) {
+            replayJournalEntry(entry);
+        }
+
+        String message = i18n.getMessage("infoJournalRecovered");
+        message = message.replace("%number%", Integer.toString(entries.size()));
+        message = message.replace("%fullName%", this.activeFile);
+        if (debug) {
+            System.out.println(message);
+        }
+        setInfo_Status(message, EStatusMessageLevel.INFO);
+    }
+
+    /**
+     * Replays one {@link EditJournalEntry} on the current models.
+     * 
+     * @param entry
+     *            The {@link EditJournalEntry}
+     */
+    private void replayJournalEntry(EditJournalEntry entry) {
+        String id = entry.getId();
+        List<String> placeIds;
+
+        switch (entry.getOperation()) {
+        case PLACE:
+            guiModelController.addPlaceToCurrentGuiModel(id, entry.getName(), entry.getTokens(), entry.getPosition());
+            break;
+
+        case TRANSITION:
+            guiModelController.addTransitionToCurrentGuiModel(id, entry.getName(), entry.getPosition());
+            break;
+
+        case ARC:
+            guiModelController.addArcToCurrentGuiModel(id, entry.getSourceId(), entry.getTargetId());
+            break;
+
+        case REMOVE:
+            /* Adjacent arcs of removed nodes have been removed already. */
+            if (isElementInCurrentDataModel(id))
+                guiModelController.removeGuiElement(id);
+            break;
+
+        case MOVE:
+            guiModelController.moveGuiNode(id, entry.getPosition());
+            break;
+
+        case RENAME:
+            guiModelController.renameGuiNode(id, entry.getName());
+            break;
+
+        case MARKING:
+            placeIds = new ArrayList<String>();
+            placeIds.add(id);
+            if (entry.getTokens() == EPlaceToken.ONE) {
+                dataModelController.addDataToken(this.activeFile, placeIds);
+            } else {
+                dataModelController.removeDataToken(this.activeFile, placeIds);
+            }
+
+            /*
+             * addDataToken() and removeDataToken() neither journal nor mark the
+             * model as modified. (A 2nd crash must not lose the marking!)
+             */
+            editJournal.append(this.activeFile, entry);
+            dataModelController.getCurrentModel().setModified(true, false);
+            break;
+
+        case CLEAR:
+            /* Removing all nodes removes all arcs as well. */
+            for (IDataElement element : dataModelController.getCurrentModel().getElements()) {
+                if (element instanceof IDataNode)
+                    guiModelController.removeGuiElement(element.getId());
+            }
+            break;
+
+        default:
+            System.err.println("Unknown journal operation: " + entry.getOperation());
+        }
+    }
+
+    /**
+     * Checks if the current {@link IDataModel} contains the specified element.
+     * 
+     * @param id
+     *            The id of the element
+     * @return True if the element exists; otherwise false
+     */
+    private boolean isElementInCurrentDataModel(String id) {
+        try {
+            dataModelController.getCurrentModel().getElementById(id);
+        } catch (PNNoSuchElementException e) {
+            return false;
+        }
+        return true;
+    }
+
+    /* External changes */
+
+    @Override
+    public void externalPnmlFileChanged(String modelName, IDataModel reloadedModel) {
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("ApplicationController.externalPnmlFileChanged", modelName);
+        }
+
+        if (!fileList.contains(modelName))
+            return; // Closed in the meantime
+
+        /* Changes are applied to the current models only. */
+        if (!modelName.equals(this.activeFile)) {
+            pendingExternalChanges.put(modelName, reloadedModel);
+            return;
+        }
+        pendingExternalChanges.remove(modelName);
+
+        DataModelDiff diff = new DataModelDiff(dataModelController.getCurrentModel(), reloadedModel);
+        if (diff.isEmpty())
+            return;
+
+        /* Ask before we overwrite unsaved changes. */
+        if (dataModelController.isModifiedDataModel(modelName)) {
+            String title = i18n.getNameOnly("ExternalChanges");
+            String question = i18n.getMessage("questionApplyExternalChanges");
+            question = question.replace("%fullName%", modelName);
+            int messageType = JOptionPane.YES_NO_OPTION;
+
+            Toolkit.getDefaultToolkit().beep();
+            int answer = JOptionPane.showConfirmDialog(mainFrame, question, title, messageType);
+            if (answer != JOptionPane.YES_OPTION)
+                return;
+        }
+
+        applyExternalChanges(diff);
+
+        /* The models are equal to the file now. */
+        dataModelController.resetModifiedDataModel(modelName);
+        guiModelController.resetModifiedGuiModel(modelName);
+        editJournal.discard(modelName);
+        enableUndoRedoActions();
+
+        String message = i18n.getMessage("infoExternalChangesApplied");
+        message = message.replace("%number%", Integer.toString(diff.getChangesCount()));
+        message = message.replace("%fullName%", modelName);
+        if (debug) {
+            System.out.println(message);
+        }
+        setInfo_Status(message, EStatusMessageLevel.INFO);
+    }
+
+    /**
+     * Applies the specified {@link DataModelDiff} on the current models as one
+     * undoable edit.<BR>
+     * <BR>
+     * Note: All changes are passed through the GUI model controller (like user
+     * input) which passes them to the data model.
+     * 
+     * @param diff
+     *            The {@link DataModelDiff}
+     */
+    private void applyExternalChanges(DataModelDiff diff) {
+        guiModelController.makeCurrentModelUndoable();
+
+        for (String id : diff.getRemovedIds()) {
+            /* Adjacent arcs of removed nodes have been removed already. */
+            if (isElementInCurrentDataModel(id))
+                guiModelController.removeGuiElement(id);
+        }
+
+        for (IDataElement element : diff.getAddedElements()) {
+            if (element instanceof DataPlace) {
+                DataPlace place = (DataPlace) element;
+                guiModelController.addPlaceToCurrentGuiModel(place.getId(), place.getName(), place.getTokensCount(),
+                        place.getPosition());
+            } else if (element instanceof DataTransition) {
+                DataTransition transition = (DataTransition) element;
+                guiModelController.addTransitionToCurrentGuiModel(transition.getId(), transition.getName(),
+                        transition.getPosition());
+            } else if (element instanceof DataArc) {
+                DataArc arc = (DataArc) element;
+                guiModelController.addArcToCurrentGuiModel(arc.getId(), arc.getSourceId(), arc.getTargetId());
+            }
+        }
+
+        for (Map.Entry<String, Point> entry : diff.getMovedNodes().entrySet()) {
+            guiModelController.moveGuiNode(entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, String> entry : diff.getRenamedNodes().entrySet()) {
+            guiModelController.renameGuiNode(entry.getKey(), entry.getValue());
+        }
+
+        for (Map.Entry<String, EPlaceToken> entry : diff.getChangedMarkings().entrySet()) {
+            List<String> placeIds = new ArrayList<String>();
+            placeIds.add(entry.getKey());
+            if (entry.getValue() == EPlaceToken.ONE) {
+                dataModelController.addDataToken(this.activeFile, placeIds);
+            } else {
+                dataModelController.removeDataToken(this.activeFile, placeIds);
+            }
+        }
+    }
+
     /* Callbacks for updates between data model and GUI controller */
 
     /* Interface IDataElementChanges */
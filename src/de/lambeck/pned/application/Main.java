@@ -1,6 +1,8 @@
 package de.lambeck.pned.application;
 
 import java.awt.Dimension;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.Locale;
 
 import javax.swing.JFrame;
@@ -11,6 +13,8 @@ import javax.swing.UnsupportedLookAndFeelException;
 import de.lambeck.pned.exceptions.PNIllegalStateException;
 import de.lambeck.pned.gui.statusBar.StatusBar;
 import de.lambeck.pned.i18n.I18NManager;
+import de.lambeck.pned.monitoring.EdtWatchdog;
+import de.lambeck.pned.monitoring.StartupTimings;
 
 /**
  * Application start. Can use the language code and country code specified by
@@ -64,6 +68,7 @@ public class Main {
 
         /* Turn off metal's use of bold fonts */
         UIManager.put("swing.boldMetal", Boolean.FALSE);
+        StartupTimings.phaseFinished("Look and feel");
 
         /* Create and set up the window. */
         JFrame frame = new JFrame(initialTitle);
@@ -75,12 +80,14 @@ public class Main {
          */
         I18NManager i18n = new I18NManager(locale);
         StatusBar statusBar = new StatusBar(i18n);
+        StartupTimings.phaseFinished("I18N and status bar");
 
         /* Add the application controller. */
         try {
             @SuppressWarnings("unused")
             ApplicationController appController = new ApplicationController(frame, i18n, statusBar);
         } catch (PNIllegalStateException e) {
+            EdtWatchdog.stop();
             i18n = null;
             statusBar = null;
             frame.dispose();
@@ -88,8 +95,21 @@ public class Main {
         }
 
         /* Display the window. */
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowOpened(WindowEvent e) {
+                /* After the first paint: the window is interactive now. */
+                SwingUtilities.invokeLater(new Runnable() {
+                    @Override
+                    public void run() {
+                        StartupTimings.firstFrameShown();
+                    }
+                });
+            }
+        });
         frame.pack();
         frame.setVisible(true);
+        StartupTimings.phaseFinished("Pack and show");
     }
 
     /**
@@ -100,6 +120,8 @@ public class Main {
      *            Language code and country code for the GUI
      */
     public static void main(String[] args) {
+        StartupTimings.begin();
+
         /* Determine the Locale from the first two parameters. */
         currentLocale = getLocale(args);
 
@@ -4,7 +4,7 @@ import javax.swing.JTabbedPane;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
-import de.lambeck.pned.util.ConsoleLogger;
+import de.lambeck.pned.util.logging.Logger;
 
 /**
  * ChangeListener for the JTabbedPane. Changes the application title according
@@ -18,6 +18,9 @@ public class TabListener implements ChangeListener {
     /** Show debug messages? */
     private static boolean debug = false;
 
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(TabListener.class);
+
     /** Reference to the {@link ApplicationController} */
     protected ApplicationController appController = null;
 
@@ -54,9 +57,8 @@ public class TabListener implements ChangeListener {
         appController.setActiveFile(tabIndex); // This might be an actual index
                                                // or -1.
 
-        if (tabIndex >= 0) {
-            String message = "TabListener, new active tab index: " + tabIndex;
-            ConsoleLogger.logIfDebug(debug, message);
+        if (tabIndex >= 0 && logger.isDebugEnabled()) {
+            logger.debug("TabListener, new active tab index: " + tabIndex);
         }
     }
 
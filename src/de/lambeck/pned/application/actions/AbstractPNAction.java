@@ -1,6 +1,8 @@
 package de.lambeck.pned.application.actions;
 
+import java.awt.GraphicsEnvironment;
 import java.awt.Toolkit;
+import java.awt.event.InputEvent;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
@@ -37,7 +39,9 @@ public abstract class AbstractPNAction extends AbstractAction {
 
     /** The accelerator key for menu shortcuts */
     /* docs.oracle.com: By default, this method returns Event.CTRL_MASK */
-    protected static final int SHORTCUT_KEY_MASK = Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
+    /* (Throws a HeadlessException without a display: session replay etc.) */
+    protected static final int SHORTCUT_KEY_MASK = GraphicsEnvironment.isHeadless() ? InputEvent.CTRL_DOWN_MASK
+            : Toolkit.getDefaultToolkit().getMenuShortcutKeyMask();
 
     /** Variable icon size, but equal for all menu/tool bar items */
     protected static EIconSize imagesSize = EIconSize.MEDIUM;
@@ -84,7 +88,8 @@ public abstract class AbstractPNAction extends AbstractAction {
      * Note: This method should only be invoked by subclasses.
      */
     public final void customize() {
-        ImageIcon icon = ImageIconCreator.getScaledImageIcon(iconPath, iconName, imagesSize.getValue());
+        /* Loaded on first use (e.g. when the menu is shown) */
+        ImageIcon icon = ImageIconCreator.getLazyScaledImageIcon(iconPath, iconName, imagesSize.getValue());
         if (icon != null) {
             // this.putValue(LARGE_ICON_KEY, icon);
             this.putValue(SMALL_ICON, icon);
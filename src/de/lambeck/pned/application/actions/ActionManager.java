@@ -79,6 +79,9 @@ public class ActionManager implements IActionManager {
     /** The {@link StopSimulationAction} */
     AbstractAction stopSimulationAction;
 
+    /** The {@link ViewPerformanceHudAction} */
+    AbstractAction viewPerformanceHudAction;
+
     /** The {@link NewArcFromHereAction} */
     AbstractAction newArcFromHereAction;
 
@@ -140,6 +143,8 @@ public class ActionManager implements IActionManager {
         fireTransitionAction = new FireTransitionAction(appController, i18n);
         stopSimulationAction = new StopSimulationAction(appController, i18n);
 
+        viewPerformanceHudAction = new ViewPerformanceHudAction(appController, i18n);
+
         newArcFromHereAction = new NewArcFromHereAction(appController, i18n);
 
         newPlaceAction = new NewPlaceAction(appController, i18n);
@@ -175,6 +180,9 @@ public class ActionManager implements IActionManager {
         allActions.put("SelectAll", selectAllAction);
         allActions.put("EditDelete", editDeleteAction);
 
+        // Menu "View"
+        allActions.put("ViewPerformanceHud", viewPerformanceHudAction);
+
         // Tool bar "Elements"
         allActions.put("ElementToTheForeground", toForegroundAction);
         allActions.put("ElementOneLayerUp", oneLayerUpAction);
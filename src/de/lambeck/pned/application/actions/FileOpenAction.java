@@ -11,6 +11,7 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 import com.sun.xml.internal.ws.api.Component;
 
 import de.lambeck.pned.application.ApplicationController;
+import de.lambeck.pned.filesystem.FSInfo;
 import de.lambeck.pned.i18n.I18NManager;
 
 /**
@@ -32,8 +33,11 @@ public class FileOpenAction extends AbstractPNAction {
     /** The parent {@link Component} to center the dialog */
     protected JFrame parentComponent;
 
-    /** The {@link JFileChooser} that is used to look for a file. */
-    private JFileChooser fileChooser = new JFileChooser();
+    /**
+     * The {@link JFileChooser} that is used to look for a file. (Created on
+     * first use: creating a JFileChooser is expensive.)
+     */
+    private JFileChooser fileChooser = null;
 
     /**
      * Creates the FileOpenAction with an additional parent component.
@@ -56,15 +60,11 @@ public class FileOpenAction extends AbstractPNAction {
         actionEvent = SHORTCUT_KEY_MASK;
 
         customize();
-
-        /* Add the extension filter only once! (not in actionPerformed!) */
-        String fileFilterDescr = i18nController.getNameOnly("FileExtFilterDescr_PNML");
-        FileNameExtensionFilter filter = new FileNameExtensionFilter(fileFilterDescr, "pnml");
-        fileChooser.setFileFilter(filter);
     }
 
     @Override
     public void actionPerformed(ActionEvent e) {
+        JFileChooser fileChooser = getFileChooser();
         File lastPath = appController.getCurrentDirectory("FileOpenAction");
         fileChooser.setCurrentDirectory(lastPath);
 
@@ -80,4 +80,22 @@ public class FileOpenAction extends AbstractPNAction {
             // System.out.println("Open command canceled by user.");
         }
     }
+
+    /**
+     * Returns the {@link JFileChooser}. Creates it on first use.
+     * 
+     * @return The {@link JFileChooser}
+     */
+    private JFileChooser getFileChooser() {
+        if (fileChooser == null) {
+            fileChooser = new JFileChooser();
+
+            /* Add the extension filter only once! (not in actionPerformed!) */
+            String fileFilterDescr = i18n.getNameOnly("FileExtFilterDescr_PNML");
+            FileNameExtensionFilter filter = FSInfo.getPnmlFileFilter(fileFilterDescr);
+            fileChooser.setFileFilter(filter);
+        }
+
+        return fileChooser;
+    }
 }
@@ -4,10 +4,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
 import java.io.File;
 
-import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
-import javax.swing.filechooser.FileNameExtensionFilter;
 
 import com.sun.xml.internal.ws.api.Component;
 
@@ -34,9 +32,6 @@ public class FileSaveAsAction extends AbstractPNAction {
     /** The parent {@link Component} to center the dialog */
     protected JFrame parentComponent;
 
-    /** The {@link JFileChooser} that is used to look for a file name. */
-    private JFileChooser fileChooser = new JFileChooser();
-
     /**
      * Creates the FileSaveAsAction with an additional parent component.
      * 
@@ -59,10 +54,10 @@ public class FileSaveAsAction extends AbstractPNAction {
 
         customize();
 
-        /* Add the extension filter only once! (not in actionPerformed!) */
-        String fileFilterDescr = i18nController.getNameOnly("FileExtFilterDescr_PNML");
-        FileNameExtensionFilter filter = new FileNameExtensionFilter(fileFilterDescr, "pnml");
-        fileChooser.setFileFilter(filter);
+        /*
+         * Note: No own JFileChooser. FSInfo.getSaveAsFullName() creates one
+         * when needed.
+         */
     }
 
     @Override
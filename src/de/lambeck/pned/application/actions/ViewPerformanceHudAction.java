@@ -0,0 +1,55 @@
+package de.lambeck.pned.application.actions;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.KeyEvent;
+
+import javax.swing.Action;
+
+import de.lambeck.pned.application.ApplicationController;
+import de.lambeck.pned.i18n.I18NManager;
+
+/**
+ * Implements the Action for "ViewPerformanceHud" (shows or hides the
+ * performance HUD on all draw panels).<BR>
+ * <BR>
+ * Note: The state is stored as {@link Action#SELECTED_KEY}, so a
+ * JCheckBoxMenuItem with this Action shows it.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class ViewPerformanceHudAction extends AbstractPNAction {
+
+    /**
+     * Generated serial version ID
+     */
+    private static final long serialVersionUID = -2301558712448860731L;
+
+    /**
+     * Creates the ViewPerformanceHudAction without additional parameters.
+     * 
+     * @param controller
+     *            The application controller
+     * @param i18nController
+     *            The manager for localized strings
+     */
+    public ViewPerformanceHudAction(ApplicationController controller, I18NManager i18nController) {
+        super(controller, i18nController);
+
+        internalName = "ViewPerformanceHud";
+        iconPath = "icons/";
+        iconName = "Empty.png";
+        keyEvent = KeyEvent.VK_F12;
+        // Not SHORTCUT_KEY_MASK!
+        actionEvent = 0;
+
+        customize();
+        this.putValue(Action.SELECTED_KEY, Boolean.FALSE);
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        boolean visible = Boolean.TRUE.equals(getValue(Action.SELECTED_KEY));
+        appController.menuCmd_ViewPerformanceHud(visible);
+    }
+}
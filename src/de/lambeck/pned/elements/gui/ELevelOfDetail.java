@@ -0,0 +1,61 @@
+package de.lambeck.pned.elements.gui;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+/**
+ * Levels of detail for painting {@link IPaintable} elements on a zoomed draw
+ * panel. The draw panel stores the level as rendering hint (see KEY) in the
+ * {@link Graphics2D} context, so the elements can decide which details they
+ * paint.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public enum ELevelOfDetail {
+    /**
+     * Everything (normal zoom)
+     */
+    FULL,
+    /**
+     * No labels and no tokens (text would be too small to be readable)
+     */
+    NO_TEXT,
+    /**
+     * Nodes as plain rectangles, arcs without arrow tips, no antialiasing
+     * (very low zoom)
+     */
+    SIMPLE;
+
+    /**
+     * The key for the rendering hint with the level of detail. (Value: an
+     * {@link ELevelOfDetail})
+     */
+    public static final RenderingHints.Key KEY = new RenderingHints.Key(0) {
+        @Override
+        public boolean isCompatibleValue(Object val) {
+            return val instanceof ELevelOfDetail;
+        }
+
+        @Override
+        public String toString() {
+            return "Level of detail";
+        }
+    };
+
+    /**
+     * Returns the level of detail stored in the specified {@link Graphics2D}
+     * context.
+     *
+     * @param g2
+     *            The {@link Graphics2D} context
+     * @return The {@link ELevelOfDetail}; FULL if there is no rendering hint
+     */
+    public static ELevelOfDetail getLevel(Graphics2D g2) {
+        Object value = g2.getRenderingHint(KEY);
+        if (value instanceof ELevelOfDetail)
+            return (ELevelOfDetail) value;
+        return FULL;
+    }
+
+}
@@ -30,11 +30,43 @@ public class GuiArc extends GuiElement implements IGuiArc {
     /** Size of the arrow tip */
     static int arrowTipLength = 10;
 
+    /** The stroke for the selection rectangle (and the debug anchors) */
+    private static final BasicStroke THIN_STROKE = new BasicStroke(1);
+    /** The stroke for the line (for the current arrowLineThickness) */
+    private static BasicStroke lineStroke = new BasicStroke(arrowLineThickness);
+
     /**
-     * The drawing area used during last invocation of paintElement.
+     * The drawing area (line, arrow tip and selection rectangle) of the cached
+     * geometry.
      */
     Rectangle lastDrawingArea = null;
 
+    /*
+     * Cached geometry: Calculated again only if the predecessor or the
+     * successor has been moved or if the shape size has changed. (Transient
+     * because deep copies are checked against the versions of other nodes.)
+     */
+
+    /** Is the cached geometry available? */
+    private transient boolean geometryValid = false;
+    /** The geometry version of the predecessor used for the cache */
+    private transient int predGeometryVersion;
+    /** The geometry version of the successor used for the cache */
+    private transient int succGeometryVersion;
+    /** The arrow tip length used for the cache */
+    private transient int cachedTipLength;
+
+    /** The start anchor; null if the distance between the nodes is zero */
+    private transient Point startAnchor = null;
+    /** The end anchor; null if the distance between the nodes is zero */
+    private transient Point endAnchor = null;
+    /** The line of the arrow */
+    private transient Line2D.Double arrowLine = null;
+    /** The arrow head */
+    private transient Polygon arrowHead = null;
+    /** The bounds of the line and the arrow head (selection rectangle) */
+    private transient Rectangle selectionRect = null;
+
     /* Constructor */
 
     /**
@@ -96,34 +128,41 @@ public class GuiArc extends GuiElement implements IGuiArc {
 
     @Override
     public Rectangle getLastDrawingArea() {
+        validateGeometry();
         return this.lastDrawingArea;
     }
 
     @Override
     public void paintElement(Graphics g) {
-        Point startAnchor = getStartAnchor();
-        Point endAnchor = getEndAnchor();
+        validateGeometry();
         if (startAnchor == null || endAnchor == null)
             return;
 
         Graphics2D g2 = (Graphics2D) g;
-        activateAntialiasing(g2);
-        g2.setColor(Color.BLACK);
+        boolean simple = (ELevelOfDetail.getLevel(g2) == ELevelOfDetail.SIMPLE);
+        if (!simple)
+            activateAntialiasing(g2);
+
+        /* Very low zoom: selection indicated by the color of the line */
+        if (simple && this.selected) {
+            g2.setColor(Color.BLUE);
+        } else {
+            g2.setColor(Color.BLACK);
+        }
 
         if (debug) {
             // Highlight the anchor positions
             highlightAnchors(g2, startAnchor, endAnchor);
         }
 
-        drawArrowLine(g2, startAnchor, endAnchor);
-
-        drawArrowTip(g2, startAnchor, endAnchor);
+        drawArrowLine(g2);
 
-        /* Indicate selection */
-        drawSelection(g2, startAnchor, endAnchor);
+        if (!simple) {
+            drawArrowTip(g2);
 
-        /* Store the used drawing area. */
-        calculateMyBounds();
+            /* Indicate selection */
+            drawSelection(g2);
+        }
     }
 
     // /**
@@ -190,6 +229,7 @@ public class GuiArc extends GuiElement implements IGuiArc {
      * @return A {@link Point} as start anchor; null if distance between start
      *         and end is zero
      */
+    @SuppressWarnings("hiding")
     private Point getStartAnchor() {
         /*
          * Get the center point of the opposite shape for calculation of the
@@ -213,6 +253,7 @@ public class GuiArc extends GuiElement implements IGuiArc {
      * @return A {@link Point} as end anchor; null if distance between start and
      *         end is zero
      */
+    @SuppressWarnings("hiding")
     private Point getEndAnchor() {
         /*
          * Get the center point of the opposite shape for calculation of the
@@ -239,61 +280,44 @@ public class GuiArc extends GuiElement implements IGuiArc {
      * @param endAnchor
      *            The start anchor
      */
+    @SuppressWarnings("hiding")
     private void highlightAnchors(Graphics2D g2, Point startAnchor, Point endAnchor) {
-        g2.setStroke(new BasicStroke(1));
+        g2.setStroke(THIN_STROKE);
         g2.drawOval(startAnchor.x - 5, startAnchor.y - 5, 10, 10);
         g2.drawOval(endAnchor.x - 5, endAnchor.y - 5, 10, 10);
     }
 
     /**
-     * Draws the line of the arrow from and to the anchors on two
-     * {@link IGuiNode}.<BR>
-     * <BR>
-     * Note: {@link IGuiNode} provide their anchor for a specified direction via
-     * Getter method.
+     * Draws the (cached) line of the arrow from and to the anchors on two
+     * {@link IGuiNode}.
      * 
      * @param g2
      *            The {@link Graphics2D} context
-     * @param startAnchor
-     *            The location of the anchor at the source node as {@link Point}
-     * @param endAnchor
-     *            The location of the anchor at the target node as {@link Point}
      */
-    private void drawArrowLine(Graphics2D g2, Point startAnchor, Point endAnchor) {
-        g2.setStroke(new BasicStroke(arrowLineThickness));
-        Line2D line = getArrowLine(startAnchor, endAnchor);
-        g2.draw(line);
+    private void drawArrowLine(Graphics2D g2) {
+        g2.setStroke(getLineStroke());
+        g2.draw(arrowLine);
     }
 
     /**
-     * Returns the line of the arrow for use in drawArrowLine() and contains().
+     * Returns the stroke for the line of the arrow. (Created again only if
+     * the line thickness has changed.)
      * 
-     * @param startAnchor
-     *            The location of the anchor at the source node as {@link Point}
-     * @param endAnchor
-     *            The location of the anchor at the target node as {@link Point}
-     * @return A {@link Line2D.Double}
+     * @return The {@link BasicStroke}
      */
-    private Line2D.Double getArrowLine(Point startAnchor, Point endAnchor) {
-        Line2D.Double line = new Line2D.Double(startAnchor, endAnchor);
-        return line;
+    private static BasicStroke getLineStroke() {
+        if (lineStroke.getLineWidth() != arrowLineThickness)
+            lineStroke = new BasicStroke(arrowLineThickness);
+        return lineStroke;
     }
 
     /**
-     * Draws the tip of the arrow.<BR>
-     * <BR>
-     * Note: {@link IGuiNode} provide their anchor for a specified direction via
-     * Getter method.
+     * Draws the (cached) tip of the arrow.
      * 
      * @param g2
      *            The {@link Graphics2D} context
-     * @param startAnchor
-     *            The location of the anchor at the source node as {@link Point}
-     * @param endAnchor
-     *            The location of the anchor at the target node as {@link Point}
      */
-    private void drawArrowTip(Graphics2D g2, Point startAnchor, Point endAnchor) {
-        Polygon arrowHead = getArrowHead(startAnchor, endAnchor);
+    private void drawArrowTip(Graphics2D g2) {
         g2.fillPolygon(arrowHead);
     }
 
@@ -311,6 +335,7 @@ public class GuiArc extends GuiElement implements IGuiArc {
      *            The target of the arrow (with the arrow head)
      * @return A polygon representing the arrow head
      */
+    @SuppressWarnings("hiding")
     private Polygon getArrowHead(Point startAnchor, Point endAnchor) {
         int dx = endAnchor.x - startAnchor.x;   // line length in x direction
         int dy = endAnchor.y - startAnchor.y;   // line length in y direction
@@ -367,58 +392,25 @@ public class GuiArc extends GuiElement implements IGuiArc {
     }
 
     /**
-     * Indicates the selection of this Arc.
+     * Indicates the selection of this Arc.<BR>
+     * <BR>
+     * Note: If the arrow is nearly horizontal/vertical: The selection range of
+     * only the line is a narrow rectangle and the "corners" of the arrow head
+     * might be on the outside! So the (cached) rectangle considers the line
+     * *and* the arrow head.
      * 
      * @param g2
      *            The Graphics2D object
-     * @param startAnchor
-     *            The Location where the arc starts as {@link Point}
-     * @param endAnchor
-     *            The Location where the arc ends as {@link Point}
      */
-    private void drawSelection(Graphics2D g2, Point startAnchor, Point endAnchor) {
-
-        int min_x; // The left x of the Bounds
-        int max_x; // The right x ...
-        int min_y; // The upper y ...
-        int max_y; // The bottom y ...
-
+    private void drawSelection(Graphics2D g2) {
         if (this.selected) {
-            /*
-             * If the arrow is nearly horizontal/vertical: The selection range
-             * of only the line is a narrow rectangle and the "corners" of the
-             * arrow head might be on the outside!
-             * 
-             * -> So, we have to consider the line *and* the arrow head!
-             */
-            Polygon arrowHead = getArrowHead(startAnchor, endAnchor);
-            Rectangle arrowHeadRect = arrowHead.getBounds();
-            int arrowHeadLeftX = arrowHeadRect.x;
-            int arrowHeadTopY = arrowHeadRect.y;
-            int arrowHeadRightX = arrowHeadLeftX + arrowHeadRect.width;
-            int arrowHeadBottomY = arrowHeadTopY + arrowHeadRect.height;
-
-            min_x = Math.min(startAnchor.x, endAnchor.x);
-            min_x = Math.min(min_x, arrowHeadLeftX);
-
-            max_x = Math.max(startAnchor.x, endAnchor.x);
-            max_x = Math.max(max_x, arrowHeadRightX);
-
-            min_y = Math.min(startAnchor.y, endAnchor.y);
-            min_y = Math.min(min_y, arrowHeadTopY);
-
-            max_y = Math.max(startAnchor.y, endAnchor.y);
-            max_y = Math.max(max_y, arrowHeadBottomY);
-
-            int width = max_x - min_x;
-            int height = max_y - min_y;
             if (debug) {
-                System.out.println("g2.drawRect(" + min_x + ", " + min_y + ", " + width + ", " + height + ")");
+                System.out.println("g2.drawRect(" + selectionRect + ")");
             }
 
-            g2.setStroke(new BasicStroke(1));
+            g2.setStroke(THIN_STROKE);
             g2.setColor(Color.BLUE);
-            g2.drawRect(min_x, min_y, width, height);
+            g2.drawRect(selectionRect.x, selectionRect.y, selectionRect.width, selectionRect.height);
         }
     }
 
@@ -438,18 +430,15 @@ public class GuiArc extends GuiElement implements IGuiArc {
 
     @Override
     public boolean contains(Point p) {
-        Point startAnchor = getStartAnchor();
-        Point endAnchor = getEndAnchor();
+        validateGeometry();
         if (startAnchor == null || endAnchor == null)
             return false;
 
         /* Mouse click at the arrow head? */
-        Polygon arrowHead = getArrowHead(startAnchor, endAnchor);
-        if (arrowHead.contains(p))
+        if (arrowHead.contains(p.x, p.y))
             return true;
 
         /* Mouse click at the line? */
-        Line2D line = getArrowLine(startAnchor, endAnchor);
 
         // if (line.contains(p)) return true;
         // -> Bad: Mouse click has to be exactly at the line!
@@ -468,11 +457,38 @@ public class GuiArc extends GuiElement implements IGuiArc {
         final int SQUARE_SIZE = 4;
         int box_x = p.x - SQUARE_SIZE / 2;
         int box_y = p.y - SQUARE_SIZE / 2;
-        Rectangle rect = new Rectangle(box_x, box_y, SQUARE_SIZE, SQUARE_SIZE);
-        if (line.intersects(rect))
+        return lineIntersectsSquare(box_x, box_y, SQUARE_SIZE);
+    }
+
+    /**
+     * Checks if the (cached) line of the arrow intersects the specified
+     * square. (Like Line2D.intersects(Rectangle2D), but without creating a
+     * {@link Rectangle} for each test.)
+     * 
+     * @param x
+     *            The left x of the square
+     * @param y
+     *            The top y of the square
+     * @param size
+     *            The width and height of the square
+     * @return True if the line goes through the square
+     */
+    private boolean lineIntersectsSquare(int x, int y, int size) {
+        Line2D.Double line = this.arrowLine;
+        int x2 = x + size;
+        int y2 = y + size;
+
+        /* An end point inside the square? */
+        if (line.x1 >= x && line.x1 <= x2 && line.y1 >= y && line.y1 <= y2)
+            return true;
+        if (line.x2 >= x && line.x2 <= x2 && line.y2 >= y && line.y2 <= y2)
             return true;
 
-        return false;
+        /* Otherwise the line has to cross a border of the square. */
+        return Line2D.linesIntersect(line.x1, line.y1, line.x2, line.y2, x, y, x2, y)
+                || Line2D.linesIntersect(line.x1, line.y1, line.x2, line.y2, x, y2, x2, y2)
+                || Line2D.linesIntersect(line.x1, line.y1, line.x2, line.y2, x, y, x, y2)
+                || Line2D.linesIntersect(line.x1, line.y1, line.x2, line.y2, x2, y, x2, y2);
     }
 
     /* Getter and Setter */
@@ -545,39 +561,89 @@ public class GuiArc extends GuiElement implements IGuiArc {
     }
 
     /**
-     * Calculates the bounds of the shape (using predecessor and successor) and
-     * stores the result in the attributes.
+     * Calculates the anchors, the line, the arrow head and the bounds again if
+     * the predecessor or the successor has changed (position or size) since
+     * the last calculation.
      */
-    private void calculateMyBounds() {
-        /* Take the area of pred and succ to calculate the area of the arc. */
+    private void validateGeometry() {
+        int predVersion = pred.getGeometryVersion();
+        int succVersion = succ.getGeometryVersion();
+        if (geometryValid && predVersion == predGeometryVersion && succVersion == succGeometryVersion
+                && arrowTipLength == cachedTipLength)
+            return;
+
+        calculateGeometry();
+
+        this.predGeometryVersion = predVersion;
+        this.succGeometryVersion = succVersion;
+        this.cachedTipLength = arrowTipLength;
+        this.geometryValid = true;
+    }
+
+    /**
+     * Calculates the geometry of this arc and stores the result in the
+     * attributes.<BR>
+     * <BR>
+     * Note: The drawing area is a new {@link Rectangle} each time, so callers
+     * can keep the old area for repainting.
+     */
+    private void calculateGeometry() {
+        this.startAnchor = getStartAnchor();
+        this.endAnchor = getEndAnchor();
+
+        if (startAnchor == null || endAnchor == null) {
+            /* Nodes at the same location: nothing to paint */
+            this.arrowLine = null;
+            this.arrowHead = null;
+            this.selectionRect = null;
+            this.lastDrawingArea = getNodesArea();
+            return;
+        }
+
+        this.arrowLine = new Line2D.Double(startAnchor, endAnchor);
+        this.arrowHead = getArrowHead(startAnchor, endAnchor);
+
+        Rectangle arrowHeadRect = arrowHead.getBounds();
+        int min_x = Math.min(Math.min(startAnchor.x, endAnchor.x), arrowHeadRect.x);
+        int max_x = Math.max(Math.max(startAnchor.x, endAnchor.x), arrowHeadRect.x + arrowHeadRect.width);
+        int min_y = Math.min(Math.min(startAnchor.y, endAnchor.y), arrowHeadRect.y);
+        int max_y = Math.max(Math.max(startAnchor.y, endAnchor.y), arrowHeadRect.y + arrowHeadRect.height);
+        this.selectionRect = new Rectangle(min_x, min_y, max_x - min_x, max_y - min_y);
+
+        /*
+         * The drawing area: the selection rectangle plus the thickness of the
+         * (anti-aliased) line and the border of the rectangle itself. (The
+         * debug circles around the anchors are even bigger.)
+         */
+        int margin = debug ? 6 : arrowLineThickness + 2;
+        Rectangle area = new Rectangle(selectionRect);
+        area.grow(margin, margin);
+        this.lastDrawingArea = area;
+    }
+
+    /**
+     * Returns the area of the predecessor and the successor (including their
+     * labels).
+     * 
+     * @return A {@link Rectangle}; null if the arc has no predecessor *and*
+     *         successor
+     */
+    private Rectangle getNodesArea() {
         IGuiNode elem1 = null;
         IGuiNode elem2 = null;
         try {
             elem1 = getPredElem();
             elem2 = getSuccElem();
         } catch (PNNoSuchElementException e) {
-            // e.printStackTrace();
             System.err.println("Arc " + getId() + " does not have predecessor *and* successor element!");
-            return;
+            return null;
         }
 
-        int elem1_x1 = elem1.getTotalLeftX();
-        int elem1_y1 = elem1.getTotalTopY();
-        int elem1_x2 = elem1_x1 + elem1.getTotalWidth();
-        int elem1_y2 = elem1_y1 + elem1.getTotalHeight();
-
-        int elem2_x1 = elem2.getTotalLeftX();
-        int elem2_y1 = elem2.getTotalTopY();
-        int elem2_x2 = elem2_x1 + elem2.getTotalWidth();
-        int elem2_y2 = elem2_y1 + elem2.getTotalHeight();
-
-        int x1 = Math.min(elem1_x1, elem2_x1);
-        int y1 = Math.min(elem1_y1, elem2_y1);
-        int x2 = Math.max(elem1_x2, elem2_x2);
-        int y2 = Math.max(elem1_y2, elem2_y2);
-
-        Rectangle rect = new Rectangle(x1, y1, x2, y2);
-        this.lastDrawingArea = rect;
+        Rectangle rect = new Rectangle(elem1.getTotalLeftX(), elem1.getTotalTopY(), elem1.getTotalWidth(),
+                elem1.getTotalHeight());
+        rect.add(new Rectangle(elem2.getTotalLeftX(), elem2.getTotalTopY(), elem2.getTotalWidth(),
+                elem2.getTotalHeight()));
+        return rect;
     }
 
 }
@@ -1,14 +1,11 @@
 package de.lambeck.pned.elements.gui;
 
 import java.awt.*;
-import java.awt.font.FontRenderContext;
-import java.awt.geom.AffineTransform;
-import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
 import java.util.List;
 
+import de.lambeck.pned.elements.gui.LabelLayoutCache.LabelLayout;
 import de.lambeck.pned.gui.ECustomColor;
-import de.lambeck.pned.util.ConsoleLogger;
 
 /**
  * Superclass GuiNode implements the common members for all nodes.
@@ -61,9 +58,18 @@ public abstract class GuiNode extends GuiElement implements IGuiNode {
     static int shapeSize = 50;
 
     /** The font size for the label */
-    protected final int fontSize = 12;
-    /** The font for the label */
-    protected final Font labelFont = new Font(null, Font.BOLD, fontSize);
+    protected static final int fontSize = 12;
+    /** The font for the label (shared by all nodes) */
+    protected static final Font labelFont = new Font(null, Font.BOLD, fontSize);
+
+    /**
+     * The layout of the label (shared with all nodes with the same label);
+     * null if it has to be calculated again (e.g. after deep copying)
+     */
+    private transient LabelLayout labelLayout = null;
+
+    /** Incremented whenever the bounds have been calculated again */
+    private int geometryVersion = 0;
 
     /* Bounds of only the shape (ignoring the size of the label) */
 
@@ -161,13 +167,19 @@ public abstract class GuiNode extends GuiElement implements IGuiNode {
     @Override
     public void setPosition(Point p) {
         this.shapeCenter = p;
-        calculateMyBounds();
+        if (isLabelLayoutValid()) {
+            /* Same label: no need to measure the text again */
+            updateMyBounds();
+        } else {
+            calculateMyBounds();
+        }
     }
 
     /* Method for interface IGuiElement */
 
     @Override
     public Rectangle getLastDrawingArea() {
+        ensureValidBounds();
         return this.lastDrawingArea;
     }
 
@@ -180,24 +192,34 @@ public abstract class GuiNode extends GuiElement implements IGuiNode {
 
     @Override
     public int getTotalLeftX() {
+        ensureValidBounds();
         return this.totalLeftX;
     }
 
     @Override
     public int getTotalTopY() {
+        ensureValidBounds();
         return this.totalTopY;
     }
 
     @Override
     public int getTotalWidth() {
+        ensureValidBounds();
         return this.totalWidth;
     }
 
     @Override
     public int getTotalHeight() {
+        ensureValidBounds();
         return this.totalHeight;
     }
 
+    @Override
+    public int getGeometryVersion() {
+        ensureValidBounds();
+        return this.geometryVersion;
+    }
+
     @Override
     public void setUnreachable(boolean b) {
         this.unreachable = b;
@@ -212,7 +234,7 @@ public abstract class GuiNode extends GuiElement implements IGuiNode {
      * @return Point representing the coordinates for the label
      */
     public Point getLabelLocation() {
-        // calculateMyBounds();
+        ensureValidBounds();
         // int newX = this.shapeCenter.x + labelOffsetX;
         int newX = this.shapeLeftX + labelOffsetX;
         int newY = this.shapeCenter.y + (shapeSize / 2) + labelOffsetY;
@@ -223,9 +245,18 @@ public abstract class GuiNode extends GuiElement implements IGuiNode {
     @Override
     public void paintElement(Graphics g) {
         Graphics2D g2 = (Graphics2D) g;
-        activateAntialiasing(g2);
+        ELevelOfDetail levelOfDetail = ELevelOfDetail.getLevel(g2);
+        if (levelOfDetail != ELevelOfDetail.SIMPLE)
+            activateAntialiasing(g2);
 
-        calculateMyBounds();
+        /* Only if the shape size has changed (no measuring of the label) */
+        ensureValidBounds();
+
+        if (levelOfDetail == ELevelOfDetail.SIMPLE) {
+            /* Very low zoom: only a plain rectangle */
+            drawSimpleShape(g2);
+            return;
+        }
 
         /*
          * Draw the interior first because the shape must be above it to be
@@ -243,11 +274,13 @@ public abstract class GuiNode extends GuiElement implements IGuiNode {
         g2.setColor(Color.BLACK);
         drawShape(g2);
 
-        /* Draw the label */
-        String labelText = this.getName();
-        Point labelLocation = this.getLabelLocation();
-        g2.setFont(labelFont);
-        g2.drawString(labelText, labelLocation.x, labelLocation.y);
+        /* Draw the label (if readable) */
+        if (levelOfDetail == ELevelOfDetail.FULL) {
+            String labelText = this.getName();
+            Point labelLocation = this.getLabelLocation();
+            g2.setFont(labelFont);
+            g2.drawString(labelText, labelLocation.x, labelLocation.y);
+        }
 
         /* Test: show boundaries and zValue */
         if (debug) {
@@ -272,6 +305,24 @@ public abstract class GuiNode extends GuiElement implements IGuiNode {
         g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
     }
 
+    /**
+     * Draws this node as plain (filled) rectangle for the lowest level of
+     * detail. (Selected: blue, unreachable: gray)
+     * 
+     * @param g2
+     *            The specified {@link Graphics2D} context
+     */
+    private void drawSimpleShape(Graphics2D g2) {
+        if (this.selected) {
+            g2.setColor(Color.BLUE);
+        } else if (this.unreachable) {
+            g2.setColor(Color.GRAY);
+        } else {
+            g2.setColor(Color.DARK_GRAY);
+        }
+        g2.fillRect(shapeLeftX, shapeTopY, shapeSize, shapeSize);
+    }
+
     /**
      * Draws the interior of this {@link GuiNode}. Abstract because different
      * types of nodes have a different look.
@@ -315,130 +366,61 @@ public abstract class GuiNode extends GuiElement implements IGuiNode {
 
     /**
      * Calculates the bounds of the shape including the label and stores the
-     * result in the attributes.
+     * result in the attributes.<BR>
+     * <BR>
+     * Note: The label is only measured if there is no cached layout for the
+     * same text, font and shape size.
      */
     protected void calculateMyBounds() {
-        this.shapeLeftX = this.shapeCenter.x - (shapeSize / 2);
-        this.shapeTopY = this.shapeCenter.y - (shapeSize / 2);
-        this.shapeBottomY = this.shapeCenter.y + (shapeSize / 2);
-
         /* label size and position influences the boundaries! */
-        String labelText = this.getName();
-        Rectangle2D labelTextRect = getTextBounds(labelText, this.labelFont);
+        this.labelLayout = LabelLayoutCache.getLayout(this.getName(), labelFont, shapeSize, labelOffsetY);
+        updateMyBounds();
+    }
 
-        /*
-         * More calculation is necessary for:
-         * 
-         * - LeftX: Because some chars (e.g. "t") stick out to the left.
-         * 
-         * - totalWidth: like LeftX
-         * 
-         * - totalHeight: Because some chars (e.g. "p") stick out to the bottom.
-         */
-        int labelTextLeftX = (int) labelTextRect.getMinX();
-        this.totalLeftX = Math.min(shapeLeftX, shapeLeftX + labelTextLeftX);
+    /**
+     * Recalculates the bounds only if the shape size has changed since the
+     * last calculation (or after deep copying).
+     */
+    private void ensureValidBounds() {
+        if (!isLabelLayoutValid())
+            calculateMyBounds();
+    }
 
-        this.totalTopY = shapeTopY;
+    /**
+     * @return True if the label layout belongs to the current shape size
+     */
+    private boolean isLabelLayoutValid() {
+        return this.labelLayout != null && this.labelLayout.shapeSize == shapeSize;
+    }
 
-        int labelTextRightX = (int) labelTextRect.getMaxX();
-        this.totalWidth = Math.max(shapeSize, labelTextRightX);
-        /* But for labelTextLeftX < 0: at least size - labelTextLeftX! */
-        if (labelTextLeftX < 0)
-            this.totalWidth = this.totalWidth - labelTextLeftX;
+    /**
+     * Calculates the absolute bounds from the position and the label layout.
+     * (No measuring of the label)
+     */
+    private void updateMyBounds() {
+        LabelLayout layout = this.labelLayout;
 
-        int labelTextBottomY = (int) labelTextRect.getMaxY();
-        this.totalHeight = Math.max(shapeSize, shapeSize + labelOffsetY + labelTextBottomY);
+        this.shapeLeftX = this.shapeCenter.x - (shapeSize / 2);
+        this.shapeTopY = this.shapeCenter.y - (shapeSize / 2);
+        this.shapeBottomY = this.shapeCenter.y + (shapeSize / 2);
 
-        /* Store my drawing area for the next repaint. */
-        int x = getTotalLeftX();
-        int y = getTotalTopY();
-        int width = getTotalWidth();
-        int height = getTotalHeight();
+        this.totalLeftX = this.shapeCenter.x + layout.totalLeftDx;
+        this.totalTopY = this.shapeCenter.y + layout.totalTopDy;
+        this.totalWidth = layout.totalWidth;
+        this.totalHeight = layout.totalHeight;
 
         /*
+         * Store my drawing area for the next repaint.
+         * 
          * Correct the values because some characters (stick out on the left
          * side of the label).
          * 
          * -> e.g. "t": Dragging a node with the label "t..." to the right side
          * leaves the most left pixel of "t" as an artifact if we repaint only
          * the theoretical area!
-         * 
-         * (Does this occur on the right side and bottom as well???)
-         * 
-         * (Are these just rounding errors???)
          */
-        x = x - 1;
-        y = y - 1;
-        width = width + 2;
-        height = height + 2;
-
-        Rectangle rect = new Rectangle(x, y, width, height);
-        this.lastDrawingArea = rect;
-    }
-
-    /**
-     * Calculates the bounds of the specified text.
-     * 
-     * @param text
-     *            The text
-     * @param font
-     *            The font of the specified text
-     * @return A {@link Rectangle2D}
-     */
-    private Rectangle2D getTextBounds(String text, Font font) {
-        AffineTransform tx = new AffineTransform();
-        FontRenderContext frc = new FontRenderContext(tx, true, true);
-
-        String message = "text: " + text;
-        ConsoleLogger.logIfDebug(debug, message);
-
-        /* https://stackoverflow.com/a/14832962/5944475 */
-        // int textwidth = (int) (font.getStringBounds(text, frc).getWidth());
-        // System.out.println("getTextBounds, textwidth: " + textwidth);
-        // int textheight = (int)(font.getStringBounds(text, frc).getHeight());
-        // System.out.println("getTextBounds, textheight: " + textheight);
-
-        /*
-         * getWidth() and getHeight() give us only the size. But we need the
-         * position as well to get information about how much the text sticks
-         * out to the left side or the bottom!
-         */
-        Rectangle2D rect2d = font.getStringBounds(text, frc);
-
-        message = "GuiNode, getTextBounds(), rect.getMinX(): " + rect2d.getMinX();
-        ConsoleLogger.logIfDebug(debug, message);
-        message = "GuiNode, getTextBounds(), rect.getMaxX(): " + rect2d.getMaxX();
-        ConsoleLogger.logIfDebug(debug, message);
-        message = "GuiNode, getTextBounds(), rect.getMinY(): " + rect2d.getMinY();
-        ConsoleLogger.logIfDebug(debug, message);
-        message = "GuiNode, getTextBounds(), rect.getMaxY(): " + rect2d.getMaxY();
-        ConsoleLogger.logIfDebug(debug, message);
-
-        /*
-         * This gives us still the wrong size: For example 93.34 for
-         * "wwwwwwwwww" instead of the real approximately 100!?
-         */
-        // System.err.println(rect2d);
-
-        /* We add something to all sides */
-
-        // TODO Get rid of this ugly "trick" as soon as possible possible!!!
-
-        int x = (int) rect2d.getMinX();
-        int y = (int) rect2d.getMinY();
-        int w = (int) rect2d.getWidth();
-        int h = (int) rect2d.getHeight();
-
-        x = x - 1;
-        y = y - 1;
-        w = (int) (w * 1.1);
-        h = (int) (h * 1.1);
-
-        Rectangle bigger = new Rectangle(x, y, w, h);
-        rect2d = bigger;
-        // System.err.println(rect2d);
-
-        return rect2d;
+        this.lastDrawingArea = new Rectangle(totalLeftX - 1, totalTopY - 1, totalWidth + 2, totalHeight + 2);
+        this.geometryVersion++;
     }
 
 }
@@ -142,8 +142,13 @@ public class GuiPlace extends GuiNode implements IGuiPlace {
         super.paintElement(g);
         Graphics2D g2 = (Graphics2D) g;
 
-        /* Draw the token in the center of the place. */
-        drawTokens(g2);
+        ELevelOfDetail levelOfDetail = ELevelOfDetail.getLevel(g2);
+        if (levelOfDetail == ELevelOfDetail.SIMPLE)
+            return;
+
+        /* Draw the token in the center of the place. (If large enough) */
+        if (levelOfDetail == ELevelOfDetail.FULL)
+            drawTokens(g2);
 
         /* Highlight if start or end place (candidate). */
         drawStartOrEndPlaceCircles(g2);
@@ -73,6 +73,18 @@ public interface IGuiNode extends IGuiElement, INode {
      */
     Point getArcAnchor(Point target);
 
+    /**
+     * Returns a counter which changes whenever the position or the bounds of
+     * this node have changed (e.g. after setPosition() or a new shape size).
+     * <BR>
+     * <BR>
+     * Note: Used by the adjacent arcs to check if their cached geometry is
+     * still valid.
+     * 
+     * @return The current geometry version
+     */
+    int getGeometryVersion();
+
     /**
      * Sets this nodes "unreachable" status.
      * 
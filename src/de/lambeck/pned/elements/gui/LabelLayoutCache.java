@@ -0,0 +1,233 @@
+package de.lambeck.pned.elements.gui;
+
+import java.awt.Font;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache for the layout of the labels of all {@link GuiNode}: The bounds of a
+ * node including its label (relative to the center of the shape) depend only
+ * on the text, the font and the shape size. So nodes with the same label share
+ * the same {@link LabelLayout} and the text has to be measured only once.<BR>
+ * <BR>
+ * Note: The cache holds the most recently used layouts only.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+final class LabelLayoutCache {
+
+    /** Max. number of cached layouts */
+    private static final int MAX_ENTRIES = 4096;
+
+    /** The context for measuring (no transformation, like on the screen) */
+    private static final FontRenderContext FRC = new FontRenderContext(new AffineTransform(), true, true);
+
+    /** The layouts in LRU order */
+    private static final Map<Key, LabelLayout> layouts = new LinkedHashMap<Key, LabelLayout>(256, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, LabelLayout> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    /** No instances */
+    private LabelLayoutCache() {
+    }
+
+    /**
+     * The layout of a node with a label: The bounds including the label
+     * relative to the center of the shape.
+     */
+    static final class LabelLayout {
+        /** The shape size used for this layout */
+        final int shapeSize;
+
+        /** Offset of the leftmost point (including the label) */
+        final int totalLeftDx;
+
+        /** Offset of the highest point */
+        final int totalTopDy;
+
+        /** The width including the label */
+        final int totalWidth;
+
+        /** The height including the label */
+        final int totalHeight;
+
+        /**
+         * @param shapeSize
+         *            The shape size
+         * @param totalLeftDx
+         *            Offset of the leftmost point
+         * @param totalTopDy
+         *            Offset of the highest point
+         * @param totalWidth
+         *            The width
+         * @param totalHeight
+         *            The height
+         */
+        @SuppressWarnings("hiding")
+        LabelLayout(int shapeSize, int totalLeftDx, int totalTopDy, int totalWidth, int totalHeight) {
+            this.shapeSize = shapeSize;
+            this.totalLeftDx = totalLeftDx;
+            this.totalTopDy = totalTopDy;
+            this.totalWidth = totalWidth;
+            this.totalHeight = totalHeight;
+        }
+    }
+
+    /**
+     * Returns the layout for the specified label. Measures the text only if
+     * there is no cached layout.
+     *
+     * @param text
+     *            The label text (null is handled like an empty label)
+     * @param font
+     *            The font of the label
+     * @param shapeSize
+     *            The shape size of the nodes
+     * @param labelOffsetY
+     *            The distance between the shape and the label
+     * @return The {@link LabelLayout}
+     */
+    static LabelLayout getLayout(String text, Font font, int shapeSize, int labelOffsetY) {
+        if (text == null)
+            text = "";
+        Key key = new Key(text, font, shapeSize);
+
+        synchronized (layouts) {
+            LabelLayout layout = layouts.get(key);
+            if (layout != null)
+                return layout;
+        }
+
+        LabelLayout layout = createLayout(text, font, shapeSize, labelOffsetY);
+        synchronized (layouts) {
+            layouts.put(key, layout);
+        }
+        return layout;
+    }
+
+    /* Private helpers */
+
+    /**
+     * Calculates the layout for the specified label.
+     *
+     * @param text
+     *            The label text
+     * @param font
+     *            The font of the label
+     * @param shapeSize
+     *            The shape size of the nodes
+     * @param labelOffsetY
+     *            The distance between the shape and the label
+     * @return The {@link LabelLayout}
+     */
+    private static LabelLayout createLayout(String text, Font font, int shapeSize, int labelOffsetY) {
+        int shapeLeftDx = -(shapeSize / 2);
+        Rectangle2D labelTextRect = getTextBounds(text, font);
+
+        /*
+         * More calculation is necessary for:
+         *
+         * - LeftX: Because some chars (e.g. "t") stick out to the left.
+         *
+         * - totalWidth: like LeftX
+         *
+         * - totalHeight: Because some chars (e.g. "p") stick out to the bottom.
+         */
+        int labelTextLeftX = (int) labelTextRect.getMinX();
+        int totalLeftDx = Math.min(shapeLeftDx, shapeLeftDx + labelTextLeftX);
+
+        int labelTextRightX = (int) labelTextRect.getMaxX();
+        int totalWidth = Math.max(shapeSize, labelTextRightX);
+        /* But for labelTextLeftX < 0: at least size - labelTextLeftX! */
+        if (labelTextLeftX < 0)
+            totalWidth = totalWidth - labelTextLeftX;
+
+        int labelTextBottomY = (int) labelTextRect.getMaxY();
+        int totalHeight = Math.max(shapeSize, shapeSize + labelOffsetY + labelTextBottomY);
+
+        return new LabelLayout(shapeSize, totalLeftDx, shapeLeftDx, totalWidth, totalHeight);
+    }
+
+    /**
+     * Calculates the bounds of the specified text.
+     *
+     * @param text
+     *            The text
+     * @param font
+     *            The font of the specified text
+     * @return A {@link Rectangle2D}
+     */
+    private static Rectangle2D getTextBounds(String text, Font font) {
+        /*
+         * getWidth() and getHeight() give us only the size. But we need the
+         * position as well to get information about how much the text sticks
+         * out to the left side or the bottom!
+         */
+        Rectangle2D rect2d = font.getStringBounds(text, FRC);
+
+        /*
+         * This gives us still the wrong size: For example 93.34 for
+         * "wwwwwwwwww" instead of the real approximately 100!? So we add
+         * something to all sides.
+         */
+        int x = (int) rect2d.getMinX() - 1;
+        int y = (int) rect2d.getMinY() - 1;
+        int w = (int) ((int) rect2d.getWidth() * 1.1);
+        int h = (int) ((int) rect2d.getHeight() * 1.1);
+        return new Rectangle2D.Double(x, y, w, h);
+    }
+
+    /**
+     * The key of a cached layout.
+     */
+    private static final class Key {
+        /** The label text */
+        private final String text;
+
+        /** The font */
+        private final Font font;
+
+        /** The shape size */
+        private final int shapeSize;
+
+        /**
+         * @param text
+         *            The label text
+         * @param font
+         *            The font
+         * @param shapeSize
+         *            The shape size
+         */
+        @SuppressWarnings("hiding")
+        Key(String text, Font font, int shapeSize) {
+            this.text = text;
+            this.font = font;
+            this.shapeSize = shapeSize;
+        }
+
+        @Override
+        public int hashCode() {
+            return (text.hashCode() * 31 + font.hashCode()) * 31 + shapeSize;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof Key))
+                return false;
+            Key other = (Key) obj;
+            return shapeSize == other.shapeSize && text.equals(other.text) && font.equals(other.font);
+        }
+    }
+
+}
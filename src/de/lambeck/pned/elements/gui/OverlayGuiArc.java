@@ -4,7 +4,7 @@ import java.awt.*;
 import java.awt.geom.Line2D;
 
 import de.lambeck.pned.models.gui.overlay.IDrawArcOverlay;
-import de.lambeck.pned.util.ConsoleLogger;
+import de.lambeck.pned.util.logging.Logger;
 
 /**
  * Implements the arcs (arrows) of the Petri net.
@@ -17,6 +17,9 @@ public class OverlayGuiArc implements IOverlayGuiArc {
     /** Show debug messages? */
     private static boolean debug = false;
 
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(OverlayGuiArc.class);
+
     /**
      * The predecessor - the node that is the source of this arc<BR>
      * <BR>
@@ -341,9 +344,11 @@ public class OverlayGuiArc implements IOverlayGuiArc {
         Rectangle rect = new Rectangle(x1, y1, width, height);
         this.lastDrawingArea = rect;
 
-        ConsoleLogger.logIfDebug(debug, "OverlayGuiArc: " + startAnchor.x + "," + startAnchor.y + " -> "
-                + currentEndLocation.x + "," + currentEndLocation.y);
-        ConsoleLogger.logIfDebug(debug, "calculateMyBounds: " + rect);
+        if (logger.isDebugEnabled()) {
+            logger.debug("OverlayGuiArc: " + startAnchor.x + "," + startAnchor.y + " -> "
+                    + currentEndLocation.x + "," + currentEndLocation.y);
+            logger.debug("calculateMyBounds: " + rect);
+        }
     }
 
 }
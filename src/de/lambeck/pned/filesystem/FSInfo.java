@@ -2,6 +2,9 @@ package de.lambeck.pned.filesystem;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import javax.swing.JFileChooser;
 import javax.swing.JFrame;
@@ -37,6 +40,12 @@ public class FSInfo {
     /** The standard suffix of PNML files */
     private final static String suffix = ".pnml";
 
+    /** The suffix of gzip-compressed PNML files (e.g. "model.pnml.gz") */
+    private final static String compressedSuffix = ".gz";
+
+    /** The name of the application data folder in the home directory */
+    private final static String appDataDirName = ".pned";
+
     /**
      * Determines The canonical (unique) path name of a file which is a unique
      * path. (See: example in the main method)
@@ -254,7 +263,7 @@ public class FSInfo {
          */
 
         String fileFilterDescr = i18n.getNameOnly("FileExtFilterDescr_PNML");
-        FileNameExtensionFilter filter = new FileNameExtensionFilter(fileFilterDescr, "pnml");
+        FileNameExtensionFilter filter = getPnmlFileFilter(fileFilterDescr);
         fileChooser.setFileFilter(filter);
 
         int returnVal = fileChooser.showSaveDialog(parentComponent);
@@ -294,7 +303,11 @@ public class FSInfo {
      *         (unique) path name
      */
     private static String askAddingSuffix(String canonicalPath, I18NManager i18n, JFrame parentComponent) {
-        if (canonicalPath.endsWith(suffix))
+        /* Ignore the case (like isCompressedFileName()) */
+        String lowerCasePath = canonicalPath.toLowerCase();
+        if (lowerCasePath.endsWith(suffix))
+            return canonicalPath;
+        if (lowerCasePath.endsWith(suffix + compressedSuffix))
             return canonicalPath;
 
         String title = i18n.getNameOnly("WrongFileSuffix");
@@ -365,4 +378,77 @@ public class FSInfo {
         return file;
     }
 
+    /**
+     * Checks if the specified file name denotes a gzip-compressed PNML file.
+     * (This is used to choose compressed output when writing a file.)
+     * 
+     * @param pathname
+     *            A pathname string
+     * @return True if the file name ends with the compressed suffix; otherwise
+     *         false
+     */
+    public static boolean isCompressedFileName(String pathname) {
+        if (pathname == null)
+            return false;
+        return pathname.toLowerCase().endsWith(compressedSuffix);
+    }
+
+    /**
+     * Returns a {@link FileNameExtensionFilter} for PNML files which accepts
+     * gzip-compressed PNML files (*.pnml.gz) as well.<BR>
+     * <BR>
+     * Note: {@link FileNameExtensionFilter} compares only the last extension,
+     * so "gz" would accept any gzip file. The file content is checked by the
+     * PNML parser anyway.
+     * 
+     * @param description
+     *            The (localized) description of the filter
+     * @return The {@link FileNameExtensionFilter}
+     */
+    public static FileNameExtensionFilter getPnmlFileFilter(String description) {
+        String pnmlExt = suffix.substring(1);
+        String compressedExt = compressedSuffix.substring(1);
+        FileNameExtensionFilter filter = new FileNameExtensionFilter(description, pnmlExt, compressedExt);
+        return filter;
+    }
+
+    /**
+     * Returns a subfolder of the application data folder in the home directory
+     * of the user. (e.g. "~/.pned/cache")<BR>
+     * <BR>
+     * Note: The folder is not created here.
+     * 
+     * @param subfolder
+     *            The name of the subfolder
+     * @return The subfolder as a Java {@link File}
+     */
+    public static File getAppDataDir(String subfolder) {
+        File appDataDir = new File(System.getProperty("user.home"), appDataDirName);
+        return new File(appDataDir, subfolder);
+    }
+
+    /**
+     * Returns a file name (without suffix) which is unique for the specified
+     * name: the SHA-1 hash of the name as hex string. (Used for cache and
+     * journal files of models because model names are full path names.)
+     * 
+     * @param name
+     *            The name (e.g. the canonical path of a PNML file)
+     * @return The hashed file name
+     */
+    public static String getHashedFileName(String name) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(name.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(2 * hash.length);
+            for (byte b : hash) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+                sb.append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(name.hashCode());
+        }
+    }
+
 }
@@ -0,0 +1,599 @@
+package de.lambeck.pned.filesystem.cache;
+
+import java.awt.Point;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.elements.data.*;
+import de.lambeck.pned.filesystem.FSInfo;
+import de.lambeck.pned.filesystem.pnml.IPNMLImportTarget;
+import de.lambeck.pned.filesystem.pnml.PNMLParser;
+import de.lambeck.pned.models.data.IDataModel;
+import de.lambeck.pned.util.logging.Logger;
+
+/**
+ * On-disk cache for parsed PNML files in a compact binary form.<BR>
+ * <BR>
+ * A cache entry is valid if canonical path, size and modification time of the
+ * PNML file are unchanged. Only if the modification time has changed (e.g. file
+ * copied or touched), the content hash (CRC32) of the file is compared with the
+ * content hash stored in the entry. Otherwise the file has to be parsed with
+ * the {@link PNMLParser} and can be stored again.<BR>
+ * <BR>
+ * The cache directory is limited to {@link #getMaxCacheSize()} bytes: the least
+ * recently used entries (last modification time of the entry) are deleted
+ * first.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class ParsedModelCache {
+
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(ParsedModelCache.class);
+
+    /** The suffix of the cache files */
+    private final static String CACHE_FILE_SUFFIX = ".pnmlcache";
+
+    /** Magic number at the start of each cache file */
+    private final static int MAGIC = 0x504E4543; // "PNEC"
+
+    /** The version of the cache format */
+    private final static int VERSION = 2;
+
+    /** Record type: place */
+    private final static byte RECORD_PLACE = 1;
+
+    /** Record type: transition */
+    private final static byte RECORD_TRANSITION = 2;
+
+    /** Record type: arc */
+    private final static byte RECORD_ARC = 3;
+
+    /** Buffer size for reading and writing */
+    private final static int BUFFER_SIZE = 64 * 1024;
+
+    /** The default maximum size of the cache directory (in bytes) */
+    public final static long DEFAULT_MAX_CACHE_SIZE = 256L * 1024 * 1024;
+
+    /** The cache directory */
+    private final File cacheDir;
+
+    /** The maximum size of the cache directory (in bytes) */
+    private final long maxCacheSize;
+
+    /** Writes the cache files in the background. */
+    private final ExecutorService writer;
+
+    /* Constructor */
+
+    /**
+     * Constructs the cache for the specified directory.
+     *
+     * @param cacheDir
+     *            The cache directory (Will be created if necessary.)
+     * @param maxCacheSize
+     *            The maximum size of the cache directory (in bytes)
+     */
+    @SuppressWarnings("hiding")
+    public ParsedModelCache(File cacheDir, long maxCacheSize) {
+        this.cacheDir = cacheDir;
+        this.maxCacheSize = maxCacheSize;
+        if (!cacheDir.isDirectory() && !cacheDir.mkdirs()) {
+            System.err.println("Could not create the cache directory: " + cacheDir);
+        }
+
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ParsedModelCacheWriter");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @return the default cache directory in the home directory of the user
+     */
+    public static File getDefaultCacheDir() {
+        return FSInfo.getAppDataDir("cache");
+    }
+
+    /**
+     * @return the maximum size of the cache directory (in bytes)
+     */
+    public long getMaxCacheSize() {
+        return this.maxCacheSize;
+    }
+
+    /* Public methods */
+
+    /**
+     * Determines the key of the specified PNML file. (Does not read the file.)
+     *
+     * @param pnmlFile
+     *            The PNML file
+     * @return The {@link CacheKey}; null if the file does not exist
+     */
+    public CacheKey getKey(File pnmlFile) {
+        String canonicalPath = FSInfo.getCanonicalPath(pnmlFile);
+        if (canonicalPath == null || !pnmlFile.isFile())
+            return null;
+
+        return new CacheKey(canonicalPath, pnmlFile.length(), pnmlFile.lastModified());
+    }
+
+    /**
+     * Loads the cached model for the specified key and pushes all elements
+     * into the current data model of the specified controller. (Like the
+     * {@link PNMLParser} does.)<BR>
+     * <BR>
+     * Note: Nothing is pushed if the cache entry is missing, outdated or
+     * damaged.
+     *
+     * @param key
+     *            The {@link CacheKey} of the PNML file
+     * @param controller
+     *            The data model controller (or another
+     *            {@link IPNMLImportTarget})
+     * @return True if the model was loaded from the cache; otherwise false
+     */
+    public boolean load(CacheKey key, IPNMLImportTarget controller) {
+        if (key == null)
+            return false;
+
+        File cacheFile = getCacheFile(key.canonicalPath);
+        if (!cacheFile.isFile())
+            return false;
+
+        /* Read all records first: push nothing from a damaged file! */
+        List<ElementRecord> records = new ArrayList<ElementRecord>();
+        long contentHash;
+        boolean touched;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(cacheFile), BUFFER_SIZE))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                return false;
+            CacheKey storedKey = readKey(in);
+            contentHash = in.readLong();
+
+            if (!storedKey.canonicalPath.equals(key.canonicalPath) || storedKey.size != key.size)
+                return false; // Outdated
+
+            touched = (storedKey.lastModified != key.lastModified);
+            if (touched && getContentHash(key) != contentHash)
+                return false; // Outdated
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                records.add(readRecord(in));
+            }
+        } catch (IOException e) {
+            System.err.println("Damaged cache file " + cacheFile + ": " + e.getMessage());
+            cacheFile.delete();
+            return false;
+        }
+
+        for (ElementRecord record : records) {
+            pushRecord(record, controller);
+        }
+
+        if (touched) {
+            /* Same content: store the new modification time. */
+            final CacheKey newKey = key;
+            final long newContentHash = contentHash;
+            final List<ElementRecord> newRecords = records;
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    writeCacheFile(newKey, newContentHash, newRecords);
+                }
+            });
+        } else {
+            /* Most recently used */
+            cacheFile.setLastModified(System.currentTimeMillis());
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("ParsedModelCache: " + records.size() + " elements loaded for " + key.canonicalPath);
+        }
+        return true;
+    }
+
+    /**
+     * Stores the elements of the specified model for the specified key. (The
+     * file is written in the background.)
+     *
+     * @param key
+     *            The {@link CacheKey} of the PNML file (determined before
+     *            parsing!)
+     * @param model
+     *            The {@link IDataModel} with the parsed elements
+     */
+    public void store(final CacheKey key, IDataModel model) {
+        if (key == null)
+            return;
+
+        /* Snapshot on the calling thread (nodes before arcs) */
+        final List<ElementRecord> records = new ArrayList<ElementRecord>();
+        List<IDataElement> elements = model.getElements();
+        for (IDataElement element : elements) {
+            if (element instanceof DataPlace) {
+                DataPlace place = (DataPlace) element;
+                Point p = place.getPosition();
+                records.add(new ElementRecord(RECORD_PLACE, place.getId(), place.getName(), null,
+                        place.getTokensCount().toInt(), p.x, p.y));
+            } else if (element instanceof DataTransition) {
+                DataTransition transition = (DataTransition) element;
+                Point p = transition.getPosition();
+                records.add(new ElementRecord(RECORD_TRANSITION, transition.getId(), transition.getName(), null, 0,
+                        p.x, p.y));
+            }
+        }
+        for (IDataElement element : elements) {
+            if (element instanceof DataArc) {
+                DataArc arc = (DataArc) element;
+                records.add(new ElementRecord(RECORD_ARC, arc.getId(), arc.getSourceId(), arc.getTargetId(), 0, 0, 0));
+            }
+        }
+
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                /* The content hash is only needed for touched files later. */
+                long contentHash = getContentHash(key);
+                if (contentHash < 0)
+                    return; // Changed after parsing or not readable
+
+                writeCacheFile(key, contentHash, records);
+                evictLeastRecentlyUsed();
+            }
+        });
+    }
+
+    /* Private helpers */
+
+    /**
+     * Computes the content hash (CRC32) of the PNML file of the specified key.
+     *
+     * @param key
+     *            The {@link CacheKey}
+     * @return The CRC32 of the file content; -1 if the file could not be read
+     *         or does not match the key (size and modification time) anymore
+     */
+    private static long getContentHash(CacheKey key) {
+        File pnmlFile = new File(key.canonicalPath);
+        if (pnmlFile.length() != key.size || pnmlFile.lastModified() != key.lastModified)
+            return -1;
+
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream is = new FileInputStream(pnmlFile)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("ParsedModelCache: cannot read " + pnmlFile + ": " + e.getMessage());
+            }
+            return -1;
+        }
+
+        /* Changed while reading? */
+        if (pnmlFile.length() != key.size || pnmlFile.lastModified() != key.lastModified)
+            return -1;
+
+        return crc.getValue();
+    }
+
+    /**
+     * Writes the cache file. (Into a temporary file which is renamed to avoid
+     * incomplete cache files.)
+     *
+     * @param key
+     *            The {@link CacheKey}
+     * @param contentHash
+     *            The CRC32 of the content of the PNML file
+     * @param records
+     *            The element records
+     */
+    private void writeCacheFile(CacheKey key, long contentHash, List<ElementRecord> records) {
+        File cacheFile = getCacheFile(key.canonicalPath);
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmpFile), BUFFER_SIZE))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeKey(out, key);
+            out.writeLong(contentHash);
+            out.writeInt(records.size());
+            for (ElementRecord record : records) {
+                writeRecord(out, record);
+            }
+        } catch (IOException e) {
+            System.err.println("Could not write the cache file " + cacheFile + ": " + e.getMessage());
+            tmpFile.delete();
+            return;
+        }
+
+        cacheFile.delete();
+        if (!tmpFile.renameTo(cacheFile)) {
+            System.err.println("Could not rename the cache file " + tmpFile);
+            tmpFile.delete();
+        }
+    }
+
+    /**
+     * Deletes the least recently used cache files until the size of the cache
+     * directory is below the limit.
+     */
+    private void evictLeastRecentlyUsed() {
+        File[] files = cacheDir.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(CACHE_FILE_SUFFIX);
+            }
+        });
+        if (files == null)
+            return;
+
+        long totalSize = 0;
+        for (File file : files) {
+            totalSize += file.length();
+        }
+        if (totalSize <= maxCacheSize)
+            return;
+
+        /* Oldest first */
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                return Long.compare(f1.lastModified(), f2.lastModified());
+            }
+        });
+
+        for (File file : files) {
+            if (totalSize <= maxCacheSize)
+                break;
+            long size = file.length();
+            if (file.delete())
+                totalSize -= size;
+            if (logger.isDebugEnabled()) {
+                logger.debug("ParsedModelCache: evicted " + file);
+            }
+        }
+    }
+
+    /**
+     * Returns the cache file for the specified canonical path. (The file name
+     * is a hash of the path.)
+     *
+     * @param canonicalPath
+     *            The canonical path of the PNML file
+     * @return The cache {@link File}
+     */
+    private File getCacheFile(String canonicalPath) {
+        String fileName = FSInfo.getHashedFileName(canonicalPath);
+        return new File(cacheDir, fileName + CACHE_FILE_SUFFIX);
+    }
+
+    /**
+     * @param out
+     *            The {@link DataOutputStream}
+     * @param key
+     *            The {@link CacheKey} to write
+     * @throws IOException
+     *             on write errors
+     */
+    private static void writeKey(DataOutputStream out, CacheKey key) throws IOException {
+        out.writeUTF(key.canonicalPath);
+        out.writeLong(key.size);
+        out.writeLong(key.lastModified);
+    }
+
+    /**
+     * @param in
+     *            The {@link DataInputStream}
+     * @return The {@link CacheKey} stored in the cache file
+     * @throws IOException
+     *             on read errors
+     */
+    private static CacheKey readKey(DataInputStream in) throws IOException {
+        String canonicalPath = in.readUTF();
+        long size = in.readLong();
+        long lastModified = in.readLong();
+        return new CacheKey(canonicalPath, size, lastModified);
+    }
+
+    /**
+     * @param out
+     *            The {@link DataOutputStream}
+     * @param record
+     *            The element record to write
+     * @throws IOException
+     *             on write errors
+     */
+    private static void writeRecord(DataOutputStream out, ElementRecord record) throws IOException {
+        out.writeByte(record.type);
+        out.writeUTF(record.id);
+        out.writeUTF(record.value);
+
+        if (record.type == RECORD_ARC) {
+            out.writeUTF(record.targetId);
+        } else {
+            out.writeByte(record.tokens);
+            out.writeInt(record.x);
+            out.writeInt(record.y);
+        }
+    }
+
+    /**
+     * @param in
+     *            The {@link DataInputStream}
+     * @return The next element record
+     * @throws IOException
+     *             on read errors or unknown record types
+     */
+    private static ElementRecord readRecord(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        String id = in.readUTF();
+        String value = in.readUTF();
+
+        switch (type) {
+        case RECORD_ARC:
+            return new ElementRecord(type, id, value, in.readUTF(), 0, 0, 0);
+        case RECORD_PLACE:
+        case RECORD_TRANSITION:
+            int tokens = in.readByte();
+            int x = in.readInt();
+            int y = in.readInt();
+            return new ElementRecord(type, id, value, null, tokens, x, y);
+        default:
+            throw new IOException("Unknown record type: " + type);
+        }
+    }
+
+    /**
+     * Pushes one element record into the current data model of the specified
+     * controller.
+     *
+     * @param record
+     *            The element record
+     * @param controller
+     *            The {@link IPNMLImportTarget}
+     */
+    private static void pushRecord(ElementRecord record, IPNMLImportTarget controller) {
+        switch (record.type) {
+        case RECORD_PLACE:
+            EPlaceToken tokens = (record.tokens == 1) ? EPlaceToken.ONE : EPlaceToken.ZERO;
+            Point place = new Point(record.x, record.y);
+            controller.addPlaceToCurrentDataModel(record.id, record.value, tokens, place);
+            break;
+        case RECORD_TRANSITION:
+            Point transition = new Point(record.x, record.y);
+            controller.addTransitionToCurrentDataModel(record.id, record.value, transition);
+            break;
+        case RECORD_ARC:
+            controller.addArcToCurrentDataModel(record.id, record.value, record.targetId);
+            break;
+        default:
+            break;
+        }
+    }
+
+    /* Inner classes */
+
+    /**
+     * One cached element. (Places and transitions: value = name; arcs: value =
+     * source id)
+     */
+    private static final class ElementRecord {
+
+        /** The record type */
+        final byte type;
+
+        /** The id of the element */
+        final String id;
+
+        /** The name of a node or the source id of an arc */
+        final String value;
+
+        /** The target id of an arc */
+        final String targetId;
+
+        /** The tokens of a place */
+        final int tokens;
+
+        /** The x position of a node */
+        final int x;
+
+        /** The y position of a node */
+        final int y;
+
+        /**
+         * @param type
+         *            The record type
+         * @param id
+         *            The id of the element
+         * @param value
+         *            The name of a node or the source id of an arc
+         * @param targetId
+         *            The target id of an arc
+         * @param tokens
+         *            The tokens of a place
+         * @param x
+         *            The x position of a node
+         * @param y
+         *            The y position of a node
+         */
+        @SuppressWarnings("hiding")
+        ElementRecord(byte type, String id, String value, String targetId, int tokens, int x, int y) {
+            this.type = type;
+            this.id = id;
+            this.value = (value == null) ? "" : value;
+            this.targetId = targetId;
+            this.tokens = tokens;
+            this.x = x;
+            this.y = y;
+        }
+
+    }
+
+    /**
+     * The key of a cache entry: canonical path, size and modification time of
+     * the PNML file.
+     */
+    public static final class CacheKey {
+
+        /** The canonical path of the PNML file */
+        final String canonicalPath;
+
+        /** The size of the PNML file */
+        final long size;
+
+        /** The modification time of the PNML file */
+        final long lastModified;
+
+        /**
+         * @param canonicalPath
+         *            The canonical path of the PNML file
+         * @param size
+         *            The size of the PNML file
+         * @param lastModified
+         *            The modification time of the PNML file
+         */
+        @SuppressWarnings("hiding")
+        CacheKey(String canonicalPath, long size, long lastModified) {
+            this.canonicalPath = canonicalPath;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof CacheKey))
+                return false;
+            CacheKey other = (CacheKey) obj;
+            return canonicalPath.equals(other.canonicalPath) && size == other.size
+                    && lastModified == other.lastModified;
+        }
+
+        @Override
+        public int hashCode() {
+            return canonicalPath.hashCode() ^ (int) (lastModified ^ (lastModified >>> 32));
+        }
+
+    }
+
+}
@@ -0,0 +1,65 @@
+package de.lambeck.pned.filesystem.journal;
+
+/**
+ * The operations recorded in an {@link EditJournal}. Each operation knows the
+ * number of values (including the element ID) stored in its journal line.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public enum EJournalOperation {
+    /**
+     * A place was added. (id, name, tokens, x, y)
+     */
+    PLACE(5),
+    /**
+     * A transition was added. (id, name, x, y)
+     */
+    TRANSITION(4),
+    /**
+     * An arc was added. (id, sourceId, targetId)
+     */
+    ARC(3),
+    /**
+     * An element was removed. (id)
+     */
+    REMOVE(1),
+    /**
+     * A node was moved. (id, x, y)
+     */
+    MOVE(3),
+    /**
+     * A node was renamed. (id, name)
+     */
+    RENAME(2),
+    /**
+     * The marking of a place was changed. (id, tokens)
+     */
+    MARKING(2),
+    /**
+     * All elements were removed. (Start of a snapshot; all previous entries
+     * are obsolete.)
+     */
+    CLEAR(0);
+
+    /** The number of values stored for this operation */
+    private int valuesCount;
+
+    /**
+     * Constructs this enum element with the specified number of values.
+     *
+     * @param initValuesCount
+     *            The number of values stored for this operation
+     */
+    private EJournalOperation(final int initValuesCount) {
+        this.valuesCount = initValuesCount;
+    }
+
+    /**
+     * @return the number of values stored for this operation
+     */
+    public int getValuesCount() {
+        return this.valuesCount;
+    }
+
+}
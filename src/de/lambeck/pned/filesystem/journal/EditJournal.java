@@ -0,0 +1,613 @@
+package de.lambeck.pned.filesystem.journal;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import de.lambeck.pned.exceptions.PNInvalidParameterException;
+import de.lambeck.pned.filesystem.FSInfo;
+import de.lambeck.pned.util.logging.Logger;
+
+/**
+ * Append-only journal of the edit operations on all open models since they
+ * were last saved. There is one journal file per model in the journal
+ * directory.<BR>
+ * <BR>
+ * The entries are written asynchronously by a daemon thread: the EDT only adds
+ * them to a queue. The writer thread writes all queued entries as one batch
+ * and forces them to the disk at least every {@link #FORCE_INTERVAL} ms.<BR>
+ * <BR>
+ * The journal of a model is discarded when the model was saved (the PNML file
+ * contains all changes now) or closed. Journal files which still exist on
+ * startup can be replayed with {@link #getRecoverableJournals()} on the last
+ * saved PNML file.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class EditJournal {
+
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(EditJournal.class);
+
+    /** The suffix of the journal files */
+    private final static String JOURNAL_FILE_SUFFIX = ".journal";
+
+    /** The first value in the header line of each journal file */
+    private final static String HEADER_MAGIC = "#pned-journal";
+
+    /** The version of the journal format */
+    private final static String HEADER_VERSION = "1";
+
+    /** Maximum time (in ms) until written entries are forced to the disk */
+    private final static long FORCE_INTERVAL = 1000;
+
+    /** Maximum number of tasks processed as one batch */
+    private final static int MAX_BATCH_SIZE = 4096;
+
+    /** The directory for the journal files */
+    private final File journalDir;
+
+    /** The queue for the writer thread */
+    private final BlockingQueue<JournalTask> queue = new LinkedBlockingQueue<JournalTask>();
+
+    /** The writer thread */
+    private final Thread writerThread;
+
+    /**
+     * The open journal files (Used by the writer thread only!)
+     */
+    private final Map<String, OpenJournalFile> openFiles = new HashMap<String, OpenJournalFile>();
+
+    /** Has shutdown() been called? */
+    private volatile boolean shutdown = false;
+
+    /* Constructor */
+
+    /**
+     * Constructs the journal for the specified directory and starts the
+     * writer thread.
+     *
+     * @param journalDir
+     *            The directory for the journal files (Will be created if
+     *            necessary.)
+     */
+    @SuppressWarnings("hiding")
+    public EditJournal(File journalDir) {
+        this.journalDir = journalDir;
+        if (!journalDir.isDirectory() && !journalDir.mkdirs()) {
+            System.err.println("Could not create the journal directory: " + journalDir);
+        }
+
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writerLoop();
+            }
+        }, "EditJournalWriter");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * @return the default journal directory in the home directory of the user
+     */
+    public static File getDefaultJournalDir() {
+        return FSInfo.getAppDataDir("journal");
+    }
+
+    /* Public methods (for the EDT) */
+
+    /**
+     * Appends the specified entry to the journal of the specified model.
+     *
+     * @param modelName
+     *            The name of the model (This is intended to be the full path
+     *            name of the PNML file represented by this model.)
+     * @param entry
+     *            The {@link EditJournalEntry}
+     */
+    public void append(String modelName, EditJournalEntry entry) {
+        enqueue(new JournalTask(ETaskType.APPEND, modelName, entry, null));
+    }
+
+    /**
+     * Discards the journal of the specified model.<BR>
+     * <BR>
+     * Note: To be called after the model was saved (The PNML file contains all
+     * changes now.) or closed.
+     *
+     * @param modelName
+     *            The name of the model
+     */
+    public void discard(String modelName) {
+        enqueue(new JournalTask(ETaskType.DISCARD, modelName, null, null));
+    }
+
+    /**
+     * Moves the journal of a model to the new name of the model. (SaveAs)
+     *
+     * @param oldModelName
+     *            The old name of the model
+     * @param newModelName
+     *            The new name of the model
+     */
+    public void rename(String oldModelName, String newModelName) {
+        enqueue(new JournalTask(ETaskType.RENAME, oldModelName, null, newModelName));
+    }
+
+    /**
+     * Writes all queued entries, closes all journal files and stops the writer
+     * thread. (Waits at most 2 x {@link #FORCE_INTERVAL} ms.)
+     */
+    public void shutdown() {
+        if (shutdown)
+            return;
+        enqueue(new JournalTask(ETaskType.SHUTDOWN, null, null, null));
+        shutdown = true;
+
+        try {
+            writerThread.join(2 * FORCE_INTERVAL);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads all journal files which were left over by a previous session.<BR>
+     * <BR>
+     * Note: Must be called on startup before any new entries are appended!
+     * Only complete lines are returned. A line which was not completely written
+     * (e.g. on a crash) and everything behind an invalid line is ignored.
+     *
+     * @return A {@link List} of {@link RecoveredJournal} (Journals without
+     *         entries are deleted.)
+     */
+    public List<RecoveredJournal> getRecoverableJournals() {
+        List<RecoveredJournal> result = new ArrayList<RecoveredJournal>();
+
+        File[] files = journalDir.listFiles();
+        if (files == null)
+            return result;
+
+        for (File file : files) {
+            if (!file.getName().endsWith(JOURNAL_FILE_SUFFIX))
+                continue;
+
+            RecoveredJournal journal = readJournalFile(file);
+            if (journal == null || journal.getEntries().size() == 0) {
+                /* Nothing to recover. */
+                file.delete();
+                continue;
+            }
+            result.add(journal);
+        }
+
+        return result;
+    }
+
+    /* Private helpers */
+
+    /**
+     * Adds a task to the queue of the writer thread.
+     *
+     * @param task
+     *            The {@link JournalTask}
+     */
+    private void enqueue(JournalTask task) {
+        if (shutdown) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("EditJournal already shut down, task ignored: " + task.type);
+            }
+            return;
+        }
+        queue.add(task);
+    }
+
+    /**
+     * Reads the specified journal file.
+     *
+     * @param file
+     *            The journal file
+     * @return A {@link RecoveredJournal}; null if the file is not a valid
+     *         journal file
+     */
+    private RecoveredJournal readJournalFile(File file) {
+        String content;
+        try {
+            content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("Could not read the journal file " + file + ": " + e.getMessage());
+            return null;
+        }
+
+        /* The last part is empty or an incomplete line. (-> Ignored!) */
+        String[] lines = content.split("\n", -1);
+        if (lines.length < 2)
+            return null;
+
+        String[] header = EditJournalEntry.splitLine(lines[0]);
+        if (header.length != 3 || !header[0].equals(HEADER_MAGIC) || !header[1].equals(HEADER_VERSION)) {
+            System.err.println("Not a valid journal file: " + file);
+            return null;
+        }
+        String modelName = header[2];
+
+        List<EditJournalEntry> entries = new LinkedList<EditJournalEntry>();
+        for (int i = 1; i < lines.length - 1; i++) {
+            try {
+                entries.add(EditJournalEntry.parseLine(lines[i]));
+            } catch (PNInvalidParameterException e) {
+                System.err.println("Journal " + file + ", line " + (i + 1) + ": " + e.getMessage());
+                break;
+            }
+        }
+
+        return new RecoveredJournal(modelName, entries);
+    }
+
+    /**
+     * Returns the journal file for the specified model. (The file name is a
+     * hash of the model name because model names are full path names.)
+     *
+     * @param modelName
+     *            The name of the model
+     * @return The journal {@link File}
+     */
+    private File getJournalFile(String modelName) {
+        String fileName = FSInfo.getHashedFileName(modelName);
+        return new File(journalDir, fileName + JOURNAL_FILE_SUFFIX);
+    }
+
+    /* The writer thread */
+
+    /**
+     * The loop of the writer thread: processes all queued tasks as one batch,
+     * writes them to the files and forces them to the disk periodically.
+     */
+    private void writerLoop() {
+        List<JournalTask> batch = new ArrayList<JournalTask>();
+        long lastForce = System.currentTimeMillis();
+        boolean stop = false;
+
+        while (!stop) {
+            try {
+                JournalTask first = queue.poll(FORCE_INTERVAL, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH_SIZE);
+                }
+            } catch (InterruptedException e) {
+                stop = true;
+            }
+
+            for (JournalTask task : batch) {
+                if (task.type == ETaskType.SHUTDOWN) {
+                    stop = true;
+                    break;
+                }
+                processTask(task);
+            }
+            batch.clear();
+
+            flushAll();
+
+            long now = System.currentTimeMillis();
+            if (stop || now - lastForce >= FORCE_INTERVAL) {
+                forceAll();
+                lastForce = now;
+            }
+        }
+
+        for (OpenJournalFile openFile : openFiles.values()) {
+            openFile.close();
+        }
+        openFiles.clear();
+    }
+
+    /**
+     * Processes one task of the queue.
+     *
+     * @param task
+     *            The {@link JournalTask}
+     */
+    private void processTask(JournalTask task) {
+        switch (task.type) {
+        case APPEND:
+            if (task.entry.getOperation() == EJournalOperation.CLEAR)
+                truncate(task.modelName);
+
+            OpenJournalFile openFile = getOpenFile(task.modelName);
+            if (openFile != null)
+                openFile.writeLine(task.entry.toLine());
+            break;
+
+        case DISCARD:
+            closeAndDelete(task.modelName);
+            break;
+
+        case RENAME:
+            renameJournalFile(task.modelName, task.newModelName);
+            break;
+
+        default:
+            break;
+        }
+    }
+
+    /**
+     * Returns the open journal file for the specified model. Opens (and
+     * truncates!) the file with a new header if necessary.
+     *
+     * @param modelName
+     *            The name of the model
+     * @return The {@link OpenJournalFile}; null on IO errors
+     */
+    private OpenJournalFile getOpenFile(String modelName) {
+        OpenJournalFile openFile = openFiles.get(modelName);
+        if (openFile != null)
+            return openFile;
+
+        File file = getJournalFile(modelName);
+        try {
+            openFile = new OpenJournalFile(file);
+        } catch (IOException e) {
+            System.err.println("Could not open the journal file " + file + ": " + e.getMessage());
+            return null;
+        }
+
+        StringBuilder header = new StringBuilder();
+        header.append(HEADER_MAGIC).append('\t').append(HEADER_VERSION).append('\t');
+        EditJournalEntry.appendEscaped(header, modelName);
+        openFile.writeLine(header.toString());
+
+        openFiles.put(modelName, openFile);
+        return openFile;
+    }
+
+    /**
+     * Drops all entries of the journal file of the specified model. (All
+     * entries before a CLEAR entry are obsolete.)
+     *
+     * @param modelName
+     *            The name of the model
+     */
+    private void truncate(String modelName) {
+        OpenJournalFile openFile = openFiles.remove(modelName);
+        if (openFile != null)
+            openFile.close();
+
+        /* getOpenFile() truncates the file and writes a new header. */
+    }
+
+    /**
+     * Closes and deletes the journal file of the specified model.
+     *
+     * @param modelName
+     *            The name of the model
+     */
+    private void closeAndDelete(String modelName) {
+        OpenJournalFile openFile = openFiles.remove(modelName);
+        if (openFile != null)
+            openFile.close();
+
+        File file = getJournalFile(modelName);
+        if (file.exists() && !file.delete()) {
+            System.err.println("Could not delete the journal file " + file);
+        }
+    }
+
+    /**
+     * Copies the entries of the old journal file into the journal file for the
+     * new model name and deletes the old file.
+     *
+     * @param oldModelName
+     *            The old name of the model
+     * @param newModelName
+     *            The new name of the model
+     */
+    private void renameJournalFile(String oldModelName, String newModelName) {
+        OpenJournalFile oldFile = openFiles.remove(oldModelName);
+        if (oldFile == null)
+            return; // Nothing journaled (e.g. discarded after saving)
+        oldFile.close();
+
+        RecoveredJournal journal = readJournalFile(getJournalFile(oldModelName));
+        closeAndDelete(oldModelName);
+        closeAndDelete(newModelName);
+        if (journal == null)
+            return;
+
+        for (EditJournalEntry entry : journal.getEntries()) {
+            OpenJournalFile newFile = getOpenFile(newModelName);
+            if (newFile == null)
+                return;
+            newFile.writeLine(entry.toLine());
+        }
+    }
+
+    /**
+     * Writes the buffers of all open journal files to the files.
+     */
+    private void flushAll() {
+        for (OpenJournalFile openFile : openFiles.values()) {
+            openFile.flush();
+        }
+    }
+
+    /**
+     * Forces the content of all open journal files to the disk.
+     */
+    private void forceAll() {
+        for (OpenJournalFile openFile : openFiles.values()) {
+            openFile.force();
+        }
+    }
+
+    /* Inner types */
+
+    /**
+     * The types of tasks for the writer thread.
+     */
+    private enum ETaskType {
+        /** Append an entry */
+        APPEND,
+        /** Discard a journal */
+        DISCARD,
+        /** Rename a journal */
+        RENAME,
+        /** Stop the writer thread */
+        SHUTDOWN
+    }
+
+    /**
+     * A task for the writer thread.
+     */
+    private static class JournalTask {
+
+        /** The type of this task */
+        final ETaskType type;
+
+        /** The name of the model */
+        final String modelName;
+
+        /** The entry to append */
+        final EditJournalEntry entry;
+
+        /** The new name of the model (for RENAME) */
+        final String newModelName;
+
+        /**
+         * @param type
+         *            The type of this task
+         * @param modelName
+         *            The name of the model
+         * @param entry
+         *            The entry to append
+         * @param newModelName
+         *            The new name of the model (for RENAME)
+         */
+        JournalTask(ETaskType type, String modelName, EditJournalEntry entry, String newModelName) {
+            this.type = type;
+            this.modelName = modelName;
+            this.entry = entry;
+            this.newModelName = newModelName;
+        }
+
+    }
+
+    /**
+     * An open journal file with a buffered writer on its {@link FileChannel}.
+     */
+    private static class OpenJournalFile {
+
+        /** The channel (for force()) */
+        private final FileChannel channel;
+
+        /** The buffered writer on the channel */
+        private final Writer writer;
+
+        /** Written but not forced to the disk? */
+        private boolean dirty = false;
+
+        /** Was there an IO error? (-> No more writes to this file.) */
+        private boolean failed = false;
+
+        /**
+         * Opens and truncates the specified file.
+         *
+         * @param file
+         *            The journal file
+         * @throws IOException
+         *             if the file could not be opened
+         */
+        OpenJournalFile(File file) throws IOException {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), -1));
+        }
+
+        /**
+         * @param line
+         *            The line to write (without line break)
+         */
+        void writeLine(String line) {
+            if (failed)
+                return;
+            try {
+                writer.write(line);
+                writer.write('\n');
+                dirty = true;
+            } catch (IOException e) {
+                failed(e);
+            }
+        }
+
+        /**
+         * Writes the buffer to the file.
+         */
+        void flush() {
+            if (failed || !dirty)
+                return;
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                failed(e);
+            }
+        }
+
+        /**
+         * Forces the written content to the disk.
+         */
+        void force() {
+            if (failed || !dirty)
+                return;
+            try {
+                writer.flush();
+                channel.force(false);
+                dirty = false;
+            } catch (IOException e) {
+                failed(e);
+            }
+        }
+
+        /**
+         * Forces the written content to the disk and closes the file.
+         */
+        void close() {
+            force();
+            try {
+                writer.close();
+            } catch (IOException e) {
+                System.err.println("Could not close a journal file: " + e.getMessage());
+            }
+        }
+
+        /**
+         * Stops writing to this file after an IO error.
+         *
+         * @param e
+         *            The {@link IOException}
+         */
+        private void failed(IOException e) {
+            System.err.println("Could not write the journal file: " + e.getMessage());
+            failed = true;
+        }
+
+    }
+
+}
@@ -0,0 +1,354 @@
+package de.lambeck.pned.filesystem.journal;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.exceptions.PNInvalidParameterException;
+
+/**
+ * One (immutable) entry of an {@link EditJournal}.<BR>
+ * <BR>
+ * An entry is stored as one line of text: the name of the
+ * {@link EJournalOperation} followed by its values, separated by tabs. Tabs,
+ * line breaks and backslashes inside of values (e.g. names) are escaped.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class EditJournalEntry {
+
+    /** The separator between the values of one line */
+    private final static char SEPARATOR = '\t';
+
+    /** The escape character for values */
+    private final static char ESCAPE = '\\';
+
+    /** The operation of this entry */
+    private final EJournalOperation operation;
+
+    /** The values of this entry (depending on the operation) */
+    private final String[] values;
+
+    /**
+     * Constructs an entry for the specified operation and values.
+     *
+     * @param operation
+     *            The {@link EJournalOperation}
+     * @param values
+     *            The values (Count must match the operation!)
+     */
+    @SuppressWarnings("hiding")
+    private EditJournalEntry(EJournalOperation operation, String... values) {
+        this.operation = operation;
+        this.values = values;
+    }
+
+    /* Factory methods */
+
+    /**
+     * @param id
+     *            The id of the added place
+     * @param name
+     *            The name of the place
+     * @param tokens
+     *            The tokens of the place
+     * @param position
+     *            The position of the place
+     * @return An entry for an added place
+     */
+    public static EditJournalEntry place(String id, String name, EPlaceToken tokens, Point position) {
+        return new EditJournalEntry(EJournalOperation.PLACE, id, name, tokens.toPnedString(),
+                Integer.toString(position.x), Integer.toString(position.y));
+    }
+
+    /**
+     * @param id
+     *            The id of the added transition
+     * @param name
+     *            The name of the transition
+     * @param position
+     *            The position of the transition
+     * @return An entry for an added transition
+     */
+    public static EditJournalEntry transition(String id, String name, Point position) {
+        return new EditJournalEntry(EJournalOperation.TRANSITION, id, name, Integer.toString(position.x),
+                Integer.toString(position.y));
+    }
+
+    /**
+     * @param id
+     *            The id of the added arc
+     * @param sourceId
+     *            The id of the source node
+     * @param targetId
+     *            The id of the target node
+     * @return An entry for an added arc
+     */
+    public static EditJournalEntry arc(String id, String sourceId, String targetId) {
+        return new EditJournalEntry(EJournalOperation.ARC, id, sourceId, targetId);
+    }
+
+    /**
+     * @param id
+     *            The id of the removed element
+     * @return An entry for a removed element
+     */
+    public static EditJournalEntry remove(String id) {
+        return new EditJournalEntry(EJournalOperation.REMOVE, id);
+    }
+
+    /**
+     * @param id
+     *            The id of the moved node
+     * @param position
+     *            The new position
+     * @return An entry for a moved node
+     */
+    public static EditJournalEntry move(String id, Point position) {
+        return new EditJournalEntry(EJournalOperation.MOVE, id, Integer.toString(position.x),
+                Integer.toString(position.y));
+    }
+
+    /**
+     * @param id
+     *            The id of the renamed node
+     * @param name
+     *            The new name
+     * @return An entry for a renamed node
+     */
+    public static EditJournalEntry rename(String id, String name) {
+        return new EditJournalEntry(EJournalOperation.RENAME, id, name);
+    }
+
+    /**
+     * @param id
+     *            The id of the place
+     * @param tokens
+     *            The new tokens of the place
+     * @return An entry for a changed marking
+     */
+    public static EditJournalEntry marking(String id, EPlaceToken tokens) {
+        return new EditJournalEntry(EJournalOperation.MARKING, id, tokens.toPnedString());
+    }
+
+    /**
+     * @return An entry for the removal of all elements
+     */
+    public static EditJournalEntry clear() {
+        return new EditJournalEntry(EJournalOperation.CLEAR);
+    }
+
+    /* Getter */
+
+    /**
+     * @return the operation of this entry
+     */
+    public EJournalOperation getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * @return the id of the element (null for CLEAR)
+     */
+    public String getId() {
+        if (values.length == 0)
+            return null;
+        return values[0];
+    }
+
+    /**
+     * Returns the name of a place, transition or renamed node.
+     *
+     * @return The name
+     */
+    public String getName() {
+        return values[1];
+    }
+
+    /**
+     * Returns the id of the source node of an arc.
+     *
+     * @return The id of the source node
+     */
+    public String getSourceId() {
+        return values[1];
+    }
+
+    /**
+     * Returns the id of the target node of an arc.
+     *
+     * @return The id of the target node
+     */
+    public String getTargetId() {
+        return values[2];
+    }
+
+    /**
+     * Returns the tokens of a place or a changed marking.
+     *
+     * @return The {@link EPlaceToken}
+     */
+    public EPlaceToken getTokens() {
+        int index = (operation == EJournalOperation.PLACE) ? 2 : 1;
+        if (values[index].equals(EPlaceToken.ONE.toPnedString()))
+            return EPlaceToken.ONE;
+        return EPlaceToken.ZERO;
+    }
+
+    /**
+     * Returns the position of a place, transition or moved node.
+     *
+     * @return The position
+     */
+    public Point getPosition() {
+        int count = values.length;
+        int x = Integer.parseInt(values[count - 2]);
+        int y = Integer.parseInt(values[count - 1]);
+        return new Point(x, y);
+    }
+
+    /* Conversion from and to a line of text */
+
+    /**
+     * Returns this entry as one line of text (without line break).
+     *
+     * @return The line
+     */
+    public String toLine() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(operation.name());
+        for (String value : values) {
+            sb.append(SEPARATOR);
+            appendEscaped(sb, value);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses one line of text from a journal file.
+     *
+     * @param line
+     *            The line (without line break)
+     * @return The {@link EditJournalEntry}
+     * @throws PNInvalidParameterException
+     *             if the line is not a valid journal entry
+     */
+    public static EditJournalEntry parseLine(String line) throws PNInvalidParameterException {
+        String[] parts = splitLine(line);
+
+        EJournalOperation operation;
+        try {
+            operation = EJournalOperation.valueOf(parts[0]);
+        } catch (IllegalArgumentException e) {
+            throw new PNInvalidParameterException("Unknown journal operation: " + parts[0], e);
+        }
+
+        int count = operation.getValuesCount();
+        if (parts.length != count + 1)
+            throw new PNInvalidParameterException("Wrong number of values for " + operation + ": " + line);
+
+        String[] values = new String[count];
+        System.arraycopy(parts, 1, values, 0, count);
+        EditJournalEntry entry = new EditJournalEntry(operation, values);
+
+        /* Check the numeric values now instead of during the replay. */
+        try {
+            switch (operation) {
+            case PLACE:
+            case TRANSITION:
+            case MOVE:
+                entry.getPosition();
+                break;
+            default:
+                break;
+            }
+        } catch (NumberFormatException e) {
+            throw new PNInvalidParameterException("Invalid position: " + line, e);
+        }
+
+        return entry;
+    }
+
+    /**
+     * Appends the specified value with escaped separators, line breaks and
+     * escape characters. (Also used for the files of the session recorder.)
+     *
+     * @param sb
+     *            The {@link StringBuilder}
+     * @param value
+     *            The value
+     */
+    public static void appendEscaped(StringBuilder sb, String value) {
+        if (value == null)
+            return;
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case SEPARATOR:
+                sb.append(ESCAPE).append('t');
+                break;
+            case '\n':
+                sb.append(ESCAPE).append('n');
+                break;
+            case '\r':
+                sb.append(ESCAPE).append('r');
+                break;
+            case ESCAPE:
+                sb.append(ESCAPE).append(ESCAPE);
+                break;
+            default:
+                sb.append(c);
+            }
+        }
+    }
+
+    /**
+     * Splits a line at the separators and removes the escaping of the values.
+     * (Also used for the files of the session recorder.)
+     *
+     * @param line
+     *            The line
+     * @return The unescaped parts of the line
+     */
+    public static String[] splitLine(String line) {
+        List<String> parts = new ArrayList<String>();
+        StringBuilder current = new StringBuilder();
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == SEPARATOR) {
+                parts.add(current.toString());
+                current.setLength(0);
+            } else if (c == ESCAPE && i + 1 < line.length()) {
+                char next = line.charAt(++i);
+                switch (next) {
+                case 't':
+                    current.append(SEPARATOR);
+                    break;
+                case 'n':
+                    current.append('\n');
+                    break;
+                case 'r':
+                    current.append('\r');
+                    break;
+                default:
+                    current.append(next);
+                }
+            } else {
+                current.append(c);
+            }
+        }
+        parts.add(current.toString());
+
+        return parts.toArray(new String[parts.size()]);
+    }
+
+    @Override
+    public String toString() {
+        return toLine();
+    }
+
+}
@@ -0,0 +1,51 @@
+package de.lambeck.pned.filesystem.journal;
+
+import java.util.List;
+
+/**
+ * The content of a journal file which was left over by a previous session
+ * (e.g. after a crash) and can be replayed on the model with the same name.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class RecoveredJournal {
+
+    /**
+     * The name of the model (This is intended to be the full path name of the
+     * PNML file represented by this model.)
+     */
+    private String modelName;
+
+    /** The complete entries of the journal (in the original order) */
+    private List<EditJournalEntry> entries;
+
+    /**
+     * Constructs a recovered journal.
+     *
+     * @param modelName
+     *            The name of the model
+     * @param entries
+     *            The complete entries of the journal
+     */
+    @SuppressWarnings("hiding")
+    public RecoveredJournal(String modelName, List<EditJournalEntry> entries) {
+        this.modelName = modelName;
+        this.entries = entries;
+    }
+
+    /**
+     * @return the name of the model
+     */
+    public String getModelName() {
+        return this.modelName;
+    }
+
+    /**
+     * @return the complete entries of the journal
+     */
+    public List<EditJournalEntry> getEntries() {
+        return this.entries;
+    }
+
+}
@@ -0,0 +1,70 @@
+package de.lambeck.pned.filesystem.paging;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * Interface for controllers whose models (and Undo/Redo stacks) can be paged
+ * out to the disk by the {@link ModelPager} while their tab is inactive.<BR>
+ * <BR>
+ * Note: Not thread-safe! The models are changed on the Event Dispatch Thread
+ * only. So these methods have to be invoked on the EDT as well.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public interface IPageableModelController {
+
+    /**
+     * Checks if the specified model can be paged out: it has to be resident,
+     * inactive (not the current model) and unmodified since the last save.
+     * 
+     * @param modelName
+     *            The name of the model (This is intended to be the full path
+     *            name of the PNML file represented by this model.)
+     * @return True if the model can be paged out; otherwise false
+     */
+    boolean isPageableModel(String modelName);
+
+    /**
+     * Writes the specified model and its Undo and Redo stacks to the specified
+     * stream. (The model stays resident until {@link #releaseModel(String)}.)
+     * 
+     * @param modelName
+     *            The name of the model
+     * @param out
+     *            The {@link ObjectOutputStream}
+     * @throws IOException
+     *             If the model could not be written
+     */
+    void writeModelPage(String modelName, ObjectOutputStream out) throws IOException;
+
+    /**
+     * Removes the specified model and its Undo and Redo stacks from this
+     * controller after they were written with
+     * {@link #writeModelPage(String, ObjectOutputStream)}.<BR>
+     * <BR>
+     * Note: Everything else (e.g. the tab and its panels) stays.
+     * 
+     * @param modelName
+     *            The name of the model
+     */
+    void releaseModel(String modelName);
+
+    /**
+     * Restores the specified model and its Undo and Redo stacks from the
+     * specified stream.
+     * 
+     * @param modelName
+     *            The name of the model
+     * @param in
+     *            The {@link ObjectInputStream}
+     * @throws IOException
+     *             If the model could not be read
+     * @throws ClassNotFoundException
+     *             If the stream contains an unknown class
+     */
+    void readModelPage(String modelName, ObjectInputStream in) throws IOException, ClassNotFoundException;
+
+}
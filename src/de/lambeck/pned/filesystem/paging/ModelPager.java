@@ -0,0 +1,537 @@
+package de.lambeck.pned.filesystem.paging;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.*;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import de.lambeck.pned.monitoring.EditorMetrics;
+import de.lambeck.pned.monitoring.EdtWatchdog;
+import de.lambeck.pned.util.logging.ELogLevel;
+import de.lambeck.pned.util.logging.Logger;
+
+/**
+ * Memory manager for the models of inactive tabs: Writes the models of all
+ * {@link IPageableModelController} (data and GUI model with their Undo and Redo
+ * stacks) to a compressed page file and removes them from the controllers. The
+ * tab and its panels stay.<BR>
+ * <BR>
+ * Only inactive models which are unmodified since the last save are paged out,
+ * the least recently used first. This happens if the used heap exceeds the
+ * budget ({@link #BUDGET_PROPERTY}) or {@link #HEAP_PRESSURE_RATIO} of the max.
+ * heap, or if the JVM reports that the heap is still that full after a garbage
+ * collection.<BR>
+ * <BR>
+ * The models are restored when their tab gets activated again:
+ * {@link #modelActivated(String)} has to be called before the models are
+ * requested from the controllers.<BR>
+ * <BR>
+ * Note: Not thread-safe! Has to be used on the Event Dispatch Thread (like the
+ * models).
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class ModelPager {
+
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(ModelPager.class);
+
+    /** The system property for the budget of the heap [MB] */
+    public static final String BUDGET_PROPERTY = "de.lambeck.pned.modelMemoryBudget";
+
+    /** The max. share of the max. heap before models are paged out */
+    public static final double HEAP_PRESSURE_RATIO = 0.75;
+
+    /**
+     * The delay of the check after the activation of a tab [ms] (Nothing is
+     * paged out while the user is switching through the tabs.)
+     */
+    private static final int CHECK_DELAY = 1000;
+
+    /** The prefix of the page files */
+    private static final String PAGE_FILE_PREFIX = "pned-model-";
+
+    /** The suffix of the page files */
+    private static final String PAGE_FILE_SUFFIX = ".page";
+
+    /** The buffer size of the compressed streams [bytes] */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /** The controllers whose models are paged out together */
+    private final IPageableModelController[] controllers;
+
+    /** The resident models (the least recently used first) */
+    private final LinkedList<String> recentlyUsed = new LinkedList<String>();
+
+    /** The page files of the paged out models */
+    private final Map<String, File> pageFiles = new HashMap<String, File>();
+
+    /** The budget of the heap [bytes]; 0 if only the max. heap counts */
+    private long budgetBytes;
+
+    /** The delayed check after the activation of a tab */
+    private final Timer checkTimer;
+
+    /** Receives the notifications about a full heap after a GC */
+    private final NotificationListener heapListener;
+
+    /* Constructor */
+
+    /**
+     * Constructs the pager for the specified controllers. The budget is read
+     * from the system property {@link #BUDGET_PROPERTY}.
+     *
+     * @param controllers
+     *            The {@link IPageableModelController} (All models of the same
+     *            name are written into one page file.)
+     */
+    @SuppressWarnings("hiding")
+    public ModelPager(IPageableModelController... controllers) {
+        this.controllers = controllers;
+        this.budgetBytes = getInitialBudget();
+
+        this.checkTimer = new Timer(CHECK_DELAY, new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                pageOutIfNecessary();
+            }
+        });
+        this.checkTimer.setRepeats(false);
+
+        this.heapListener = new NotificationListener() {
+            @Override
+            public void handleNotification(Notification notification, Object handback) {
+                heapThresholdExceeded(notification);
+            }
+        };
+        addHeapListener();
+    }
+
+    /* Getter and Setter */
+
+    /**
+     * @return The budget of the heap [bytes]; 0 if only the max. heap counts
+     */
+    public long getBudgetBytes() {
+        return this.budgetBytes;
+    }
+
+    /**
+     * @param bytes
+     *            The new budget of the heap [bytes]; 0 if only the max. heap
+     *            should count
+     */
+    public void setBudgetBytes(long bytes) {
+        this.budgetBytes = Math.max(0, bytes);
+    }
+
+    /**
+     * @param modelName
+     *            The name of the model (This is intended to be the full path
+     *            name of the PNML file represented by this model.)
+     * @return True if the model is paged out; otherwise false
+     */
+    public boolean isPagedOut(String modelName) {
+        return pageFiles.containsKey(modelName);
+    }
+
+    /**
+     * @return The number of models which are paged out
+     */
+    public int getPagedOutCount() {
+        return pageFiles.size();
+    }
+
+    /* Public methods (for the EDT) */
+
+    /**
+     * Has to be called when the tab of the specified model gets activated
+     * (before the models are requested from the controllers): restores the
+     * model if it is paged out and schedules a check of the memory.
+     *
+     * @param modelName
+     *            The name of the model
+     * @return True if the models are resident now; otherwise false (paging in
+     *         failed)
+     */
+    public boolean modelActivated(String modelName) {
+        boolean resident = restore(modelName);
+
+        if (resident) {
+            recentlyUsed.remove(modelName);
+            recentlyUsed.addLast(modelName);
+        }
+
+        checkTimer.restart();
+        return resident;
+    }
+
+    /**
+     * Has to be called when the specified model was closed: deletes its page
+     * file.
+     *
+     * @param modelName
+     *            The name of the model
+     */
+    public void modelRemoved(String modelName) {
+        recentlyUsed.remove(modelName);
+
+        File file = pageFiles.remove(modelName);
+        if (file != null && !file.delete())
+            System.err.println("Could not delete the page file: " + file);
+    }
+
+    /**
+     * Has to be called when the specified (resident) model was renamed.
+     *
+     * @param oldModelName
+     *            The old name of the model
+     * @param newModelName
+     *            The new name of the model
+     */
+    public void modelRenamed(String oldModelName, String newModelName) {
+        int index = recentlyUsed.indexOf(oldModelName);
+        if (index >= 0)
+            recentlyUsed.set(index, newModelName);
+    }
+
+    /**
+     * Restores the specified model if it is paged out.
+     *
+     * @param modelName
+     *            The name of the model
+     * @return True if the models are resident now; otherwise false (paging in
+     *         failed, the page file is kept for another try)
+     */
+    public boolean restore(String modelName) {
+        File file = pageFiles.get(modelName);
+        if (file == null)
+            return true;
+
+        logger.methodCall("ModelPager.restore", modelName);
+
+        long start = System.nanoTime();
+        EdtWatchdog.beginOperation("Page in " + modelName);
+        try (ObjectInputStream in = new ObjectInputStream(
+                new GZIPInputStream(new FileInputStream(file), BUFFER_SIZE))) {
+            for (IPageableModelController controller : controllers) {
+                controller.readModelPage(modelName, in);
+            }
+
+        } catch (IOException | ClassNotFoundException e) {
+            System.err.println("Could not page in the model '" + modelName + "': " + e.getMessage());
+            return false;
+
+        } finally {
+            EdtWatchdog.endOperation();
+        }
+
+        long nanos = System.nanoTime() - start;
+        EditorMetrics.recordPageIn(nanos);
+
+        pageFiles.remove(modelName);
+        if (!file.delete())
+            System.err.println("Could not delete the page file: " + file);
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("Paged in '" + modelName + "' (" + (nanos / 1000000) + " ms)");
+        }
+        return true;
+    }
+
+    /**
+     * Pages out the least recently used models if the used heap exceeds the
+     * budget or {@link #HEAP_PRESSURE_RATIO} of the max. heap.
+     *
+     * @return The number of paged out models
+     */
+    public int pageOutIfNecessary() {
+        long limit = getHeapLimit();
+        long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+        if (used <= limit)
+            return 0;
+
+        return pageOutLeastRecentlyUsed(used - limit);
+    }
+
+    /**
+     * Pages out the specified model if it is pageable in all controllers.
+     *
+     * @param modelName
+     *            The name of the model
+     * @return The size of the serialized models [bytes] (estimate of the
+     *         released memory); -1 if the model was not paged out
+     */
+    public long pageOut(String modelName) {
+        if (isPagedOut(modelName))
+            return -1;
+
+        for (IPageableModelController controller : controllers) {
+            if (!controller.isPageableModel(modelName))
+                return -1;
+        }
+
+        logger.methodCall("ModelPager.pageOut", modelName);
+
+        long start = System.nanoTime();
+        File file = null;
+        ByteCounter counter = null;
+        EdtWatchdog.beginOperation("Page out " + modelName);
+        try {
+            file = File.createTempFile(PAGE_FILE_PREFIX, PAGE_FILE_SUFFIX);
+            file.deleteOnExit();
+
+            counter = new ByteCounter(new FastGZIPOutputStream(new FileOutputStream(file)));
+            try (ObjectOutputStream out = new ObjectOutputStream(counter)) {
+                for (IPageableModelController controller : controllers) {
+                    controller.writeModelPage(modelName, out);
+                }
+            }
+
+        } catch (IOException e) {
+            System.err.println("Could not page out the model '" + modelName + "': " + e.getMessage());
+            if (file != null)
+                file.delete();
+            return -1;
+
+        } finally {
+            EdtWatchdog.endOperation();
+        }
+
+        /* Written completely: now the models can be released. */
+        for (IPageableModelController controller : controllers) {
+            controller.releaseModel(modelName);
+        }
+        pageFiles.put(modelName, file);
+        recentlyUsed.remove(modelName);
+
+        long nanos = System.nanoTime() - start;
+        EditorMetrics.recordPageOut(nanos);
+
+        long bytes = counter.getCount();
+        if (logger.isEnabled(ELogLevel.INFO)) {
+            logger.info("Paged out '" + modelName + "' (" + (bytes / 1024) + " KB serialized, "
+                    + (file.length() / 1024) + " KB on disk, " + (nanos / 1000000) + " ms)");
+        }
+        return bytes;
+    }
+
+    /**
+     * Stops the checks and deletes all page files.<BR>
+     * <BR>
+     * Note: The paged out models are lost! (Has to be called on exit only.)
+     */
+    public void shutdown() {
+        checkTimer.stop();
+        removeHeapListener();
+
+        for (File file : pageFiles.values()) {
+            file.delete();
+        }
+        pageFiles.clear();
+        recentlyUsed.clear();
+    }
+
+    /* Private helpers */
+
+    /**
+     * Pages out the least recently used models until the specified amount of
+     * memory is released (estimated by the size of the serialized models).
+     *
+     * @param bytes
+     *            The amount of memory to release
+     * @return The number of paged out models
+     */
+    private int pageOutLeastRecentlyUsed(long bytes) {
+        int count = 0;
+        long released = 0;
+
+        /* Copy: pageOut() removes the model from the list. */
+        List<String> candidates = new ArrayList<String>(recentlyUsed);
+        for (String modelName : candidates) {
+            if (released >= bytes)
+                break;
+
+            long modelBytes = pageOut(modelName);
+            if (modelBytes >= 0) {
+                released += modelBytes;
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * @return The max. used heap [bytes] (The budget or
+     *         {@link #HEAP_PRESSURE_RATIO} of the max. heap, whichever is
+     *         lower.)
+     */
+    private long getHeapLimit() {
+        long limit = Long.MAX_VALUE;
+
+        long maxHeap = Runtime.getRuntime().maxMemory();
+        if (maxHeap != Long.MAX_VALUE)
+            limit = (long) (maxHeap * HEAP_PRESSURE_RATIO);
+
+        if (budgetBytes > 0)
+            limit = Math.min(limit, budgetBytes);
+
+        return limit;
+    }
+
+    /**
+     * Sets the collection usage threshold of the heap pools (if not set by
+     * someone else) and registers the {@link #heapListener}.
+     */
+    private void addHeapListener() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported())
+                continue;
+
+            long max = pool.getUsage().getMax();
+            if (max > 0 && pool.getCollectionUsageThreshold() == 0)
+                pool.setCollectionUsageThreshold((long) (max * HEAP_PRESSURE_RATIO));
+        }
+
+        NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+        emitter.addNotificationListener(heapListener, null, null);
+    }
+
+    /**
+     * Unregisters the {@link #heapListener}.
+     */
+    private void removeHeapListener() {
+        NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+        try {
+            emitter.removeNotificationListener(heapListener);
+        } catch (ListenerNotFoundException e) {
+            /* Not registered */
+        }
+    }
+
+    /**
+     * Callback of the {@link #heapListener} (on a thread of the JVM): pages
+     * out models on the EDT if a heap pool is still above its threshold after
+     * a garbage collection.
+     *
+     * @param notification
+     *            The {@link Notification}
+     */
+    private void heapThresholdExceeded(Notification notification) {
+        if (!MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType()))
+            return;
+
+        MemoryNotificationInfo info = MemoryNotificationInfo.from((CompositeData) notification.getUserData());
+        String poolName = info.getPoolName();
+        long excess = info.getUsage().getUsed();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().equals(poolName) && pool.isCollectionUsageThresholdSupported())
+                excess -= pool.getCollectionUsageThreshold();
+        }
+
+        final long bytes = Math.max(0, excess);
+        logger.warn("Heap pool '" + poolName + "' is still full after a garbage collection");
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                pageOutLeastRecentlyUsed(bytes);
+            }
+        });
+    }
+
+    /**
+     * Returns the initial budget from the system property
+     * {@link #BUDGET_PROPERTY}.
+     *
+     * @return The budget [bytes]; 0 if the property is not set or invalid
+     */
+    private static long getInitialBudget() {
+        String value = System.getProperty(BUDGET_PROPERTY);
+        if (value == null)
+            return 0;
+
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1024 * 1024;
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value of " + BUDGET_PROPERTY + ": " + value);
+            return 0;
+        }
+    }
+
+    /**
+     * {@link GZIPOutputStream} with the fastest compression level. (The
+     * models of the inactive tabs are written on the EDT.)
+     */
+    private static class FastGZIPOutputStream extends GZIPOutputStream {
+
+        /**
+         * @param out
+         *            The underlying {@link OutputStream}
+         * @throws IOException
+         *             If the header could not be written
+         */
+        FastGZIPOutputStream(OutputStream out) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    /**
+     * Counts the bytes written to the stream. (The size of the serialized
+     * models before compression.)
+     */
+    private static class ByteCounter extends FilterOutputStream {
+
+        /** The number of written bytes */
+        private long count = 0;
+
+        /**
+         * @param out
+         *            The underlying {@link OutputStream}
+         */
+        ByteCounter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        /**
+         * @return The number of written bytes
+         */
+        long getCount() {
+            return this.count;
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package de.lambeck.pned.filesystem.pnml;
+
+import java.awt.Point;
+
+import javax.swing.JFrame;
+
+import de.lambeck.pned.elements.EPlaceToken;
+
+/**
+ * Interface for the receivers of the elements read by the {@link PNMLParser}.
+ * (Usually the data model controller, which adds them to the current data
+ * model.)
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public interface IPNMLImportTarget {
+
+    /**
+     * Adds a place which was read from a PNML file.
+     * 
+     * @param id
+     *            The ID of the place
+     * @param name
+     *            The name of the place
+     * @param initialTokens
+     *            The initial tokens count of this place
+     * @param position
+     *            The position (center) of the place
+     */
+    void addPlaceToCurrentDataModel(String id, String name, EPlaceToken initialTokens, Point position);
+
+    /**
+     * Adds a transition which was read from a PNML file.
+     * 
+     * @param id
+     *            The ID of the transition
+     * @param name
+     *            The name of the transition
+     * @param position
+     *            The position (center) of the transition
+     */
+    void addTransitionToCurrentDataModel(String id, String name, Point position);
+
+    /**
+     * Adds an arc which was read from a PNML file.
+     * 
+     * @param id
+     *            The ID of the arc
+     * @param sourceId
+     *            The source ID of the arc
+     * @param targetId
+     *            The target ID of the arc
+     */
+    void addArcToCurrentDataModel(String id, String sourceId, String targetId);
+
+    /**
+     * Returns the main frame of the application. (To center message dialogs
+     * of the parser.)
+     * 
+     * @return The main frame; null if there is none
+     */
+    JFrame getMainFrame();
+
+}
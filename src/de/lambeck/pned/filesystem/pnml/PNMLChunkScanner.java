@@ -0,0 +1,831 @@
+package de.lambeck.pned.filesystem.pnml;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import de.lambeck.pned.elements.EPlaceToken;
+
+/**
+ * Scans one chunk of a memory-mapped PNML file for places, transitions and
+ * arcs. (Used by the {@link ParallelPNMLScanner}.)<BR>
+ * <BR>
+ * The chunk owns all elements whose start tag begins inside the chunk. The
+ * mapped region extends beyond the end of the chunk (by MAX_ELEMENT_SIZE) to
+ * read the rest of the last element.<BR>
+ * <BR>
+ * The tokenizer works directly on the bytes of the mapped file and creates
+ * Strings for the needed attribute values and texts only. It evaluates the
+ * elements in the same way as the {@link PNMLParser} (same messages and same
+ * flags of the {@link EPNMLParserExitCode}), but all messages contain the
+ * absolute byte offset in the file.<BR>
+ * <BR>
+ * Note: The encoding must be UTF-8 (or ASCII).
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+class PNMLChunkScanner implements Callable<PNMLChunkScanner.ChunkResult> {
+
+    /** Max. size of an element which starts at the end of a chunk [bytes] */
+    static final int MAX_ELEMENT_SIZE = 4 * 1024 * 1024;
+
+    /** The {@link FileChannel} of the PNML file */
+    private FileChannel channel;
+
+    /** The offset of this chunk in the file */
+    private long chunkStart;
+
+    /** The offset of the next chunk in the file */
+    private long chunkEnd;
+
+    /** The size of the file */
+    private long fileSize;
+
+    /** The mapped region of the file (this chunk + MAX_ELEMENT_SIZE) */
+    private MappedByteBuffer buffer;
+
+    /** The size of the mapped region */
+    private int bufferSize;
+
+    /** Is the end of the mapped region the end of the file? */
+    private boolean bufferAtEndOfFile;
+
+    /** Buffer for the bytes of attribute values and texts */
+    private byte[] scratch = new byte[256];
+
+    /** Was the last start tag self-closing? */
+    private boolean selfClosing = false;
+
+    /** The result of this chunk */
+    private ChunkResult result = new ChunkResult();
+
+    /**
+     * Constructs a scanner for the specified chunk.
+     *
+     * @param channel
+     *            The {@link FileChannel} of the PNML file
+     * @param chunkStart
+     *            The offset of this chunk in the file
+     * @param chunkEnd
+     *            The offset of the next chunk in the file
+     * @param fileSize
+     *            The size of the file
+     */
+    @SuppressWarnings("hiding")
+    PNMLChunkScanner(FileChannel channel, long chunkStart, long chunkEnd, long fileSize) {
+        this.channel = channel;
+        this.chunkStart = chunkStart;
+        this.chunkEnd = chunkEnd;
+        this.fileSize = fileSize;
+    }
+
+    @Override
+    public ChunkResult call() throws IOException {
+        long mapEnd = Math.min(fileSize, chunkEnd + MAX_ELEMENT_SIZE);
+        this.bufferSize = (int) (mapEnd - chunkStart);
+        this.bufferAtEndOfFile = (mapEnd == fileSize);
+        this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, chunkStart, bufferSize);
+
+        int limit = (int) (chunkEnd - chunkStart);
+        try {
+            scanChunk(limit);
+        } catch (ScanException e) {
+            addMessage(e.getMessage(), e.offset);
+            result.exitCode |= EPNMLParserExitCode.FLAG_ERROR_READING_FILE.getValue();
+        }
+        return result;
+    }
+
+    /* Scanning */
+
+    /**
+     * Finds the start tags of all places, transitions and arcs which begin
+     * before the specified limit and parses these elements.
+     *
+     * @param limit
+     *            The end of this chunk (relative to the chunk)
+     * @throws ScanException
+     *             if an element is malformed, incomplete or too large
+     */
+    private void scanChunk(int limit) throws ScanException {
+        int pos = 0;
+        while (true) {
+            pos = indexOf('<', pos, limit);
+            if (pos < 0)
+                return;
+
+            if (startsWith(pos, "<!--")) {
+                pos = skipPast(pos + 4, "-->");
+            } else if (startsWith(pos, "<![CDATA[")) {
+                pos = skipPast(pos + 9, "]]>");
+            } else if (isStartTag(pos, "place")) {
+                pos = parseNode(pos, EPNMLElement.PLACE, "place");
+            } else if (isStartTag(pos, "transition")) {
+                pos = parseNode(pos, EPNMLElement.TRANSITION, "transition");
+            } else if (isStartTag(pos, "arc")) {
+                pos = parseArc(pos);
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    /**
+     * Parses a place or transition (including all child elements).
+     *
+     * @param tagStart
+     *            The position of the start tag
+     * @param type
+     *            The {@link EPNMLElement}
+     * @param tagName
+     *            The (lower case) name of the element
+     * @return The position after the end tag
+     * @throws ScanException
+     *             if the element is malformed or incomplete
+     */
+    private int parseNode(int tagStart, EPNMLElement type, String tagName) throws ScanException {
+        String[] values = new String[1];
+        int pos = readStartTag(tagStart + 1 + tagName.length(), new String[] { "id" }, values);
+
+        ScannedElement element = new ScannedElement(type, chunkStart + tagStart);
+        element.id = values[0];
+        if (element.id == null) {
+            String message = (type == EPNMLElement.PLACE) ? "Stelle ohne id wurde verworfen!"
+                    : "Transition ohne id wurde verworfen!";
+            addMessage(message, tagStart);
+            result.exitCode |= EPNMLParserExitCode.FLAG_INVALID_VALUES.getValue();
+        }
+
+        if (!selfClosing)
+            pos = parseNodeContent(pos, tagName, element);
+
+        if (element.id != null)
+            finishNode(element, tagStart);
+        return pos;
+    }
+
+    /**
+     * Parses the child elements of a place or transition up to the end tag.
+     *
+     * @param pos
+     *            The position after the start tag
+     * @param tagName
+     *            The (lower case) name of the element
+     * @param element
+     *            The {@link ScannedElement} for the values
+     * @return The position after the end tag
+     * @throws ScanException
+     *             if the element is malformed or incomplete
+     */
+    private int parseNodeContent(int pos, String tagName, ScannedElement element) throws ScanException {
+        boolean isName = false;
+        boolean isToken = false;
+        boolean isValue = false;
+        String[] xy = new String[2];
+
+        while (true) {
+            int tagStart = indexOf('<', pos, bufferSize);
+            if (tagStart < 0)
+                throw endOfRegion(element);
+
+            /* Text between the tags */
+            if (isValue && element.id != null && tagStart > pos && !isWhiteSpace(pos, tagStart)) {
+                String text = decode(pos, tagStart);
+                if (isName) {
+                    element.name = text;
+                } else if (isToken) {
+                    setMarking(element, text, pos);
+                }
+            }
+
+            if (startsWith(tagStart, "<!--")) {
+                pos = skipPast(tagStart + 4, "-->");
+
+            } else if (startsWith(tagStart, "<![CDATA[")) {
+                int textStart = tagStart + 9;
+                pos = skipPast(textStart, "]]>");
+                if (isValue && isName && element.id != null)
+                    element.name = decodeRaw(textStart, pos - 3);
+
+            } else if (startsWith(tagStart, "</")) {
+                int nameStart = tagStart + 2;
+                pos = skipPast(nameStart, ">");
+                if (isName(nameStart, tagName)) {
+                    return pos;
+                } else if (isName(nameStart, "name")) {
+                    isName = false;
+                } else if (isName(nameStart, "token")) {
+                    isToken = false;
+                } else if (isName(nameStart, "value")) {
+                    isValue = false;
+                }
+
+            } else if (isStartTag(tagStart, "position")) {
+                xy[0] = null;
+                xy[1] = null;
+                pos = readStartTag(tagStart + 9, new String[] { "x", "y" }, xy);
+                if (xy[0] != null && xy[1] != null && element.id != null) {
+                    setPosition(element, xy[0], xy[1], tagStart);
+                } else {
+                    addMessage("Unvollständige Position wurde verworfen!", tagStart);
+                    result.exitCode |= EPNMLParserExitCode.FLAG_INVALID_VALUES.getValue();
+                }
+
+            } else {
+                /* Other start tags: Only the flags are important. */
+                int nameStart = tagStart + 1;
+                pos = readStartTag(skipName(nameStart), null, null);
+                if (!selfClosing) {
+                    if (isName(nameStart, "name")) {
+                        isName = true;
+                    } else if (isName(nameStart, "token")) {
+                        isToken = true;
+                    } else if (isName(nameStart, "value")) {
+                        isValue = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses an arc. (Child elements of arcs are not evaluated.)
+     *
+     * @param tagStart
+     *            The position of the start tag
+     * @return The position after the end tag
+     * @throws ScanException
+     *             if the element is malformed or incomplete
+     */
+    private int parseArc(int tagStart) throws ScanException {
+        String[] values = new String[3];
+        int pos = readStartTag(tagStart + 4, new String[] { "id", "source", "target" }, values);
+
+        if (values[0] != null && values[1] != null && values[2] != null) {
+            ScannedElement arc = new ScannedElement(EPNMLElement.ARC, chunkStart + tagStart);
+            arc.id = values[0];
+            arc.sourceId = values[1];
+            arc.targetId = values[2];
+            result.arcs.add(arc);
+        } else {
+            addMessage("Unvollständige Kante wurde verworfen!", tagStart);
+            result.exitCode |= EPNMLParserExitCode.FLAG_INVALID_VALUES.getValue();
+        }
+
+        if (selfClosing)
+            return pos;
+
+        /* Skip the content up to the end tag. */
+        while (true) {
+            int tagEnd = indexOf('<', pos, bufferSize);
+            if (tagEnd < 0)
+                throw endOfRegion(null);
+            if (startsWith(tagEnd, "</") && isName(tagEnd + 2, "arc"))
+                return skipPast(tagEnd + 2, ">");
+            pos = tagEnd + 1;
+        }
+    }
+
+    /* Values */
+
+    /**
+     * Stores the marking of the specified element. (Accepts "0" and "1" only.)
+     *
+     * @param element
+     *            The {@link ScannedElement}
+     * @param marking
+     *            The text of the value element
+     * @param pos
+     *            The position of the text
+     */
+    private void setMarking(ScannedElement element, String marking, int pos) {
+        switch (marking) {
+        case "0":
+            element.marking = EPlaceToken.ZERO;
+            break;
+        case "1":
+            element.marking = EPlaceToken.ONE;
+            break;
+        default:
+            addMessage("Invalid marking for element " + element.id + "! Ignoring this element...", pos);
+            result.exitCode |= EPNMLParserExitCode.FLAG_INVALID_VALUES.getValue();
+            element.invalidValues = true;
+        }
+    }
+
+    /**
+     * Stores the position of the specified element.
+     *
+     * @param element
+     *            The {@link ScannedElement}
+     * @param x
+     *            x Position des Elements
+     * @param y
+     *            y Position des Elements
+     * @param pos
+     *            The position of the position element
+     */
+    private void setPosition(ScannedElement element, String x, String y, int pos) {
+        try {
+            element.position = new Point(Integer.parseInt(x), Integer.parseInt(y));
+        } catch (NumberFormatException e) {
+            addMessage("Invalid position for element " + element.id + "! Ignoring this element...", pos);
+            result.exitCode |= EPNMLParserExitCode.FLAG_INVALID_VALUES.getValue();
+            element.invalidValues = true;
+        }
+    }
+
+    /**
+     * Adds the specified place or transition to the result if all necessary
+     * values were read.
+     *
+     * @param element
+     *            The {@link ScannedElement}
+     * @param tagStart
+     *            The position of the start tag
+     */
+    private void finishNode(ScannedElement element, int tagStart) {
+        if (element.invalidValues) {
+            addMessage("Element ignored.", tagStart);
+            return;
+        }
+
+        /* <Name> == null is OK! */
+        boolean complete = element.position != null;
+        if (element.type == EPNMLElement.PLACE)
+            complete = complete && element.marking != null;
+
+        if (!complete) {
+            addMessage("Unvollständiges Element " + element.id + " wurde verworfen!", tagStart);
+            result.exitCode |= EPNMLParserExitCode.FLAG_MISSING_VALUES.getValue();
+            return;
+        }
+
+        result.nodes.add(element);
+    }
+
+    /* Tokenizer */
+
+    /**
+     * Reads the attributes of a start tag.
+     *
+     * @param pos
+     *            The position after the name of the element
+     * @param names
+     *            The (lower case) names of the wanted attributes; null if no
+     *            attribute is needed
+     * @param values
+     *            The values of the wanted attributes (same order as names;
+     *            null if not found)
+     * @return The position after the start tag
+     * @throws ScanException
+     *             if the start tag is malformed or incomplete
+     */
+    private int readStartTag(int pos, String[] names, String[] values) throws ScanException {
+        while (true) {
+            pos = skipWhiteSpace(pos);
+            byte b = byteAt(pos);
+            if (b == '>') {
+                selfClosing = false;
+                return pos + 1;
+            }
+            if (b == '/') {
+                if (byteAt(pos + 1) != '>')
+                    throw new ScanException("Ungültiges Start-Tag", pos);
+                selfClosing = true;
+                return pos + 2;
+            }
+
+            /* Attribute name */
+            int nameStart = pos;
+            pos = skipName(pos);
+            if (pos == nameStart)
+                throw new ScanException("Ungültiges Attribut", pos);
+            int nameEnd = pos;
+
+            pos = skipWhiteSpace(pos);
+            if (byteAt(pos) != '=')
+                throw new ScanException("Attribut ohne Wert", pos);
+            pos = skipWhiteSpace(pos + 1);
+
+            /* Attribute value */
+            byte quote = byteAt(pos);
+            if (quote != '"' && quote != '\'')
+                throw new ScanException("Attributwert ohne Anführungszeichen", pos);
+            int valueStart = pos + 1;
+            int valueEnd = indexOf(quote, valueStart, bufferSize);
+            if (valueEnd < 0)
+                throw endOfRegion(null);
+            pos = valueEnd + 1;
+
+            if (names == null)
+                continue;
+            for (int i = 0; i < names.length; i++) {
+                if (nameEnd - nameStart == names[i].length() && regionEqualsIgnoreCase(nameStart, names[i])) {
+                    values[i] = decode(valueStart, valueEnd);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param pos
+     *            The position of a '&lt;'
+     * @param lowerCaseName
+     *            The name of the element
+     * @return True if a start tag of the specified element begins at this
+     *         position
+     */
+    private boolean isStartTag(int pos, String lowerCaseName) {
+        return isName(pos + 1, lowerCaseName);
+    }
+
+    /**
+     * @param pos
+     *            The start of a name
+     * @param lowerCaseName
+     *            The expected name
+     * @return True if the name at this position is the expected name (ignoring
+     *         the case)
+     */
+    private boolean isName(int pos, String lowerCaseName) {
+        int end = pos + lowerCaseName.length();
+        if (end >= bufferSize || !regionEqualsIgnoreCase(pos, lowerCaseName))
+            return false;
+        byte next = buffer.get(end);
+        return next == '>' || next == '/' || isWhiteSpace(next);
+    }
+
+    /**
+     * @param pos
+     *            The start of a name
+     * @return The position after the name
+     * @throws ScanException
+     *             at the end of the mapped region
+     */
+    private int skipName(int pos) throws ScanException {
+        while (true) {
+            byte b = byteAt(pos);
+            if (b == '>' || b == '/' || b == '=' || isWhiteSpace(b))
+                return pos;
+            pos++;
+        }
+    }
+
+    /**
+     * @param pos
+     *            The start position
+     * @return The position of the next byte which is not white space
+     * @throws ScanException
+     *             at the end of the mapped region
+     */
+    private int skipWhiteSpace(int pos) throws ScanException {
+        while (isWhiteSpace(byteAt(pos)))
+            pos++;
+        return pos;
+    }
+
+    /**
+     * @param pos
+     *            The start position
+     * @param terminator
+     *            The expected (ASCII) terminator
+     * @return The position after the terminator
+     * @throws ScanException
+     *             if the terminator is not in the mapped region
+     */
+    private int skipPast(int pos, String terminator) throws ScanException {
+        byte first = (byte) terminator.charAt(0);
+        while (true) {
+            pos = indexOf(first, pos, bufferSize);
+            if (pos < 0)
+                throw endOfRegion(null);
+            if (startsWith(pos, terminator))
+                return pos + terminator.length();
+            pos++;
+        }
+    }
+
+    /**
+     * @param b
+     *            The byte to search for
+     * @param from
+     *            The start position
+     * @param to
+     *            The end position (exclusive)
+     * @return The position of the byte; -1 if not found
+     */
+    private int indexOf(byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == b)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @param b
+     *            The byte to search for
+     * @param from
+     *            The start position
+     * @param to
+     *            The end position (exclusive)
+     * @return The position of the byte; -1 if not found
+     */
+    private int indexOf(char b, int from, int to) {
+        return indexOf((byte) b, from, to);
+    }
+
+    /**
+     * @param pos
+     *            The position
+     * @param ascii
+     *            An ASCII string
+     * @return True if the bytes at this position are equal to the string
+     */
+    private boolean startsWith(int pos, String ascii) {
+        if (pos + ascii.length() > bufferSize)
+            return false;
+        for (int i = 0; i < ascii.length(); i++) {
+            if (buffer.get(pos + i) != ascii.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param pos
+     *            The position
+     * @param lowerCaseAscii
+     *            A lower case ASCII string
+     * @return True if the bytes at this position are equal to the string
+     *         (ignoring the case)
+     */
+    private boolean regionEqualsIgnoreCase(int pos, String lowerCaseAscii) {
+        if (pos + lowerCaseAscii.length() > bufferSize)
+            return false;
+        for (int i = 0; i < lowerCaseAscii.length(); i++) {
+            int b = buffer.get(pos + i);
+            if (b >= 'A' && b <= 'Z')
+                b += 'a' - 'A';
+            if (b != lowerCaseAscii.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param from
+     *            The start position
+     * @param to
+     *            The end position (exclusive)
+     * @return True if all bytes in this range are white space
+     */
+    private boolean isWhiteSpace(int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isWhiteSpace(buffer.get(i)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param b
+     *            The byte
+     * @return True if the byte is XML white space
+     */
+    private static boolean isWhiteSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    /**
+     * @param pos
+     *            The position
+     * @return The byte at this position
+     * @throws ScanException
+     *             at the end of the mapped region
+     */
+    private byte byteAt(int pos) throws ScanException {
+        if (pos >= bufferSize)
+            throw endOfRegion(null);
+        return buffer.get(pos);
+    }
+
+    /**
+     * Decodes the specified range as UTF-8 and resolves entity references.
+     *
+     * @param from
+     *            The start position
+     * @param to
+     *            The end position (exclusive)
+     * @return The String
+     */
+    private String decode(int from, int to) {
+        String s = decodeRaw(from, to);
+        if (s.indexOf('&') < 0)
+            return s;
+        return resolveEntities(s);
+    }
+
+    /**
+     * Decodes the specified range as UTF-8.
+     *
+     * @param from
+     *            The start position
+     * @param to
+     *            The end position (exclusive)
+     * @return The String
+     */
+    private String decodeRaw(int from, int to) {
+        int length = to - from;
+        if (scratch.length < length)
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(from + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Resolves the predefined entities and character references.
+     *
+     * @param s
+     *            The String with entity references
+     * @return The resolved String
+     */
+    private static String resolveEntities(String s) {
+        StringBuilder sb = new StringBuilder(s.length());
+        int i = 0;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            int semicolon = (c == '&') ? s.indexOf(';', i) : -1;
+            if (semicolon < 0) {
+                sb.append(c);
+                i++;
+                continue;
+            }
+
+            String entity = s.substring(i + 1, semicolon);
+            String replacement = null;
+            switch (entity) {
+            case "lt":
+                replacement = "<";
+                break;
+            case "gt":
+                replacement = ">";
+                break;
+            case "amp":
+                replacement = "&";
+                break;
+            case "quot":
+                replacement = "\"";
+                break;
+            case "apos":
+                replacement = "'";
+                break;
+            default:
+                try {
+                    if (entity.startsWith("#x")) {
+                        replacement = new String(Character.toChars(Integer.parseInt(entity.substring(2), 16)));
+                    } else if (entity.startsWith("#")) {
+                        replacement = new String(Character.toChars(Integer.parseInt(entity.substring(1))));
+                    }
+                } catch (IllegalArgumentException e) {
+                    replacement = null;
+                }
+            }
+
+            if (replacement == null) {
+                sb.append(c);
+                i++;
+            } else {
+                sb.append(replacement);
+                i = semicolon + 1;
+            }
+        }
+        return sb.toString();
+    }
+
+    /* Errors */
+
+    /**
+     * Adds a message with the absolute byte offset to the result.
+     *
+     * @param message
+     *            The message
+     * @param pos
+     *            The position (relative to the chunk)
+     */
+    private void addMessage(String message, long pos) {
+        result.messages.add(message + " (Byte-Offset " + (chunkStart + pos) + ")");
+    }
+
+    /**
+     * @param element
+     *            The current element (or null)
+     * @return A {@link ScanException} for the end of the mapped region
+     */
+    private ScanException endOfRegion(ScannedElement element) {
+        String message = bufferAtEndOfFile ? "Unerwartetes Dateiende" : "Element zu groß";
+        if (element != null)
+            message = message + " in Element " + element.id;
+        return new ScanException(message, bufferSize);
+    }
+
+    /* Nested classes */
+
+    /**
+     * Error in the structure of the file. (Stops the scanner of this chunk.)
+     */
+    private static class ScanException extends Exception {
+
+        /** Generated serialVersionUID */
+        private static final long serialVersionUID = -2860395174928415362L;
+
+        /** The position of the error (relative to the chunk) */
+        private int offset;
+
+        /**
+         * @param message
+         *            The message
+         * @param offset
+         *            The position of the error (relative to the chunk)
+         */
+        @SuppressWarnings("hiding")
+        ScanException(String message, int offset) {
+            super(message);
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * A place, transition or arc found by the scanner.
+     */
+    static class ScannedElement {
+
+        /** The type of the element */
+        EPNMLElement type;
+
+        /** The byte offset of the start tag in the file */
+        long offset;
+
+        /** The id */
+        String id = null;
+
+        /** The name (places and transitions) */
+        String name = null;
+
+        /** The marking (places) */
+        EPlaceToken marking = null;
+
+        /** The position (places and transitions) */
+        Point position = null;
+
+        /** The id of the source (arcs) */
+        String sourceId = null;
+
+        /** The id of the target (arcs) */
+        String targetId = null;
+
+        /** Had this element invalid values? */
+        boolean invalidValues = false;
+
+        /**
+         * @param type
+         *            The type of the element
+         * @param offset
+         *            The byte offset of the start tag in the file
+         */
+        @SuppressWarnings("hiding")
+        ScannedElement(EPNMLElement type, long offset) {
+            this.type = type;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * The elements and messages of one chunk (in the order of the file).
+     */
+    static class ChunkResult {
+
+        /** The complete places and transitions */
+        List<ScannedElement> nodes = new ArrayList<ScannedElement>();
+
+        /** The complete arcs */
+        List<ScannedElement> arcs = new ArrayList<ScannedElement>();
+
+        /** All messages (with byte offset) */
+        List<String> messages = new ArrayList<String>();
+
+        /** The flags of the {@link EPNMLParserExitCode} */
+        int exitCode = EPNMLParserExitCode.ZERO.getValue();
+    }
+
+}
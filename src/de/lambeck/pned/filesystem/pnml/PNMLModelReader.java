@@ -0,0 +1,98 @@
+package de.lambeck.pned.filesystem.pnml;
+
+import java.awt.Point;
+import java.io.File;
+
+import javax.swing.JFrame;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.exceptions.PNElementCreationException;
+import de.lambeck.pned.models.data.DataModel;
+import de.lambeck.pned.models.data.IDataModel;
+
+/**
+ * Reads a PNML file into a new, detached {@link IDataModel} without any
+ * controller and without updates of the GUI. (E.g. to compare the content of a
+ * file with an open model.)<BR>
+ * <BR>
+ * Note: Can be used outside of the EDT.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class PNMLModelReader implements IPNMLImportTarget {
+
+    /** The model for the elements of the PNML file */
+    private IDataModel model;
+
+    /** Was there an arc with unknown source or target? */
+    private boolean invalidArcs = false;
+
+    /**
+     * Reads the specified PNML file.
+     *
+     * @param pnmlFile
+     *            The PNML file
+     * @param modelName
+     *            The name of the new model
+     * @return The {@link IDataModel}; null if the parser reported missing or
+     *         invalid values or read errors
+     */
+    public static IDataModel read(File pnmlFile, String modelName) {
+        PNMLModelReader reader = new PNMLModelReader(modelName, pnmlFile.getName());
+
+        int returnValue;
+        if (ParallelPNMLScanner.isSuitable(pnmlFile)) {
+            ParallelPNMLScanner scanner = new ParallelPNMLScanner(pnmlFile, reader);
+            returnValue = scanner.parse();
+        } else {
+            PNMLParser pnmlParser = new PNMLParser(pnmlFile, reader);
+            pnmlParser.initParser();
+            returnValue = pnmlParser.parse();
+        }
+
+        /* Accept info messages only. (As the data model controller does.) */
+        if (returnValue > EPNMLParserExitCode.FLAG_UNKNOWN_VALUES.getValue() || reader.invalidArcs)
+            return null;
+
+        return reader.model;
+    }
+
+    /**
+     * Constructs a reader with a new and empty model.
+     *
+     * @param modelName
+     *            The name of the new model
+     * @param displayName
+     *            The display name of the new model
+     */
+    private PNMLModelReader(String modelName, String displayName) {
+        this.model = new DataModel(modelName, displayName);
+    }
+
+    @Override
+    public void addPlaceToCurrentDataModel(String id, String name, EPlaceToken initialTokens, Point position) {
+        model.addPlace(id, name, initialTokens, position);
+    }
+
+    @Override
+    public void addTransitionToCurrentDataModel(String id, String name, Point position) {
+        model.addTransition(id, name, position);
+    }
+
+    @Override
+    public void addArcToCurrentDataModel(String id, String sourceId, String targetId) {
+        try {
+            model.addArc(id, sourceId, targetId);
+        } catch (PNElementCreationException e) {
+            System.err.println(e.getMessage());
+            this.invalidArcs = true;
+        }
+    }
+
+    @Override
+    public JFrame getMainFrame() {
+        return null;
+    }
+
+}
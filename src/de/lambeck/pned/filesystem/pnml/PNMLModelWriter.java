@@ -0,0 +1,99 @@
+package de.lambeck.pned.filesystem.pnml;
+
+import java.io.File;
+import java.util.List;
+
+import de.lambeck.pned.elements.data.DataArc;
+import de.lambeck.pned.elements.data.DataPlace;
+import de.lambeck.pned.elements.data.DataTransition;
+import de.lambeck.pned.elements.data.IDataElement;
+import de.lambeck.pned.models.data.IDataModel;
+
+/**
+ * Writes an {@link IDataModel} into a PNML file without any controller (the
+ * counterpart of {@link PNMLModelReader}): All places, all transitions and
+ * then all arcs.<BR>
+ * <BR>
+ * Note: Does not change the model (e.g. the modified state). This is up to the
+ * invoker.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class PNMLModelWriter {
+
+    /** No instances */
+    private PNMLModelWriter() {
+    }
+
+    /**
+     * Writes the specified model into the specified file.
+     *
+     * @param model
+     *            The {@link IDataModel}
+     * @param pnmlFile
+     *            The PNML file (compressed if the name ends with ".gz")
+     * @return Exit code 0 if completed without errors; 1 on IO errors; 2 on XML
+     *         errors (the exit codes of the {@link PNMLWriter})
+     */
+    public static int write(IDataModel model, File pnmlFile) {
+        PNMLWriter writer = new PNMLWriter(pnmlFile);
+
+        /* Start the document */
+        int returnValue = writer.startXMLDocument();
+        if (returnValue > 0)
+            return returnValue;
+
+        /* Get the List with all elements. (Read-only, no copy) */
+        List<IDataElement> dataElements = model.getElementsView();
+
+        /* Write all places in this model */
+        for (IDataElement element : dataElements) {
+            if (element instanceof DataPlace) {
+                DataPlace place = (DataPlace) element;
+                String id = place.getId();
+                String label = place.getName();
+                String xPosition = Integer.toString(place.getPosition().x);
+                String yPosition = Integer.toString(place.getPosition().y);
+                String initialTokens = place.getTokensCount().toPnedString();
+
+                returnValue = writer.addPlace(id, label, xPosition, yPosition, initialTokens);
+                if (returnValue > 0)
+                    return returnValue;
+            }
+        }
+
+        /* Write all transitions in this model */
+        for (IDataElement element : dataElements) {
+            if (element instanceof DataTransition) {
+                DataTransition transition = (DataTransition) element;
+                String id = transition.getId();
+                String label = transition.getName();
+                String xPosition = Integer.toString(transition.getPosition().x);
+                String yPosition = Integer.toString(transition.getPosition().y);
+
+                returnValue = writer.addTransition(id, label, xPosition, yPosition);
+                if (returnValue > 0)
+                    return returnValue;
+            }
+        }
+
+        /* Write all arcs in this model */
+        for (IDataElement element : dataElements) {
+            if (element instanceof DataArc) {
+                DataArc arc = (DataArc) element;
+                String id = arc.getId();
+                String source = arc.getSourceId();
+                String target = arc.getTargetId();
+
+                returnValue = writer.addArc(id, source, target);
+                if (returnValue > 0)
+                    return returnValue;
+            }
+        }
+
+        /* Finish the document */
+        return writer.finishXMLDocument();
+    }
+
+}
@@ -3,9 +3,11 @@ package de.lambeck.pned.filesystem.pnml;
 import java.awt.Point;
 import java.io.*;
 import java.util.Iterator;
+import java.util.zip.GZIPInputStream;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
 import javax.xml.stream.XMLEventReader;
 import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamConstants;
@@ -16,7 +18,6 @@ import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 
 import de.lambeck.pned.elements.EPlaceToken;
-import de.lambeck.pned.models.data.IDataModelController;
 import de.lambeck.pned.util.ConsoleLogger;
 
 /**
@@ -39,10 +40,23 @@ public class PNMLParser {
     private XMLEventReader xmlParser = null;
 
     /**
-     * Reference to the {@link FileInputStream}. (Defined as class attribute
+     * Reference to the {@link InputStream}. (Defined as class attribute
      * because the xmlParser (that is using it) is used in different methods.)
+     * <BR>
+     * <BR>
+     * Note: This is either a buffered {@link FileInputStream} or a
+     * {@link GZIPInputStream} on top of it if the file is gzip-compressed.
      */
-    private FileInputStream fis = null;
+    private InputStream fis = null;
+
+    /** The first byte of the gzip magic number (0x1f8b) */
+    private static final int GZIP_MAGIC_BYTE1 = 0x1f;
+
+    /** The second byte of the gzip magic number (0x1f8b) */
+    private static final int GZIP_MAGIC_BYTE2 = 0x8b;
+
+    /** The buffer size for the file input (and the decompression) */
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     /**
      * Diese Variable dient als Zwischenspeicher für die ID des zuletzt
@@ -72,7 +86,7 @@ public class PNMLParser {
      * Reference to the data model controller to transmit the elements after
      * read-in (and to forward status messages).
      */
-    private IDataModelController dataModelController;
+    private IPNMLImportTarget dataModelController;
 
     /*
      * Attributes for the next element which will be passed to the data model
@@ -120,9 +134,10 @@ public class PNMLParser {
      * @param pnml
      *            Java {@link File} Objekt der PNML Datei
      * @param controller
-     *            The data model controller
+     *            The data model controller (or another
+     *            {@link IPNMLImportTarget})
      */
-    public PNMLParser(final File pnml, IDataModelController controller) {
+    public PNMLParser(final File pnml, IPNMLImportTarget controller) {
         super();
 
         this.pnmlDatei = pnml;
@@ -131,18 +146,27 @@ public class PNMLParser {
 
     /**
      * Diese Methode öffnet die PNML Datei als Eingabestrom und initialisiert
-     * den XML Parser.
+     * den XML Parser.<BR>
+     * <BR>
+     * Note: gzip-compressed files (e.g. "*.pnml.gz") are detected by their
+     * magic number (not by the file name) and decompressed while streaming.
      */
     public final void initParser() {
         try {
-            /* Make sure that previous FileInputStream is closed and null. */
-            this.fis = (FileInputStream) safeInputStreamClose(this.fis);
+            /* Make sure that previous InputStream is closed and null. */
+            this.fis = safeInputStreamClose(this.fis);
 
-            /* Create a new FileInputStream. */
-            this.fis = new FileInputStream(pnmlDatei);
+            /* Create a new (compressed or uncompressed) InputStream. */
+            this.fis = openInputStream(pnmlDatei);
 
             /* Create a new instance of the XMLEventReader. */
             XMLInputFactory factory = XMLInputFactory.newInstance();
+
+            /*
+             * One Characters event per text (Otherwise texts with entity
+             * references would be split and only the last part kept.)
+             */
+            factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
             try {
                 xmlParser = factory.createXMLEventReader(fis);
             } catch (XMLStreamException e) {
@@ -152,9 +176,60 @@ public class PNMLParser {
 
         } catch (FileNotFoundException e) {
             System.err.println("Die Datei wurde nicht gefunden! " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Die Datei konnte nicht gelesen werden! " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens a buffered {@link InputStream} for the specified file. Wraps it
+     * into a {@link GZIPInputStream} if the file starts with the gzip magic
+     * number.
+     * 
+     * @param file
+     *            The PNML file
+     * @return The {@link InputStream}
+     * @throws IOException
+     *             if the file could not be opened or read
+     */
+    private InputStream openInputStream(File file) throws IOException {
+        BufferedInputStream bis = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+
+        if (!isGzipCompressed(bis))
+            return bis;
+
+        if (debug) {
+            System.out.println("Datei " + file.getName() + " ist gzip-komprimiert.");
+        }
+
+        try {
+            return new GZIPInputStream(bis, BUFFER_SIZE);
+        } catch (IOException e) {
+            bis.close();
+            throw e;
         }
     }
 
+    /**
+     * Checks the first 2 bytes of the specified stream for the gzip magic
+     * number. The stream is reset to its start afterwards.
+     * 
+     * @param bis
+     *            The {@link BufferedInputStream} (supports mark/reset)
+     * @return True if the stream starts with the gzip magic number; otherwise
+     *         false
+     * @throws IOException
+     *             if the stream could not be read
+     */
+    private static boolean isGzipCompressed(BufferedInputStream bis) throws IOException {
+        bis.mark(2);
+        int byte1 = bis.read();
+        int byte2 = bis.read();
+        bis.reset();
+
+        return byte1 == GZIP_MAGIC_BYTE1 && byte2 == GZIP_MAGIC_BYTE2;
+    }
+
     /**
      * Diese Methode liest die XML Datei und delegiert die gefundenen XML
      * Elemente an die entsprechenden Methoden.
@@ -197,8 +272,8 @@ public class PNMLParser {
                     // schließe den Parser
                     xmlParser.close();
 
-                    /* Close and set the FileInputStream to null. */
-                    this.fis = (FileInputStream) safeInputStreamClose(this.fis);
+                    /* Close and set the InputStream to null. */
+                    this.fis = safeInputStreamClose(this.fis);
 
                     break;
                 default:
@@ -589,15 +664,45 @@ public class PNMLParser {
             }
 
             /* Get the main frame to center the input dialog. */
-            JFrame mainFrame = dataModelController.getMainFrame();
+            JFrame mainFrame = (dataModelController == null) ? null : dataModelController.getMainFrame();
+            if (mainFrame == null) {
+                /*
+                 * No GUI (e.g. PNMLModelReader on the file watcher thread):
+                 * reported via the exit code only.
+                 */
+                break;
+            }
 
-            JOptionPane.showMessageDialog(mainFrame, errorMessage, "PNMLParser", JOptionPane.INFORMATION_MESSAGE);
+            showInfoMessage(mainFrame, errorMessage);
         }
 
         /* Reset the "next" values for the next element in the PNML file! */
         resetNextValues();
     }
 
+    /**
+     * Shows an info message on the Event Dispatch Thread. (Later if the parser
+     * runs on another thread.)
+     * 
+     * @param mainFrame
+     *            The main frame to center the dialog
+     * @param message
+     *            The message
+     */
+    private static void showInfoMessage(final JFrame mainFrame, final String message) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            JOptionPane.showMessageDialog(mainFrame, message, "PNMLParser", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                JOptionPane.showMessageDialog(mainFrame, message, "PNMLParser", JOptionPane.INFORMATION_MESSAGE);
+            }
+        });
+    }
+
     /**
      * Checks if we have read all necessary values for a place.
      * 
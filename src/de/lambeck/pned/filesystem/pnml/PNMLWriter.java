@@ -1,11 +1,14 @@
 package de.lambeck.pned.filesystem.pnml;
 
 import java.io.*;
+import java.util.zip.GZIPOutputStream;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 
+import de.lambeck.pned.filesystem.FSInfo;
+
 /**
  * Diese Klasse implementiert eine einfache XML Ausgabe für PNML Dateien.
  * 
@@ -27,10 +30,18 @@ public final class PNMLWriter {
     private XMLStreamWriter xmlWriter = null;
 
     /**
-     * Reference to the {@link FileOutputStream}. (Defined as class attribute
+     * Reference to the {@link OutputStream}. (Defined as class attribute
      * because the xmlWriter (that is using it) is used in different methods.)
+     * <BR>
+     * <BR>
+     * Note: This is either a buffered {@link FileOutputStream} or a
+     * {@link GZIPOutputStream} on top of it if the file name has the suffix
+     * for compressed files.
      */
-    private FileOutputStream fos = null;
+    private OutputStream fos = null;
+
+    /** The buffer size for the file output (and the compression) */
+    private static final int BUFFER_SIZE = 64 * 1024;
 
     /**
      * Dieser Konstruktor erstellt einen neuen Writer für PNML Dateien, dem die
@@ -47,7 +58,10 @@ public final class PNMLWriter {
 
     /**
      * Diese Methode beginnt ein neues XML Dokument und initialisiert den XML
-     * Writer für diese Datei.
+     * Writer für diese Datei.<BR>
+     * <BR>
+     * Note: The output is gzip-compressed while streaming if the file name
+     * ends with ".gz" (e.g. "*.pnml.gz").
      * 
      * @return Exit code 0 if completed without errors; 1 on IO errors; 2 on XML
      *         errors
@@ -56,11 +70,11 @@ public final class PNMLWriter {
         int result = -1;
 
         try {
-            /* Make sure that previous FileOutputStream is closed and null. */
-            this.fos = (FileOutputStream) safeOutputStreamClose(this.fos);
+            /* Make sure that previous OutputStream is closed and null. */
+            this.fos = safeOutputStreamClose(this.fos);
 
-            /* Create a new FileOutputStream. */
-            this.fos = new FileOutputStream(pnmlDatei);
+            /* Create a new (compressed or uncompressed) OutputStream. */
+            this.fos = openOutputStream(pnmlDatei);
 
             /* Create a new instance of the XMLStreamWriter. */
             XMLOutputFactory factory = XMLOutputFactory.newInstance();
@@ -79,7 +93,7 @@ public final class PNMLWriter {
 
             result = 0;
 
-        } catch (FileNotFoundException e) {
+        } catch (IOException e) {
             System.err.println(
                     "Die Datei " + pnmlDatei.getAbsolutePath() + " kann nicht geschrieben werden! " + e.getMessage());
             e.printStackTrace();
@@ -115,8 +129,8 @@ public final class PNMLWriter {
 
                 xmlWriter.close();
 
-                /* Close and set the FileOutputStream to null. */
-                this.fos = (FileOutputStream) safeOutputStreamClose(this.fos);
+                /* Close and set the OutputStream to null. */
+                this.fos = safeOutputStreamClose(this.fos);
 
                 result = 0;
 
@@ -345,6 +359,31 @@ public final class PNMLWriter {
         return result;
     }
 
+    /**
+     * Opens a buffered {@link OutputStream} for the specified file. Wraps it
+     * into a {@link GZIPOutputStream} if the file name has the suffix for
+     * compressed files.
+     * 
+     * @param file
+     *            The PNML file
+     * @return The {@link OutputStream}
+     * @throws IOException
+     *             if the file could not be opened for writing
+     */
+    private OutputStream openOutputStream(File file) throws IOException {
+        OutputStream os = new BufferedOutputStream(new FileOutputStream(file), BUFFER_SIZE);
+
+        if (!FSInfo.isCompressedFileName(file.getName()))
+            return os;
+
+        try {
+            return new GZIPOutputStream(os, BUFFER_SIZE);
+        } catch (IOException e) {
+            os.close();
+            throw e;
+        }
+    }
+
     /** Inserts a new line for better readability for humans. */
     private void newLine() {
         try {
@@ -0,0 +1,356 @@
+package de.lambeck.pned.filesystem.pnml;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import de.lambeck.pned.filesystem.pnml.PNMLChunkScanner.ChunkResult;
+import de.lambeck.pned.filesystem.pnml.PNMLChunkScanner.ScannedElement;
+import de.lambeck.pned.util.ConsoleLogger;
+
+/**
+ * Import mode for very large (uncompressed) PNML files: The file is
+ * memory-mapped and split into chunks which are scanned in parallel by
+ * {@link PNMLChunkScanner} on a pool of worker threads.<BR>
+ * <BR>
+ * The partial results are merged in the order of the file. All places and
+ * transitions are passed to the {@link IPNMLImportTarget} before the arcs. (So
+ * every arc can be resolved, even if it was found before its nodes.)<BR>
+ * <BR>
+ * A chunk never begins inside of a comment or a CDATA section. (Otherwise its
+ * content would be scanned as elements.) See findChunkBoundaries().<BR>
+ * <BR>
+ * Note: The return value uses the flags of the {@link EPNMLParserExitCode} like
+ * the {@link PNMLParser}.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class ParallelPNMLScanner {
+
+    /** Show debug messages? */
+    private static boolean debug = false;
+
+    /** Min. size of a file for this import mode [bytes] */
+    public static final long MIN_FILE_SIZE = 64L * 1024 * 1024;
+
+    /** The default size of the chunks [bytes] */
+    private static final int DEFAULT_CHUNK_SIZE = 32 * 1024 * 1024;
+
+    /** The size of the blocks read by the pre-pass [bytes] */
+    private static final int PRE_PASS_BLOCK_SIZE = 1024 * 1024;
+
+    /** The start of a comment */
+    private static final String COMMENT_START = "<!--";
+
+    /** The end of a comment */
+    private static final String COMMENT_END = "-->";
+
+    /** The start of a CDATA section */
+    private static final String CDATA_START = "<![CDATA[";
+
+    /** The end of a CDATA section */
+    private static final String CDATA_END = "]]>";
+
+    /** The PNML file */
+    private File pnmlFile;
+
+    /** The target for the elements */
+    private IPNMLImportTarget importTarget;
+
+    /** The size of the chunks [bytes] */
+    private final int chunkSize;
+
+    /** Return value for the caller */
+    private int exitCode = EPNMLParserExitCode.ZERO.getValue();
+
+    /**
+     * Constructs a scanner for the specified file.
+     *
+     * @param pnmlFile
+     *            The PNML file
+     * @param importTarget
+     *            The data model controller (or another
+     *            {@link IPNMLImportTarget})
+     */
+    public ParallelPNMLScanner(File pnmlFile, IPNMLImportTarget importTarget) {
+        this(pnmlFile, importTarget, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a scanner for the specified file with the specified chunk
+     * size.<BR>
+     * <BR>
+     * Note: Small chunks are for tests of the chunk boundaries only.
+     *
+     * @param pnmlFile
+     *            The PNML file
+     * @param importTarget
+     *            The data model controller (or another
+     *            {@link IPNMLImportTarget})
+     * @param chunkSize
+     *            The size of the chunks [bytes]
+     */
+    @SuppressWarnings("hiding")
+    ParallelPNMLScanner(File pnmlFile, IPNMLImportTarget importTarget, int chunkSize) {
+        this.pnmlFile = pnmlFile;
+        this.importTarget = importTarget;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Checks if the specified file should be imported with this scanner
+     * instead of the {@link PNMLParser}. (Large and not gzip-compressed.)
+     *
+     * @param file
+     *            The PNML file
+     * @return True if the file is large enough and not compressed; otherwise
+     *         false
+     */
+    public static boolean isSuitable(File file) {
+        if (file.length() < MIN_FILE_SIZE)
+            return false;
+
+        try (InputStream is = new FileInputStream(file)) {
+            /* The gzip magic number (0x1f8b) */
+            return !(is.read() == 0x1f && is.read() == 0x8b);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Scans the file and passes all elements to the import target.<BR>
+     * <BR>
+     * Note: The import target is called on the calling thread only.
+     *
+     * @return The exit code
+     */
+    public int parse() {
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("ParallelPNMLScanner.parse", pnmlFile);
+        }
+
+        List<ChunkResult> results;
+        try (FileChannel channel = FileChannel.open(pnmlFile.toPath(), StandardOpenOption.READ)) {
+            results = scanChunks(channel);
+        } catch (IOException e) {
+            System.err.println("Die Datei konnte nicht gelesen werden! " + e.getMessage());
+            return this.exitCode | EPNMLParserExitCode.FLAG_ERROR_READING_FILE.getValue();
+        }
+
+        /* Messages and flags in the order of the file */
+        for (ChunkResult result : results) {
+            for (String message : result.messages) {
+                System.err.println(message);
+            }
+            this.exitCode = this.exitCode | result.exitCode;
+        }
+
+        /* The model will be rejected anyway. */
+        if ((this.exitCode & EPNMLParserExitCode.FLAG_ERROR_READING_FILE.getValue()) != 0)
+            return this.exitCode;
+
+        if (importTarget == null)
+            return this.exitCode;
+
+        /* Nodes first, arcs after all nodes are known */
+        for (ChunkResult result : results) {
+            for (ScannedElement node : result.nodes) {
+                if (node.type == EPNMLElement.PLACE) {
+                    importTarget.addPlaceToCurrentDataModel(node.id, node.name, node.marking, node.position);
+                } else {
+                    importTarget.addTransitionToCurrentDataModel(node.id, node.name, node.position);
+                }
+            }
+        }
+        for (ChunkResult result : results) {
+            for (ScannedElement arc : result.arcs) {
+                importTarget.addArcToCurrentDataModel(arc.id, arc.sourceId, arc.targetId);
+            }
+        }
+
+        return this.exitCode;
+    }
+
+    /**
+     * Scans all chunks of the file on a pool of worker threads.
+     *
+     * @param channel
+     *            The {@link FileChannel} of the PNML file
+     * @return The {@link ChunkResult} of all chunks (in the order of the file)
+     * @throws IOException
+     *             if the file could not be mapped or read
+     */
+    private List<ChunkResult> scanChunks(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        long[] boundaries = findChunkBoundaries(channel, fileSize);
+        int chunkCount = boundaries.length - 1;
+        int threadCount = Math.max(1, Math.min(chunkCount, Runtime.getRuntime().availableProcessors()));
+
+        if (debug) {
+            System.out.println("ParallelPNMLScanner: " + chunkCount + " chunks, " + threadCount + " threads");
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ParallelPNMLScanner-" + (++count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
+        try {
+            List<Future<ChunkResult>> futures = new ArrayList<Future<ChunkResult>>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                futures.add(workers.submit(new PNMLChunkScanner(channel, boundaries[i], boundaries[i + 1], fileSize)));
+            }
+
+            List<ChunkResult> results = new ArrayList<ChunkResult>(chunkCount);
+            for (Future<ChunkResult> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException(cause);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the file into chunks of (about) chunkSize bytes. A boundary which
+     * lies inside of a comment or a CDATA section is moved behind the end of
+     * this section.<BR>
+     * <BR>
+     * Note: This is a sequential pass over the file, but it only looks for the
+     * begin and the end of comments and CDATA sections (no parsing). It stops
+     * after the last boundary.
+     *
+     * @param channel
+     *            The {@link FileChannel} of the PNML file
+     * @param fileSize
+     *            The size of the file
+     * @return The offsets of all chunks (ascending), followed by the size of
+     *         the file
+     * @throws IOException
+     *             if the file could not be read
+     */
+    private long[] findChunkBoundaries(FileChannel channel, long fileSize) throws IOException {
+        List<Long> boundaries = new ArrayList<Long>();
+        boundaries.add(0L);
+        long next = chunkSize; // The next regular boundary
+
+        ByteBuffer block = ByteBuffer.allocate(PRE_PASS_BLOCK_SIZE);
+        byte[] bytes = block.array();
+        String terminator = null; // null: Not inside of a section
+        int commentMatch = 0;
+        int cdataMatch = 0;
+        int terminatorMatch = 0;
+        long offset = 0;
+
+        while (offset < fileSize && (next < fileSize || terminator != null)) {
+            block.clear();
+            int count = channel.read(block, offset);
+            if (count <= 0)
+                break;
+
+            for (int i = 0; i < count; i++) {
+                byte b = bytes[i];
+                long pos = offset + i;
+
+                if (terminator == null) {
+                    commentMatch = match(COMMENT_START, commentMatch, b);
+                    cdataMatch = match(CDATA_START, cdataMatch, b);
+                    if (commentMatch == COMMENT_START.length() || cdataMatch == CDATA_START.length()) {
+                        /* The section starts at its '<'. */
+                        long sectionStart = pos + 1 - ((commentMatch == COMMENT_START.length())
+                                ? COMMENT_START.length() : CDATA_START.length());
+                        while (next <= sectionStart) {
+                            boundaries.add(next);
+                            next += chunkSize;
+                        }
+                        terminator = (commentMatch == COMMENT_START.length()) ? COMMENT_END : CDATA_END;
+                        commentMatch = 0;
+                        cdataMatch = 0;
+                        terminatorMatch = 0;
+                    }
+
+                } else {
+                    terminatorMatch = match(terminator, terminatorMatch, b);
+                    if (terminatorMatch == terminator.length()) {
+                        /* Move the boundaries inside of the section behind it. */
+                        long sectionEnd = pos + 1;
+                        boolean moved = false;
+                        while (next < sectionEnd) {
+                            next += chunkSize;
+                            moved = true;
+                        }
+                        if (moved && sectionEnd < next && sectionEnd < fileSize)
+                            boundaries.add(sectionEnd);
+                        terminator = null;
+                    }
+                }
+            }
+            offset += count;
+        }
+
+        /* The regular boundaries after the last section */
+        if (terminator == null) {
+            while (next < fileSize) {
+                boundaries.add(next);
+                next += chunkSize;
+            }
+        }
+        boundaries.add(fileSize);
+
+        if (debug) {
+            System.out.println("ParallelPNMLScanner: boundaries " + boundaries);
+        }
+
+        long[] result = new long[boundaries.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = boundaries.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Matches the next byte against an ASCII pattern. (Sufficient for the
+     * patterns of this class: '&lt;' only at the beginning of the start
+     * patterns, the terminators begin with two equal bytes.)
+     *
+     * @param pattern
+     *            The pattern
+     * @param matched
+     *            The number of bytes matched so far
+     * @param b
+     *            The next byte
+     * @return The number of bytes matched now
+     */
+    private static int match(String pattern, int matched, byte b) {
+        if (b == pattern.charAt(matched))
+            return matched + 1;
+        if (matched == 2 && b == pattern.charAt(0) && pattern.charAt(1) == pattern.charAt(0))
+            return 2; // e.g. "--" + '-' for "-->"
+        return (b == pattern.charAt(0)) ? 1 : 0;
+    }
+
+}
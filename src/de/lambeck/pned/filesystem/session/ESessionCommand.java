@@ -0,0 +1,101 @@
+package de.lambeck.pned.filesystem.session;
+
+/**
+ * The commands recorded by the {@link SessionRecorder}: the menu commands of
+ * the application controller and the mouse commands of the GUI model
+ * controller. Each command knows the number of its values and whether a
+ * replay is possible without dialogs and without changes of files.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public enum ESessionCommand {
+    /** menuCmd_FileNew() */
+    FILE_NEW(0, true),
+    /** menuCmd_FileOpen(file) (path) */
+    FILE_OPEN(1, true),
+    /** menuCmd_FileClose() (Might ask for saving.) */
+    FILE_CLOSE(0, false),
+    /** menuCmd_FileSave() (Writes a file.) */
+    FILE_SAVE(0, false),
+    /** menuCmd_FileSaveAs(file) (path; writes a file) */
+    FILE_SAVE_AS(1, false),
+    /** menuCmd_AppExit() */
+    APP_EXIT(0, false),
+    /** menuCmd_EditUndo() */
+    EDIT_UNDO(0, true),
+    /** menuCmd_EditRedo() */
+    EDIT_REDO(0, true),
+    /** menuCmd_EditRename() (Input dialog) */
+    EDIT_RENAME(0, false),
+    /** menuCmd_EditDelete() */
+    EDIT_DELETE(0, true),
+    /** menuCmd_SelectAll() */
+    SELECT_ALL(0, true),
+    /** menuCmd_ElementToTheForeground() */
+    ELEMENT_TO_THE_FOREGROUND(0, true),
+    /** menuCmd_ElementToTheBackground() */
+    ELEMENT_TO_THE_BACKGROUND(0, true),
+    /** menuCmd_ElementOneLayerUp() */
+    ELEMENT_ONE_LAYER_UP(0, true),
+    /** menuCmd_ElementOneLayerDown() */
+    ELEMENT_ONE_LAYER_DOWN(0, true),
+    /** menuCmd_NewPlace() (x, y of the popup menu) */
+    NEW_PLACE(2, true),
+    /** menuCmd_NewTransition() (x, y of the popup menu) */
+    NEW_TRANSITION(2, true),
+    /** menuCmd_NewArcFromHere() (x, y of the popup menu) */
+    NEW_ARC_FROM_HERE(2, true),
+    /** checkDrawArcFinalEndLocation(p) (x, y of the target) */
+    NEW_ARC_TO_HERE(2, true),
+    /** menuCmd_StopSimulation() */
+    STOP_SIMULATION(0, true),
+    /** menuCmd_ViewPerformanceHud(visible) (true/false) */
+    VIEW_PERFORMANCE_HUD(1, true),
+    /** mouseClick_Occurred(p, e) (pressed x, y; released x, y) */
+    MOUSE_CLICK(4, true),
+    /** mouseClick_WithCtrl_Occurred(p, e) (pressed x, y; released x, y) */
+    MOUSE_CLICK_WITH_CTRL(4, true),
+    /** mouseDragged(dx, dy) */
+    MOUSE_DRAGGED(2, true),
+    /** updateDataNodePositions() (End of a dragging operation) */
+    DRAG_FINISHED(0, true),
+    /** fireGuiTransition() (x, y of the popup menu) */
+    FIRE_TRANSITION(2, true);
+
+    /** The number of values stored for this command */
+    private int valuesCount;
+
+    /** Can this command be replayed? */
+    private boolean replayable;
+
+    /**
+     * Constructs this enum element with the specified number of values.
+     *
+     * @param initValuesCount
+     *            The number of values stored for this command
+     * @param initReplayable
+     *            Can this command be replayed without dialogs and without
+     *            changes of files?
+     */
+    private ESessionCommand(final int initValuesCount, final boolean initReplayable) {
+        this.valuesCount = initValuesCount;
+        this.replayable = initReplayable;
+    }
+
+    /**
+     * @return the number of values stored for this command
+     */
+    public int getValuesCount() {
+        return this.valuesCount;
+    }
+
+    /**
+     * @return true if this command can be replayed without dialogs and
+     *         without changes of files; otherwise false
+     */
+    public boolean isReplayable() {
+        return this.replayable;
+    }
+
+}
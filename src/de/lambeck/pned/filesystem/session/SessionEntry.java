@@ -0,0 +1,189 @@
+package de.lambeck.pned.filesystem.session;
+
+import java.awt.Point;
+
+import de.lambeck.pned.exceptions.PNInvalidParameterException;
+import de.lambeck.pned.filesystem.journal.EditJournalEntry;
+
+/**
+ * One (immutable) entry of a recorded session.<BR>
+ * <BR>
+ * An entry is stored as one line of text (like the entries of the edit
+ * journal): the time since the start of the recording (ms), the name of the
+ * {@link ESessionCommand}, the name of the active model and the values of the
+ * command, separated by tabs.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class SessionEntry {
+
+    /** The separator between the values of one line */
+    private final static char SEPARATOR = '\t';
+
+    /** The time since the start of the recording [ms] */
+    private final long time;
+
+    /** The command of this entry */
+    private final ESessionCommand command;
+
+    /** The name of the active model; empty if none */
+    private final String modelName;
+
+    /** The values of this entry (depending on the command) */
+    private final String[] values;
+
+    /**
+     * Constructs an entry for the specified command and values.
+     *
+     * @param time
+     *            The time since the start of the recording [ms]
+     * @param command
+     *            The {@link ESessionCommand}
+     * @param modelName
+     *            The name of the active model; null or empty if none
+     * @param values
+     *            The values (Count must match the command!)
+     */
+    @SuppressWarnings("hiding")
+    public SessionEntry(long time, ESessionCommand command, String modelName, String... values) {
+        this.time = time;
+        this.command = command;
+        this.modelName = (modelName == null) ? "" : modelName;
+        this.values = values;
+    }
+
+    /* Getter */
+
+    /**
+     * @return The time since the start of the recording [ms]
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /**
+     * @return The {@link ESessionCommand}
+     */
+    public ESessionCommand getCommand() {
+        return this.command;
+    }
+
+    /**
+     * @return The name of the active model; empty if none
+     */
+    public String getModelName() {
+        return this.modelName;
+    }
+
+    /**
+     * @param index
+     *            The index of the value
+     * @return The value
+     */
+    public String getValue(int index) {
+        return this.values[index];
+    }
+
+    /**
+     * Returns two values as {@link Point} (e.g. the location of the popup
+     * menu or the distance of a dragging step).
+     *
+     * @param index
+     *            The index of the x value
+     * @return The {@link Point}
+     */
+    public Point getPoint(int index) {
+        int x = Integer.parseInt(values[index]);
+        int y = Integer.parseInt(values[index + 1]);
+        return new Point(x, y);
+    }
+
+    /* Conversion from and to a line of text */
+
+    /**
+     * Returns this entry as one line of text (without line break).
+     *
+     * @return The line
+     */
+    public String toLine() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(time);
+        sb.append(SEPARATOR).append(command.name());
+        sb.append(SEPARATOR);
+        EditJournalEntry.appendEscaped(sb, modelName);
+        for (String value : values) {
+            sb.append(SEPARATOR);
+            EditJournalEntry.appendEscaped(sb, value);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Parses one line of text from a session file.
+     *
+     * @param line
+     *            The line (without line break)
+     * @return The {@link SessionEntry}
+     * @throws PNInvalidParameterException
+     *             if the line is not a valid session entry
+     */
+    public static SessionEntry parseLine(String line) throws PNInvalidParameterException {
+        String[] parts = EditJournalEntry.splitLine(line);
+        if (parts.length < 3)
+            throw new PNInvalidParameterException("Incomplete session entry: " + line);
+
+        long time;
+        try {
+            time = Long.parseLong(parts[0]);
+        } catch (NumberFormatException e) {
+            throw new PNInvalidParameterException("Invalid time: " + line, e);
+        }
+
+        ESessionCommand command;
+        try {
+            command = ESessionCommand.valueOf(parts[1]);
+        } catch (IllegalArgumentException e) {
+            throw new PNInvalidParameterException("Unknown session command: " + parts[1], e);
+        }
+
+        int count = command.getValuesCount();
+        if (parts.length != count + 3)
+            throw new PNInvalidParameterException("Wrong number of values for " + command + ": " + line);
+
+        String[] values = new String[count];
+        System.arraycopy(parts, 3, values, 0, count);
+        SessionEntry entry = new SessionEntry(time, command, parts[2], values);
+
+        /* Check the numeric values now instead of during the replay. */
+        try {
+            switch (command) {
+            case NEW_PLACE:
+            case NEW_TRANSITION:
+            case NEW_ARC_FROM_HERE:
+            case NEW_ARC_TO_HERE:
+            case MOUSE_DRAGGED:
+            case FIRE_TRANSITION:
+                entry.getPoint(0);
+                break;
+            case MOUSE_CLICK:
+            case MOUSE_CLICK_WITH_CTRL:
+                entry.getPoint(0);
+                entry.getPoint(2);
+                break;
+            default:
+                break;
+            }
+        } catch (NumberFormatException e) {
+            throw new PNInvalidParameterException("Invalid location: " + line, e);
+        }
+
+        return entry;
+    }
+
+    @Override
+    public String toString() {
+        return toLine();
+    }
+
+}
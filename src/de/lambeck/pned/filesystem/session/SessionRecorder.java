@@ -0,0 +1,196 @@
+package de.lambeck.pned.filesystem.session;
+
+import java.awt.Point;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import de.lambeck.pned.exceptions.PNInvalidParameterException;
+
+/**
+ * Records the high-level commands of a user session (menu commands, mouse
+ * clicks, dragging, firing of transitions) with timestamps into a text file.
+ * The recorded sessions can be replayed as realistic workloads (macro
+ * benchmarks).<BR>
+ * <BR>
+ * The recording is started with the system property
+ * "de.lambeck.pned.recordSession" (name of the session file) or with
+ * start(file). Lines starting with "#" are comments.<BR>
+ * <BR>
+ * Note: The controllers check isRecording() before they create the values.
+ * (No costs if not recording.)
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class SessionRecorder {
+
+    /** The system property with the name of the session file */
+    public static final String SESSION_FILE_PROPERTY = "de.lambeck.pned.recordSession";
+
+    /** The start of a comment line */
+    private static final String COMMENT = "#";
+
+    /** The writer for the current session file; null if not recording */
+    private static Writer writer = null;
+
+    /** The start of the recording [ns] */
+    private static long startTime = 0;
+
+    /** Is a session being recorded? */
+    private static volatile boolean recording = false;
+
+    /** No instances */
+    private SessionRecorder() {
+    }
+
+    /* Start and stop */
+
+    /**
+     * Starts the recording if the system property with the name of the
+     * session file is set.
+     */
+    public static void startFromSystemProperty() {
+        String fileName = System.getProperty(SESSION_FILE_PROPERTY);
+        if (fileName == null || fileName.isEmpty())
+            return;
+
+        start(new File(fileName));
+    }
+
+    /**
+     * Starts the recording into the specified file. (An existing file will be
+     * overwritten.)
+     *
+     * @param sessionFile
+     *            The session file
+     * @return true if the recording was started; otherwise false
+     */
+    public static synchronized boolean start(File sessionFile) {
+        stop();
+
+        try {
+            File dir = sessionFile.getAbsoluteFile().getParentFile();
+            if (dir != null && !dir.isDirectory())
+                dir.mkdirs();
+
+            writer = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(sessionFile), StandardCharsets.UTF_8));
+            writer.write(COMMENT + " Petri net editor session, recorded "
+                    + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()) + "\n");
+            writer.write(COMMENT + " time [ms], command, model, values...\n");
+        } catch (IOException e) {
+            System.err.println("SessionRecorder: Cannot write " + sessionFile + ": " + e.getMessage());
+            writer = null;
+            return false;
+        }
+
+        startTime = System.nanoTime();
+        recording = true;
+        return true;
+    }
+
+    /**
+     * Stops the recording and closes the session file.
+     */
+    public static synchronized void stop() {
+        recording = false;
+        if (writer == null)
+            return;
+
+        try {
+            writer.close();
+        } catch (IOException e) {
+            System.err.println("SessionRecorder: Cannot close the session file: " + e.getMessage());
+        }
+        writer = null;
+    }
+
+    /**
+     * @return true if a session is being recorded; otherwise false
+     */
+    public static boolean isRecording() {
+        return recording;
+    }
+
+    /* Recording */
+
+    /**
+     * Records the specified command.
+     *
+     * @param command
+     *            The {@link ESessionCommand}
+     * @param modelName
+     *            The name of the active model; null if none
+     * @param values
+     *            The values (Count must match the command!)
+     */
+    public static synchronized void record(ESessionCommand command, String modelName, String... values) {
+        if (writer == null)
+            return;
+
+        long time = (System.nanoTime() - startTime) / 1000000;
+        SessionEntry entry = new SessionEntry(time, command, modelName, values);
+        try {
+            writer.write(entry.toLine());
+            writer.write('\n');
+
+            /* Dragging creates many entries: write them with the next command. */
+            if (command != ESessionCommand.MOUSE_DRAGGED)
+                writer.flush();
+        } catch (IOException e) {
+            System.err.println("SessionRecorder: Cannot write the session file: " + e.getMessage());
+            stop();
+        }
+    }
+
+    /**
+     * Records the specified command with one location.
+     *
+     * @param command
+     *            The {@link ESessionCommand}
+     * @param modelName
+     *            The name of the active model; null if none
+     * @param p
+     *            The location (e.g. of the popup menu); null is stored as
+     *            (-1, -1)
+     */
+    public static void record(ESessionCommand command, String modelName, Point p) {
+        if (p == null) {
+            record(command, modelName, "-1", "-1");
+        } else {
+            record(command, modelName, Integer.toString(p.x), Integer.toString(p.y));
+        }
+    }
+
+    /* Reading */
+
+    /**
+     * Reads all entries of the specified session file.
+     *
+     * @param sessionFile
+     *            The session file
+     * @return The {@link List} of {@link SessionEntry}
+     * @throws IOException
+     *             if the file cannot be read
+     * @throws PNInvalidParameterException
+     *             if a line is not a valid session entry
+     */
+    public static List<SessionEntry> read(File sessionFile) throws IOException, PNInvalidParameterException {
+        List<SessionEntry> entries = new ArrayList<SessionEntry>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(sessionFile), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith(COMMENT))
+                    continue;
+                entries.add(SessionEntry.parseLine(line));
+            }
+        }
+        return entries;
+    }
+
+}
@@ -0,0 +1,27 @@
+package de.lambeck.pned.filesystem.watch;
+
+import de.lambeck.pned.models.data.IDataModel;
+
+/**
+ * Interface for listeners of a {@link PnmlFileWatcher}.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public interface IPnmlFileChangeListener {
+
+    /**
+     * Callback for the {@link PnmlFileWatcher} if a watched PNML file was
+     * changed by another program.<BR>
+     * <BR>
+     * Note: This method is invoked on the EDT.
+     *
+     * @param modelName
+     *            The name of the model (This is intended to be the full path
+     *            name of the PNML file represented by this model.)
+     * @param reloadedModel
+     *            The new content of the file as detached {@link IDataModel}
+     */
+    void externalPnmlFileChanged(String modelName, IDataModel reloadedModel);
+
+}
@@ -0,0 +1,309 @@
+package de.lambeck.pned.filesystem.watch;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+import de.lambeck.pned.filesystem.pnml.PNMLModelReader;
+import de.lambeck.pned.models.data.IDataModel;
+import de.lambeck.pned.util.logging.Logger;
+
+/**
+ * Watches the PNML files of all open models for changes by other programs.<BR>
+ * <BR>
+ * Uses one {@link WatchService} for the parent directories of all watched
+ * files. Changed files are read (after a short delay to skip the intermediate
+ * states of a running write operation) by the {@link PNMLModelReader} on the
+ * watcher thread. The listener gets the new content on the EDT.<BR>
+ * <BR>
+ * Note: Files written by this application must be reported via
+ * fileWritten(modelName) to be ignored.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class PnmlFileWatcher {
+
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(PnmlFileWatcher.class);
+
+    /** Delay after the last event for a file before it is read [ms] */
+    private static final long DEBOUNCE_MILLIS = 500;
+
+    /** Reference to the {@link IPnmlFileChangeListener} */
+    private IPnmlFileChangeListener listener;
+
+    /** The {@link WatchService}; null if not supported */
+    private WatchService watchService = null;
+
+    /** The thread which processes the events */
+    private Thread watcherThread = null;
+
+    /**
+     * The last known state (last modified + length) of all watched files by
+     * canonical path name
+     */
+    private Map<String, String> watchedFiles = new HashMap<String, String>();
+
+    /** The {@link WatchKey} of all registered directories */
+    private Map<Path, WatchKey> registeredDirs = new HashMap<Path, WatchKey>();
+
+    /**
+     * The point in time [ms] at which each changed file will be read. (Only
+     * used by the watcher thread.)
+     */
+    private Map<String, Long> pendingFiles = new HashMap<String, Long>();
+
+    /**
+     * Constructs a file watcher and starts its daemon thread.
+     *
+     * @param listener
+     *            The {@link IPnmlFileChangeListener}
+     */
+    @SuppressWarnings("hiding")
+    public PnmlFileWatcher(IPnmlFileChangeListener listener) {
+        this.listener = listener;
+
+        try {
+            this.watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException | UnsupportedOperationException e) {
+            System.err.println("File watcher not available: " + e.getMessage());
+            return;
+        }
+
+        this.watcherThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                processEvents();
+            }
+        }, "PnmlFileWatcher");
+        this.watcherThread.setDaemon(true);
+        this.watcherThread.start();
+    }
+
+    /* Public methods */
+
+    /**
+     * Starts watching the specified file.
+     *
+     * @param modelName
+     *            The name of the model (This is intended to be the full path
+     *            name of the PNML file represented by this model.)
+     */
+    public synchronized void watch(String modelName) {
+        logger.methodCall("PnmlFileWatcher.watch", modelName);
+
+        if (watchService == null || modelName == null)
+            return;
+
+        Path dir = Paths.get(modelName).getParent();
+        if (dir == null)
+            return;
+
+        if (!registeredDirs.containsKey(dir)) {
+            try {
+                WatchKey key = dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                registeredDirs.put(dir, key);
+            } catch (IOException | ClosedWatchServiceException e) {
+                System.err.println("Could not watch directory " + dir + ": " + e.getMessage());
+                return;
+            }
+        }
+
+        watchedFiles.put(modelName, getFileState(modelName));
+    }
+
+    /**
+     * Stops watching the specified file.
+     *
+     * @param modelName
+     *            The name of the model
+     */
+    public synchronized void unwatch(String modelName) {
+        logger.methodCall("PnmlFileWatcher.unwatch", modelName);
+
+        if (watchedFiles.remove(modelName) == null)
+            return;
+
+        /* Unregister the directory if this was the last file in it. */
+        Path dir = Paths.get(modelName).getParent();
+        for (String fileName : watchedFiles.keySet()) {
+            if (dir.equals(Paths.get(fileName).getParent()))
+                return;
+        }
+
+        WatchKey key = registeredDirs.remove(dir);
+        if (key != null)
+            key.cancel();
+    }
+
+    /**
+     * Stores the current state of the specified file after it was written by
+     * this application. (Subsequent events for this state will be ignored.)
+     *
+     * @param modelName
+     *            The name of the model
+     */
+    public synchronized void fileWritten(String modelName) {
+        if (watchedFiles.containsKey(modelName))
+            watchedFiles.put(modelName, getFileState(modelName));
+    }
+
+    /**
+     * Stops the watcher thread.
+     */
+    public void shutdown() {
+        if (watchService == null)
+            return;
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Could not close the file watcher: " + e.getMessage());
+        }
+    }
+
+    /* Watcher thread */
+
+    /**
+     * The loop of the watcher thread: collects the events and reads each
+     * changed file if there was no further event for this file during the
+     * delay.
+     */
+    private void processEvents() {
+        try {
+            while (true) {
+                WatchKey key;
+                if (pendingFiles.isEmpty()) {
+                    key = watchService.take();
+                } else {
+                    long timeout = getNextDueTime() - System.currentTimeMillis();
+                    key = watchService.poll(Math.max(timeout, 0), TimeUnit.MILLISECONDS);
+                }
+
+                if (key != null) {
+                    collectEvents(key);
+                    key.reset();
+                }
+
+                readDueFiles();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            /* Shutdown */
+        }
+    }
+
+    /**
+     * Marks all watched files of the specified {@link WatchKey} as pending.
+     *
+     * @param key
+     *            The {@link WatchKey}
+     */
+    private void collectEvents(WatchKey key) {
+        Path dir = (Path) key.watchable();
+        long dueTime = System.currentTimeMillis() + DEBOUNCE_MILLIS;
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+                continue;
+
+            String fullName = dir.resolve((Path) event.context()).toString();
+            if (isWatched(fullName))
+                pendingFiles.put(fullName, dueTime);
+        }
+    }
+
+    /**
+     * Reads all pending files whose delay has expired.
+     */
+    private void readDueFiles() {
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, Long>> it = pendingFiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Long> entry = it.next();
+            if (entry.getValue() > now)
+                continue;
+
+            it.remove();
+            readChangedFile(entry.getKey());
+        }
+    }
+
+    /**
+     * Reads the specified file if its state has changed and passes the new
+     * content to the listener.
+     *
+     * @param modelName
+     *            The name of the model
+     */
+    private void readChangedFile(final String modelName) {
+        File pnmlFile = new File(modelName);
+        if (!pnmlFile.isFile())
+            return; // Deleted or being replaced (We will get another event.)
+
+        String fileState = getFileState(modelName);
+        synchronized (this) {
+            String knownState = watchedFiles.get(modelName);
+            if (knownState == null || knownState.equals(fileState))
+                return; // Not watched anymore or written by ourselves
+            watchedFiles.put(modelName, fileState);
+        }
+
+        logger.methodCall("PnmlFileWatcher.readChangedFile", modelName);
+
+        final IDataModel reloadedModel = PNMLModelReader.read(pnmlFile, modelName);
+        if (reloadedModel == null) {
+            System.err.println("External changes not accepted: " + modelName);
+            return;
+        }
+
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                if (isWatched(modelName))
+                    listener.externalPnmlFileChanged(modelName, reloadedModel);
+            }
+        });
+    }
+
+    /* Private helpers */
+
+    /**
+     * @param modelName
+     *            The name of the model
+     * @return True if the specified file is watched; otherwise false
+     */
+    private synchronized boolean isWatched(String modelName) {
+        return watchedFiles.containsKey(modelName);
+    }
+
+    /**
+     * @return The earliest point in time [ms] at which a pending file will be
+     *         read
+     */
+    private long getNextDueTime() {
+        long next = Long.MAX_VALUE;
+        for (long dueTime : pendingFiles.values()) {
+            next = Math.min(next, dueTime);
+        }
+        return next;
+    }
+
+    /**
+     * @param modelName
+     *            The name of the model
+     * @return The state (last modified + length) of the specified file
+     */
+    private static String getFileState(String modelName) {
+        File file = new File(modelName);
+        return file.lastModified() + ":" + file.length();
+    }
+
+}
@@ -125,4 +125,23 @@ public class ImageIconCreator {
         return icon;
     }
 
+    /**
+     * Returns an ImageIcon which loads and scales the image file on first use.
+     * (Like getScaledImageIcon(), but without loading anything now.)<BR>
+     * <BR>
+     * Note: An invalid subfolder/name is reported on first use. The icon stays
+     * empty in this case.
+     * 
+     * @param subfolder
+     *            The folder below imagesBasePath containing the image file.
+     * @param name
+     *            The file name
+     * @param px
+     *            The target size in pixel
+     * @return The {@link LazyImageIcon}
+     */
+    public static ImageIcon getLazyScaledImageIcon(String subfolder, String name, int px) {
+        return new LazyImageIcon(subfolder, name, px);
+    }
+
 }
@@ -0,0 +1,96 @@
+package de.lambeck.pned.gui.icon;
+
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Image;
+
+import javax.swing.ImageIcon;
+
+/**
+ * An {@link ImageIcon} which loads and scales its image file on first use
+ * (painting or getImage()). Until then, only the target size is known.<BR>
+ * <BR>
+ * Note: Used for the icons of the Actions, so icons of menu items and popup
+ * menus are not loaded before the menu is shown. Still an {@link ImageIcon}
+ * because the look and feel creates the disabled icons from ImageIcons only.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class LazyImageIcon extends ImageIcon {
+
+    /**
+     * Generated serial version ID
+     */
+    private static final long serialVersionUID = 3920657163418290742L;
+
+    /** The folder below the base path containing the image file */
+    private final String subfolder;
+
+    /** The file name */
+    private final String name;
+
+    /** The target size in pixel */
+    private final int px;
+
+    /** Has the image file been loaded (or tried to load)? */
+    private boolean loaded = false;
+
+    /**
+     * Creates the icon without loading the image file.
+     *
+     * @param subfolder
+     *            The folder below the base path containing the image file.
+     * @param name
+     *            The file name
+     * @param px
+     *            The target size in pixel
+     */
+    @SuppressWarnings("hiding")
+    public LazyImageIcon(String subfolder, String name, int px) {
+        super();
+        this.subfolder = subfolder;
+        this.name = name;
+        this.px = px;
+    }
+
+    @Override
+    public Image getImage() {
+        load();
+        return super.getImage();
+    }
+
+    @Override
+    public synchronized void paintIcon(Component c, Graphics g, int x, int y) {
+        load();
+        super.paintIcon(c, g, x, y);
+    }
+
+    @Override
+    public int getIconWidth() {
+        if (!loaded)
+            return px;
+        return super.getIconWidth();
+    }
+
+    @Override
+    public int getIconHeight() {
+        if (!loaded)
+            return px;
+        return super.getIconHeight();
+    }
+
+    /**
+     * Loads and scales the image file on first use.
+     */
+    private void load() {
+        if (loaded)
+            return;
+        loaded = true;
+
+        ImageIcon icon = ImageIconCreator.getScaledImageIcon(subfolder, name, px);
+        if (icon != null)
+            setImage(icon.getImage());
+    }
+
+}
@@ -3,6 +3,7 @@ package de.lambeck.pned.gui.menuBar;
 import java.util.Map;
 
 import javax.swing.AbstractAction;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JFrame;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
@@ -59,6 +60,8 @@ public class MenuBar extends JMenuBar {
     private AbstractAction editDeleteAction;
     /** A menu bar "button" */
     private AbstractAction stopSimulationAction;
+    /** A menu bar "button" */
+    private AbstractAction viewPerformanceHudAction;
 
     /**
      * Constructs the MenuBar with a parent component and a reference to the
@@ -92,6 +95,9 @@ public class MenuBar extends JMenuBar {
 
         menu = createEditMenu();
         add(menu);
+
+        menu = createViewMenu();
+        add(menu);
     }
 
     /**
@@ -168,4 +174,22 @@ public class MenuBar extends JMenuBar {
         return editMenu;
     }
 
+    /**
+     * Creates the view menu with all menu items.
+     * 
+     * @return The menu
+     */
+    private JMenu createViewMenu() {
+        JMenu viewMenu;
+
+        /* Create the menu. */
+        viewMenu = itemCreator.getMenu("View", "ViewMenuDescription");
+
+        /* Create the menu items. (Check box: shown or hidden) */
+        viewPerformanceHudAction = allActions.get("ViewPerformanceHud");
+        viewMenu.add(new JCheckBoxMenuItem(viewPerformanceHudAction));
+
+        return viewMenu;
+    }
+
 }
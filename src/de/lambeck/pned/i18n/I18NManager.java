@@ -19,8 +19,12 @@ public class I18NManager {
     /** Stores the specified Locale (language). */
     private Locale currentLocale; // For error messages
 
-    /** The resources for messages */
-    private ResourceBundle messages;
+    /**
+     * The resources for messages<BR>
+     * <BR>
+     * Note: Loaded on first use (not needed for the first frame).
+     */
+    private ResourceBundle messages = null;
 
     /**
      * The resources for names<BR>
@@ -42,31 +46,41 @@ public class I18NManager {
 
         this.currentLocale = locale;
 
-        messages = ResourceBundle.getBundle(baseName + ".MessagesBundle", locale);
         names = ResourceBundle.getBundle(baseName + ".NamesBundle", locale);
-        reportMissingBundleFiles(locale);
+        reportMissingBundleFile(names, locale);
     }
 
     /**
-     * Reports if there are missing Bundles for the specified language.
+     * Reports if the specified Bundle is missing for the specified language.
      * 
+     * @param bundle
+     *            The loaded {@link ResourceBundle}
      * @param expected
      *            The expected {@link Locale}
      */
-    private void reportMissingBundleFiles(Locale expected) {
-        Locale foundLocale;
-
-        foundLocale = messages.getLocale();
+    private void reportMissingBundleFile(ResourceBundle bundle, Locale expected) {
+        Locale foundLocale = bundle.getLocale();
         if (!foundLocale.equals(expected)) {
-            System.err.print(messages.getBaseBundleName() + "_" + expected.toString() + " not found!");
+            System.err.print(bundle.getBaseBundleName() + "_" + expected.toString() + " not found!");
             System.err.println(" (Using: " + foundLocale.toString() + ".)");
         }
+    }
 
-        foundLocale = names.getLocale();
-        if (!foundLocale.equals(expected)) {
-            System.err.print(names.getBaseBundleName() + "_" + expected.toString() + " not found!");
-            System.err.println(" (Using: " + foundLocale.toString() + ".)");
+    /**
+     * Returns the resources for messages. Loads them on first use.<BR>
+     * <BR>
+     * Note: Synchronized because the validators use messages on the validation
+     * thread.
+     * 
+     * @return The {@link ResourceBundle} for messages
+     */
+    private synchronized ResourceBundle getMessagesBundle() {
+        if (messages == null) {
+            messages = ResourceBundle.getBundle(baseName + ".MessagesBundle", currentLocale);
+            reportMissingBundleFile(messages, currentLocale);
         }
+
+        return messages;
     }
 
     /**
@@ -86,7 +100,7 @@ public class I18NManager {
             return "";
         }
 
-        return getString(key, messages);
+        return getString(key, getMessagesBundle());
     }
 
     /**
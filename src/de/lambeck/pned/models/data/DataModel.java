@@ -3,6 +3,7 @@ package de.lambeck.pned.models.data;
 import java.awt.Point;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import de.lambeck.pned.elements.EPlaceToken;
@@ -13,6 +14,7 @@ import de.lambeck.pned.exceptions.PNNoSuchElementException;
 import de.lambeck.pned.models.data.validation.InitialMarkingValidator;
 import de.lambeck.pned.util.ConsoleLogger;
 import de.lambeck.pned.util.ObjectCloner;
+import de.lambeck.pned.util.logging.Logger;
 
 /**
  * Implements the data model (for 1 Petri net).
@@ -30,6 +32,9 @@ public class DataModel implements IDataModel, IModelRename, Serializable {
     /** Show debug messages? */
     private static boolean debug = false;
 
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(DataModel.class);
+
     /**
      * This should be the canonical (unique) path name of the file.
      */
@@ -45,6 +50,12 @@ public class DataModel implements IDataModel, IModelRename, Serializable {
      */
     private List<IDataElement> elements = new ArrayList<>();
 
+    /**
+     * Read-only view of the elements (see getElementsView()). Not serialized:
+     * Created on demand.
+     */
+    private transient List<IDataElement> elementsView = null;
+
     /**
      * This attribute is set if the model was modified in any way to make sure
      * that the user is asked for "file save" when closing the file.
@@ -454,6 +465,13 @@ public class DataModel implements IDataModel, IModelRename, Serializable {
         return copy;
     }
 
+    @Override
+    public List<IDataElement> getElementsView() {
+        if (elementsView == null)
+            elementsView = Collections.unmodifiableList(elements);
+        return elementsView;
+    }
+
     @Override
     public IDataElement getElementById(String id) throws PNNoSuchElementException {
         for (IDataElement element : this.elements) {
@@ -463,7 +481,7 @@ public class DataModel implements IDataModel, IModelRename, Serializable {
         }
 
         String errorMessage = "Model " + this.modelName + ": element " + id + " not found!";
-        ConsoleLogger.logIfDebug(debug, errorMessage);
+        logger.debug(errorMessage);
         throw new PNNoSuchElementException(errorMessage);
     }
 
@@ -483,7 +501,7 @@ public class DataModel implements IDataModel, IModelRename, Serializable {
         }
 
         String errorMessage = "Model " + this.modelName + ": node " + nodeId + " not found!";
-        ConsoleLogger.logIfDebug(debug, errorMessage);
+        logger.debug(errorMessage);
         throw new PNNoSuchElementException(errorMessage);
     }
 
@@ -503,7 +521,7 @@ public class DataModel implements IDataModel, IModelRename, Serializable {
         }
 
         String errorMessage = "Model " + this.modelName + ": place " + placeId + " not found!";
-        ConsoleLogger.logIfDebug(debug, errorMessage);
+        logger.debug(errorMessage);
         throw new PNNoSuchElementException(errorMessage);
     }
 
@@ -523,7 +541,7 @@ public class DataModel implements IDataModel, IModelRename, Serializable {
         }
 
         String errorMessage = "Model " + this.modelName + ": transition " + transitionId + " not found!";
-        ConsoleLogger.logIfDebug(debug, errorMessage);
+        logger.debug(errorMessage);
         throw new PNNoSuchElementException(errorMessage);
     }
 
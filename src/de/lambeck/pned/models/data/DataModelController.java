@@ -2,6 +2,9 @@ package de.lambeck.pned.models.data;
 
 import java.awt.Point;
 import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -22,15 +25,26 @@ import de.lambeck.pned.exceptions.PNElementCreationException;
 import de.lambeck.pned.exceptions.PNNoSuchElementException;
 import de.lambeck.pned.exceptions.PNObjectNotClonedException;
 import de.lambeck.pned.filesystem.FSInfo;
+import de.lambeck.pned.filesystem.cache.ParsedModelCache;
+import de.lambeck.pned.filesystem.cache.ParsedModelCache.CacheKey;
+import de.lambeck.pned.filesystem.journal.EditJournal;
+import de.lambeck.pned.filesystem.journal.EditJournalEntry;
 import de.lambeck.pned.filesystem.pnml.EPNMLParserExitCode;
 import de.lambeck.pned.filesystem.pnml.PNMLParser;
+import de.lambeck.pned.filesystem.pnml.ParallelPNMLScanner;
 import de.lambeck.pned.i18n.I18NManager;
 import de.lambeck.pned.models.data.validation.IValidationController;
 import de.lambeck.pned.models.data.validation.IValidationMsgPanel;
 import de.lambeck.pned.models.data.validation.ValidationController;
 import de.lambeck.pned.models.data.validation.ValidationMsgPanel;
+import de.lambeck.pned.monitoring.EEditorEventType;
+import de.lambeck.pned.monitoring.EditorEvents;
+import de.lambeck.pned.monitoring.EditorMetrics;
+import de.lambeck.pned.monitoring.EdtWatchdog;
+import de.lambeck.pned.monitoring.IEditorEvent;
 import de.lambeck.pned.util.ConsoleLogger;
 import de.lambeck.pned.util.ObjectCloner;
+import de.lambeck.pned.util.logging.Logger;
 
 /**
  * Implements a controller for the data models of Petri nets. This means the
@@ -44,6 +58,9 @@ public class DataModelController implements IDataModelController {
     /** Show debug messages? */
     private static boolean debug = false;
 
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(DataModelController.class);
+
     /**
      * Predefined parameter because only the {@link ValidationController} should
      * change the "initial check" state of the {@link IDataModel}.
@@ -99,6 +116,25 @@ public class DataModelController implements IDataModelController {
      */
     private int elementsAddedToCurrentModel = 0;
 
+    /**
+     * The {@link EditJournal} for all edit operations on the data models since
+     * they were last saved.
+     */
+    private EditJournal editJournal = null;
+
+    /**
+     * The current model before the last Undo or Redo operation. (To journal
+     * only the differences in {@link #undoOrRedoFinished()}.)
+     */
+    private IDataModel modelBeforeUndoOrRedo = null;
+
+    /**
+     * The on-disk cache of parsed PNML files (for fast reopening of unchanged
+     * files).
+     */
+    private ParsedModelCache parsedModelCache = new ParsedModelCache(ParsedModelCache.getDefaultCacheDir(),
+            ParsedModelCache.DEFAULT_MAX_CACHE_SIZE);
+
     /* Constructor */
 
     /**
@@ -114,6 +150,7 @@ public class DataModelController implements IDataModelController {
     public DataModelController(ApplicationController controller, I18NManager i18n) {
         this.appController = controller;
         this.i18n = i18n;
+        this.editJournal = controller.getEditJournal();
 
         debug = controller.getShowDebugMessages();
     }
@@ -238,11 +275,40 @@ public class DataModelController implements IDataModelController {
         /* Create the Undo and Redo stacks for this model. */
         createUndoAndRedoStack(canonicalPath);
 
-        /* Parse the file. */
-        PNMLParser pnmlParser = new PNMLParser(pnmlFile, this);
-        pnmlParser.initParser();
+        /*
+         * Load the elements from the cache if the file is unchanged. Otherwise:
+         * parse the file.
+         */
         this.elementsAddedToCurrentModel = 0;
-        int returnValue = pnmlParser.parse();
+        CacheKey cacheKey = parsedModelCache.getKey(pnmlFile);
+        int returnValue = EPNMLParserExitCode.ZERO.getValue();
+        IEditorEvent parseEvent = EditorEvents.begin(EEditorEventType.PARSE);
+        long parseStart = System.nanoTime();
+        boolean loadedFromCache;
+        EdtWatchdog.beginOperation("Parse " + canonicalPath);
+        try {
+            loadedFromCache = parsedModelCache.load(cacheKey, this);
+            if (!loadedFromCache) {
+                if (ParallelPNMLScanner.isSuitable(pnmlFile)) {
+                    /* Very large file: scan the chunks in parallel */
+                    ParallelPNMLScanner scanner = new ParallelPNMLScanner(pnmlFile, this);
+                    returnValue = scanner.parse();
+                } else {
+                    PNMLParser pnmlParser = new PNMLParser(pnmlFile, this);
+                    pnmlParser.initParser();
+                    returnValue = pnmlParser.parse();
+                }
+
+                /* Cache only files without any parser messages. */
+                if (returnValue == EPNMLParserExitCode.ZERO.getValue())
+                    parsedModelCache.store(cacheKey, newDataModel);
+            }
+        } finally {
+            EdtWatchdog.endOperation();
+        }
+        EditorMetrics.recordParse(System.nanoTime() - parseStart);
+        parseEvent.commit(canonicalPath, newDataModel.getElementsView().size(),
+                loadedFromCache ? "cache" : Integer.toString(returnValue));
 
         /* Check import errors. (Accept or discard model?) */
         boolean accepted = acceptModel(canonicalPath, returnValue);
@@ -429,6 +495,9 @@ public class DataModelController implements IDataModelController {
         /* Remove the associated validation messages panel. */
         removeValidationMessagePanel(modelName);
 
+        /* The changes are either saved or discarded now. */
+        editJournal.discard(modelName);
+
         if (debug) {
             System.out.println("Data models count: " + dataModels.size());
         }
@@ -470,6 +539,8 @@ public class DataModelController implements IDataModelController {
         /* Update all Maps where the model name is the key! */
         // updateKeyInModelNameDependentMaps(model, newModelName);
         updateKeyInModelNameDependentMaps(oldModelName, newModelName);
+
+        editJournal.rename(oldModelName, newModelName);
     }
 
     /**
@@ -712,6 +783,7 @@ public class DataModelController implements IDataModelController {
     @Override
     public void addPlaceToCurrentDataModel(String id, EPlaceToken initialTokens, Point position) {
         currentModel.addPlace(id, "", initialTokens, position);
+        journal(EditJournalEntry.place(id, "", initialTokens, position));
 
         if (!this.importingFromPnml)
             currentModel.setModified(true, true);
@@ -721,6 +793,7 @@ public class DataModelController implements IDataModelController {
     public void addPlaceToCurrentDataModel(String id, String name, EPlaceToken initialTokens, Point position) {
         currentModel.addPlace(id, name, initialTokens, position);
         this.elementsAddedToCurrentModel++;
+        journal(EditJournalEntry.place(id, name, initialTokens, position));
 
         // TODO The following command should be obsolete for nodes.
         if (!this.importingFromPnml)
@@ -734,6 +807,7 @@ public class DataModelController implements IDataModelController {
     @Override
     public void addTransitionToCurrentDataModel(String id, Point position) {
         currentModel.addTransition(id, "", position);
+        journal(EditJournalEntry.transition(id, "", position));
 
         if (!this.importingFromPnml)
             currentModel.setModified(true, true);
@@ -743,6 +817,7 @@ public class DataModelController implements IDataModelController {
     public void addTransitionToCurrentDataModel(String id, String name, Point position) {
         currentModel.addTransition(id, name, position);
         this.elementsAddedToCurrentModel++;
+        journal(EditJournalEntry.transition(id, name, position));
 
         // TODO The following command should be obsolete for nodes.
         if (!this.importingFromPnml)
@@ -763,6 +838,7 @@ public class DataModelController implements IDataModelController {
         }
 
         this.elementsAddedToCurrentModel++;
+        journal(EditJournalEntry.arc(id, sourceId, targetId));
 
         if (!this.importingFromPnml)
             currentModel.setModified(true, true);
@@ -797,6 +873,7 @@ public class DataModelController implements IDataModelController {
 
         node.setName(newName);
         currentModel.setModified(true, false);
+        journal(EditJournalEntry.rename(nodeId, newName));
 
         /*
          * No further action required since this method should only be called
@@ -829,6 +906,7 @@ public class DataModelController implements IDataModelController {
                 return;
             }
             currentModel.setModified(true, true);
+            journal(EditJournalEntry.remove(elementId));
             return;
         }
 
@@ -847,6 +925,7 @@ public class DataModelController implements IDataModelController {
             return;
         }
         currentModel.setModified(true, true);
+        journal(EditJournalEntry.remove(elementId));
 
         /* Remove all adjacent arcs. */
         if (predElements.size() > 0) {
@@ -911,6 +990,7 @@ public class DataModelController implements IDataModelController {
         IDataNode node = (IDataNode) element;
         node.setPosition(newPosition);
         currentModel.setModified(true, false);
+        journal(EditJournalEntry.move(nodeId, newPosition));
 
         /*
          * No further action required since this method should only be called
@@ -1063,6 +1143,33 @@ public class DataModelController implements IDataModelController {
         appController.addGuiToken(modelName, placesWithToken);
     }
 
+    @Override
+    public void removeDataToken(String modelName, List<String> placesWithoutToken) {
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("DataModelController.removeDataToken", modelName, placesWithoutToken);
+        }
+
+        IDataModel dataModel = getDataModelForValidation(modelName);
+        if (dataModel == null)
+            return;
+
+        /*
+         * Remove the token from all specified data places and pass the info to
+         * the GUI model controller.
+         */
+        for (IDataElement dataElement : dataModel.getElements()) {
+            if (dataElement instanceof DataPlace) {
+                DataPlace dataPlace = (DataPlace) dataElement;
+                String dataPlaceId = dataPlace.getId();
+                if (placesWithoutToken.contains(dataPlaceId)) {
+                    dataPlace.setTokens(EPlaceToken.ZERO);
+                }
+            }
+        }
+
+        appController.removeGuiToken(modelName, placesWithoutToken);
+    }
+
     @Override
     public void resetAllDataTransitionsEnabledState(String modelName) {
         if (debug) {
@@ -1107,7 +1214,7 @@ public class DataModelController implements IDataModelController {
             // System.err.println(message);
 
             /* -> The expected error */
-            ConsoleLogger.logIfDebug(debug, message);
+            logger.debug(message);
             return null;
         }
 
@@ -1144,6 +1251,8 @@ public class DataModelController implements IDataModelController {
             ConsoleLogger.consoleLogMethodCall("DataModelController.fireDataTransition", transitionId);
         }
 
+        IEditorEvent event = EditorEvents.begin(EEditorEventType.FIRE_TRANSITION);
+
         IDataElement element;
         try {
             element = currentModel.getElementById(transitionId);
@@ -1168,6 +1277,8 @@ public class DataModelController implements IDataModelController {
 
         /* Inform the application controller */
         appController.dataTransitionFired(currentModel);
+
+        event.commit(currentModel.getModelName(), currentModel.getElementsView().size(), transitionId);
     }
 
     /**
@@ -1185,7 +1296,9 @@ public class DataModelController implements IDataModelController {
         for (DataPlace dataPlace : placesToRemoveToken) {
             removeToken(dataPlace, tokensRemoved, placesWithRemovedToken);
         }
-        ConsoleLogger.logIfDebug(debug, tokensRemoved + " tokens removed.");
+        if (logger.isDebugEnabled()) {
+            logger.debug(tokensRemoved + " tokens removed.");
+        }
 
         /* Update the GUI. */
         appController.removeGuiToken(currentModel.getModelName(), placesWithRemovedToken);
@@ -1210,11 +1323,14 @@ public class DataModelController implements IDataModelController {
 
         dataPlace.setTokens(EPlaceToken.ZERO);
         tokensRemoved++;
+        journal(EditJournalEntry.marking(dataPlace.getId(), EPlaceToken.ZERO));
 
         String placeId = dataPlace.getId();
         placesWithRemovedToken.add(placeId);
 
-        ConsoleLogger.logIfDebug(debug, "Token removed from: " + placeId);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Token removed from: " + placeId);
+        }
     }
 
     /**
@@ -1232,7 +1348,9 @@ public class DataModelController implements IDataModelController {
         for (DataPlace dataPlace : placesToAddToken) {
             addToken(dataPlace, tokensAdded, placesWithAddedToken);
         }
-        ConsoleLogger.logIfDebug(debug, tokensAdded + " tokens added.");
+        if (logger.isDebugEnabled()) {
+            logger.debug(tokensAdded + " tokens added.");
+        }
 
         /* Update the GUI. */
         appController.addGuiToken(currentModel.getModelName(), placesWithAddedToken);
@@ -1257,11 +1375,14 @@ public class DataModelController implements IDataModelController {
 
         dataPlace.setTokens(EPlaceToken.ONE);
         tokensAdded++;
+        journal(EditJournalEntry.marking(dataPlace.getId(), EPlaceToken.ONE));
 
         String placeId = dataPlace.getId();
         placesWithAddedToken.add(placeId);
 
-        ConsoleLogger.logIfDebug(debug, "Token added to: " + placeId);
+        if (logger.isDebugEnabled()) {
+            logger.debug("Token added to: " + placeId);
+        }
     }
 
     @Override
@@ -1362,6 +1483,72 @@ public class DataModelController implements IDataModelController {
         return redoStack;
     }
 
+    /* Paging of inactive models */
+
+    @Override
+    public boolean isPageableModel(String modelName) {
+        IDataModel model = dataModels.get(modelName);
+        if (model == null || model == this.currentModel)
+            return false;
+        return !model.isModified();
+    }
+
+    @Override
+    public void writeModelPage(String modelName, ObjectOutputStream out) throws IOException {
+        out.writeObject(dataModels.get(modelName));
+        out.writeObject(undoStacks.get(modelName));
+        out.writeObject(redoStacks.get(modelName));
+    }
+
+    @Override
+    public void releaseModel(String modelName) {
+        logger.methodCall("DataModelController.releaseModel", modelName);
+
+        removeModelFromModelNameDependentMaps(modelName);
+    }
+
+    @Override
+    public void readModelPage(String modelName, ObjectInputStream in) throws IOException, ClassNotFoundException {
+        logger.methodCall("DataModelController.readModelPage", modelName);
+
+        IDataModel model = (IDataModel) in.readObject();
+        IDataModelStack undoStack = (IDataModelStack) in.readObject();
+        IDataModelStack redoStack = (IDataModelStack) in.readObject();
+
+        updateModelInModelNameDependentMaps(modelName, model);
+        if (undoStack != null)
+            undoStacks.put(modelName, undoStack);
+        if (redoStack != null)
+            redoStacks.put(modelName, redoStack);
+    }
+
+    /* Statistics for the monitoring */
+
+    @Override
+    public int getUndoStackSize(String modelName) {
+        IDataModelStack undoStack = undoStacks.get(modelName);
+        if (undoStack == null)
+            return -1;
+        return undoStack.size();
+    }
+
+    @Override
+    public int getRedoStackSize(String modelName) {
+        IDataModelStack redoStack = redoStacks.get(modelName);
+        if (redoStack == null)
+            return -1;
+        return redoStack.size();
+    }
+
+    @Override
+    public long getUndoRedoEstimatedBytes(String modelName) {
+        IDataModelStack undoStack = undoStacks.get(modelName);
+        IDataModelStack redoStack = redoStacks.get(modelName);
+        if (undoStack == null || redoStack == null)
+            return -1;
+        return undoStack.getEstimatedBytes() + redoStack.getEstimatedBytes();
+    }
+
     @Override
     public int makeUndoable() {
         if (debug) {
@@ -1383,7 +1570,7 @@ public class DataModelController implements IDataModelController {
             return 3;
 
         // undoStack.push(elementBuffer);
-        undoStack.push(copy);
+        undoStack.push(copy, ObjectCloner.getLastSerializedSize());
 
         return 0;
     }
@@ -1437,7 +1624,7 @@ public class DataModelController implements IDataModelController {
             return 3;
 
         // redoStack.push(elementBuffer);
-        redoStack.push(copy);
+        redoStack.push(copy, ObjectCloner.getLastSerializedSize());
 
         return 0;
     }
@@ -1504,6 +1691,7 @@ public class DataModelController implements IDataModelController {
         // this.currentModel.setElements(newElements);
 
         // this.currentModel = last;
+        this.modelBeforeUndoOrRedo = this.currentModel;
         setCurrentModel(last);
     }
 
@@ -1585,6 +1773,7 @@ public class DataModelController implements IDataModelController {
         // this.currentModel.setElements(newElements);
 
         // this.currentModel = next;
+        this.modelBeforeUndoOrRedo = this.currentModel;
         setCurrentModel(next);
     }
 
@@ -1651,6 +1840,104 @@ public class DataModelController implements IDataModelController {
          * Undo or Redo operations.
          */
         this.currentModel.setModelChecked(false, NEVER_REMOVE_INITIAL_CHECK_STATE);
+
+        /*
+         * The journal has no inverse operations: store the differences to the
+         * model before the Undo or Redo operation instead.
+         */
+        IDataModel before = this.modelBeforeUndoOrRedo;
+        this.modelBeforeUndoOrRedo = null;
+
+        if (before == null || !before.getModelName().equals(currentModel.getModelName())) {
+            journalSnapshot();
+            return;
+        }
+
+        journalDiff(new DataModelDiff(before, currentModel));
+    }
+
+    /* Edit journal */
+
+    /**
+     * Appends the specified entry to the {@link EditJournal} of the current
+     * model. (But not during the import from a PNML file!)
+     * 
+     * @param entry
+     *            The {@link EditJournalEntry}
+     */
+    private void journal(EditJournalEntry entry) {
+        if (this.importingFromPnml || currentModel == null)
+            return;
+
+        editJournal.append(currentModel.getModelName(), entry);
+    }
+
+    /**
+     * Appends the specified differences to the {@link EditJournal} of the
+     * current model. (In the order of {@link DataModelDiff}: removed, added,
+     * moved, renamed, markings)
+     * 
+     * @param diff
+     *            The {@link DataModelDiff}
+     */
+    private void journalDiff(DataModelDiff diff) {
+        for (String id : diff.getRemovedIds()) {
+            journal(EditJournalEntry.remove(id));
+        }
+        for (IDataElement element : diff.getAddedElements()) {
+            journalElement(element);
+        }
+        for (Entry<String, Point> entry : diff.getMovedNodes().entrySet()) {
+            journal(EditJournalEntry.move(entry.getKey(), entry.getValue()));
+        }
+        for (Entry<String, String> entry : diff.getRenamedNodes().entrySet()) {
+            journal(EditJournalEntry.rename(entry.getKey(), entry.getValue()));
+        }
+        for (Entry<String, EPlaceToken> entry : diff.getChangedMarkings().entrySet()) {
+            journal(EditJournalEntry.marking(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    /**
+     * Appends a snapshot of the current model to the {@link EditJournal}: CLEAR
+     * followed by all nodes and arcs.<BR>
+     * <BR>
+     * Note: The {@link EditJournal} drops all entries before the CLEAR entry.
+     * (Only used if the differences are unknown.)
+     */
+    private void journalSnapshot() {
+        journal(EditJournalEntry.clear());
+
+        List<IDataElement> elements = currentModel.getElementsView();
+        for (IDataElement element : elements) {
+            if (!(element instanceof IDataArc))
+                journalElement(element);
+        }
+        for (IDataElement element : elements) {
+            if (element instanceof IDataArc)
+                journalElement(element);
+        }
+    }
+
+    /**
+     * Appends an entry for the addition of the specified element to the
+     * {@link EditJournal}.
+     * 
+     * @param element
+     *            The added {@link IDataElement}
+     */
+    private void journalElement(IDataElement element) {
+        if (element instanceof IDataPlace) {
+            IDataPlace place = (IDataPlace) element;
+            journal(EditJournalEntry.place(place.getId(), place.getName(), place.getTokensCount(),
+                    place.getPosition()));
+        } else if (element instanceof IDataTransition) {
+            IDataTransition transition = (IDataTransition) element;
+            journal(EditJournalEntry.transition(transition.getId(), transition.getName(), transition.getPosition()));
+        } else if (element instanceof IDataArc) {
+            IDataArc arc = (IDataArc) element;
+            journal(EditJournalEntry.arc(arc.getId(), arc.getSourceId(), arc.getTargetId()));
+        }
     }
 
 }
@@ -0,0 +1,250 @@
+package de.lambeck.pned.models.data;
+
+import java.awt.Point;
+import java.util.*;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.elements.data.*;
+
+/**
+ * The structural differences between two {@link IDataModel}, matched by the
+ * IDs of their elements. (E.g. between an open model and the new content of its
+ * PNML file after an external change.)<BR>
+ * <BR>
+ * Applying the differences in this order transforms the old model into the new
+ * model: removed elements, added elements (nodes before arcs), moved nodes,
+ * renamed nodes, changed markings.<BR>
+ * <BR>
+ * Note: A node which has changed its type (place/transition) is removed and
+ * added again, as well as all arcs of such a node and all arcs which have
+ * changed their source or target.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class DataModelDiff {
+
+    /** The IDs of all removed elements (arcs before nodes) */
+    private List<String> removedIds = new ArrayList<String>();
+
+    /** All added elements of the new model (nodes before arcs) */
+    private List<IDataElement> addedElements = new ArrayList<IDataElement>();
+
+    /** The new position of all moved nodes */
+    private Map<String, Point> movedNodes = new LinkedHashMap<String, Point>();
+
+    /** The new name of all renamed nodes */
+    private Map<String, String> renamedNodes = new LinkedHashMap<String, String>();
+
+    /** The new tokens of all places with changed marking */
+    private Map<String, EPlaceToken> changedMarkings = new LinkedHashMap<String, EPlaceToken>();
+
+    /**
+     * Computes the differences between the specified models.
+     *
+     * @param oldModel
+     *            The old model (e.g. the open model)
+     * @param newModel
+     *            The new model (e.g. the content of the changed file)
+     */
+    public DataModelDiff(IDataModel oldModel, IDataModel newModel) {
+        Map<String, IDataElement> oldElements = getElementMap(oldModel);
+        Map<String, IDataElement> newElements = getElementMap(newModel);
+
+        /* Nodes */
+        Set<String> replacedNodeIds = new HashSet<String>();
+        List<String> removedNodeIds = new ArrayList<String>();
+        List<IDataElement> addedNodes = new ArrayList<IDataElement>();
+
+        for (IDataElement oldElement : oldElements.values()) {
+            if (oldElement instanceof IDataNode && !newElements.containsKey(oldElement.getId()))
+                removedNodeIds.add(oldElement.getId());
+        }
+
+        for (IDataElement newElement : newElements.values()) {
+            if (!(newElement instanceof IDataNode))
+                continue;
+
+            String id = newElement.getId();
+            IDataElement oldElement = oldElements.get(id);
+            if (oldElement == null) {
+                addedNodes.add(newElement);
+                continue;
+            }
+
+            if (!isSameType(oldElement, newElement)) {
+                removedNodeIds.add(id);
+                addedNodes.add(newElement);
+                replacedNodeIds.add(id);
+                continue;
+            }
+
+            compareNodes((IDataNode) oldElement, (IDataNode) newElement);
+        }
+
+        /* Arcs */
+        List<String> removedArcIds = new ArrayList<String>();
+        List<IDataElement> addedArcs = new ArrayList<IDataElement>();
+
+        for (IDataElement oldElement : oldElements.values()) {
+            if (!(oldElement instanceof IDataArc))
+                continue;
+
+            IDataArc oldArc = (IDataArc) oldElement;
+            IDataElement newElement = newElements.get(oldArc.getId());
+            if (!(newElement instanceof IDataArc) || !isSameArc(oldArc, (IDataArc) newElement)
+                    || isAdjacentArc(oldArc, replacedNodeIds))
+                removedArcIds.add(oldArc.getId());
+        }
+
+        for (IDataElement newElement : newElements.values()) {
+            if (!(newElement instanceof IDataArc))
+                continue;
+
+            IDataArc newArc = (IDataArc) newElement;
+            IDataElement oldElement = oldElements.get(newArc.getId());
+            if (!(oldElement instanceof IDataArc) || !isSameArc((IDataArc) oldElement, newArc)
+                    || isAdjacentArc(newArc, replacedNodeIds))
+                addedArcs.add(newArc);
+        }
+
+        this.removedIds.addAll(removedArcIds);
+        this.removedIds.addAll(removedNodeIds);
+        this.addedElements.addAll(addedNodes);
+        this.addedElements.addAll(addedArcs);
+    }
+
+    /* Getter */
+
+    /**
+     * @return True if there are no differences; otherwise false
+     */
+    public boolean isEmpty() {
+        return getChangesCount() == 0;
+    }
+
+    /**
+     * @return The total number of differences
+     */
+    public int getChangesCount() {
+        return removedIds.size() + addedElements.size() + movedNodes.size() + renamedNodes.size()
+                + changedMarkings.size();
+    }
+
+    /**
+     * @return the IDs of all removed elements (arcs before nodes)
+     */
+    public List<String> getRemovedIds() {
+        return this.removedIds;
+    }
+
+    /**
+     * @return all added elements of the new model (nodes before arcs)
+     */
+    public List<IDataElement> getAddedElements() {
+        return this.addedElements;
+    }
+
+    /**
+     * @return the new position of all moved nodes
+     */
+    public Map<String, Point> getMovedNodes() {
+        return this.movedNodes;
+    }
+
+    /**
+     * @return the new name of all renamed nodes
+     */
+    public Map<String, String> getRenamedNodes() {
+        return this.renamedNodes;
+    }
+
+    /**
+     * @return the new tokens of all places with changed marking
+     */
+    public Map<String, EPlaceToken> getChangedMarkings() {
+        return this.changedMarkings;
+    }
+
+    /* Private helpers */
+
+    /**
+     * Returns all elements of the specified model by ID. (Keeps the order of
+     * the model.)
+     *
+     * @param model
+     *            The {@link IDataModel}
+     * @return A {@link Map} of all elements by ID
+     */
+    private static Map<String, IDataElement> getElementMap(IDataModel model) {
+        List<IDataElement> elements = model.getElements();
+        Map<String, IDataElement> map = new LinkedHashMap<String, IDataElement>(elements.size() * 2);
+        for (IDataElement element : elements) {
+            map.put(element.getId(), element);
+        }
+        return map;
+    }
+
+    /**
+     * Compares position, name and marking of two nodes with the same ID and
+     * type.
+     *
+     * @param oldNode
+     *            The node in the old model
+     * @param newNode
+     *            The node in the new model
+     */
+    private void compareNodes(IDataNode oldNode, IDataNode newNode) {
+        String id = newNode.getId();
+
+        if (!oldNode.getPosition().equals(newNode.getPosition()))
+            movedNodes.put(id, newNode.getPosition());
+
+        if (!Objects.equals(oldNode.getName(), newNode.getName()))
+            renamedNodes.put(id, newNode.getName());
+
+        if (newNode instanceof IDataPlace) {
+            EPlaceToken newTokens = ((IDataPlace) newNode).getTokensCount();
+            if (((IDataPlace) oldNode).getTokensCount() != newTokens)
+                changedMarkings.put(id, newTokens);
+        }
+    }
+
+    /**
+     * @param oldElement
+     *            An element in the old model
+     * @param newElement
+     *            The element with the same ID in the new model
+     * @return True if both are places, transitions or arcs; otherwise false
+     */
+    private static boolean isSameType(IDataElement oldElement, IDataElement newElement) {
+        if (oldElement instanceof IDataPlace)
+            return newElement instanceof IDataPlace;
+        if (oldElement instanceof IDataTransition)
+            return newElement instanceof IDataTransition;
+        return newElement instanceof IDataArc;
+    }
+
+    /**
+     * @param oldArc
+     *            An arc in the old model
+     * @param newArc
+     *            The arc with the same ID in the new model
+     * @return True if source and target are the same; otherwise false
+     */
+    private static boolean isSameArc(IDataArc oldArc, IDataArc newArc) {
+        return oldArc.getSourceId().equals(newArc.getSourceId()) && oldArc.getTargetId().equals(newArc.getTargetId());
+    }
+
+    /**
+     * @param arc
+     *            The arc
+     * @param nodeIds
+     *            A {@link Set} of node IDs
+     * @return True if source or target of the arc is in the set
+     */
+    private static boolean isAdjacentArc(IDataArc arc, Set<String> nodeIds) {
+        return nodeIds.contains(arc.getSourceId()) || nodeIds.contains(arc.getTargetId());
+    }
+
+}
@@ -31,6 +31,18 @@ public interface IDataModel extends IModel {
      */
     List<IDataElement> getElements();
 
+    /**
+     * Returns a read-only view of all {@link IDataElement} in this
+     * {@link IDataModel}. Unlike getElements(), this creates no copy.<BR>
+     * <BR>
+     * Note: The view fails fast: Iterating it while the model is modified
+     * throws a {@link java.util.ConcurrentModificationException}. So the
+     * validation threads have to use getElements() (a snapshot).
+     * 
+     * @return An unmodifiable {@link List} of {@link IDataElement}
+     */
+    List<IDataElement> getElementsView();
+
     /**
      * Adds parameter "revalidate" to setModified(boolean b) in {@link IModel}
      * because not all changes to the model change the structure of the workflow
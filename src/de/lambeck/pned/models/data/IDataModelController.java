@@ -18,9 +18,12 @@ import de.lambeck.pned.elements.data.IDataElement;
 import de.lambeck.pned.elements.data.IDataNode;
 import de.lambeck.pned.elements.data.IDataTransition;
 import de.lambeck.pned.elements.gui.IGuiTransition;
+import de.lambeck.pned.filesystem.paging.IPageableModelController;
+import de.lambeck.pned.filesystem.pnml.IPNMLImportTarget;
 import de.lambeck.pned.models.data.validation.*;
 import de.lambeck.pned.models.gui.IGuiModel;
 import de.lambeck.pned.models.gui.IGuiModelController;
+import de.lambeck.pned.monitoring.IUndoRedoStatistics;
 
 /**
  * Interface for controllers for data models representing a Petri net. This
@@ -29,7 +32,8 @@ import de.lambeck.pned.models.gui.IGuiModelController;
  * @author Thomas Lambeck, 4128320
  *
  */
-public interface IDataModelController extends IInfo_Status {
+public interface IDataModelController
+        extends IInfo_Status, IPNMLImportTarget, IUndoRedoStatistics, IPageableModelController {
 
     /**
      * Adds a data model for a non-existing file.<BR>
@@ -419,6 +423,19 @@ public interface IDataModelController extends IInfo_Status {
      */
     void addDataToken(String modelName, List<String> placesWithToken);
 
+    /**
+     * Removes the token from all specified {@link DataPlace} in the specified
+     * data model.
+     * 
+     * @param modelName
+     *            The name of the model (This is intended to be the full path
+     *            name of the PNML file represented by this model.)
+     * @param placesWithoutToken
+     *            A {@link List} of type {@link String} with the IDs of the
+     *            specified places
+     */
+    void removeDataToken(String modelName, List<String> placesWithoutToken);
+
     /**
      * Resets the "enabled" state for all {@link IDataTransition} in the
      * specified data model.
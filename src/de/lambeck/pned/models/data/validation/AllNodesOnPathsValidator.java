@@ -10,6 +10,7 @@ import de.lambeck.pned.exceptions.PNNoSuchElementException;
 import de.lambeck.pned.i18n.I18NManager;
 import de.lambeck.pned.models.data.IDataModel;
 import de.lambeck.pned.models.data.IDataModelController;
+import de.lambeck.pned.util.logging.Logger;
 
 /**
  * Checks that all nodes are on a path between the start place and the end
@@ -20,8 +21,8 @@ import de.lambeck.pned.models.data.IDataModelController;
  */
 public class AllNodesOnPathsValidator extends AbstractValidator {
 
-    /** Show debug messages? */
-    private static boolean debug = false;
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(AllNodesOnPathsValidator.class);
 
     /** The start place of the model (if unambiguous) */
     private DataPlace myStartPlace = null;
@@ -212,11 +213,11 @@ public class AllNodesOnPathsValidator extends AbstractValidator {
             this.noPathToEndNode.add(node);
         }
 
-        if (debug) {
-            System.out.println("AllNodesOnPathsValidator.allElements.size(): " + allElements.size());
-            System.out.println("AllNodesOnPathsValidator.allNodes.size(): " + allNodes.size());
-            System.out.println("AllNodesOnPathsValidator.noPathFromStartNode.size(): " + noPathFromStartNode.size());
-            System.out.println("AllNodesOnPathsValidator.noPathToEndNode.size(): " + noPathToEndNode.size());
+        if (logger.isDebugEnabled()) {
+            logger.debug("AllNodesOnPathsValidator.allElements.size(): " + allElements.size());
+            logger.debug("AllNodesOnPathsValidator.allNodes.size(): " + allNodes.size());
+            logger.debug("AllNodesOnPathsValidator.noPathFromStartNode.size(): " + noPathFromStartNode.size());
+            logger.debug("AllNodesOnPathsValidator.noPathToEndNode.size(): " + noPathToEndNode.size());
         }
     }
 
@@ -1,8 +1,10 @@
 package de.lambeck.pned.models.data.validation;
 
+import java.awt.GraphicsEnvironment;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.function.Supplier;
 
 import javax.swing.JFrame;
 import javax.swing.JOptionPane;
@@ -18,7 +20,7 @@ import de.lambeck.pned.exceptions.PNNoSuchElementException;
 import de.lambeck.pned.i18n.I18NManager;
 import de.lambeck.pned.models.data.IDataModel;
 import de.lambeck.pned.models.data.IDataModelController;
-import de.lambeck.pned.util.ConsoleLogger;
+import de.lambeck.pned.util.logging.Logger;
 
 /**
  * Checks which transitions are enabled or not and detects unsafe transitions.
@@ -29,8 +31,8 @@ import de.lambeck.pned.util.ConsoleLogger;
  */
 public class EnabledTransitionsValidator extends AbstractValidator {
 
-    /** Show debug messages? */
-    private static boolean debug = false;
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(EnabledTransitionsValidator.class);
 
     /**
      * A {@link List} of all {@link IDataElement} in the model; Gets data in
@@ -411,7 +413,13 @@ public class EnabledTransitionsValidator extends AbstractValidator {
         vMessage = new ValidationMsg(myDataModel, message, severity);
         validationMessages.add(vMessage);
 
-        ConsoleLogger.logIfDebug(debug, vMessage.toString());
+        final IValidationMsg unsafeMessage = vMessage;
+        logger.debug(new Supplier<String>() {
+            @Override
+            public String get() {
+                return unsafeMessage.toString();
+            }
+        });
     }
 
     /**
@@ -427,6 +435,9 @@ public class EnabledTransitionsValidator extends AbstractValidator {
      * Shows a modal message box for the regular end marking.
      */
     private void showEndMarkingMessage() {
+        if (GraphicsEnvironment.isHeadless())
+            return; // No message boxes (e.g. replay of a session)
+
         String title = i18n.getNameOnly("RegularEndmarking");
         String infoMessage = getEndMarkingMessageString();
         infoMessage = infoMessage.replace("%modelName%", myDataModelName);
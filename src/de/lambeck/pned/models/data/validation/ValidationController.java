@@ -4,13 +4,18 @@ import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Supplier;
 
 import de.lambeck.pned.exceptions.PNInvalidParameterException;
 import de.lambeck.pned.i18n.I18NManager;
 import de.lambeck.pned.models.data.DataModel;
 import de.lambeck.pned.models.data.IDataModel;
 import de.lambeck.pned.models.data.IDataModelController;
-import de.lambeck.pned.util.ConsoleLogger;
+import de.lambeck.pned.monitoring.EEditorEventType;
+import de.lambeck.pned.monitoring.EditorEvents;
+import de.lambeck.pned.monitoring.EditorMetrics;
+import de.lambeck.pned.monitoring.IEditorEvent;
+import de.lambeck.pned.util.logging.Logger;
 
 /**
  * Implements a {@link Thread} which regularly checks the current
@@ -22,8 +27,8 @@ import de.lambeck.pned.util.ConsoleLogger;
  */
 public class ValidationController extends Thread implements IValidationController {
 
-    /** Show debug messages? */
-    private static boolean debug = false;
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(ValidationController.class);
 
     /**
      * The sleep time between validation cycles. (Smaller values = faster
@@ -122,7 +127,11 @@ public class ValidationController extends Thread implements IValidationControlle
             String key = entry.getKey();
             if (key == validatorName) {
                 IValidator validator = entry.getValue();
+                IEditorEvent event = EditorEvents.begin(EEditorEventType.VALIDATION);
+                long start = System.nanoTime();
                 validator.startValidation(dataModel, false);
+                EditorMetrics.recordValidation(validatorName, System.nanoTime() - start);
+                event.commit(dataModel.getModelName(), dataModel.getElementsView().size(), validatorName);
 
                 /* Get the message panel. */
                 IValidationMsgPanel msgPanel = getMsgPanel(dataModel);
@@ -197,11 +206,19 @@ public class ValidationController extends Thread implements IValidationControlle
                 String validatorName = entry.getKey();
                 IValidator validator = entry.getValue();
 
-                String debugMessage = "ValidationController.runAllValidations(" + dataModel.getModelName()
-                        + "), next validator: " + validatorName;
-                ConsoleLogger.logIfDebug(debug, debugMessage);
+                logger.debug(new Supplier<String>() {
+                    @Override
+                    public String get() {
+                        return "ValidationController.runAllValidations(" + dataModel.getModelName()
+                                + "), next validator: " + validatorName;
+                    }
+                });
 
+                IEditorEvent event = EditorEvents.begin(EEditorEventType.VALIDATION);
+                long start = System.nanoTime();
                 validator.startValidation(dataModel, isInitialModelCheck);
+                EditorMetrics.recordValidation(validatorName, System.nanoTime() - start);
+                event.commit(dataModel.getModelName(), dataModel.getElementsView().size(), validatorName);
 
                 /* Get all messages from the current validator. */
                 isModelValid = getValidatorMessages(isModelValid, msgPanel, validator);
@@ -0,0 +1,319 @@
+package de.lambeck.pned.models.gui;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.*;
+import java.util.List;
+
+import de.lambeck.pned.elements.gui.GuiNode;
+import de.lambeck.pned.elements.gui.IGuiElement;
+
+/**
+ * Off-screen base layer of a {@link DrawPanel}: A {@link BufferedImage} (the
+ * size of the visible part of the draw panel) with the grid lines and all
+ * elements which are not manipulated at the moment.<BR>
+ * <BR>
+ * Changes of the model invalidate only the affected regions. Only these regions
+ * are painted again, everything else is copied from the image.<BR>
+ * <BR>
+ * While elements are manipulated (e.g. dragged), these elements are excluded
+ * from the image and painted on top by the draw panel. Invalidations during
+ * this time are deferred until the manipulation has finished.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+class BaseLayerCache {
+
+    /** Max. number of dirty regions (more: merged into one region) */
+    private static final int MAX_DIRTY_REGIONS = 32;
+
+    /** The {@link DrawPanel} which paints the content */
+    private DrawPanel owner;
+
+    /** The image; null if not created yet */
+    private BufferedImage image = null;
+
+    /** The area of the draw panel covered by the image */
+    private Rectangle area = null;
+
+    /** The regions of the image which have to be painted again */
+    private List<Rectangle> dirtyRegions = new ArrayList<Rectangle>();
+
+    /** The regions which have been invalidated during a manipulation */
+    private List<Rectangle> deferredRegions = new ArrayList<Rectangle>();
+
+    /** Invalidation of everything during a manipulation? */
+    private boolean deferredAll = false;
+
+    /** The elements which are not painted into the image; null if none */
+    private Set<IGuiElement> excluded = null;
+
+    /** The model painted into the image */
+    private IGuiModel paintedModel = null;
+
+    /** The shape size of the nodes when the image was painted */
+    private int paintedShapeSize = 0;
+
+    /**
+     * Constructs the base layer for the specified draw panel.
+     *
+     * @param owner
+     *            The {@link DrawPanel}
+     */
+    @SuppressWarnings("hiding")
+    BaseLayerCache(DrawPanel owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Marks the specified region as changed.
+     *
+     * @param region
+     *            The region (in coordinates of the draw panel)
+     */
+    void invalidate(Rectangle region) {
+        if (region == null || region.isEmpty())
+            return;
+
+        if (excluded != null) {
+            addRegion(deferredRegions, region);
+        } else {
+            addRegion(dirtyRegions, region);
+        }
+    }
+
+    /**
+     * Marks everything as changed.
+     */
+    void invalidateAll() {
+        if (excluded != null) {
+            deferredAll = true;
+        } else {
+            dirtyRegions.clear();
+            if (area != null)
+                dirtyRegions.add(new Rectangle(area));
+        }
+    }
+
+    /**
+     * Sets the elements which have to be excluded from the image (because
+     * they are manipulated and painted on top). The regions of the previous and
+     * of the new excluded elements are painted again.<BR>
+     * <BR>
+     * Note: The drawing areas of the elements are in model coordinates, the
+     * dirty regions in view coordinates (zoom).<BR>
+     * <BR>
+     * Note: Deferred invalidations are processed when the excluded elements are
+     * reset to null.
+     *
+     * @param elements
+     *            The manipulated elements; null if there are none (anymore)
+     */
+    void setExcludedElements(Collection<IGuiElement> elements) {
+        if (excluded != null) {
+            for (IGuiElement element : excluded) {
+                addRegion(dirtyRegions, owner.modelToView(element.getLastDrawingArea()));
+            }
+        }
+
+        if (elements == null) {
+            excluded = null;
+
+            /* Process the deferred invalidations. */
+            if (deferredAll) {
+                deferredAll = false;
+                invalidateAll();
+            }
+            for (Rectangle region : deferredRegions) {
+                addRegion(dirtyRegions, region);
+            }
+            deferredRegions.clear();
+            return;
+        }
+
+        excluded = Collections.newSetFromMap(new IdentityHashMap<IGuiElement, Boolean>());
+        excluded.addAll(elements);
+        for (IGuiElement element : excluded) {
+            addRegion(dirtyRegions, owner.modelToView(element.getLastDrawingArea()));
+        }
+    }
+
+    /**
+     * @param element
+     *            The {@link IGuiElement}
+     * @return True if the specified element is not painted into the image
+     */
+    boolean isExcluded(IGuiElement element) {
+        return excluded != null && excluded.contains(element);
+    }
+
+    /**
+     * Brings the image up to date for the specified visible area: Moves the
+     * content if the area has been scrolled and paints all dirty regions.
+     *
+     * @param visibleArea
+     *            The visible area of the draw panel
+     * @param model
+     *            The current {@link IGuiModel}
+     */
+    void update(Rectangle visibleArea, IGuiModel model) {
+        if (model != paintedModel || GuiNode.getShapeSize() != paintedShapeSize) {
+            /* Other model (e.g. after Undo or Redo) or other sizes */
+            paintedModel = model;
+            paintedShapeSize = GuiNode.getShapeSize();
+            area = null;
+        }
+
+        moveTo(visibleArea);
+
+        if (dirtyRegions.isEmpty())
+            return;
+
+        Graphics2D g2 = image.createGraphics();
+        try {
+            g2.translate(-area.x, -area.y);
+            for (Rectangle region : dirtyRegions) {
+                Rectangle clip = region.intersection(area);
+                if (clip.isEmpty())
+                    continue;
+
+                g2.setClip(clip);
+                owner.paintBaseLayer(g2, clip);
+            }
+        } finally {
+            g2.dispose();
+        }
+        dirtyRegions.clear();
+    }
+
+    /**
+     * Copies the image to the specified {@link Graphics}.
+     *
+     * @param g
+     *            The {@link Graphics} object of the draw panel
+     */
+    void paintTo(Graphics g) {
+        if (image != null)
+            g.drawImage(image, area.x, area.y, null);
+    }
+
+    /**
+     * Releases the image and all references to the painted model and its
+     * elements. (A new image will be created when needed.)
+     */
+    void release() {
+        image = null;
+        area = null;
+        dirtyRegions.clear();
+        deferredRegions.clear();
+        deferredAll = false;
+        excluded = null;
+        paintedModel = null;
+    }
+
+    /* Private helpers */
+
+    /**
+     * Moves the image to the specified area. The content of the overlapping
+     * part is kept, the rest is marked as dirty.
+     *
+     * @param newArea
+     *            The new area
+     */
+    private void moveTo(Rectangle newArea) {
+        if (area != null && image != null && area.getSize().equals(newArea.getSize())) {
+            if (area.getLocation().equals(newArea.getLocation()))
+                return;
+
+            if (area.intersects(newArea)) {
+                /* Keep the overlapping part, paint only the exposed strips. */
+                Graphics2D g2 = image.createGraphics();
+                try {
+                    g2.copyArea(0, 0, area.width, area.height, area.x - newArea.x, area.y - newArea.y);
+                } finally {
+                    g2.dispose();
+                }
+                addExposedStrips(area, newArea);
+                area = new Rectangle(newArea);
+                return;
+            }
+        }
+
+        if (image == null || image.getWidth() != newArea.width || image.getHeight() != newArea.height)
+            image = createImage(newArea.width, newArea.height);
+        area = new Rectangle(newArea);
+        dirtyRegions.clear();
+        dirtyRegions.add(new Rectangle(area));
+    }
+
+    /**
+     * Marks the parts of the new area which are not covered by the old area as
+     * dirty.
+     *
+     * @param oldArea
+     *            The old area
+     * @param newArea
+     *            The new area
+     */
+    private void addExposedStrips(Rectangle oldArea, Rectangle newArea) {
+        if (newArea.y < oldArea.y)
+            addRegion(dirtyRegions, new Rectangle(newArea.x, newArea.y, newArea.width, oldArea.y - newArea.y));
+        if (newArea.y + newArea.height > oldArea.y + oldArea.height) {
+            int top = oldArea.y + oldArea.height;
+            addRegion(dirtyRegions, new Rectangle(newArea.x, top, newArea.width, newArea.y + newArea.height - top));
+        }
+        if (newArea.x < oldArea.x)
+            addRegion(dirtyRegions, new Rectangle(newArea.x, newArea.y, oldArea.x - newArea.x, newArea.height));
+        if (newArea.x + newArea.width > oldArea.x + oldArea.width) {
+            int left = oldArea.x + oldArea.width;
+            addRegion(dirtyRegions, new Rectangle(left, newArea.y, newArea.x + newArea.width - left, newArea.height));
+        }
+    }
+
+    /**
+     * Creates a new image which is compatible with the screen (if possible).
+     *
+     * @param width
+     *            The width
+     * @param height
+     *            The height
+     * @return The {@link BufferedImage}
+     */
+    private BufferedImage createImage(int width, int height) {
+        GraphicsConfiguration gc = owner.getGraphicsConfiguration();
+        if (gc != null)
+            return gc.createCompatibleImage(width, height, Transparency.OPAQUE);
+        return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    }
+
+    /**
+     * Adds the specified region to the list. Merges all regions into one if
+     * there are too many regions.
+     *
+     * @param regions
+     *            The list of regions
+     * @param region
+     *            The new region (or null)
+     */
+    private static void addRegion(List<Rectangle> regions, Rectangle region) {
+        if (region == null || region.isEmpty())
+            return;
+
+        for (Rectangle existing : regions) {
+            if (existing.contains(region))
+                return;
+        }
+        regions.add(new Rectangle(region));
+
+        if (regions.size() > MAX_DIRTY_REGIONS) {
+            Rectangle union = new Rectangle(regions.get(0));
+            for (Rectangle r : regions) {
+                union.add(r);
+            }
+            regions.clear();
+            regions.add(union);
+        }
+    }
+
+}
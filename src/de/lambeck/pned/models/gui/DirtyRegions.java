@@ -0,0 +1,99 @@
+package de.lambeck.pned.models.gui;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges the areas which have to be repainted after one event (e.g. the old
+ * and the new areas of dragged nodes and their arcs) into a small set of
+ * rectangles.<BR>
+ * <BR>
+ * Two rectangles are merged if their union is not larger than both areas
+ * together (e.g. overlapping or adjacent areas). If there are still too many
+ * rectangles, they are merged into one.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+final class DirtyRegions {
+
+    /** Max. number of rectangles (more: merged into one rectangle) */
+    static final int MAX_REGIONS = 16;
+
+    /** No instances */
+    private DirtyRegions() {
+    }
+
+    /**
+     * Merges the specified areas.
+     *
+     * @param areas
+     *            The areas (null entries are ignored)
+     * @return A new {@link List} of {@link Rectangle}; empty if there are no
+     *         (non-empty) areas
+     */
+    static List<Rectangle> merge(List<Rectangle> areas) {
+        List<Rectangle> merged = new ArrayList<Rectangle>();
+
+        for (Rectangle area : areas) {
+            if (area == null || area.isEmpty())
+                continue;
+
+            Rectangle current = new Rectangle(area);
+
+            /* Merge with existing rectangles as long as this is worthwhile. */
+            boolean changed = true;
+            while (changed) {
+                changed = false;
+                for (int i = 0; i < merged.size(); i++) {
+                    Rectangle other = merged.get(i);
+                    if (isWorthMerging(current, other)) {
+                        current.add(other);
+                        merged.remove(i);
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+            merged.add(current);
+
+            if (merged.size() > MAX_REGIONS) {
+                Rectangle union = new Rectangle(merged.get(0));
+                for (Rectangle r : merged) {
+                    union.add(r);
+                }
+                merged.clear();
+                merged.add(union);
+            }
+        }
+
+        return merged;
+    }
+
+    /**
+     * @param r1
+     *            The first {@link Rectangle}
+     * @param r2
+     *            The second {@link Rectangle}
+     * @return True if the union of both rectangles is not larger than both
+     *         areas together
+     */
+    private static boolean isWorthMerging(Rectangle r1, Rectangle r2) {
+        if (r1.contains(r2) || r2.contains(r1))
+            return true;
+
+        Rectangle union = r1.union(r2);
+        return area(union) <= area(r1) + area(r2);
+    }
+
+    /**
+     * @param r
+     *            The {@link Rectangle}
+     * @return The area of the rectangle
+     */
+    private static long area(Rectangle r) {
+        return (long) r.width * r.height;
+    }
+
+}
@@ -1,22 +1,32 @@
 package de.lambeck.pned.models.gui;
 
 import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
+import java.awt.geom.AffineTransform;
+import java.util.*;
 import java.util.List;
-import java.util.Map;
 
 import javax.swing.AbstractAction;
 import javax.swing.BorderFactory;
 import javax.swing.JPanel;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 import de.lambeck.pned.application.*;
 import de.lambeck.pned.elements.ENodeType;
-import de.lambeck.pned.elements.gui.IGuiElement;
-import de.lambeck.pned.elements.gui.IGuiNode;
-import de.lambeck.pned.elements.gui.IPaintable;
+import de.lambeck.pned.elements.gui.*;
+import de.lambeck.pned.exceptions.PNNoSuchElementException;
 import de.lambeck.pned.gui.ECustomColor;
 import de.lambeck.pned.gui.statusBar.StatusBar;
 import de.lambeck.pned.models.gui.overlay.IOverlay;
+import de.lambeck.pned.models.gui.overlay.PerformanceHudOverlay;
+import de.lambeck.pned.monitoring.EEditorEventType;
+import de.lambeck.pned.monitoring.EditorEvents;
+import de.lambeck.pned.monitoring.EditorMetrics;
+import de.lambeck.pned.monitoring.IEditorEvent;
 import de.lambeck.pned.util.ConsoleLogger;
 
 /**
@@ -63,6 +73,98 @@ public class DrawPanel extends JPanel implements IDrawPanel, IModelRename, IInfo
      */
     private Dimension graphicsArea = new Dimension(0, 0);
 
+    /* Variables for zoom and level of detail */
+
+    /** Min. zoom factor */
+    private static final double MIN_ZOOM = 0.02;
+
+    /** Max. zoom factor */
+    private static final double MAX_ZOOM = 4.0;
+
+    /** Min. size of the label font on the screen (smaller: no text) [px] */
+    private static final double MIN_TEXT_SIZE = 6.0;
+
+    /** Min. size of the nodes on the screen (smaller: simple shapes) [px] */
+    private static final double MIN_SHAPE_SIZE = 8.0;
+
+    /** Min. distance of the grid lines on the screen (smaller: no grid) [px] */
+    private static final double MIN_GRID_STEP = 10.0;
+
+    /**
+     * The size of the cells for the aggregation of dense regions (level of
+     * detail SIMPLE) [px]
+     */
+    private static final int AGGREGATION_CELL_SIZE = 4;
+
+    /**
+     * Min. number of nodes in one cell to paint the cell instead of the nodes
+     */
+    private static final int AGGREGATION_MIN_NODES = 3;
+
+    /** The font size of the node labels (see GuiNode) */
+    private static final int LABEL_FONT_SIZE = 12;
+
+    /**
+     * The zoom factor: 1.0 means 1 pixel per unit of the model coordinates.
+     * (The model coordinates are the coordinates of the elements.)
+     */
+    private double zoom = 1.0;
+
+    /* Variables for the retained rendering mode */
+
+    /**
+     * Use the off-screen base layer? (Otherwise all elements inside the clip
+     * are painted on every repaint.)
+     */
+    private boolean retainedRendering = true;
+
+    /** The off-screen base layer (grid lines + static elements) */
+    private BaseLayerCache baseLayer = new BaseLayerCache(this);
+
+    /**
+     * The elements which are currently manipulated (dragged) and painted on
+     * top of the base layer, sorted by z value; null if none
+     */
+    private List<IGuiElement> liveElements = null;
+
+    /* Variables for the limitation of repaint requests */
+
+    /** The refresh rate if the display does not report one [Hz] */
+    private static final int DEFAULT_REFRESH_RATE = 60;
+
+    /** The min. time between two repaint requests [ns]; 0 if not known yet */
+    private long repaintInterval = 0;
+
+    /** The time of the last repaint request [ns]; 0 if none yet */
+    private long lastRepaintRequest = 0;
+
+    /** The union of the delayed repaint requests; null if none */
+    private Rectangle pendingRepaintArea = null;
+
+    /** Has a delayed repaint request been for everything? */
+    private boolean pendingRepaintAll = false;
+
+    /** Timer for the delayed repaint requests; null if not created yet */
+    private Timer repaintTimer = null;
+
+    /* Variables for the performance HUD */
+
+    /** The refresh interval of the performance HUD [ms] */
+    private static final int HUD_REFRESH_INTERVAL = 500;
+
+    /** The performance HUD; null if hidden */
+    private PerformanceHudOverlay performanceHud = null;
+
+    /** Timer for the refresh of the performance HUD; null if not created yet */
+    private Timer hudTimer = null;
+
+    /**
+     * The elements painted during the current paintComponent(): each element
+     * only once, even if painted in several regions. (Only filled if the HUD
+     * is visible.)
+     */
+    private Set<IGuiElement> paintedElements = Collections.newSetFromMap(new IdentityHashMap<IGuiElement, Boolean>());
+
     /* Variables for MyMouseAdapter */
 
     /** Reference to this draw panels {@link MyMouseAdapter} */
@@ -144,6 +246,7 @@ public class DrawPanel extends JPanel implements IDrawPanel, IModelRename, IInfo
         this.myMouseAdapter = new MyMouseAdapter(this, myGuiController, popupActions, myAppController);
         addMouseListener(myMouseAdapter);
         addMouseMotionListener(myMouseAdapter);
+        addMouseWheelListener(myMouseAdapter);
 
         /*
          * KeyboardFocusManager replaces KeyBindings because of unexpected mouse
@@ -229,53 +332,71 @@ public class DrawPanel extends JPanel implements IDrawPanel, IModelRename, IInfo
 
     @Override
     public void paintComponent(Graphics g) {
+        IEditorEvent paintEvent = EditorEvents.begin(EEditorEventType.PAINT);
+        long paintStart = System.nanoTime();
         super.paintComponent(g);
         if (debug) {
             ConsoleLogger.consoleLogMethodCall("DrawPanel(" + getModelName() + ").paintComponent");
         }
 
         Graphics2D g2 = (Graphics2D) g;
-        activateAntialiasing(g2);
 
-        drawGridLines(g2);
+        /*
+         * Paint only the clip (the area requested by repaint(Rectangle) or the
+         * visible part of the scroll pane).
+         */
+        Rectangle clip = g.getClipBounds();
+        if (clip == null)
+            clip = new Rectangle(0, 0, getWidth(), getHeight());
 
         boolean areaChanged = false;
 
         IGuiModel currentGuiModel = getCurrentGuiModel();
 
-        /* Paint the elements of the model. */
-        List<IGuiElement> elements = currentGuiModel.getElements();
-        for (IGuiElement element : elements) {
-            element.paintElement(g);
+        Rectangle visibleArea = getVisibleRect();
+        boolean useBaseLayer = retainedRendering && isUntransformed(g2) && visibleArea.contains(clip);
+        if (useBaseLayer) {
+            /* Static content from the base layer */
+            updateLiveElements(currentGuiModel);
+            baseLayer.update(visibleArea, currentGuiModel);
+            baseLayer.paintTo(g);
+        } else {
+            paintContent(g2, clip);
+        }
 
-            if (element instanceof IGuiNode) {
-                IGuiNode node = (IGuiNode) element;
-                int x = node.getTotalLeftX();
-                int y = node.getTotalTopY();
-                int width = node.getTotalWidth();
-                int height = node.getTotalHeight();
-                // Rectangle rect = new Rectangle(x, y, width, height);
-                // scrollRectToVisible(rect); Nicht hier, nur beim Einfügen!!!
-
-                /* Update the draw panels graphicsArea. */
-                int this_width = (x + width + 5);
-                if (this_width > graphicsArea.width) {
-                    graphicsArea.width = this_width;
-                    areaChanged = true;
-                }
+        /* Everything else in model coordinates */
+        Graphics2D gm = createModelGraphics(g2);
 
-                int this_height = (y + height + 5);
-                if (this_height > graphicsArea.height) {
-                    graphicsArea.height = this_height;
-                    areaChanged = true;
-                }
+        /* The manipulated elements on top of the base layer */
+        if (useBaseLayer && liveElements != null) {
+            for (IGuiElement element : liveElements) {
+                paintCounted(element, gm);
+            }
+        }
+
+        /*
+         * Update the draw panels graphicsArea. (All elements, not only the
+         * painted elements!)
+         */
+        Rectangle extent = currentGuiModel.getElementsExtent();
+        if (extent != null) {
+            int this_width = (extent.x + extent.width + 5);
+            if (this_width > graphicsArea.width) {
+                graphicsArea.width = this_width;
+                areaChanged = true;
+            }
+
+            int this_height = (extent.y + extent.height + 5);
+            if (this_height > graphicsArea.height) {
+                graphicsArea.height = this_height;
+                areaChanged = true;
             }
         }
 
         /* Paint the elements of the overlay(s). */
         for (IOverlay overlay : currentGuiModel.getAllOverlays()) {
             for (IPaintable paintable : overlay.getPaintableElements()) {
-                paintable.paintElement(g);
+                paintable.paintElement(gm);
 
                 // TODO We might have a problem here if this paintable is
                 // outside of the area stored in graphicsArea!
@@ -294,11 +415,411 @@ public class DrawPanel extends JPanel implements IDrawPanel, IModelRename, IInfo
 
         if (debug) {
             /* Indicate the graphics area. */
-            g2.setColor(Color.LIGHT_GRAY);
-            g2.drawRect(0, 0, graphicsArea.width, graphicsArea.height);
+            gm.setColor(Color.LIGHT_GRAY);
+            gm.drawRect(0, 0, graphicsArea.width, graphicsArea.height);
         }
+        gm.dispose();
 
         // drawSelectionRange(g2);
+
+        long paintNanos = System.nanoTime() - paintStart;
+        if (performanceHud != null)
+            paintPerformanceHud(g2, clip, visibleArea, paintNanos, currentGuiModel);
+
+        EditorMetrics.recordPaint(paintNanos);
+        paintEvent.commit(getModelName(), currentGuiModel.getElementsView().size(),
+                useBaseLayer ? "base layer" : "direct");
+    }
+
+    @Override
+    public void removeNotify() {
+        super.removeNotify();
+
+        /* Closed: free the memory of the base layer. */
+        baseLayer.release();
+
+        /* Maybe on another screen next time */
+        if (repaintTimer != null)
+            repaintTimer.stop();
+        repaintInterval = 0;
+
+        if (hudTimer != null)
+            hudTimer.stop();
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+
+        if (performanceHud != null)
+            startPerformanceHud();
+    }
+
+    /**
+     * Paints the specified region of the base layer: background, grid lines
+     * and all elements which are not excluded.
+     * 
+     * @param g2
+     *            The {@link Graphics2D} object of the base layer image
+     *            (translated to the coordinates of this draw panel)
+     * @param region
+     *            The region to paint
+     */
+    void paintBaseLayer(Graphics2D g2, Rectangle region) {
+        g2.setColor(getBackground());
+        g2.fillRect(region.x, region.y, region.width, region.height);
+        g2.setFont(getFont());
+
+        paintContent(g2, region);
+    }
+
+    /**
+     * Paints the grid lines and all elements (which are not excluded from the
+     * base layer) inside the specified region.
+     * 
+     * @param g2
+     *            The {@link Graphics2D} object (in view coordinates)
+     * @param region
+     *            The region to paint (in view coordinates)
+     */
+    private void paintContent(Graphics2D g2, Rectangle region) {
+        Graphics2D gm = createModelGraphics(g2);
+        Rectangle modelRegion = viewToModel(region);
+
+        drawGridLines(gm, modelRegion);
+
+        IGuiModel currentGuiModel = getCurrentGuiModel();
+        Collection<IGuiElement> elements = currentGuiModel.getElementsInArea(modelRegion);
+
+        if (getLevelOfDetail() == ELevelOfDetail.SIMPLE) {
+            paintAggregated(g2, gm, region, elements);
+        } else {
+            for (IGuiElement element : elements) {
+                if (!baseLayer.isExcluded(element))
+                    paintCounted(element, gm);
+            }
+        }
+
+        gm.dispose();
+    }
+
+    /* Performance HUD */
+
+    @Override
+    public void setPerformanceHud(PerformanceHudOverlay hud) {
+        if (hud == this.performanceHud)
+            return;
+
+        if (this.performanceHud != null)
+            repaintPerformanceHud();
+
+        this.performanceHud = hud;
+        paintedElements.clear();
+
+        if (hud == null) {
+            if (hudTimer != null)
+                hudTimer.stop();
+        } else if (isDisplayable()) {
+            startPerformanceHud();
+        }
+
+        /*
+         * The HUD has a fixed position on the screen: Blitting while scrolling
+         * would move it with the content.
+         */
+        if (getParent() instanceof JViewport) {
+            JViewport viewport = (JViewport) getParent();
+            viewport.setScrollMode((hud == null) ? JViewport.BLIT_SCROLL_MODE : JViewport.SIMPLE_SCROLL_MODE);
+        }
+
+        this.repaint();
+    }
+
+    @Override
+    public boolean isPerformanceHudVisible() {
+        return this.performanceHud != null;
+    }
+
+    /**
+     * Starts the timer for the refresh of the performance HUD. (Values like
+     * the heap use change without repaints of the content.)
+     */
+    private void startPerformanceHud() {
+        if (hudTimer == null) {
+            hudTimer = new Timer(HUD_REFRESH_INTERVAL, new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    repaintPerformanceHud();
+                }
+            });
+        }
+        hudTimer.start();
+    }
+
+    /**
+     * Repaints the area of the performance HUD (at its last size).
+     */
+    private void repaintPerformanceHud() {
+        if (performanceHud == null)
+            return;
+
+        this.repaint(getPerformanceHudArea(getVisibleRect()));
+    }
+
+    /**
+     * Returns the area of the performance HUD on this draw panel, with some
+     * room for more lines (e.g. new validators) since the last paint.
+     * 
+     * @param visibleArea
+     *            The visible area of this draw panel
+     * @return The area (in coordinates of this draw panel)
+     */
+    private Rectangle getPerformanceHudArea(Rectangle visibleArea) {
+        Rectangle hudArea = performanceHud.getBounds();
+        hudArea.translate(visibleArea.x, visibleArea.y);
+        hudArea.width += 100;
+        hudArea.height += hudArea.height / 2 + 20;
+        return hudArea;
+    }
+
+    /**
+     * Updates the values of the performance HUD and paints it in the upper
+     * left corner of the visible area.<BR>
+     * <BR>
+     * Note: Repaints of only the HUD itself (refresh timer) are not counted as
+     * frames.
+     * 
+     * @param g2
+     *            The {@link Graphics2D} object (in view coordinates)
+     * @param clip
+     *            The painted area
+     * @param visibleArea
+     *            The visible area of this draw panel
+     * @param paintNanos
+     *            The duration of paintComponent() so far [ns]
+     * @param currentGuiModel
+     *            The current {@link IGuiModel}
+     */
+    private void paintPerformanceHud(Graphics2D g2, Rectangle clip, Rectangle visibleArea, long paintNanos,
+            IGuiModel currentGuiModel) {
+        if (!getPerformanceHudArea(visibleArea).contains(clip)) {
+            int total = currentGuiModel.getElementsView().size();
+            int painted = paintedElements.size();
+            performanceHud.frameFinished(paintNanos, painted, Math.max(0, total - painted));
+        }
+        paintedElements.clear();
+
+        Graphics2D gh = (Graphics2D) g2.create();
+        gh.translate(visibleArea.x, visibleArea.y);
+        performanceHud.paintElement(gh);
+        gh.dispose();
+    }
+
+    /**
+     * Paints the specified element and counts it for the performance HUD.
+     * 
+     * @param element
+     *            The {@link IGuiElement}
+     * @param gm
+     *            The {@link Graphics2D} object (in model coordinates)
+     */
+    private void paintCounted(IGuiElement element, Graphics2D gm) {
+        element.paintElement(gm);
+        if (performanceHud != null)
+            paintedElements.add(element);
+    }
+
+    /**
+     * Paints the elements for the lowest level of detail: Dense regions
+     * (cells of the screen with many nodes) are painted as filled cells
+     * instead of the nodes. Arcs between two dense cells are omitted.
+     * 
+     * @param g2
+     *            The {@link Graphics2D} object (in view coordinates)
+     * @param gm
+     *            The {@link Graphics2D} object (in model coordinates)
+     * @param region
+     *            The region to paint (in view coordinates)
+     * @param elements
+     *            The elements inside the region
+     */
+    private void paintAggregated(Graphics2D g2, Graphics2D gm, Rectangle region, Collection<IGuiElement> elements) {
+        int columns = region.width / AGGREGATION_CELL_SIZE + 1;
+        int rows = region.height / AGGREGATION_CELL_SIZE + 1;
+        int[] counts = new int[columns * rows];
+
+        /* Count the nodes per cell. */
+        for (IGuiElement element : elements) {
+            if (element instanceof IGuiNode) {
+                int cell = getAggregationCell((IGuiNode) element, region, columns, rows);
+                if (cell >= 0)
+                    counts[cell]++;
+            }
+        }
+
+        /* Arcs (unless both nodes are in dense cells) */
+        for (IGuiElement element : elements) {
+            if (!(element instanceof IGuiArc) || baseLayer.isExcluded(element))
+                continue;
+
+            IGuiArc arc = (IGuiArc) element;
+            try {
+                int predCell = getAggregationCell(arc.getPredElem(), region, columns, rows);
+                int succCell = getAggregationCell(arc.getSuccElem(), region, columns, rows);
+                if (isDense(counts, predCell) && isDense(counts, succCell))
+                    continue;
+            } catch (PNNoSuchElementException e) {
+                continue;
+            }
+            paintCounted(arc, gm);
+        }
+
+        /* Nodes in sparse cells */
+        for (IGuiElement element : elements) {
+            if (!(element instanceof IGuiNode) || baseLayer.isExcluded(element))
+                continue;
+
+            int cell = getAggregationCell((IGuiNode) element, region, columns, rows);
+            if (!isDense(counts, cell))
+                paintCounted(element, gm);
+        }
+
+        /* Dense cells: darker for more nodes */
+        for (int cell = 0; cell < counts.length; cell++) {
+            if (!isDense(counts, cell))
+                continue;
+
+            int gray = Math.max(0, 128 - 8 * (counts[cell] - AGGREGATION_MIN_NODES));
+            g2.setColor(new Color(gray, gray, gray));
+            int x = region.x + (cell % columns) * AGGREGATION_CELL_SIZE;
+            int y = region.y + (cell / columns) * AGGREGATION_CELL_SIZE;
+            g2.fillRect(x, y, AGGREGATION_CELL_SIZE, AGGREGATION_CELL_SIZE);
+        }
+    }
+
+    /**
+     * @param node
+     *            The {@link IGuiNode}
+     * @param region
+     *            The painted region (in view coordinates)
+     * @param columns
+     *            The number of columns of cells
+     * @param rows
+     *            The number of rows of cells
+     * @return The index of the cell with the center of the node; -1 if
+     *         outside of the region
+     */
+    private int getAggregationCell(IGuiNode node, Rectangle region, int columns, int rows) {
+        Point center = node.getPosition();
+        int column = (int) Math.floor((center.x * zoom - region.x) / AGGREGATION_CELL_SIZE);
+        int row = (int) Math.floor((center.y * zoom - region.y) / AGGREGATION_CELL_SIZE);
+        if (column < 0 || row < 0 || column >= columns || row >= rows)
+            return -1;
+        return row * columns + column;
+    }
+
+    /**
+     * @param counts
+     *            The number of nodes per cell
+     * @param cell
+     *            The index of the cell (or -1)
+     * @return True if the cell contains enough nodes to be aggregated
+     */
+    private static boolean isDense(int[] counts, int cell) {
+        return cell >= 0 && counts[cell] >= AGGREGATION_MIN_NODES;
+    }
+
+    /**
+     * Creates a copy of the specified {@link Graphics2D} object for painting
+     * in model coordinates: with the zoom transformation, the level of detail
+     * and the suitable antialiasing.
+     * 
+     * @param g2
+     *            The {@link Graphics2D} object (in view coordinates)
+     * @return The new {@link Graphics2D} object (to be disposed by the caller)
+     */
+    private Graphics2D createModelGraphics(Graphics2D g2) {
+        Graphics2D gm = (Graphics2D) g2.create();
+        gm.transform(getViewTransform());
+
+        ELevelOfDetail levelOfDetail = getLevelOfDetail();
+        gm.setRenderingHint(ELevelOfDetail.KEY, levelOfDetail);
+        if (levelOfDetail == ELevelOfDetail.SIMPLE) {
+            gm.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_OFF);
+        } else {
+            activateAntialiasing(gm);
+        }
+        return gm;
+    }
+
+    /**
+     * Returns the level of detail for the current zoom factor.
+     * 
+     * @return The {@link ELevelOfDetail}
+     */
+    private ELevelOfDetail getLevelOfDetail() {
+        if (GuiNode.getShapeSize() * zoom < MIN_SHAPE_SIZE)
+            return ELevelOfDetail.SIMPLE;
+        if (LABEL_FONT_SIZE * zoom < MIN_TEXT_SIZE)
+            return ELevelOfDetail.NO_TEXT;
+        return ELevelOfDetail.FULL;
+    }
+
+    /**
+     * Updates the list of manipulated elements: the selected nodes and their
+     * adjacent arcs while the nodes are dragged.
+     * 
+     * @param currentGuiModel
+     *            The current {@link IGuiModel}
+     */
+    private void updateLiveElements(IGuiModel currentGuiModel) {
+        boolean dragging = getStateMouseDragMode();
+
+        if (dragging && liveElements == null) {
+            liveElements = getDraggedElements(currentGuiModel);
+            baseLayer.setExcludedElements(liveElements);
+
+        } else if (!dragging && liveElements != null) {
+            liveElements = null;
+            baseLayer.setExcludedElements(null);
+        }
+    }
+
+    /**
+     * Returns the elements which are moved by dragging: the selected nodes and
+     * all arcs which are adjacent to one of these nodes.
+     * 
+     * @param currentGuiModel
+     *            The current {@link IGuiModel}
+     * @return The {@link List} of {@link IGuiElement}, sorted by z value
+     */
+    private List<IGuiElement> getDraggedElements(IGuiModel currentGuiModel) {
+        List<IGuiNode> draggedNodes = new ArrayList<IGuiNode>();
+        for (IGuiElement element : currentGuiModel.getSelectedElements()) {
+            if (element instanceof IGuiNode)
+                draggedNodes.add((IGuiNode) element);
+        }
+
+        List<IGuiElement> dragged = new ArrayList<IGuiElement>(draggedNodes);
+        if (draggedNodes.isEmpty())
+            return dragged;
+
+        /* The model knows the arcs of each node (no scan of all elements). */
+        dragged.addAll(currentGuiModel.getAdjacentArcs(draggedNodes));
+
+        Collections.sort(dragged, GuiModel.Z_VALUE_ORDER);
+        return dragged;
+    }
+
+    /**
+     * @param g2
+     *            The {@link Graphics2D} object
+     * @return True if the specified {@link Graphics2D} is not scaled or
+     *         rotated (e.g. for HiDPI screens or printing); otherwise false
+     */
+    private static boolean isUntransformed(Graphics2D g2) {
+        int type = g2.getTransform().getType();
+        return (type & ~AffineTransform.TYPE_TRANSLATION) == 0;
     }
 
     /**
@@ -314,35 +835,50 @@ public class DrawPanel extends JPanel implements IDrawPanel, IModelRename, IInfo
     }
 
     /**
-     * Draws grid lines to the drawing area.
+     * Draws grid lines to the drawing area. (Only inside the clip.)
      * 
      * @param g2
-     *            The {@link Graphics2D} object
+     *            The {@link Graphics2D} object (in model coordinates)
+     * @param clip
+     *            The area to paint (in model coordinates)
      */
-    private void drawGridLines(Graphics2D g2) {
+    private void drawGridLines(Graphics2D g2, Rectangle clip) {
         final int GRID_STEP = 100;
         Color gridColor = ECustomColor.SNOW2.getColor();
 
+        /* Too dense at low zoom */
+        if (GRID_STEP * zoom < MIN_GRID_STEP)
+            return;
+
         /* Nothing painted yet -> graphicsArea is empty! */
         // int width = this.graphicsArea.width;
         // int height = this.graphicsArea.height;
 
-        /* Use the JComponent attributes. */
-        int width = getWidth();
-        int height = getHeight();
+        /* Use the JComponent attributes. (In model coordinates) */
+        int width = (int) Math.ceil(getWidth() / zoom);
+        int height = (int) Math.ceil(getHeight() / zoom);
         if (width == 0 || height == 0)
             return;
 
         g2.setColor(gridColor);
 
+        int left = Math.max(0, clip.x);
+        int top = Math.max(0, clip.y);
+        int right = Math.min(width, clip.x + clip.width);
+        int bottom = Math.min(height, clip.y + clip.height);
+
+        /* The first grid lines inside the clip */
+        int firstRow = 99 + Math.max(0, (top - 99 + GRID_STEP - 1) / GRID_STEP) * GRID_STEP;
+        int firstColumn = 99 + Math.max(0, (left - 99 + GRID_STEP - 1) / GRID_STEP) * GRID_STEP;
+
         /* Horizontal grid lines */
-        for (int i = 99; i <= height; i += GRID_STEP) {
-            g2.drawLine(0, i, width, i);
+        for (int i = firstRow; i <= bottom; i += GRID_STEP) {
+            g2.drawLine(left, i, right, i);
         }
 
         /* Vertical grid lines */
-        for (int i = 99; i <= width; i += GRID_STEP) {
-            g2.drawLine(i, 0, i, height);
+        for (int i = firstColumn; i <= right; i += GRID_STEP) {
+            g2.drawLine(i, top, i, bottom);
         }
     }
 
@@ -395,7 +931,10 @@ public class DrawPanel extends JPanel implements IDrawPanel, IModelRename, IInfo
 
     @Override
     public Dimension getPreferredSize() {
-        return this.graphicsArea;
+        /* The graphics area (in model coordinates) zoomed */
+        int width = (int) Math.ceil(this.graphicsArea.width * zoom);
+        int height = (int) Math.ceil(this.graphicsArea.height * zoom);
+        return new Dimension(width, height);
     }
 
     @Override
@@ -413,6 +952,90 @@ public class DrawPanel extends JPanel implements IDrawPanel, IModelRename, IInfo
         super.setToolTipText(text);
     }
 
+    /* Zoom and pan */
+
+    @Override
+    public double getZoom() {
+        return this.zoom;
+    }
+
+    @Override
+    public void zoomAt(double factor, Point viewLocation) {
+        double newZoom = Math.max(MIN_ZOOM, Math.min(MAX_ZOOM, zoom * factor));
+        if (newZoom == zoom)
+            return;
+
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("DrawPanel.zoomAt", factor, viewLocation);
+        }
+
+        /* The model location under the mouse should stay under the mouse. */
+        Rectangle visibleArea = getVisibleRect();
+        double modelX = viewLocation.x / zoom;
+        double modelY = viewLocation.y / zoom;
+        int offsetX = viewLocation.x - visibleArea.x;
+        int offsetY = viewLocation.y - visibleArea.y;
+
+        this.zoom = newZoom;
+
+        /* Resize immediately to be able to scroll to the new location. */
+        setSize(getPreferredSize());
+        revalidate();
+
+        int newX = (int) Math.round(modelX * zoom) - offsetX;
+        int newY = (int) Math.round(modelY * zoom) - offsetY;
+        scrollRectToVisible(new Rectangle(newX, newY, visibleArea.width, visibleArea.height));
+
+        updateDrawing(null);
+    }
+
+    @Override
+    public void panBy(int dx, int dy) {
+        Rectangle visibleArea = getVisibleRect();
+        visibleArea.translate(-dx, -dy);
+        scrollRectToVisible(visibleArea);
+    }
+
+    @Override
+    public Point viewToModel(Point p) {
+        if (p == null)
+            return null;
+        return new Point((int) Math.floor(p.x / zoom), (int) Math.floor(p.y / zoom));
+    }
+
+    @Override
+    public Rectangle modelToView(Rectangle r) {
+        if (r == null)
+            return null;
+        Rectangle view = getViewTransform().createTransformedShape(r).getBounds();
+        view.grow(1, 1); // Antialiasing
+        return view;
+    }
+
+    /**
+     * Converts the specified area from view coordinates (pixels on this draw
+     * panel) to model coordinates.
+     * 
+     * @param r
+     *            The {@link Rectangle} in view coordinates
+     * @return The {@link Rectangle} in model coordinates (covering at least
+     *         the specified area)
+     */
+    private Rectangle viewToModel(Rectangle r) {
+        int x1 = (int) Math.floor(r.x / zoom);
+        int y1 = (int) Math.floor(r.y / zoom);
+        int x2 = (int) Math.ceil((r.x + r.width) / zoom);
+        int y2 = (int) Math.ceil((r.y + r.height) / zoom);
+        return new Rectangle(x1, y1, x2 - x1, y2 - y1);
+    }
+
+    /**
+     * @return The {@link AffineTransform} from model to view coordinates
+     */
+    private AffineTransform getViewTransform() {
+        return AffineTransform.getScaleInstance(zoom, zoom);
+    }
+
     /* Methods for interface IDrawPanel */
 
     @Override
@@ -421,16 +1044,109 @@ public class DrawPanel extends JPanel implements IDrawPanel, IModelRename, IInfo
             if (debug) {
                 ConsoleLogger.consoleLogMethodCall("DrawPanel.updateDrawing", area);
             }
-            this.repaint(area); // The specified area only
+            Rectangle viewArea = modelToView(area);
+            baseLayer.invalidate(viewArea);
+            requestRepaint(viewArea); // The specified area only
         } else {
             if (debug) {
                 ConsoleLogger.consoleLogMethodCall("DrawPanel.updateDrawing");
                 System.out.println("-> Repaint everything");
             }
-            this.repaint(); // Everything
+            baseLayer.invalidateAll();
+            requestRepaint(null); // Everything
         }
     }
 
+    /**
+     * Requests a repaint of the specified area, but not more often than the
+     * display can show: Requests within one refresh interval after the last
+     * request are collected and requested together when the interval has
+     * passed.<BR>
+     * <BR>
+     * Note: Requests from other threads than the EDT are passed directly to
+     * repaint().
+     * 
+     * @param viewArea
+     *            The area (in coordinates of this draw panel); null for
+     *            everything
+     */
+    private void requestRepaint(Rectangle viewArea) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            if (viewArea == null) {
+                this.repaint();
+            } else {
+                this.repaint(viewArea);
+            }
+            return;
+        }
+
+        if (viewArea == null) {
+            pendingRepaintAll = true;
+        } else if (pendingRepaintArea == null) {
+            pendingRepaintArea = new Rectangle(viewArea);
+        } else {
+            pendingRepaintArea.add(viewArea);
+        }
+
+        if (repaintTimer != null && repaintTimer.isRunning())
+            return; // Will be requested by the timer
+
+        long interval = getRepaintInterval();
+        long elapsed = System.nanoTime() - lastRepaintRequest;
+        if (lastRepaintRequest == 0 || elapsed >= interval) {
+            flushRepaintRequests();
+            return;
+        }
+
+        /* Too early: delay until the interval has passed. */
+        if (repaintTimer == null) {
+            repaintTimer = new Timer(0, new ActionListener() {
+                @Override
+                public void actionPerformed(ActionEvent e) {
+                    flushRepaintRequests();
+                }
+            });
+            repaintTimer.setRepeats(false);
+        }
+        int delay = (int) Math.ceil((interval - elapsed) / 1000000.0);
+        repaintTimer.setInitialDelay(delay);
+        repaintTimer.restart();
+    }
+
+    /**
+     * Passes the collected repaint requests to repaint().
+     */
+    private void flushRepaintRequests() {
+        if (pendingRepaintAll) {
+            this.repaint();
+        } else if (pendingRepaintArea != null) {
+            this.repaint(pendingRepaintArea);
+        }
+
+        pendingRepaintAll = false;
+        pendingRepaintArea = null;
+        lastRepaintRequest = System.nanoTime();
+    }
+
+    /**
+     * Returns the refresh interval of the display with this draw panel.
+     * 
+     * @return The interval [ns]
+     */
+    private long getRepaintInterval() {
+        if (repaintInterval == 0) {
+            int refreshRate = DisplayMode.REFRESH_RATE_UNKNOWN;
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            if (gc != null)
+                refreshRate = gc.getDevice().getDisplayMode().getRefreshRate();
+            if (refreshRate <= 0)
+                refreshRate = DEFAULT_REFRESH_RATE;
+
+            repaintInterval = 1000000000L / refreshRate;
+        }
+        return repaintInterval;
+    }
+
     @Override
     public Point getMousePressedLocation() {
         return this.mousePressedLocation;
@@ -525,6 +1241,13 @@ public class DrawPanel extends JPanel implements IDrawPanel, IModelRename, IInfo
         resetCursor();
     }
 
+    @Override
+    public void releaseCaches() {
+        /* No references to the elements of the released model */
+        liveElements = null;
+        baseLayer.release();
+    }
+
     /**
      * Resets old mouse operations.
      */
@@ -15,6 +15,7 @@ import de.lambeck.pned.models.gui.overlay.EOverlayName;
 import de.lambeck.pned.models.gui.overlay.IOverlay;
 import de.lambeck.pned.util.ConsoleLogger;
 import de.lambeck.pned.util.ObjectCloner;
+import de.lambeck.pned.util.logging.Logger;
 
 /**
  * Implements the GUI model of a Petri net.
@@ -32,6 +33,15 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
     /** Show debug messages? */
     private static boolean debug = false;
 
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(GuiModel.class);
+
+    /**
+     * The order of the elements (for sorted lists of elements, e.g. query
+     * results of the {@link SpatialGrid} or the dragged elements)
+     */
+    static final Comparator<IGuiElement> Z_VALUE_ORDER = new ZValueComparator();
+
     /**
      * This should be the canonical (unique) path name of the file.
      */
@@ -43,19 +53,29 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
     private String displayName = "";
 
     /**
-     * List of all elements in this model
+     * All elements in this model, always sorted by z value (ascending, the
+     * order for painting)
      */
-    private List<IGuiElement> elements = new ArrayList<IGuiElement>();
+    private NavigableSet<IGuiElement> elements = new TreeSet<IGuiElement>(new ZValueComparator());
 
     /**
-     * List of all elements selected by the user.
+     * All elements selected by the user.<BR>
+     * <BR>
+     * Note: A set based on identity (not on equals()), so adding, removing and
+     * testing an element is independent of the size of the selection.
      */
-    private List<IGuiElement> selected = new ArrayList<IGuiElement>();
+    private Set<IGuiElement> selected = Collections.newSetFromMap(new IdentityHashMap<IGuiElement, Boolean>());
 
-    /** The minimum z value of all elements in this model */
+    /**
+     * The minimum z value of all elements in this model (updated whenever
+     * elements are added or removed or their z value changes)
+     */
     private int minZValue = 0;
 
-    /** The maximum z value of all elements in this model */
+    /**
+     * The maximum z value of all elements in this model (updated whenever
+     * elements are added or removed or their z value changes)
+     */
     private int maxZValue = 0;
 
     /**
@@ -67,6 +87,27 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
     /** Map of present overlays (of type {@link IOverlay}) */
     private Map<EOverlayName, IOverlay> overlays = new HashMap<EOverlayName, IOverlay>();
 
+    /**
+     * The spatial index of all elements for hit-testing and painting. (Not
+     * serialized: Created on demand, e.g. after deep copies for Undo + Redo.)
+     */
+    private transient SpatialGrid spatialIndex = null;
+
+    /** The shape size of the nodes when the spatial index was created */
+    private transient int indexedShapeSize = 0;
+
+    /**
+     * The adjacent arcs of each node. (Not serialized: Created on demand, e.g.
+     * after deep copies for Undo + Redo.)
+     */
+    private transient Map<IGuiNode, List<IGuiArc>> adjacency = null;
+
+    /**
+     * Read-only view of the elements (see getElementsView()). Not serialized:
+     * Created on demand.
+     */
+    private transient Collection<IGuiElement> elementsView = null;
+
     /* Constructor */
 
     /**
@@ -120,12 +161,27 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
         return copy;
     }
 
+    @Override
+    public Collection<IGuiElement> getElementsView() {
+        if (elementsView == null)
+            elementsView = Collections.unmodifiableNavigableSet(elements);
+        return elementsView;
+    }
+
     @Override
     public List<IGuiElement> getSelectedElements() {
         List<IGuiElement> copy = new ArrayList<IGuiElement>(this.selected);
+
+        /* The set has no order: Return the selection sorted by z value. */
+        Collections.sort(copy, elements.comparator());
         return copy;
     }
 
+    @Override
+    public int getSelectionSize() {
+        return this.selected.size();
+    }
+
     @Override
     public IGuiElement getElementById(String id) throws PNNoSuchElementException {
         for (IGuiElement element : elements) {
@@ -135,7 +191,7 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
         }
 
         String errorMessage = "Model " + this.modelName + ": element " + id + " not found!";
-        ConsoleLogger.logIfDebug(debug, errorMessage);
+        logger.debug(errorMessage);
         throw new PNNoSuchElementException(errorMessage);
     }
 
@@ -155,7 +211,7 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
         }
 
         String errorMessage = "Model " + this.modelName + ": node " + nodeId + " not found!";
-        ConsoleLogger.logIfDebug(debug, errorMessage);
+        logger.debug(errorMessage);
         throw new PNNoSuchElementException(errorMessage);
     }
 
@@ -175,7 +231,7 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
         }
 
         String errorMessage = "Model " + this.modelName + ": place " + placeId + " not found!";
-        ConsoleLogger.logIfDebug(debug, errorMessage);
+        logger.debug(errorMessage);
         throw new PNNoSuchElementException(errorMessage);
     }
 
@@ -195,19 +251,17 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
         }
 
         String errorMessage = "Model " + this.modelName + ": transition " + transitionId + " not found!";
-        ConsoleLogger.logIfDebug(debug, errorMessage);
+        logger.debug(errorMessage);
         throw new PNNoSuchElementException(errorMessage);
     }
 
     @Override
     public int getMinZValue() {
-        updateMinZ();
         return this.minZValue;
     }
 
     @Override
     public int getMaxZValue() {
-        updateMaxZ();
         return this.maxZValue;
     }
 
@@ -232,6 +286,32 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
         return this.maxZValue;
     }
 
+    @Override
+    public void setZValue(IGuiElement element, int newZValue) {
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("GuiModel.setZValue", element, newZValue);
+        }
+
+        /* Remove with the old z value, add with the new z value. */
+        boolean contained = elements.remove(element);
+        element.setZValue(newZValue);
+        if (contained)
+            elements.add(element);
+
+        updateMinZ();
+        updateMaxZ();
+    }
+
+    @Override
+    public IGuiElement getZValueNeighbor(IGuiElement element, boolean upwards) {
+        if (element == null)
+            return null;
+
+        if (upwards)
+            return elements.higher(element);
+        return elements.lower(element);
+    }
+
     /**
      * Getter for the z level (height level) of a specific node.
      * 
@@ -261,19 +341,17 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
             ConsoleLogger.consoleLogMethodCall("GuiModel.sortElements");
         }
 
-        /* Sort (see: https://stackoverflow.com/a/2784576) */
-        Collections.sort(elements, new Comparator<IGuiElement>() {
-            @Override
-            public int compare(IGuiElement element1, IGuiElement element2) {
-                if (element2.getZValue() > element1.getZValue()) {
-                    return -1;
-                } else if (element1.getZValue() == element2.getZValue()) {
-                    return 0;
-                } else {
-                    return 1;
-                }
-            }
-        });
+        /*
+         * The elements are kept sorted. But an element whose z value has been
+         * changed directly is at the wrong position: Build the tree again.
+         */
+        NavigableSet<IGuiElement> sorted = new TreeSet<IGuiElement>(new ZValueComparator());
+        sorted.addAll(elements);
+        this.elements = sorted;
+        this.elementsView = null;
+
+        updateMinZ();
+        updateMaxZ();
     }
 
     @Override
@@ -282,19 +360,10 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
             ConsoleLogger.consoleLogMethodCall("GuiModel.sortSelectedElements");
         }
 
-        /* Sort (see: https://stackoverflow.com/a/2784576) */
-        Collections.sort(selected, new Comparator<IGuiElement>() {
-            @Override
-            public int compare(IGuiElement element1, IGuiElement element2) {
-                if (element2.getZValue() > element1.getZValue()) {
-                    return -1;
-                } else if (element1.getZValue() == element2.getZValue()) {
-                    return 0;
-                } else {
-                    return 1;
-                }
-            }
-        });
+        /*
+         * Nothing to do: The selection is a set without order, and
+         * getSelectedElements() always returns it sorted by z value.
+         */
     }
 
     /* Methods for adding, modify and removal of elements */
@@ -429,19 +498,26 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
             ConsoleLogger.consoleLogMethodCall("GuiModel" + getModelName() + ").addElement", newElement);
         }
 
-        /* Prevent duplicate IDs. */
-        for (IGuiElement test : elements) {
-            if (test == newElement) {
-                String errMessage = "Duplicate of: " + test.toString();
-                if (debug) {
-                    System.err.println(errMessage);
-                }
-                throw new PNDuplicateAddedException(errMessage);
+        /* Prevent duplicates. (Same z value and id) */
+        IGuiElement test = elements.ceiling(newElement);
+        if (test != null && elements.comparator().compare(test, newElement) == 0) {
+            String errMessage = "Duplicate of: " + test.toString();
+            if (debug) {
+                System.err.println(errMessage);
             }
+            throw new PNDuplicateAddedException(errMessage);
         }
 
         /* Add the element */
         elements.add(newElement);
+        updateMinZ();
+        updateMaxZ();
+
+        if (adjacency != null && newElement instanceof IGuiArc)
+            addToAdjacency((IGuiArc) newElement);
+
+        if (spatialIndex != null)
+            spatialIndex.put(newElement, getIndexBounds(newElement));
     }
 
     @Override
@@ -464,6 +540,19 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
 
         /* Remove the element. */
         elements.remove(removeElement);
+        updateMinZ();
+        updateMaxZ();
+
+        if (adjacency != null) {
+            if (removeElement instanceof IGuiArc) {
+                removeFromAdjacency((IGuiArc) removeElement);
+            } else if (removeElement instanceof IGuiNode) {
+                adjacency.remove(removeElement);
+            }
+        }
+
+        if (spatialIndex != null)
+            spatialIndex.remove(removeElement);
     }
 
     @Override
@@ -474,6 +563,220 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
 
         elements.clear();
         selected.clear();
+        spatialIndex = null;
+        adjacency = null;
+        updateMinZ();
+        updateMaxZ();
+    }
+
+    /* Spatial index */
+
+    @Override
+    public IGuiElement getElementAtLocation(Point p) {
+        return getSpatialIndex().getTopmostElementAt(p);
+    }
+
+    @Override
+    public Collection<IGuiElement> getElementsInArea(Rectangle area) {
+        SpatialGrid index = getSpatialIndex();
+
+        /* Whole model visible: The elements are already in z order. */
+        Rectangle extent = index.getExtent();
+        if (extent == null || area.contains(extent))
+            return getElementsView();
+
+        return index.getElementsIn(area);
+    }
+
+    @Override
+    public Rectangle getElementsExtent() {
+        return getSpatialIndex().getExtent();
+    }
+
+    @Override
+    public void elementBoundsChanged(IGuiElement element) {
+        if (spatialIndex != null)
+            spatialIndex.put(element, getIndexBounds(element));
+    }
+
+    /**
+     * Returns the spatial index. Creates a new index if there is none or if
+     * the shape size has changed.
+     * 
+     * @return The {@link SpatialGrid}
+     */
+    private SpatialGrid getSpatialIndex() {
+        int shapeSize = GuiNode.getShapeSize();
+        if (spatialIndex == null || indexedShapeSize != shapeSize) {
+            if (debug) {
+                ConsoleLogger.consoleLogMethodCall("GuiModel.getSpatialIndex (new index)");
+            }
+
+            SpatialGrid newIndex = new SpatialGrid();
+            for (IGuiElement element : elements) {
+                newIndex.put(element, getIndexBounds(element));
+            }
+            this.spatialIndex = newIndex;
+            this.indexedShapeSize = shapeSize;
+        }
+        return spatialIndex;
+    }
+
+    /**
+     * Returns the bounds of the specified element for the spatial index.<BR>
+     * <BR>
+     * Note: Nodes: the shape and the label. Arcs: the shapes of both nodes
+     * (plus the size of the arrow tip).
+     * 
+     * @param element
+     *            The {@link IGuiElement}
+     * @return A {@link Rectangle}; null if unknown
+     */
+    private static Rectangle getIndexBounds(IGuiElement element) {
+        if (element instanceof IGuiNode) {
+            IGuiNode node = (IGuiNode) element;
+            Rectangle bounds = getShapeBounds(node);
+            Rectangle drawingArea = node.getLastDrawingArea();
+            if (drawingArea != null)
+                bounds.add(drawingArea);
+            return bounds;
+        }
+
+        if (element instanceof IGuiArc) {
+            IGuiArc arc = (IGuiArc) element;
+            Rectangle bounds;
+            try {
+                bounds = getShapeBounds(arc.getPredElem());
+                bounds.add(getShapeBounds(arc.getSuccElem()));
+            } catch (PNNoSuchElementException e) {
+                return null;
+            }
+            int tipLength = GuiArc.getShapeSize();
+            bounds.grow(tipLength, tipLength);
+            return bounds;
+        }
+
+        return null;
+    }
+
+    /**
+     * @param node
+     *            The {@link IGuiNode}
+     * @return The bounds of the shape (ignoring the label)
+     */
+    private static Rectangle getShapeBounds(IGuiNode node) {
+        int shapeSize = GuiNode.getShapeSize();
+        Point center = node.getPosition();
+        return new Rectangle(center.x - shapeSize / 2, center.y - shapeSize / 2, shapeSize, shapeSize);
+    }
+
+    /* Adjacency */
+
+    @Override
+    public List<IGuiArc> getAdjacentArcs(Collection<? extends IGuiNode> nodes) {
+        Map<IGuiNode, List<IGuiArc>> arcsByNode = getAdjacency();
+        Set<IGuiArc> found = Collections.newSetFromMap(new IdentityHashMap<IGuiArc, Boolean>());
+        List<IGuiArc> adjacentArcs = new ArrayList<IGuiArc>();
+
+        for (IGuiNode node : nodes) {
+            List<IGuiArc> arcs = arcsByNode.get(node);
+            if (arcs == null)
+                continue;
+
+            for (IGuiArc arc : arcs) {
+                if (found.add(arc))
+                    adjacentArcs.add(arc);
+            }
+        }
+
+        return adjacentArcs;
+    }
+
+    /**
+     * Returns the adjacent arcs of all nodes. Creates the map if there is none.
+     * 
+     * @return A {@link Map} from each {@link IGuiNode} with arcs to its
+     *         {@link IGuiArc}
+     */
+    private Map<IGuiNode, List<IGuiArc>> getAdjacency() {
+        if (adjacency == null) {
+            if (debug) {
+                ConsoleLogger.consoleLogMethodCall("GuiModel.getAdjacency (new map)");
+            }
+
+            this.adjacency = new IdentityHashMap<IGuiNode, List<IGuiArc>>();
+            for (IGuiElement element : elements) {
+                if (element instanceof IGuiArc)
+                    addToAdjacency((IGuiArc) element);
+            }
+        }
+        return adjacency;
+    }
+
+    /**
+     * Adds the specified arc to the lists of its predecessor and successor.
+     * 
+     * @param arc
+     *            The {@link IGuiArc}
+     */
+    private void addToAdjacency(IGuiArc arc) {
+        try {
+            addAdjacentArc(arc.getPredElem(), arc);
+            addAdjacentArc(arc.getSuccElem(), arc);
+        } catch (PNNoSuchElementException e) {
+            System.err.println("GuiModel, addToAdjacency: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds the specified arc to the list of the specified node.
+     * 
+     * @param node
+     *            The {@link IGuiNode}
+     * @param arc
+     *            The adjacent {@link IGuiArc}
+     */
+    private void addAdjacentArc(IGuiNode node, IGuiArc arc) {
+        List<IGuiArc> arcs = adjacency.get(node);
+        if (arcs == null) {
+            arcs = new ArrayList<IGuiArc>(2);
+            adjacency.put(node, arcs);
+        }
+        arcs.add(arc);
+    }
+
+    /**
+     * Removes the specified arc from the lists of its predecessor and
+     * successor.
+     * 
+     * @param arc
+     *            The {@link IGuiArc}
+     */
+    private void removeFromAdjacency(IGuiArc arc) {
+        try {
+            removeAdjacentArc(arc.getPredElem(), arc);
+            removeAdjacentArc(arc.getSuccElem(), arc);
+        } catch (PNNoSuchElementException e) {
+            System.err.println("GuiModel, removeFromAdjacency: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the specified arc from the list of the specified node.
+     * 
+     * @param node
+     *            The {@link IGuiNode}
+     * @param arc
+     *            The adjacent {@link IGuiArc}
+     */
+    private void removeAdjacentArc(IGuiNode node, IGuiArc arc) {
+        List<IGuiArc> arcs = adjacency.get(node);
+        if (arcs == null)
+            return;
+
+        arcs.remove(arc);
+        if (arcs.isEmpty())
+            adjacency.remove(node);
     }
 
     @Override
@@ -507,31 +810,85 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
 
     @Override
     public void clearSelection() {
-        /*
-         * Task: Invoke removeFromSelection() for all selected elements.
-         */
-
         if (selected.size() == 0)
             return;
 
-        /*
-         * Add to a separate list first to avoid ConcurrentModificationException
-         * when removeFromSelection() removes the element from the list!
-         */
-        List<IGuiElement> toBeRemoved = new ArrayList<IGuiElement>();
+        /* Reset the attribute of all elements, then clear the set once. */
         for (IGuiElement element : selected) {
-            toBeRemoved.add(element);
+            element.setSelected(false);
         }
+        selected.clear();
 
-        for (IGuiElement element : toBeRemoved) {
-            removeFromSelection(element);
+        consoleLogSelection();
+    }
+
+    @Override
+    public List<IGuiElement> selectAllElements() {
+        return addToSelection(elements);
+    }
+
+    @Override
+    public List<IGuiElement> addToSelection(Collection<? extends IGuiElement> toBeSelected) {
+        List<IGuiElement> changed = new ArrayList<IGuiElement>();
+        if (toBeSelected == null)
+            return changed;
+
+        for (IGuiElement element : toBeSelected) {
+            if (element == null)
+                continue;
+            if (selected.add(element)) {
+                element.setSelected(true);
+                changed.add(element);
+            }
+        }
+
+        if (changed.size() > 0)
+            consoleLogSelection();
+        return changed;
+    }
+
+    @Override
+    public List<IGuiElement> removeFromSelection(Collection<? extends IGuiElement> toBeDeselected) {
+        List<IGuiElement> changed = new ArrayList<IGuiElement>();
+        if (toBeDeselected == null || selected.size() == 0)
+            return changed;
+
+        for (IGuiElement element : toBeDeselected) {
+            if (element == null)
+                continue;
+            if (selected.remove(element)) {
+                element.setSelected(false);
+                changed.add(element);
+            }
         }
+
+        if (changed.size() > 0)
+            consoleLogSelection();
+        return changed;
+    }
+
+    @Override
+    public List<IGuiElement> invertSelection() {
+        /* All elements change their state. */
+        List<IGuiElement> changed = new ArrayList<IGuiElement>(elements);
+
+        Set<IGuiElement> newSelected = Collections.newSetFromMap(new IdentityHashMap<IGuiElement, Boolean>());
+        for (IGuiElement element : elements) {
+            boolean select = !selected.contains(element);
+            element.setSelected(select);
+            if (select)
+                newSelected.add(element);
+        }
+        this.selected = newSelected;
+
+        consoleLogSelection();
+        return changed;
     }
 
     /* Private helper methods */
 
     /**
-     * Removes the specified element from the {@link List} of selected elements.
+     * Removes the specified element from the {@link Set} of selected elements.
      * 
      * @param element
      *            The {@link IGuiElement} to remove
@@ -543,12 +900,9 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
         /* Change the attribute of the element itself. */
         element.setSelected(false);
 
-        /* Remove the element from the list of selected elements. */
-        if (selected.size() == 0)
-            return;
-        if (!selected.contains(element))
+        /* Remove the element from the set of selected elements. */
+        if (!selected.remove(element))
             return;
-        selected.remove(element);
 
         consoleLogSelection();
     }
@@ -566,7 +920,7 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
             System.out.print("GuiModel, Selected elements: ");
 
             String outputString = "";
-            for (IGuiElement element : selected) {
+            for (IGuiElement element : getSelectedElements()) {
                 if (outputString != "")
                     outputString = outputString + ", ";
                 String elementID = element.getId();
@@ -601,44 +955,45 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
 
     /**
      * Updates the attribute minZValue with the current minimum value for all
-     * nodes. Sets the attribute to 0 if there are no nodes.
+     * nodes. Sets the attribute to 0 if there are no nodes.<BR>
+     * <BR>
+     * Note: O(log n) because the elements are sorted by z value.
      */
     private void updateMinZ() {
-        int min = 0;
-        if (!elements.isEmpty()) {
-            boolean first = true;
-            for (IHasZValue element : elements) {
-                int elemZValue = element.getZValue();
-                if (first) {
-                    min = elemZValue;
-                    first = false;
-                } else {
-                    min = Math.min(min, elemZValue);
-                }
-            }
-        }
-        this.minZValue = min;
+        this.minZValue = elements.isEmpty() ? 0 : elements.first().getZValue();
     }
 
     /**
      * Updates the attribute maxZValue with the current maximum value for all
-     * nodes. Sets the attribute to 0 if there are no nodes.
+     * nodes. Sets the attribute to 0 if there are no nodes.<BR>
+     * <BR>
+     * Note: O(log n) because the elements are sorted by z value.
      */
     private void updateMaxZ() {
-        int max = 0;
-        if (!elements.isEmpty()) {
-            boolean first = true;
-            for (IHasZValue element : elements) {
-                int elemZValue = element.getZValue();
-                if (first) {
-                    max = elemZValue;
-                    first = false;
-                } else {
-                    max = Math.max(max, elemZValue);
-                }
-            }
+        this.maxZValue = elements.isEmpty() ? 0 : elements.last().getZValue();
+    }
+
+    /**
+     * Orders the elements by z value. Elements with the same z value (which
+     * should not happen) are ordered by their id.<BR>
+     * <BR>
+     * Note: Serializable for the deep copies of this model. Other classes
+     * should use the shared instance Z_VALUE_ORDER.
+     */
+    static class ZValueComparator implements Comparator<IGuiElement>, Serializable {
+
+        /**
+         * Generated serial version ID (necessary for the {@link ObjectCloner})
+         */
+        private static final long serialVersionUID = 4616397390484245563L;
+
+        @Override
+        public int compare(IGuiElement element1, IGuiElement element2) {
+            int result = Integer.compare(element1.getZValue(), element2.getZValue());
+            if (result != 0)
+                return result;
+            return element1.getId().compareTo(element2.getId());
         }
-        this.maxZValue = max;
     }
 
     /* Validation events */
@@ -772,7 +1127,9 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
         }
 
         overlays.put(name, overlay);
-        ConsoleLogger.logIfDebug(debug, "New overlays.size(): " + overlays.size());
+        if (logger.isDebugEnabled()) {
+            logger.debug("New overlays.size(): " + overlays.size());
+        }
     }
 
     @Override
@@ -782,7 +1139,9 @@ public class GuiModel implements IGuiModel, IModelRename, Serializable {
         }
 
         overlays.remove(name);
-        ConsoleLogger.logIfDebug(debug, "overlays.size(): " + overlays.size());
+        if (logger.isDebugEnabled()) {
+            logger.debug("overlays.size(): " + overlays.size());
+        }
     }
 
     @Override
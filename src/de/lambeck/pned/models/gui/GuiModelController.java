@@ -2,6 +2,9 @@ package de.lambeck.pned.models.gui;
 
 import java.awt.*;
 import java.awt.event.MouseEvent;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.*;
 import java.util.List;
 import java.util.Map.Entry;
@@ -19,14 +22,21 @@ import de.lambeck.pned.elements.util.NodeCheck;
 import de.lambeck.pned.exceptions.PNElementCreationException;
 import de.lambeck.pned.exceptions.PNNoSuchElementException;
 import de.lambeck.pned.exceptions.PNObjectNotClonedException;
+import de.lambeck.pned.filesystem.session.ESessionCommand;
+import de.lambeck.pned.filesystem.session.SessionRecorder;
 import de.lambeck.pned.i18n.I18NManager;
 import de.lambeck.pned.models.data.IDataModel;
 import de.lambeck.pned.models.gui.overlay.DrawArcOverlay;
 import de.lambeck.pned.models.gui.overlay.EOverlayName;
 import de.lambeck.pned.models.gui.overlay.IDrawArcOverlay;
 import de.lambeck.pned.models.gui.overlay.IOverlay;
+import de.lambeck.pned.monitoring.EEditorEventType;
+import de.lambeck.pned.monitoring.EditorEvents;
+import de.lambeck.pned.monitoring.EdtWatchdog;
+import de.lambeck.pned.monitoring.IEditorEvent;
 import de.lambeck.pned.util.ConsoleLogger;
 import de.lambeck.pned.util.ObjectCloner;
+import de.lambeck.pned.util.logging.Logger;
 
 /**
  * Observes the state of the GUI.
@@ -39,6 +49,9 @@ public class GuiModelController implements IGuiModelController {
     /** Show debug messages? */
     private static boolean debug = false;
 
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(GuiModelController.class);
+
     /** Minimum shape size for setter */
     private final static int MIN_SHAPE_SIZE = 20;
 
@@ -846,8 +859,16 @@ public class GuiModelController implements IGuiModelController {
             ConsoleLogger.consoleLogMethodCall("GuiModelController.getMousePositionOverDrawPanel");
         }
 
+        if (GraphicsEnvironment.isHeadless()) {
+            /* No mouse (session replay): start at the popup menu location */
+            Point popupMenuLocation = currentDrawPanel.getPopupMenuLocation();
+            return (popupMenuLocation == null) ? null : new Point(popupMenuLocation);
+        }
+
         Point absMousePos = MouseInfo.getPointerInfo().getLocation();
-        ConsoleLogger.logIfDebug(debug, "absMousePos: " + absMousePos);
+        if (logger.isDebugEnabled()) {
+            logger.debug("absMousePos: " + absMousePos);
+        }
 
         Component drawPanelComponent = getDrawPanelAsSwingComponent(this.currentDrawPanel);
         if (drawPanelComponent == null)
@@ -855,9 +876,12 @@ public class GuiModelController implements IGuiModelController {
 
         Point convertedMousePos = absMousePos;
         SwingUtilities.convertPointFromScreen(convertedMousePos, drawPanelComponent);
-        ConsoleLogger.logIfDebug(debug, "convertedMousePos: " + convertedMousePos);
+        if (logger.isDebugEnabled()) {
+            logger.debug("convertedMousePos: " + convertedMousePos);
+        }
 
-        return convertedMousePos;
+        /* Model coordinates (The draw panel might be zoomed.) */
+        return currentDrawPanel.viewToModel(convertedMousePos);
     }
 
     @Override
@@ -935,6 +959,9 @@ public class GuiModelController implements IGuiModelController {
             ConsoleLogger.consoleLogMethodCall("GuiModelController.checkDrawArcFinalEndLocation");
         }
 
+        if (SessionRecorder.isRecording())
+            SessionRecorder.record(ESessionCommand.NEW_ARC_TO_HERE, getCurrentModelName(), p);
+
         /* In any case: We have to remove the overlay from the model. */
         EOverlayName name = EOverlayName.DRAW_NEW_ARC_OVERLAY;
         currentModel.removeOverlay(name);
@@ -1026,18 +1053,14 @@ public class GuiModelController implements IGuiModelController {
      *         exist
      */
     private boolean arcAlreadyExist(String sourceId, String targetId) {
-        List<IGuiElement> guiElements = currentModel.getElements();
-        List<IGuiArc> guiArcs = new ArrayList<IGuiArc>();
         boolean arcAlreadyExists = false;
 
-        for (IGuiElement guiElement : guiElements) {
-            if (guiElement instanceof IGuiArc) {
-                IGuiArc guiArc = (IGuiArc) guiElement;
-                guiArcs.add(guiArc);
-            }
-        }
+        /* Read-only loop: No copy of the elements necessary. */
+        for (IGuiElement guiElement : currentModel.getElementsView()) {
+            if (!(guiElement instanceof IGuiArc))
+                continue;
 
-        for (IGuiArc guiArc : guiArcs) {
+            IGuiArc guiArc = (IGuiArc) guiElement;
             String arcSourceId = guiArc.getSourceId();
             if (arcSourceId.equals(sourceId)) {
                 String arcTargetId = guiArc.getTargetId();
@@ -1088,23 +1111,10 @@ public class GuiModelController implements IGuiModelController {
             return null;
         }
 
-        List<IGuiElement> elements = currentModel.getElements();
-        IGuiElement foundElement = null;
-
-        for (IGuiElement element : elements) {
-            if (isSelectableElement(element)) {
-                boolean contains = element.contains(p);
-                if (contains) {
-                    foundElement = element;
-                    /*
-                     * Don't break on the first found element because we have to
-                     * find the element with the highest z value and this will
-                     * be more at the "end" of the list.
-                     */
-                    // break;
-                }
-            }
-        }
+        /* The topmost element (via the spatial index of the model) */
+        IGuiElement foundElement = currentModel.getElementAtLocation(p);
+        if (!isSelectableElement(foundElement))
+            return null;
 
         return foundElement;
     }
@@ -1178,6 +1188,7 @@ public class GuiModelController implements IGuiModelController {
         Rectangle oldArea = selectedNode.getLastDrawingArea();
 
         selectedNode.setName(newName);
+        currentModel.elementBoundsChanged(selectedNode);
         currentModel.setModified(true);
 
         /* Update the data model! */
@@ -1190,6 +1201,36 @@ public class GuiModelController implements IGuiModelController {
         updateDrawing(newArea);
     }
 
+    @Override
+    public void renameGuiNode(String nodeId, String newName) {
+        /*
+         * No Undo + Redo: The caller is responsible (e.g. for the replay of a
+         * whole journal).
+         */
+
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("GuiModelController.renameGuiNode", nodeId, newName);
+        }
+
+        IGuiNode node = getGuiNodeById(nodeId);
+        if (node == null)
+            return;
+
+        Rectangle oldArea = node.getLastDrawingArea();
+
+        node.setName(newName);
+        currentModel.elementBoundsChanged(node);
+        currentModel.setModified(true);
+
+        /* Update the data model! */
+        appController.guiNodeRenamed(nodeId, newName);
+
+        /* Update the drawing! */
+        Rectangle newArea = node.getLastDrawingArea();
+        updateDrawing(oldArea);
+        updateDrawing(newArea);
+    }
+
     @Override
     public void updateDrawing(Rectangle area) {
         currentDrawPanel.updateDrawing(area);
@@ -1354,6 +1395,54 @@ public class GuiModelController implements IGuiModelController {
         appController.enableActionsForSelectedElements(selected);
     }
 
+    @Override
+    public void removeGuiElement(String elementId) {
+        /*
+         * No Undo + Redo: The caller is responsible (e.g. for the replay of a
+         * whole journal).
+         */
+
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("GuiModelController.removeGuiElement", elementId);
+        }
+
+        /* Store the drawing area for repainting. */
+        IGuiElement element;
+        try {
+            element = currentModel.getElementById(elementId);
+        } catch (PNNoSuchElementException e) {
+            String message = i18n.getMessage("errMissingIdInModel");
+            message = message.replace("%id%", elementId);
+            String modelName = currentModel.getModelName();
+            message = message.replace("%modelName%", modelName);
+            System.err.println(message);
+            return;
+        }
+        Rectangle rect = element.getLastDrawingArea();
+
+        try {
+            currentModel.removeElement(elementId);
+        } catch (PNNoSuchElementException e) {
+            System.err.println(e.getMessage());
+            return;
+        }
+
+        currentModel.setModified(true);
+
+        /*
+         * Inform the application controller to remove this element (and all
+         * adjacent arcs) from the data model!
+         */
+        appController.guiElementRemoved(elementId);
+
+        /* Update the drawing. */
+        updateDrawing(rect);
+
+        /* Update Actions (buttons) in case we removed a selected element. */
+        List<IGuiElement> selected = currentModel.getSelectedElements();
+        appController.enableActionsForSelectedElements(selected);
+    }
+
     // @Override
     // public void clearCurrentGuiModel() {
     // currentModel.clear();
@@ -1369,12 +1458,42 @@ public class GuiModelController implements IGuiModelController {
 
     /* Mouse and selection events */
 
+    /**
+     * Records a mouse click (if a session is recorded).
+     * 
+     * @param command
+     *            The {@link ESessionCommand}
+     * @param mousePressedLocation
+     *            The location of the mousePressed event (model coordinates)
+     * @param e
+     *            The mouseClicked event
+     */
+    private void recordMouseClick(ESessionCommand command, Point mousePressedLocation, MouseEvent e) {
+        if (mousePressedLocation == null || currentDrawPanel == null)
+            return;
+
+        Point released = currentDrawPanel.viewToModel(e.getPoint());
+        SessionRecorder.record(command, getCurrentModelName(), Integer.toString(mousePressedLocation.x),
+                Integer.toString(mousePressedLocation.y), Integer.toString(released.x),
+                Integer.toString(released.y));
+    }
+
+    /**
+     * @return The name of the current model; null if none
+     */
+    private String getCurrentModelName() {
+        return (currentModel == null) ? null : currentModel.getModelName();
+    }
+
     @Override
     public void mouseClick_Occurred(Point mousePressedLocation, MouseEvent e) {
         if (debug) {
             ConsoleLogger.consoleLogMethodCall("GuiModelController.mouseClick_Occurred", mousePressedLocation, e);
         }
 
+        if (SessionRecorder.isRecording())
+            recordMouseClick(ESessionCommand.MOUSE_CLICK, mousePressedLocation, e);
+
         if (mousePressedLocation == null) {
             System.err.println("mousePressedLocation == null");
             appController.enableZValueActions(null);
@@ -1392,7 +1511,7 @@ public class GuiModelController implements IGuiModelController {
 
         /* Mouse has been dragged? */
         IGuiElement mouseReleasedElement;
-        mouseReleasedElement = getSelectableElementAtLocation(e.getPoint());
+        mouseReleasedElement = getSelectableElementAtLocation(currentDrawPanel.viewToModel(e.getPoint()));
         if (mousePressedElement != mouseReleasedElement) {
             /* Reject this mouseClicked event as unintended! */
             return;
@@ -1449,6 +1568,9 @@ public class GuiModelController implements IGuiModelController {
                     e);
         }
 
+        if (SessionRecorder.isRecording())
+            recordMouseClick(ESessionCommand.MOUSE_CLICK_WITH_CTRL, mousePressedLocation, e);
+
         if (mousePressedLocation == null) {
             System.err.println("mousePressedLocation == null");
             appController.enableZValueActions(null);
@@ -1465,7 +1587,7 @@ public class GuiModelController implements IGuiModelController {
 
         /* Mouse has been dragged? */
         IGuiElement mouseReleasedElement;
-        mouseReleasedElement = getSelectableElementAtLocation(e.getPoint());
+        mouseReleasedElement = getSelectableElementAtLocation(currentDrawPanel.viewToModel(e.getPoint()));
         if (mousePressedElement != mouseReleasedElement) {
             /* Reject this mouseClicked event as unintended! */
             return;
@@ -1524,22 +1646,41 @@ public class GuiModelController implements IGuiModelController {
         }
 
         /*
-         * Task: Select all elements.
+         * Task: Select all elements (one bulk operation, one repaint).
          */
 
-        List<IGuiElement> toBeSelected = currentModel.getElements();
+        List<IGuiElement> changed = currentModel.selectAllElements();
+        if (debug) {
+            System.out.println("GuiModelController, Added to selection: " + changed.size() + " element(s)");
+        }
 
-        String message = "";
-        for (IGuiElement element : toBeSelected) {
-            if (!element.isSelected()) {
-                currentModel.addToSelection(element);
+        /* Repaint (everything) */
+        updateDrawing();
 
-                String elementID = element.getId();
-                message = "GuiModelController, Added to selection: element " + elementID;
-                ConsoleLogger.logIfDebug(debug, message);
-            }
+        /* Update the Actions (buttons) */
+        List<IGuiElement> selected = currentModel.getSelectedElements();
+        appController.enableActionsForSelectedElements(selected);
+
+        String message = i18n.getMessage("infoElementsSelected");
+        message = message.replace("%number%", Integer.toString(selected.size()));
+        setInfo_Status(message, EStatusMessageLevel.INFO);
+    }
+
+    @Override
+    public void invertGuiElementSelection() {
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("GuiModelController.invertGuiElementSelection");
         }
 
+        if (currentModel == null) {
+            System.err.println("GuiModelController.invertGuiElementSelection(), currentModel == null!");
+            return;
+        }
+
+        List<IGuiElement> changed = currentModel.invertSelection();
+        if (changed.size() == 0)
+            return;
+
         /* Repaint (everything) */
         updateDrawing();
 
@@ -1547,8 +1688,8 @@ public class GuiModelController implements IGuiModelController {
         List<IGuiElement> selected = currentModel.getSelectedElements();
         appController.enableActionsForSelectedElements(selected);
 
-        message = i18n.getMessage("infoElementsSelected");
-        message = message.replace("%number%", Integer.toString(toBeSelected.size()));
+        String message = i18n.getMessage("infoElementsSelected");
+        message = message.replace("%number%", Integer.toString(selected.size()));
         setInfo_Status(message, EStatusMessageLevel.INFO);
     }
 
@@ -1558,6 +1699,10 @@ public class GuiModelController implements IGuiModelController {
          * Task: Move only the selected nodes and update the drawing.
          */
 
+        if (SessionRecorder.isRecording())
+            SessionRecorder.record(ESessionCommand.MOUSE_DRAGGED, getCurrentModelName(),
+                    Integer.toString(distance_x), Integer.toString(distance_y));
+
         if (currentModel == null) {
             System.err.println("GuiModelController.mouseDragged(), currentModel == null!");
             return;
@@ -1620,6 +1765,13 @@ public class GuiModelController implements IGuiModelController {
         /* Get the old drawing areas for repainting. */
         List<Rectangle> oldDrawingAreas = getDrawingAreas(selectedNodes);
 
+        /*
+         * Get all adjacent arcs for these nodes and store their old drawing
+         * area. (The arcs calculate their new area when the nodes have moved.)
+         */
+        List<IGuiArc> adjacentArcs = getAdjacentArcs(selectedNodes);
+        List<Rectangle> oldArcAreas = getDrawingAreas(adjacentArcs);
+
         /*
          * Shift the position of the selected nodes and store the new drawing
          * areas for repainting.
@@ -1629,6 +1781,7 @@ public class GuiModelController implements IGuiModelController {
             newPosition.translate(distance_x, distance_y);
 
             node.setPosition(newPosition);
+            currentModel.elementBoundsChanged(node);
 
             /*
              * Store this modified node in the local field to be able to inform
@@ -1639,21 +1792,25 @@ public class GuiModelController implements IGuiModelController {
 
         List<Rectangle> newDrawingAreas = getDrawingAreas(selectedNodes);
 
-        /*
-         * Get all adjacent arcs for these nodes and store their drawing area to
-         * update them explicitly.
-         */
-        List<IGuiArc> adjacentArcs = getAdjacentArcs(selectedNodes);
-        List<Rectangle> arcAreas = getDrawingAreas(adjacentArcs);
+        /* The new drawing areas of the adjacent arcs */
+        List<Rectangle> newArcAreas = getDrawingAreas(adjacentArcs);
+        for (IGuiArc arc : adjacentArcs) {
+            currentModel.elementBoundsChanged(arc);
+        }
 
-        /* Update the drawing. */
-        updateDrawing(oldDrawingAreas);
-        updateDrawing(newDrawingAreas);
-        updateDrawing(arcAreas);
+        /* Update the drawing. (All areas merged into a few rectangles) */
+        List<Rectangle> dirtyAreas = new ArrayList<Rectangle>(oldDrawingAreas);
+        dirtyAreas.addAll(newDrawingAreas);
+        dirtyAreas.addAll(oldArcAreas);
+        dirtyAreas.addAll(newArcAreas);
+        updateDrawing(dirtyAreas);
     }
 
     @Override
     public void updateDataNodePositions() {
+        if (SessionRecorder.isRecording())
+            SessionRecorder.record(ESessionCommand.DRAG_FINISHED, getCurrentModelName());
+
         /* In any case: mouse dragging has been finished! */
         this.mouseIsDragging = false;
 
@@ -1679,6 +1836,50 @@ public class GuiModelController implements IGuiModelController {
         }
     }
 
+    @Override
+    public void moveGuiNode(String nodeId, Point newPosition) {
+        /*
+         * No Undo + Redo: The caller is responsible (e.g. for the replay of a
+         * whole journal).
+         */
+
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("GuiModelController.moveGuiNode", nodeId, newPosition);
+        }
+
+        IGuiNode node = getGuiNodeById(nodeId);
+        if (node == null)
+            return;
+
+        List<IGuiNode> movedNode = new LinkedList<IGuiNode>();
+        movedNode.add(node);
+
+        /* Get the old drawing areas for repainting. */
+        List<Rectangle> oldDrawingAreas = getDrawingAreas(movedNode);
+        List<IGuiArc> adjacentArcs = getAdjacentArcs(movedNode);
+        List<Rectangle> oldArcAreas = getDrawingAreas(adjacentArcs);
+
+        node.setPosition(newPosition);
+        currentModel.elementBoundsChanged(node);
+        currentModel.setModified(true);
+
+        /* Update the data model! */
+        appController.guiNodeDragged(nodeId, newPosition);
+
+        /* Update the drawing (including the adjacent arcs). */
+        List<Rectangle> newDrawingAreas = getDrawingAreas(movedNode);
+        List<Rectangle> newArcAreas = getDrawingAreas(adjacentArcs);
+        for (IGuiArc arc : adjacentArcs) {
+            currentModel.elementBoundsChanged(arc);
+        }
+
+        List<Rectangle> dirtyAreas = new ArrayList<Rectangle>(oldDrawingAreas);
+        dirtyAreas.addAll(newDrawingAreas);
+        dirtyAreas.addAll(oldArcAreas);
+        dirtyAreas.addAll(newArcAreas);
+        updateDrawing(dirtyAreas);
+    }
+
     /* Keyboard events */
 
     // @Override
@@ -1693,10 +1894,10 @@ public class GuiModelController implements IGuiModelController {
     private void resetSelection() {
         if (currentModel == null)
             return;
+        if (currentModel.getSelectionSize() == 0)
+            return;
 
         List<IGuiElement> selected = currentModel.getSelectedElements();
-        if (selected.size() == 0)
-            return;
 
         List<Rectangle> drawingAreas = getDrawingAreas(selected);
 
@@ -1821,39 +2022,8 @@ public class GuiModelController implements IGuiModelController {
         if (!upwards && (currZ == minZ))
             return null;
 
-        /**
-         * We have to check 2 conditions to find the neighbor element to swap
-         * with, depending on the direction:<BR>
-         * 1. Z value has to be higher/lower than the current z value.<BR>
-         * 2. But as little as possible.
-         */
-        List<IGuiElement> elements = currentModel.getElements();
-        IGuiElement swapElement = null;
-
-        /* We need a "safe" limit value for z value comparison. */
-        int swapZ = 0;
-        if (upwards)
-            swapZ = maxZ + 1;
-        if (!upwards)
-            swapZ = minZ - 1;
-
-        /*
-         * Check all elements to find the next element in the desired direction.
-         */
-        for (IGuiElement next : elements) {
-            int nextZ = next.getZValue();
-            if (upwards && (nextZ > currZ) || !upwards && (nextZ < currZ)) {
-                /* We have a candidate. */
-                IGuiElement candidate = next;
-                int candidateZ = nextZ;
-                if (upwards && (candidateZ < swapZ) || !upwards && (candidateZ > swapZ)) {
-                    /* Candidate is "closer" than the current swap candidate. */
-                    swapElement = candidate;
-                    swapZ = candidateZ;
-                }
-            }
-        }
-
+        /* The model keeps the elements sorted by z value. */
+        IGuiElement swapElement = currentModel.getZValueNeighbor(currElem, upwards);
         return swapElement;
     }
 
@@ -1900,11 +2070,12 @@ public class GuiModelController implements IGuiModelController {
             return;
 
         int newZValue = currentModel.getIncrMaxZ();
-        ConsoleLogger.logIfDebug(debug, "element.setZValue(" + newZValue + ")");
-        element.setZValue(newZValue);
+        if (logger.isDebugEnabled()) {
+            logger.debug("element.setZValue(" + newZValue + ")");
+        }
 
-        /* Let the model resort the List of elements. */
-        currentModel.sortElements();
+        /* Let the model move the element to its new position in z order. */
+        currentModel.setZValue(element, newZValue);
 
         // /* Repaint this element and (if necessary) adjacent arcs. */
         // List<IGuiElement> toBeRepainted = new LinkedList<IGuiElement>();
@@ -1970,11 +2141,12 @@ public class GuiModelController implements IGuiModelController {
             return;
 
         int newZValue = currentModel.getDecrMinZ();
-        ConsoleLogger.logIfDebug(debug, "element.setZValue(" + newZValue + ")");
-        element.setZValue(newZValue);
+        if (logger.isDebugEnabled()) {
+            logger.debug("element.setZValue(" + newZValue + ")");
+        }
 
-        /* Let the model resort the List of elements. */
-        currentModel.sortElements();
+        /* Let the model move the element to its new position in z order. */
+        currentModel.setZValue(element, newZValue);
 
         /*
          * Just repaint everything since there might be many adjacent arcs and
@@ -2035,13 +2207,14 @@ public class GuiModelController implements IGuiModelController {
         int swapZ = swapElement.getZValue();
         int currZ = element.getZValue();
 
-        ConsoleLogger.logIfDebug(debug, "element.setZValue(" + swapZ + ")");
-        element.setZValue(swapZ);
-        ConsoleLogger.logIfDebug(debug, "swap.setZValue(" + currZ + ")");
-        swapElement.setZValue(currZ);
-
-        /* Let the model resort the List of elements. */
-        currentModel.sortElements();
+        if (logger.isDebugEnabled()) {
+            logger.debug("element.setZValue(" + swapZ + ")");
+        }
+        currentModel.setZValue(element, swapZ);
+        if (logger.isDebugEnabled()) {
+            logger.debug("swap.setZValue(" + currZ + ")");
+        }
+        currentModel.setZValue(swapElement, currZ);
 
         /*
          * Just repaint everything since there might be many adjacent arcs and
@@ -2102,13 +2275,14 @@ public class GuiModelController implements IGuiModelController {
         int swapZ = swapElement.getZValue();
         int currZ = element.getZValue();
 
-        ConsoleLogger.logIfDebug(debug, "element.setZValue(" + swapZ + ")");
-        element.setZValue(swapZ);
-        ConsoleLogger.logIfDebug(debug, "swap.setZValue(" + currZ + ")");
-        swapElement.setZValue(currZ);
-
-        /* Let the model resort the List of elements. */
-        currentModel.sortElements();
+        if (logger.isDebugEnabled()) {
+            logger.debug("element.setZValue(" + swapZ + ")");
+        }
+        currentModel.setZValue(element, swapZ);
+        if (logger.isDebugEnabled()) {
+            logger.debug("swap.setZValue(" + currZ + ")");
+        }
+        currentModel.setZValue(swapElement, currZ);
 
         /*
          * Just repaint everything since there might be many adjacent arcs and
@@ -2152,22 +2326,24 @@ public class GuiModelController implements IGuiModelController {
          * when switching the tab.)
          */
         if (currentDrawPanel != null) {
-            Dimension area = currentDrawPanel.getPreferredSize();
-            Rectangle rect = new Rectangle(area);
-            updateDrawing(rect);
+            /* Everything (getPreferredSize() is zoomed) */
+            updateDrawing();
         }
     }
 
     /* Private helper methods */
 
     /**
-     * Invokes updateDrawing(Rectangle area) for all specified areas.
+     * Invokes updateDrawing(Rectangle area) for all specified areas.<BR>
+     * <BR>
+     * Note: Overlapping and adjacent areas are merged first, so there are only
+     * a few repaint requests for each event.
      * 
      * @param areas
      *            A {@link List} of {@link Rectangle}
      */
     private void updateDrawing(List<Rectangle> areas) {
-        for (Rectangle area : areas) {
+        for (Rectangle area : DirtyRegions.merge(areas)) {
             updateDrawing(area);
         }
     }
@@ -2191,7 +2367,7 @@ public class GuiModelController implements IGuiModelController {
     private void debugRepaintImmediately() {
         if (currentDrawPanel == null) {
             String message = "GuiModelController.debugRepaintImmediately(): currentDrawPanel == null";
-            ConsoleLogger.logIfDebug(debug, message);
+            logger.debug(message);
             return;
         }
 
@@ -2218,21 +2394,8 @@ public class GuiModelController implements IGuiModelController {
         if (currentModel == null)
             return null;
 
-        java.util.List<IGuiElement> elements = currentModel.getElements();
-        IGuiElement foundElement = null;
-
-        for (IGuiElement element : elements) {
-            boolean contains = element.contains(p);
-            if (contains) {
-                foundElement = element;
-                /*
-                 * Don't break on the first found element because we have to
-                 * find the element with the highest z value and this will be
-                 * more at the "end" of the list.
-                 */
-                // break;
-            }
-        }
+        /* The topmost element (via the spatial index of the model) */
+        IGuiElement foundElement = currentModel.getElementAtLocation(p);
 
         if (foundElement == null) {
             if (debug) {
@@ -2277,6 +2440,32 @@ public class GuiModelController implements IGuiModelController {
         return foundTransition;
     }
 
+    /**
+     * Returns the {@link IGuiNode} with the specified id in the current
+     * {@link IGuiModel}.
+     * 
+     * @param nodeId
+     *            The id of the node
+     * @return The {@link IGuiNode}; null if there is no node with this id
+     */
+    private IGuiNode getGuiNodeById(String nodeId) {
+        IGuiElement element;
+        try {
+            element = currentModel.getElementById(nodeId);
+        } catch (PNNoSuchElementException e) {
+            System.err.println("Not found: GUI node id=" + nodeId);
+            return null;
+        }
+
+        if (!(element instanceof IGuiNode)) {
+            String message = i18n.getMessage("warningOnlyNodesAllowed");
+            System.err.println(message + " (id=" + nodeId + ")");
+            return null;
+        }
+
+        return (IGuiNode) element;
+    }
+
     /**
      * Checks if exactly 1 element is selected.
      * 
@@ -2380,19 +2569,8 @@ public class GuiModelController implements IGuiModelController {
      * @return A {@link List} of {@link IGuiArc} of all adjacent arcs
      */
     private List<IGuiArc> getAdjacentArcs(List<IGuiNode> nodes) {
-        List<IGuiElement> elements = currentModel.getElements();
-        List<IGuiArc> adjacentArcs = new LinkedList<IGuiArc>();
-
-        for (IGuiElement element : elements) {
-            if (element instanceof IGuiArc) {
-                IGuiArc arc = (IGuiArc) element;
-                if (isAdjacentArc(arc, nodes)) {
-                    adjacentArcs.add(arc);
-                }
-            }
-        }
-
-        return adjacentArcs;
+        /* The model knows the arcs of each node (no scan of all elements). */
+        return currentModel.getAdjacentArcs(nodes);
     }
 
     // /**
@@ -2419,55 +2597,6 @@ public class GuiModelController implements IGuiModelController {
     // return adjacentArcs;
     // }
 
-    /**
-     * Checks if the arc is adjacent to at least one of the nodes in the
-     * specified list.
-     * 
-     * @param arc
-     *            The specific arc
-     * @param nodes
-     *            The list of nodes
-     * @return True if the arc is adjacent to at least one of the nodes in the
-     *         list; otherwise false
-     */
-    private boolean isAdjacentArc(IGuiArc arc, List<IGuiNode> nodes) {
-        for (IGuiNode node : nodes) {
-            boolean isAdjacent = isAdjacentArc(arc, node);
-            if (isAdjacent)
-                return true;
-        }
-        return false;
-    }
-
-    /**
-     * Checks if the specified arc is adjacent to the specified node.
-     * 
-     * @param arc
-     *            The specific arc
-     * @param node
-     *            The specified node
-     * @return True if the arc is adjacent to the specified node; otherwise
-     *         false
-     */
-    private boolean isAdjacentArc(IGuiArc arc, IGuiNode node) {
-        /* Node is predecessor of the arc? */
-        try {
-            if (arc.getPredElem() == node) { return true; }
-        } catch (PNNoSuchElementException e) {
-            System.err.println("Arc without predecessor! Arc id: " + arc.getId());
-            e.printStackTrace();
-        }
-
-        /* Node is successor of the arc? */
-        try {
-            if (arc.getSuccElem() == node) { return true; }
-        } catch (PNNoSuchElementException e) {
-            System.err.println("Arc without succecessor! Arc id: " + arc.getId());
-            e.printStackTrace();
-        }
-        return false;
-    }
-
     /**
      * Asks the user for a new name for the specified old name.
      * 
@@ -2483,7 +2612,9 @@ public class GuiModelController implements IGuiModelController {
 
         String inputValue = JOptionPane.showInputDialog(mainFrame, question, oldName);
 
-        ConsoleLogger.logIfDebug(debug, "inputValue: " + inputValue);
+        if (logger.isDebugEnabled()) {
+            logger.debug("inputValue: " + inputValue);
+        }
         return inputValue;
     }
 
@@ -2816,7 +2947,7 @@ public class GuiModelController implements IGuiModelController {
             // System.err.println(message);
 
             /* -> The expected error */
-            ConsoleLogger.logIfDebug(debug, message);
+            logger.debug(message);
             return null;
         }
 
@@ -2919,6 +3050,8 @@ public class GuiModelController implements IGuiModelController {
 
         /* Check if we have a location. */
         Point popupMenuLocation = currentDrawPanel.getPopupMenuLocation();
+        if (SessionRecorder.isRecording())
+            SessionRecorder.record(ESessionCommand.FIRE_TRANSITION, getCurrentModelName(), popupMenuLocation);
         if (popupMenuLocation == null) {
             System.err.println(
                     "GuiModelController.fireTransition(): Unable to fire transition: popup menu location unknown.");
@@ -3043,6 +3176,77 @@ public class GuiModelController implements IGuiModelController {
         return redoStack;
     }
 
+    /* Paging of inactive models */
+
+    @Override
+    public boolean isPageableModel(String modelName) {
+        IGuiModel model = guiModels.get(modelName);
+        if (model == null || model == this.currentModel)
+            return false;
+        return !model.isModified();
+    }
+
+    @Override
+    public void writeModelPage(String modelName, ObjectOutputStream out) throws IOException {
+        out.writeObject(guiModels.get(modelName));
+        out.writeObject(undoStacks.get(modelName));
+        out.writeObject(redoStacks.get(modelName));
+    }
+
+    @Override
+    public void releaseModel(String modelName) {
+        logger.methodCall("GuiModelController.releaseModel", modelName);
+
+        removeModelFromModelNameDependentMaps(modelName);
+
+        /* The draw panel stays, but without the image of its base layer. */
+        IDrawPanel drawPanel = getDrawPanel(modelName);
+        if (drawPanel != null)
+            drawPanel.releaseCaches();
+    }
+
+    @Override
+    public void readModelPage(String modelName, ObjectInputStream in) throws IOException, ClassNotFoundException {
+        logger.methodCall("GuiModelController.readModelPage", modelName);
+
+        IGuiModel model = (IGuiModel) in.readObject();
+        IGuiModelStack undoStack = (IGuiModelStack) in.readObject();
+        IGuiModelStack redoStack = (IGuiModelStack) in.readObject();
+
+        updateModelInModelNameDependentMaps(modelName, model);
+        if (undoStack != null)
+            undoStacks.put(modelName, undoStack);
+        if (redoStack != null)
+            redoStacks.put(modelName, redoStack);
+    }
+
+    /* Statistics for the monitoring */
+
+    @Override
+    public int getUndoStackSize(String modelName) {
+        IGuiModelStack undoStack = undoStacks.get(modelName);
+        if (undoStack == null)
+            return -1;
+        return undoStack.size();
+    }
+
+    @Override
+    public int getRedoStackSize(String modelName) {
+        IGuiModelStack redoStack = redoStacks.get(modelName);
+        if (redoStack == null)
+            return -1;
+        return redoStack.size();
+    }
+
+    @Override
+    public long getUndoRedoEstimatedBytes(String modelName) {
+        IGuiModelStack undoStack = undoStacks.get(modelName);
+        IGuiModelStack redoStack = redoStacks.get(modelName);
+        if (undoStack == null || redoStack == null)
+            return -1;
+        return undoStack.getEstimatedBytes() + redoStack.getEstimatedBytes();
+    }
+
     // Puts an {@link UndoRedoElementBuffer} with the elements of the current
     // {@link IGuiModel} onto the Undo stack ({@link IGuiModelStack}).
     /**
@@ -3065,30 +3269,40 @@ public class GuiModelController implements IGuiModelController {
         if (currentModel == null)
             return 1;
 
-        // UndoRedoElementBuffer elementBuffer = createUndoRedoElementBuffer();
-        // if (elementBuffer == null)
-        // return 2;
-        IGuiModel copy = cloneCurrentModel();
-        if (copy == null)
-            return 2;
-
-        IGuiModelStack undoStack = getCurrentModelUndoStack();
-        if (undoStack == null)
-            return 3;
-
-        /* First: Keep the data model controller up-to-date! */
-        int returnValue = appController.makeDataModelUndoable();
-        if (returnValue != 0) {
-            System.err.println("appController.makeDataModelUndoable() return value: " + returnValue);
-            return returnValue;
-        }
+        IEditorEvent event = EditorEvents.begin(EEditorEventType.MAKE_UNDOABLE);
+        EdtWatchdog.beginOperation("Undo snapshot of " + currentModel.getModelName());
+        try {
+            // UndoRedoElementBuffer elementBuffer = createUndoRedoElementBuffer();
+            // if (elementBuffer == null)
+            // return 2;
+            IGuiModel copy = cloneCurrentModel();
+            if (copy == null)
+                return 2;
+            /* Before the data model controller clones his model! */
+            int copySize = ObjectCloner.getLastSerializedSize();
+
+            IGuiModelStack undoStack = getCurrentModelUndoStack();
+            if (undoStack == null)
+                return 3;
+
+            /* First: Keep the data model controller up-to-date! */
+            int returnValue = appController.makeDataModelUndoable();
+            if (returnValue != 0) {
+                System.err.println("appController.makeDataModelUndoable() return value: " + returnValue);
+                return returnValue;
+            }
 
-        // undoStack.push(elementBuffer);
-        undoStack.push(copy);
+            // undoStack.push(elementBuffer);
+            undoStack.push(copy, copySize);
 
-        appController.enableUndoRedoActions();
+            appController.enableUndoRedoActions();
 
-        return 0;
+            event.commit(currentModel.getModelName(), currentModel.getElementsView().size(),
+                    Integer.toString(copySize));
+            return 0;
+        } finally {
+            EdtWatchdog.endOperation();
+        }
     }
 
     /**
@@ -3147,6 +3361,8 @@ public class GuiModelController implements IGuiModelController {
         IGuiModel copy = cloneCurrentModel();
         if (copy == null)
             return 2;
+        /* Before the data model controller clones his model! */
+        int copySize = ObjectCloner.getLastSerializedSize();
 
         IGuiModelStack redoStack = getCurrentModelRedoStack();
         if (redoStack == null)
@@ -3160,7 +3376,7 @@ public class GuiModelController implements IGuiModelController {
         }
 
         // redoStack.push(elementBuffer);
-        redoStack.push(copy);
+        redoStack.push(copy, copySize);
 
         appController.enableUndoRedoActions();
 
@@ -3218,12 +3434,24 @@ public class GuiModelController implements IGuiModelController {
         appController.enableUndoRedoActions();
     }
 
+    @Override
+    public void makeCurrentModelUndoable() {
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("GuiModelController.makeCurrentModelUndoable");
+        }
+
+        makeUndoable();
+        clearRedoStack();
+    }
+
     @Override
     public void Undo() throws CannotUndoException {
         if (debug) {
             ConsoleLogger.consoleLogMethodCall("GuiModelController.Undo");
         }
 
+        IEditorEvent event = EditorEvents.begin(EEditorEventType.UNDO);
+
         // UndoRedoElementBuffer last = null;
         IGuiModel last = null;
         try {
@@ -3261,6 +3489,8 @@ public class GuiModelController implements IGuiModelController {
 
         /* Repaint (everything) */
         updateDrawing();
+
+        event.commit(last.getModelName(), last.getElementsView().size(), null);
     }
 
     // /**
@@ -3326,6 +3556,8 @@ public class GuiModelController implements IGuiModelController {
             ConsoleLogger.consoleLogMethodCall("GuiModelController.Redo");
         }
 
+        IEditorEvent event = EditorEvents.begin(EEditorEventType.REDO);
+
         // UndoRedoElementBuffer next = null;
         IGuiModel next = null;
         try {
@@ -3363,6 +3595,8 @@ public class GuiModelController implements IGuiModelController {
 
         /* Repaint (everything) */
         updateDrawing();
+
+        event.commit(next.getModelName(), next.getElementsView().size(), null);
     }
 
     // /**
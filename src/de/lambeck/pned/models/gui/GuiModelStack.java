@@ -1,5 +1,6 @@
 package de.lambeck.pned.models.gui;
 
+import java.io.Serializable;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.EmptyStackException;
@@ -10,23 +11,45 @@ import de.lambeck.pned.util.ILIFOStack;
 // UndoRedoElementBuffer}.
 
 /**
- * Implements an {@link ILIFOStack} for items of type {@link IGuiModel}.
+ * Implements an {@link ILIFOStack} for items of type {@link IGuiModel}.<BR>
+ * <BR>
+ * Note: Serializable for the paging of inactive models (together with the
+ * model).
  * 
  * @author Thomas Lambeck, 4128320
  *
  */
-public class GuiModelStack implements IGuiModelStack {
+public class GuiModelStack implements IGuiModelStack, Serializable {
+
+    /** Generated serial version ID (for the paging of inactive models) */
+    private static final long serialVersionUID = 6342081957730482193L;
 
     private final Deque<IGuiModel> deque = new ArrayDeque<IGuiModel>();
 
+    /** The estimated sizes of the items (same order as the items) */
+    private final Deque<Long> sizes = new ArrayDeque<Long>();
+
+    /** The sum of all estimated sizes */
+    private long estimatedBytes = 0;
+
     @Override
     public void push(IGuiModel item) {
+        push(item, 0);
+    }
+
+    @Override
+    @SuppressWarnings("hiding")
+    public void push(IGuiModel item, long estimatedBytes) {
         deque.addFirst(item);
+        sizes.addFirst(estimatedBytes);
+        this.estimatedBytes += estimatedBytes;
     }
 
     @Override
     public IGuiModel pop() throws EmptyStackException {
-        return deque.removeFirst();
+        IGuiModel item = deque.removeFirst();
+        this.estimatedBytes -= sizes.removeFirst();
+        return item;
     }
 
     @Override
@@ -42,6 +65,18 @@ public class GuiModelStack implements IGuiModelStack {
     @Override
     public void clear() {
         deque.clear();
+        sizes.clear();
+        this.estimatedBytes = 0;
+    }
+
+    @Override
+    public int size() {
+        return deque.size();
+    }
+
+    @Override
+    public long getEstimatedBytes() {
+        return this.estimatedBytes;
     }
 
 }
@@ -10,6 +10,7 @@ import de.lambeck.pned.elements.gui.IGuiArc;
 import de.lambeck.pned.elements.gui.IGuiElement;
 import de.lambeck.pned.elements.gui.IGuiNode;
 import de.lambeck.pned.gui.statusBar.StatusBar;
+import de.lambeck.pned.models.gui.overlay.PerformanceHudOverlay;
 
 /**
  * Interface for draw panels for GUI models.
@@ -50,10 +51,78 @@ public interface IDrawPanel {
      * Tells the draw panel to update its content.
      * 
      * @param area
-     *            The area to update; set to null for complete repaint
+     *            The area to update (in model coordinates); set to null for
+     *            complete repaint
      */
     void updateDrawing(Rectangle area);
 
+    /* Performance HUD */
+
+    /**
+     * Shows the specified performance HUD on top of this draw panel or hides
+     * the current one.
+     * 
+     * @param hud
+     *            The {@link PerformanceHudOverlay}; null to hide it
+     */
+    void setPerformanceHud(PerformanceHudOverlay hud);
+
+    /**
+     * Returns whether the performance HUD is shown or not.
+     * 
+     * @return True if shown; otherwise false
+     */
+    boolean isPerformanceHudVisible();
+
+    /* Zoom and pan */
+
+    /**
+     * Returns the zoom factor of this draw panel.
+     * 
+     * @return The zoom factor (1.0 = 100%)
+     */
+    double getZoom();
+
+    /**
+     * Changes the zoom factor by the specified factor. The point of the model
+     * at the specified location stays at this location on the screen.
+     * 
+     * @param factor
+     *            The factor (&gt; 1: zoom in; &lt; 1: zoom out)
+     * @param viewLocation
+     *            The location on this draw panel (e.g. the mouse position)
+     */
+    void zoomAt(double factor, Point viewLocation);
+
+    /**
+     * Moves the visible part of this draw panel (within the scroll pane).
+     * 
+     * @param dx
+     *            The distance in x direction (in pixels on the screen)
+     * @param dy
+     *            The distance in y direction (in pixels on the screen)
+     */
+    void panBy(int dx, int dy);
+
+    /**
+     * Converts a location on this draw panel (e.g. of a mouse event) to model
+     * coordinates (the coordinates of the elements).
+     * 
+     * @param p
+     *            The {@link Point} in view coordinates
+     * @return The {@link Point} in model coordinates
+     */
+    Point viewToModel(Point p);
+
+    /**
+     * Converts an area in model coordinates to the area on this draw panel.
+     * 
+     * @param r
+     *            The {@link Rectangle} in model coordinates
+     * @return The {@link Rectangle} in view coordinates
+     */
+    Rectangle modelToView(Rectangle r);
+
     /**
      * Returns the location of the mousePressed event stored by
      * setMousePressedLocation(p).
@@ -168,6 +237,14 @@ public interface IDrawPanel {
      */
     void resetState();
 
+    /**
+     * Releases the memory of the caches of this draw panel (e.g. the image of
+     * the base layer). They will be created again when needed.<BR>
+     * <BR>
+     * Note: Used for inactive tabs whose model was paged out.
+     */
+    void releaseCaches();
+
     /**
      * Returns the minimum Z value (height level) over all elements in this draw
      * panels current {@link IGuiModel}.<BR>
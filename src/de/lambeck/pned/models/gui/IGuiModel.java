@@ -1,10 +1,13 @@
 package de.lambeck.pned.models.gui;
 
+import java.awt.Point;
 import java.awt.Rectangle;
+import java.util.Collection;
 import java.util.List;
 
 import de.lambeck.pned.elements.data.DataPlace;
 import de.lambeck.pned.elements.data.IDataNode;
+import de.lambeck.pned.elements.gui.IGuiArc;
 import de.lambeck.pned.elements.gui.IGuiElement;
 import de.lambeck.pned.elements.gui.IGuiNode;
 import de.lambeck.pned.elements.gui.IGuiPlace;
@@ -35,6 +38,21 @@ public interface IGuiModel extends IModel {
      */
     List<IGuiElement> getElements();
 
+    /**
+     * Returns a read-only view of all {@link IGuiElement} in this
+     * {@link IGuiModel} in z order (lowest first). Unlike getElements(), this
+     * creates no copy, so it is intended for frequent loops (e.g. painting).
+     * <BR>
+     * <BR>
+     * Note: The view fails fast: Iterating it while the model is modified
+     * (e.g. removing elements in the loop) throws a
+     * {@link java.util.ConcurrentModificationException}. Use getElements()
+     * (a snapshot) in this case or on threads other than the EDT.
+     * 
+     * @return An unmodifiable {@link Collection} of {@link IGuiElement}
+     */
+    Collection<IGuiElement> getElementsView();
+
     // @Override
     /**
      * Returns a list with all selected {@link IGuiElement} in this
@@ -44,6 +62,14 @@ public interface IGuiModel extends IModel {
      */
     List<IGuiElement> getSelectedElements();
 
+    /**
+     * Returns the number of selected {@link IGuiElement}. (Without a copy of
+     * the selection like getSelectedElements().)
+     * 
+     * @return The number of selected elements
+     */
+    int getSelectionSize();
+
     /**
      * Returns the {@link IGuiElement} with the specified id.
      * 
@@ -141,16 +167,51 @@ public interface IGuiModel extends IModel {
      */
     int getIncrMaxZ();
 
+    /**
+     * Changes the Z value (height level) of the specified {@link IGuiElement}
+     * and moves it to its new position in the order of all elements.<BR>
+     * <BR>
+     * Note: Z values of elements in this model must only be changed with this
+     * method!
+     * 
+     * @param element
+     *            The specified {@link IGuiElement}
+     * @param newZValue
+     *            The new Z value
+     */
+    void setZValue(IGuiElement element, int newZValue);
+
+    /**
+     * Returns the neighbor in z direction of the specified
+     * {@link IGuiElement}. (The element with the next higher or lower Z
+     * value)
+     * 
+     * @param element
+     *            The specified {@link IGuiElement}
+     * @param upwards
+     *            true: return the neighbor upwards; false: return the neighbor
+     *            downwards
+     * @return The neighbor; null if the specified element is already on the
+     *         highest/lowest layer
+     */
+    IGuiElement getZValueNeighbor(IGuiElement element, boolean upwards);
+
     /* Sorting (for proper display on the draw panel) */
 
     /**
-     * Sorts the List of elements with ascending z values (Height level).
+     * Sorts the List of elements with ascending z values (Height level).<BR>
+     * <BR>
+     * Note: The elements are always kept in this order. So this is only
+     * necessary if Z values have been changed without setZValue().
      */
     void sortElements();
 
     /**
      * Sorts the List of selected elements with ascending z values (Height
-     * level).
+     * level).<BR>
+     * <BR>
+     * Note: getSelectedElements() always returns the selection sorted by z
+     * value. So this is not necessary anymore.
      */
     void sortSelectedElements();
 
@@ -190,6 +251,112 @@ public interface IGuiModel extends IModel {
      */
     void clearSelection();
 
+    /* Bulk operations (the invoker has to update the drawing only once) */
+
+    /**
+     * Selects all {@link IGuiElement} in this {@link IGuiModel}.
+     * 
+     * @return A {@link List} of the elements which have been selected by this
+     *         call (not selected before)
+     */
+    List<IGuiElement> selectAllElements();
+
+    /**
+     * Adds all specified {@link IGuiElement} to the selection.
+     * 
+     * @param toBeSelected
+     *            The elements to add
+     * @return A {@link List} of the elements which have been selected by this
+     *         call (not selected before)
+     */
+    List<IGuiElement> addToSelection(Collection<? extends IGuiElement> toBeSelected);
+
+    /**
+     * Removes all specified {@link IGuiElement} from the selection.
+     * 
+     * @param toBeDeselected
+     *            The elements to remove
+     * @return A {@link List} of the elements which have been de-selected by
+     *         this call (selected before)
+     */
+    List<IGuiElement> removeFromSelection(Collection<? extends IGuiElement> toBeDeselected);
+
+    /**
+     * Inverts the selection: Selects all elements which are not selected and
+     * de-selects all selected elements.
+     * 
+     * @return A {@link List} of the elements whose state has been changed (all
+     *         elements)
+     */
+    List<IGuiElement> invertSelection();
+
+    /* Spatial index */
+
+    /**
+     * Returns the topmost {@link IGuiElement} (highest z value) at the
+     * specified point.<BR>
+     * <BR>
+     * Note: Uses a spatial index, so only the elements near the point are
+     * tested.
+     * 
+     * @param p
+     *            The {@link Point}
+     * @return The topmost {@link IGuiElement}; null if there is no element at
+     *         this point
+     */
+    IGuiElement getElementAtLocation(Point p);
+
+    /**
+     * Returns all {@link IGuiElement} which intersect the specified area, in
+     * z order (lowest first). Used to paint only the visible part (the clip)
+     * of the draw panel.<BR>
+     * <BR>
+     * Note: Uses a spatial index, so only the elements near the area are
+     * tested.
+     * 
+     * @param area
+     *            The {@link Rectangle}
+     * @return A read-only {@link Collection} of {@link IGuiElement} (the view
+     *         of all elements if the area contains all elements, see
+     *         getElementsView())
+     */
+    Collection<IGuiElement> getElementsInArea(Rectangle area);
+
+    /**
+     * Returns the area taken up by all elements. (May be larger than needed
+     * after elements have been removed or moved.)
+     * 
+     * @return A {@link Rectangle}; null if there are no elements
+     */
+    Rectangle getElementsExtent();
+
+    /**
+     * Updates the spatial index for the specified {@link IGuiElement}.<BR>
+     * <BR>
+     * Note: Must be invoked after each change of position or name of a node
+     * and for all adjacent arcs of moved nodes.
+     * 
+     * @param element
+     *            The {@link IGuiElement} with new bounds
+     */
+    void elementBoundsChanged(IGuiElement element);
+
+    /* Adjacency */
+
+    /**
+     * Returns all {@link IGuiArc} which are adjacent to at least one of the
+     * specified nodes. (Each arc only once, even if both nodes are in the
+     * collection.)<BR>
+     * <BR>
+     * Note: The arcs of each node are stored in this model, so this needs
+     * only time proportional to the number of adjacent arcs.
+     * 
+     * @param nodes
+     *            The {@link Collection} of {@link IGuiNode}
+     * @return A new {@link List} of {@link IGuiArc}
+     */
+    List<IGuiArc> getAdjacentArcs(Collection<? extends IGuiNode> nodes);
+
     /* Validation events */
 
     /**
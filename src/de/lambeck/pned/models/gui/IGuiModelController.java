@@ -16,11 +16,13 @@ import de.lambeck.pned.elements.EPlaceToken;
 import de.lambeck.pned.elements.data.IDataNode;
 import de.lambeck.pned.elements.data.IDataTransition;
 import de.lambeck.pned.elements.gui.*;
+import de.lambeck.pned.filesystem.paging.IPageableModelController;
 import de.lambeck.pned.gui.menuBar.MenuBar;
 import de.lambeck.pned.gui.settings.SizeSlider;
 import de.lambeck.pned.models.data.IDataModel;
 import de.lambeck.pned.models.data.IDataModelController;
 import de.lambeck.pned.models.gui.overlay.IDrawArcOverlay;
+import de.lambeck.pned.monitoring.IUndoRedoStatistics;
 
 /**
  * Interface for controllers for GUI models representing a Petri net. This means
@@ -31,7 +33,8 @@ import de.lambeck.pned.models.gui.overlay.IDrawArcOverlay;
  *
  */
 public interface IGuiModelController
-        extends IInfo_MousePos, IInfo_SelectionRangeSize, IInfo_DrawingAreaSize, IInfo_Status {
+        extends IInfo_MousePos, IInfo_SelectionRangeSize, IInfo_DrawingAreaSize, IInfo_Status, IUndoRedoStatistics,
+        IPageableModelController {
 
     /**
      * Adds a GUI model for a non-existing file.<BR>
@@ -330,6 +333,19 @@ public interface IGuiModelController
      */
     void renameSelectedGuiNode();
 
+    /**
+     * Renames the specified node in the current GUI model and passes the new
+     * name to the data model.<BR>
+     * <BR>
+     * Note: No Undo + Redo. (The caller has to make the models undoable.)
+     * 
+     * @param nodeId
+     *            The id of the node
+     * @param newName
+     *            The new name
+     */
+    void renameGuiNode(String nodeId, String newName);
+
     /**
      * Tells the GUI model controller that an area has changed and needs
      * repainting.
@@ -358,6 +374,18 @@ public interface IGuiModelController
      */
     void removeGuiArc(String arcId);
 
+    /**
+     * Removes the specified element from the current GUI model and passes the
+     * removal to the data model. (The data model controller removes adjacent
+     * arcs of nodes.)<BR>
+     * <BR>
+     * Note: No Undo + Redo. (The caller has to make the models undoable.)
+     * 
+     * @param elementId
+     *            The id of the element
+     */
+    void removeGuiElement(String elementId);
+
     // /**
     // * Removes all elements from the current GUI model.
     // */
@@ -400,6 +428,15 @@ public interface IGuiModelController
      */
     void selectAllGuiElements();
 
+    /**
+     * Inverts the selection of all {@link IGuiElement} in the current
+     * {@link IGuiModel}/{@link IDrawPanel}.<BR>
+     * <BR>
+     * Note: Updates the drawing and the Actions only once (not for each
+     * element).
+     */
+    void invertGuiElementSelection();
+
     /**
      * Callback for the {@link DrawPanel}.
      * 
@@ -417,6 +454,19 @@ public interface IGuiModelController
      */
     void updateDataNodePositions();
 
+    /**
+     * Moves the specified node in the current GUI model to the specified
+     * position and passes the new position to the data model.<BR>
+     * <BR>
+     * Note: No Undo + Redo. (The caller has to make the models undoable.)
+     * 
+     * @param nodeId
+     *            The id of the node
+     * @param newPosition
+     *            The new position
+     */
+    void moveGuiNode(String nodeId, Point newPosition);
+
     /* Keyboard events */
 
     // /**
@@ -725,6 +775,17 @@ public interface IGuiModelController
      */
     boolean canRedo();
 
+    /**
+     * Stores the current state of the current {@link IGuiModel} (and of the
+     * current {@link IDataModel}) on the Undo stack and clears the Redo
+     * stack.<BR>
+     * <BR>
+     * Note: This is intended to be used before a series of changes which are
+     * made without Undo + Redo (e.g. moveGuiNode) and should be undone as one
+     * edit.
+     */
+    void makeCurrentModelUndoable();
+
     /**
      * Undoes the last edit in the current {@link IGuiModel} and invokes Undo on
      * the {@link IDataModelController}.
@@ -5,6 +5,7 @@ import java.awt.Point;
 import java.awt.Toolkit;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.util.Map;
 import java.util.TimerTask;
 
@@ -23,6 +24,7 @@ import de.lambeck.pned.gui.popupMenu.PopupMenuForEmptyAreas;
 import de.lambeck.pned.gui.popupMenu.PopupMenuForPlaces;
 import de.lambeck.pned.gui.popupMenu.PopupMenuForTransitions;
 import de.lambeck.pned.util.ConsoleLogger;
+import de.lambeck.pned.util.logging.Logger;
 
 /*
  * Thomas Lambeck: On Windows 7, the PopupTrigger fires at mouseReleased(). On
@@ -73,11 +75,20 @@ import de.lambeck.pned.util.ConsoleLogger;
  * &nbsp;&nbsp;&nbsp;&nbsp;- At empty space:<BR>
  * &nbsp;&nbsp;&nbsp;&nbsp;- Show popup for creation of new nodes.<BR>
  * <BR>
+ * - Middle mouse button held down:<BR>
+ * &nbsp;&nbsp;- Moves the visible area (pan)<BR>
+ * <BR>
+ * - Mouse wheel + CTRL:<BR>
+ * &nbsp;&nbsp;- Zoom in/out at the mouse position<BR>
+ * <BR>
  * Actions for mouse motion events:<BR>
  * - Primary mouse button held down for more than 0.5 seconds:<BR>
  * &nbsp;&nbsp;- At a node:<BR>
  * &nbsp;&nbsp;&nbsp;&nbsp;- Dragging<BR>
  * <BR>
+ * Note: All locations passed to the DrawPanel and the GUI model controller are
+ * converted to model coordinates (see IDrawPanel.viewToModel()).<BR>
+ * <BR>
  * Holds references to its DrawPanel and the GUI model controller to use their
  * methods to decide which popup menu is suitable for the current element.
  * (Depends on the type of element at the location of the popup trigger.)<BR>
@@ -93,6 +104,9 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
     /** Show debug messages? */
     private static boolean debug = false;
 
+    /** The {@link Logger} of this class (DEBUG = show debug messages) */
+    private static final Logger logger = Logger.getLogger(MyMouseAdapter.class);
+
     /**
      * The delay (in milliseconds) before switching to dragging mode if the user
      * keeps holding the left mouse button down. (Now set to OS double click
@@ -127,6 +141,9 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
      */
     private boolean drawArcMode = false;
 
+    /** The last location (on the screen) while panning; null if not panning */
+    private Point panLocation = null;
+
     /* Constructor etc. */
 
     /**
@@ -174,8 +191,12 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
      */
     private int getSystemDoubleClickInterval() {
         /* https://stackoverflow.com/a/4577475 */
-        int clickInterval = (Integer) Toolkit.getDefaultToolkit().getDesktopProperty("awt.multiClickInterval");
-        ConsoleLogger.logIfDebug(debug, "Operating System clickInterval: " + clickInterval);
+        Object property = Toolkit.getDefaultToolkit().getDesktopProperty("awt.multiClickInterval");
+        /* Not set without a display (headless session replay): AWT default */
+        int clickInterval = (property instanceof Integer) ? (Integer) property : 500;
+        if (logger.isDebugEnabled()) {
+            logger.debug("Operating System clickInterval: " + clickInterval);
+        }
         return clickInterval;
     }
 
@@ -187,6 +208,12 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
             ConsoleLogger.consoleLogMethodCall("MyMouseAdapter.mousePressed", e);
         }
 
+        /* Middle mouse button: pan */
+        if (SwingUtilities.isMiddleMouseButton(e)) {
+            this.panLocation = e.getLocationOnScreen();
+            return;
+        }
+
         /* Reset the last popup menu location! */
         myDrawPanel.setPopupMenuLocation(null);
 
@@ -195,7 +222,7 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
              * Let the GUI model controller check whether the user has clicked
              * on the 2nd node for a new arc or not.
              */
-            myGuiController.checkDrawArcFinalEndLocation(e.getPoint());
+            myGuiController.checkDrawArcFinalEndLocation(getModelLocation(e));
             deactivateDrawArcMode();
 
             // TODO Check: Is it correct to return already and do nothing more?
@@ -203,7 +230,7 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
         }
 
         if (SwingUtilities.isRightMouseButton(e)) {
-            ConsoleLogger.logIfDebug(debug, "Right mouse button");
+            logger.debug("Right mouse button");
 
             /* Deactivate "draw new arc" mode if necessary. */
             if (drawArcMode)
@@ -214,7 +241,7 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
 
         } else {
             /* Store the location of the mousePressed event. */
-            myDrawPanel.setMousePressedLocation(e.getPoint());
+            myDrawPanel.setMousePressedLocation(getModelLocation(e));
 
             if (debug) {
                 Point p = myDrawPanel.getMousePressedLocation();
@@ -229,14 +256,14 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
             if (timer == null) {
                 timer = new java.util.Timer();
                 String message = "New Timer scheduled.";
-                ConsoleLogger.logIfDebug(debug, message);
+                logger.debug(message);
             }
             timer.schedule(new TimerTask() {
                 @Override
                 public void run() {
                     myDrawPanel.setStateMouseDragMode(true);
                     String message = "Timer has activated dragging on the draw panel.";
-                    ConsoleLogger.logIfDebug(debug, message);
+                    logger.debug(message);
                 }
             }, DRAGGING_WAIT_TIME);
 
@@ -250,10 +277,19 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
             ConsoleLogger.consoleLogMethodCall("MyMouseAdapter.mouseDragged", e);
         }
 
+        /* Panning? (Uses screen coordinates because the view is moving.) */
+        if (panLocation != null) {
+            Point newPanLocation = e.getLocationOnScreen();
+            myDrawPanel.panBy(newPanLocation.x - panLocation.x, newPanLocation.y - panLocation.y);
+            this.panLocation = newPanLocation;
+            return;
+        }
+
         /* We drag only in the drag mode. */
         boolean dragMode = myDrawPanel.getStateMouseDragMode();
-        String message = "mouseDragMode: " + dragMode;
-        ConsoleLogger.logIfDebug(debug, message);
+        if (logger.isDebugEnabled()) {
+            logger.debug("mouseDragMode: " + dragMode);
+        }
         if (!dragMode)
             return;
 
@@ -271,14 +307,14 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
             myDrawPanel.setMouseDraggedFrom(mouseDraggedFrom);
         }
 
-        Point mouseDraggedTo = e.getPoint();
+        Point mouseDraggedTo = getModelLocation(e);
         myDrawPanel.setMouseDraggedTo(mouseDraggedTo);
 
         /* Inform the GUI controller that dragging has happened. */
         int distance_x = mouseDraggedTo.x - mouseDraggedFrom.x;
         int distance_y = mouseDraggedTo.y - mouseDraggedFrom.y;
         if (debug) {
-            message = "mouseDragged: " + distance_x + ", " + distance_y;
+            String message = "mouseDragged: " + distance_x + ", " + distance_y;
             ConsoleLogger.logAlways(message);
         }
 
@@ -295,6 +331,12 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
             ConsoleLogger.consoleLogMethodCall("MyMouseAdapter.mouseReleased", e);
         }
 
+        /* End of panning */
+        if (SwingUtilities.isMiddleMouseButton(e)) {
+            this.panLocation = null;
+            return;
+        }
+
         /*
          * Cancel the mouse pressed timer. And if we were in "drag mode":
          * deactivate it and set dragOperationCompleted = true!
@@ -305,20 +347,20 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
                 timer.cancel();
                 timer = null;
                 String message = "Timer has been canceled.";
-                ConsoleLogger.logIfDebug(debug, message);
+                logger.debug(message);
 
                 boolean dragging = myDrawPanel.getStateMouseDragMode();
                 if (dragging) {
                     myDrawPanel.setStateMouseDragMode(false);
                     dragOperationCompleted = true;
                     message = "Dragging canceled/completed.";
-                    ConsoleLogger.logIfDebug(debug, message);
+                    logger.debug(message);
                 }
             }
         }
 
         if (SwingUtilities.isRightMouseButton(e)) {
-            ConsoleLogger.logIfDebug(debug, "Right mouse button");
+            logger.debug("Right mouse button");
 
             /* Show popup? */
             showPopupIfPopupTrigger(e); // Windows
@@ -339,8 +381,8 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
                 if (debug) {
                     /* Calculate the complete way the mouse has traveled. */
                     Point p = myDrawPanel.getInitialDraggedFrom();
-                    int distance_x = e.getPoint().x - p.x;
-                    int distance_y = e.getPoint().y - p.y;
+                    int distance_x = getModelLocation(e).x - p.x;
+                    int distance_y = getModelLocation(e).y - p.y;
                     String message = "Mouse traveled: " + distance_x + "," + distance_y;
                     ConsoleLogger.logAlways(message);
                 }
@@ -354,7 +396,7 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
                 /* One complete update of the drawing to make sure. */
                 myDrawPanel.updateDrawing(null);
 
-                ConsoleLogger.logIfDebug(debug, "mouseReleased event used.");
+                logger.debug("mouseReleased event used.");
 
             }
 
@@ -373,8 +415,8 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
             ConsoleLogger.consoleLogMethodCall("MyMouseAdapter.mouseClicked", e);
         }
 
-        if (SwingUtilities.isRightMouseButton(e)) {
-            /* Ignore mouseClicked completely for right mouse button. */
+        if (SwingUtilities.isRightMouseButton(e) || SwingUtilities.isMiddleMouseButton(e)) {
+            /* Ignore mouseClicked completely for right and middle button. */
             return;
 
         } else {
@@ -397,9 +439,8 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
                  * mousePressedLocation == null if we just have left the
                  * "draw new arc" mode with the last mousePressed event.
                  */
-                String message = "MyMouseAdapter.mouseClicked(): mousePressedLocation == null";
-                message = message + " (\"draw new arc\" mode left?)";
-                ConsoleLogger.logIfDebug(debug, message);
+                logger.debug("MyMouseAdapter.mouseClicked(): mousePressedLocation == null"
+                        + " (\"draw new arc\" mode left?)");
                 return;
             }
 
@@ -428,22 +469,50 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
     @Override
     public void mouseMoved(MouseEvent e) {
         /* Always update the mouse position info. */
-        myDrawPanel.updateMousePos(e.getPoint());
+        myDrawPanel.updateMousePos(getModelLocation(e));
 
         /* Show tool tip on nodes. */
         showTooltip(e);
 
         /* Update the overlay if we are in "draw new arc" mode. */
         if (drawArcMode) {
-            myGuiController.updateDrawArcCurrentEndLocation(e.getPoint());
+            myGuiController.updateDrawArcCurrentEndLocation(getModelLocation(e));
+        }
+    }
+
+    @Override
+    public void mouseWheelMoved(MouseWheelEvent e) {
+        if (!e.isControlDown()) {
+            /* Normal scrolling: pass the event to the scroll pane. */
+            Component source = e.getComponent();
+            Component parent = source.getParent();
+            if (parent != null)
+                parent.dispatchEvent(SwingUtilities.convertMouseEvent(source, e, parent));
+            return;
         }
+
+        /* CTRL: zoom (10% per notch) */
+        double factor = Math.pow(1.1, -e.getPreciseWheelRotation());
+        myDrawPanel.zoomAt(factor, e.getPoint());
+    }
+
+    /**
+     * Returns the location of the specified {@link MouseEvent} in model
+     * coordinates.
+     * 
+     * @param e
+     *            The {@link MouseEvent}
+     * @return The {@link Point} in model coordinates
+     */
+    private Point getModelLocation(MouseEvent e) {
+        return myDrawPanel.viewToModel(e.getPoint());
     }
 
     /* Interface PopupMenuListener */
 
     @Override
     public void popupMenuCanceled(PopupMenuEvent arg0) {
-        ConsoleLogger.logIfDebug(debug, "popupMenuCanceled()");
+        logger.debug("popupMenuCanceled()");
 
         /* arg0.getSource() is the same for Escape and another mouse event! */
         // this.popupMenuCanceled = true;
@@ -451,12 +520,12 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
 
     @Override
     public void popupMenuWillBecomeInvisible(PopupMenuEvent arg0) {
-        ConsoleLogger.logIfDebug(debug, "popupMenuWillBecomeInvisible()");
+        logger.debug("popupMenuWillBecomeInvisible()");
     }
 
     @Override
     public void popupMenuWillBecomeVisible(PopupMenuEvent arg0) {
-        ConsoleLogger.logIfDebug(debug, "popupMenuWillBecomeVisible()");
+        logger.debug("popupMenuWillBecomeVisible()");
     }
 
     /* Methods for mouseMove */
@@ -469,7 +538,7 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
      *            The {@link MouseEvent}
      */
     private void showTooltip(MouseEvent e) {
-        IGuiElement element = myGuiController.getSelectableElementAtLocation(e.getPoint());
+        IGuiElement element = myGuiController.getSelectableElementAtLocation(getModelLocation(e));
         if (element == null) {
             myDrawPanel.setToolTipText(null);
             return;
@@ -527,14 +596,15 @@ public class MyMouseAdapter extends MouseAdapter implements PopupMenuListener {
      */
     private void showPopupIfPopupTrigger(MouseEvent e) {
         if (e.isPopupTrigger()) {
-            JPopupMenu popupMenu = getPopupMenu(e.getPoint());
+            JPopupMenu popupMenu = getPopupMenu(getModelLocation(e));
             if (popupMenu == null)
                 return;
 
-            Point p = e.getPoint();
-            myDrawPanel.setPopupMenuLocation(p);
+            /* Model coordinates for the new elements, view for the menu */
+            myDrawPanel.setPopupMenuLocation(getModelLocation(e));
 
             Component invoker = e.getComponent();
+            Point p = e.getPoint();
             int x = p.x;
             int y = p.y;
             popupMenu.show(invoker, x, y);
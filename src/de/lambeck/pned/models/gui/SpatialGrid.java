@@ -0,0 +1,351 @@
+package de.lambeck.pned.models.gui;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.*;
+
+import de.lambeck.pned.elements.gui.IGuiElement;
+
+/**
+ * Spatial index for the {@link IGuiElement} of a {@link GuiModel}: A uniform
+ * grid of square cells. Each element is registered in all cells which are
+ * covered by its bounds.<BR>
+ * <BR>
+ * Point queries only have to test the elements of one cell, area queries only
+ * the elements of the covered cells. (Elements which cover too many cells are
+ * stored in a separate list and tested on every query.)
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+class SpatialGrid {
+
+    /** The width and height of the cells */
+    static final int CELL_SIZE = 128;
+
+    /** Max. number of cells for one element (larger: "oversized" list) */
+    private static final int MAX_CELLS_PER_ELEMENT = 256;
+
+    /** The entries in each (non-empty) cell by cell key */
+    private Map<Long, List<Entry>> cells = new HashMap<Long, List<Entry>>();
+
+    /** The entries which cover too many cells (or have no bounds) */
+    private List<Entry> oversized = new ArrayList<Entry>();
+
+    /** The entry of each element */
+    private Map<IGuiElement, Entry> entries = new IdentityHashMap<IGuiElement, Entry>();
+
+    /**
+     * The union of the bounds of all elements which have been added. (Does
+     * not shrink if elements are removed or moved.)
+     */
+    private Rectangle extent = null;
+
+    /**
+     * An element with its bounds and its range of cells. (The same entry is
+     * stored in all cells of the element, so queries need no lookup of the
+     * bounds.)
+     */
+    private static class Entry {
+        /** The element */
+        final IGuiElement element;
+
+        /** The bounds; null if unknown */
+        Rectangle bounds = null;
+
+        /** The range of covered cells; null if there are no bounds */
+        Rectangle range = null;
+
+        /**
+         * @param element
+         *            The {@link IGuiElement}
+         */
+        @SuppressWarnings("hiding")
+        Entry(IGuiElement element) {
+            this.element = element;
+        }
+    }
+
+    /**
+     * Adds the specified element or updates its cells if it is already in this
+     * grid.
+     *
+     * @param element
+     *            The {@link IGuiElement}
+     * @param bounds
+     *            The bounds of the element; null if unknown (will be tested on
+     *            every query)
+     */
+    void put(IGuiElement element, Rectangle bounds) {
+        Rectangle newBounds = (bounds == null) ? null : new Rectangle(bounds);
+        Rectangle newRange = getCellRange(newBounds);
+
+        if (newBounds != null) {
+            if (extent == null) {
+                extent = new Rectangle(newBounds);
+            } else {
+                extent.add(newBounds);
+            }
+        }
+
+        Entry entry = entries.get(element);
+        if (entry == null) {
+            entry = new Entry(element);
+            entries.put(element, entry);
+        } else {
+            if (Objects.equals(entry.range, newRange)) {
+                entry.bounds = newBounds;
+                return; // Still in the same cells
+            }
+            removeFromCells(entry);
+        }
+
+        entry.bounds = newBounds;
+        entry.range = newRange;
+        addToCells(entry);
+    }
+
+    /**
+     * Removes the specified element from this grid.
+     *
+     * @param element
+     *            The {@link IGuiElement}
+     */
+    void remove(IGuiElement element) {
+        Entry entry = entries.remove(element);
+        if (entry != null)
+            removeFromCells(entry);
+    }
+
+    /**
+     * Returns the topmost element (highest z value) which contains the
+     * specified point.
+     *
+     * @param p
+     *            The {@link Point}
+     * @return The {@link IGuiElement}; null if no element contains the point
+     */
+    IGuiElement getTopmostElementAt(Point p) {
+        IGuiElement found = null;
+
+        List<Entry> cell = cells.get(getCellKey(floorDiv(p.x), floorDiv(p.y)));
+        if (cell != null)
+            found = getTopmost(cell, p, found);
+
+        return getTopmost(oversized, p, found);
+    }
+
+    /**
+     * Returns all elements whose bounds intersect the specified area, sorted
+     * by z value and id (lowest first, the order for painting; like the
+     * elements of the {@link GuiModel}).<BR>
+     * <BR>
+     * Note: Elements without bounds are always returned.
+     *
+     * @param area
+     *            The {@link Rectangle}
+     * @return A new {@link List} of {@link IGuiElement}
+     */
+    List<IGuiElement> getElementsIn(Rectangle area) {
+        List<IGuiElement> result = new ArrayList<IGuiElement>();
+
+        Rectangle range = getCellRange(area);
+        if ((long) range.width * range.height <= cells.size()) {
+            /* Visit the covered cells. */
+            for (int cx = range.x; cx < range.x + range.width; cx++) {
+                for (int cy = range.y; cy < range.y + range.height; cy++) {
+                    List<Entry> cell = cells.get(getCellKey(cx, cy));
+                    if (cell != null)
+                        addIntersecting(cell, cx, cy, area, range, result);
+                }
+            }
+        } else {
+            /* Large area: visit the non-empty cells only. */
+            for (Map.Entry<Long, List<Entry>> cell : cells.entrySet()) {
+                long key = cell.getKey();
+                int cx = (int) (key >> 32);
+                int cy = (int) key;
+                if (range.contains(cx, cy))
+                    addIntersecting(cell.getValue(), cx, cy, area, range, result);
+            }
+        }
+        for (Entry entry : oversized) {
+            if (entry.bounds == null || entry.bounds.intersects(area))
+                result.add(entry.element);
+        }
+
+        if (result.size() > 1)
+            Collections.sort(result, GuiModel.Z_VALUE_ORDER);
+        return result;
+    }
+
+    /**
+     * @return The union of the bounds of all elements which have been added;
+     *         null if there was no element with bounds
+     */
+    Rectangle getExtent() {
+        return (extent == null) ? null : new Rectangle(extent);
+    }
+
+    /**
+     * @return The number of elements in this grid
+     */
+    int size() {
+        return entries.size();
+    }
+
+    /* Private helpers */
+
+    /**
+     * Returns the topmost of the specified candidates (including the previous
+     * result) which contains the specified point.
+     *
+     * @param candidates
+     *            The candidates
+     * @param p
+     *            The {@link Point}
+     * @param found
+     *            The previous result (or null)
+     * @return The topmost element; null if there is none
+     */
+    private static IGuiElement getTopmost(List<Entry> candidates, Point p, IGuiElement found) {
+        for (Entry entry : candidates) {
+            IGuiElement element = entry.element;
+            if (found != null && element.getZValue() < found.getZValue())
+                continue;
+            if (element.contains(p))
+                found = element;
+        }
+        return found;
+    }
+
+    /**
+     * Adds the entries of the specified cell which intersect the area to the
+     * result.<BR>
+     * <BR>
+     * Note: An element is only added in the first of its cells (lowest x, then
+     * lowest y) inside the queried range of cells. So every element is added
+     * only once without a set of the elements found so far.
+     *
+     * @param cell
+     *            The entries of the cell
+     * @param cx
+     *            The x coordinate of the cell
+     * @param cy
+     *            The y coordinate of the cell
+     * @param area
+     *            The {@link Rectangle}
+     * @param range
+     *            The queried range of cells
+     * @param result
+     *            The result list
+     */
+    private static void addIntersecting(List<Entry> cell, int cx, int cy, Rectangle area, Rectangle range,
+            List<IGuiElement> result) {
+        for (Entry entry : cell) {
+            if (Math.max(entry.range.x, range.x) != cx || Math.max(entry.range.y, range.y) != cy)
+                continue; // Added in another cell
+            if (entry.bounds.intersects(area))
+                result.add(entry.element);
+        }
+    }
+
+    /**
+     * Adds the entry to all cells of its range.
+     *
+     * @param entry
+     *            The {@link Entry}
+     */
+    private void addToCells(Entry entry) {
+        Rectangle range = entry.range;
+        if (isOversized(range)) {
+            oversized.add(entry);
+            return;
+        }
+
+        for (int cx = range.x; cx < range.x + range.width; cx++) {
+            for (int cy = range.y; cy < range.y + range.height; cy++) {
+                Long key = getCellKey(cx, cy);
+                List<Entry> cell = cells.get(key);
+                if (cell == null) {
+                    cell = new ArrayList<Entry>(4);
+                    cells.put(key, cell);
+                }
+                cell.add(entry);
+            }
+        }
+    }
+
+    /**
+     * Removes the entry from all cells of its range.
+     *
+     * @param entry
+     *            The {@link Entry}
+     */
+    private void removeFromCells(Entry entry) {
+        Rectangle range = entry.range;
+        if (isOversized(range)) {
+            oversized.remove(entry);
+            return;
+        }
+
+        for (int cx = range.x; cx < range.x + range.width; cx++) {
+            for (int cy = range.y; cy < range.y + range.height; cy++) {
+                Long key = getCellKey(cx, cy);
+                List<Entry> cell = cells.get(key);
+                if (cell == null)
+                    continue;
+                cell.remove(entry);
+                if (cell.isEmpty())
+                    cells.remove(key);
+            }
+        }
+    }
+
+    /**
+     * @param range
+     *            The range of cells (or null)
+     * @return True if the element has to be stored in the "oversized" list
+     */
+    private static boolean isOversized(Rectangle range) {
+        return range == null || (long) range.width * range.height > MAX_CELLS_PER_ELEMENT;
+    }
+
+    /**
+     * @param bounds
+     *            The bounds of an element (or null)
+     * @return The range of covered cells (in cell coordinates); null if
+     *         bounds is null
+     */
+    private static Rectangle getCellRange(Rectangle bounds) {
+        if (bounds == null)
+            return null;
+
+        int x0 = floorDiv(bounds.x);
+        int y0 = floorDiv(bounds.y);
+        int x1 = floorDiv(bounds.x + bounds.width);
+        int y1 = floorDiv(bounds.y + bounds.height);
+        return new Rectangle(x0, y0, x1 - x0 + 1, y1 - y0 + 1);
+    }
+
+    /**
+     * @param coordinate
+     *            A x or y coordinate
+     * @return The cell coordinate
+     */
+    private static int floorDiv(int coordinate) {
+        return Math.floorDiv(coordinate, CELL_SIZE);
+    }
+
+    /**
+     * @param cx
+     *            The x coordinate of the cell
+     * @param cy
+     *            The y coordinate of the cell
+     * @return The key of the cell
+     */
+    private static Long getCellKey(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xffffffffL);
+    }
+
+}
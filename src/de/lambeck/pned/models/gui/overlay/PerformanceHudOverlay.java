@@ -0,0 +1,236 @@
+package de.lambeck.pned.models.gui.overlay;
+
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.lambeck.pned.elements.gui.IPaintable;
+import de.lambeck.pned.models.gui.IDrawPanel;
+import de.lambeck.pned.monitoring.EditorMetrics;
+import de.lambeck.pned.monitoring.IUndoRedoStatistics;
+
+/**
+ * Implements an overlay with performance information (head-up display) in the
+ * upper left corner of the visible area of a {@link IDrawPanel}: Frames per
+ * second, the last paint time, painted vs. culled elements, the last validation
+ * (per validator), the memory of the Undo/Redo stacks and the heap.<BR>
+ * <BR>
+ * Note: This overlay is not stored in the GUI model (like the "draw new arc"
+ * overlay) but in the draw panel because it belongs to the view and must not
+ * be serialized with the model. The draw panel paints it in view coordinates
+ * (unscaled) and only if it exists. (No costs if hidden.)
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class PerformanceHudOverlay implements IOverlay, IPaintable {
+
+    /** The distance to the edges of the visible area [px] */
+    private static final int MARGIN = 8;
+
+    /** The inner distance between the border and the text [px] */
+    private static final int PADDING = 6;
+
+    /** The number of stored frame times (max. measurable frame rate) */
+    private static final int MAX_FRAMES = 256;
+
+    /** One second in nanoseconds */
+    private static final long ONE_SECOND = 1000000000L;
+
+    /** The background color (semi-transparent) */
+    private static final Color BACKGROUND = new Color(0, 0, 0, 170);
+
+    /** The text color */
+    private static final Color FOREGROUND = new Color(220, 255, 220);
+
+    /** The font */
+    private static final Font FONT = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+
+    /** The draw panel with this overlay */
+    private final IDrawPanel drawPanel;
+
+    /** The sources for the memory of the Undo/Redo stacks (data and GUI) */
+    private final IUndoRedoStatistics[] undoRedoSources;
+
+    /** The end times of the last frames [ns] (ring buffer) */
+    private final long[] frameTimes = new long[MAX_FRAMES];
+
+    /** The total number of frames */
+    private long frameCount = 0;
+
+    /** The duration of the last paintComponent() [ns] */
+    private long lastPaintNanos = 0;
+
+    /** The number of painted elements in the last frame */
+    private int lastPainted = 0;
+
+    /** The number of culled (not painted) elements in the last frame */
+    private int lastCulled = 0;
+
+    /** The bounds of the display at the last paint (in view coordinates) */
+    private Rectangle bounds = new Rectangle(MARGIN, MARGIN, 0, 0);
+
+    /**
+     * Constructs this overlay for the specified draw panel.
+     * 
+     * @param drawPanel
+     *            The {@link IDrawPanel}
+     * @param undoRedoSources
+     *            The controllers with the Undo/Redo stacks of the model
+     */
+    @SuppressWarnings("hiding")
+    public PerformanceHudOverlay(IDrawPanel drawPanel, IUndoRedoStatistics... undoRedoSources) {
+        this.drawPanel = drawPanel;
+        this.undoRedoSources = undoRedoSources;
+    }
+
+    /* Getter and Setter */
+
+    @Override
+    public List<IPaintable> getPaintableElements() {
+        List<IPaintable> elements = new ArrayList<IPaintable>();
+        elements.add(this);
+        return elements;
+    }
+
+    /**
+     * Returns the area of this display at the last paint. (Relative to the
+     * upper left corner of the visible area)
+     * 
+     * @return The bounds as {@link Rectangle}
+     */
+    public Rectangle getBounds() {
+        return new Rectangle(bounds);
+    }
+
+    /**
+     * Stores the values of one frame. (Invoked by the draw panel at the end of
+     * each paintComponent().)
+     * 
+     * @param paintNanos
+     *            The duration of paintComponent() [ns]
+     * @param painted
+     *            The number of painted elements
+     * @param culled
+     *            The number of elements which were not painted (outside of the
+     *            clip or from the base layer)
+     */
+    public void frameFinished(long paintNanos, int painted, int culled) {
+        frameTimes[(int) (frameCount % MAX_FRAMES)] = System.nanoTime();
+        frameCount++;
+        this.lastPaintNanos = paintNanos;
+        this.lastPainted = painted;
+        this.lastCulled = culled;
+    }
+
+    /* Paint */
+
+    /**
+     * Paints this display.<BR>
+     * <BR>
+     * Note: Expects a {@link Graphics} object in view coordinates translated
+     * to the upper left corner of the visible area.
+     */
+    @Override
+    public void paintElement(Graphics g) {
+        List<String> lines = getLines();
+
+        g.setFont(FONT);
+        FontMetrics metrics = g.getFontMetrics();
+        int lineHeight = metrics.getHeight();
+        int width = 0;
+        for (String line : lines) {
+            width = Math.max(width, metrics.stringWidth(line));
+        }
+        width += 2 * PADDING;
+        int height = lines.size() * lineHeight + 2 * PADDING;
+        this.bounds = new Rectangle(MARGIN, MARGIN, width, height);
+
+        g.setColor(BACKGROUND);
+        g.fillRect(bounds.x, bounds.y, bounds.width, bounds.height);
+
+        g.setColor(FOREGROUND);
+        int y = bounds.y + PADDING + metrics.getAscent();
+        for (String line : lines) {
+            g.drawString(line, bounds.x + PADDING, y);
+            y += lineHeight;
+        }
+    }
+
+    /* Private helpers */
+
+    /**
+     * @return The lines of text for this display
+     */
+    private List<String> getLines() {
+        List<String> lines = new ArrayList<String>();
+
+        lines.add(format("FPS: %d   Paint: %.2f ms", getFramesPerSecond(), lastPaintNanos / 1000000.0));
+        lines.add(format("Elements: %d painted, %d culled", lastPainted, lastCulled));
+
+        Map<String, Double> validation = EditorMetrics.getLastValidationMillis();
+        double total = 0;
+        for (Double millis : validation.values()) {
+            total += millis;
+        }
+        lines.add(format("Last validation: %.2f ms", total));
+        for (Entry<String, Double> entry : validation.entrySet()) {
+            lines.add(format("  %-28s %8.2f ms", entry.getKey(), entry.getValue()));
+        }
+
+        lines.add("Undo/Redo: " + getUndoRedoMemory());
+
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        lines.add(format("Heap: %.1f / %.1f MB", used / 1048576.0, runtime.maxMemory() / 1048576.0));
+
+        return lines;
+    }
+
+    /**
+     * @return The number of frames in the last second
+     */
+    private int getFramesPerSecond() {
+        long now = System.nanoTime();
+        int frames = 0;
+        long stored = Math.min(frameCount, MAX_FRAMES);
+        for (int i = 0; i < stored; i++) {
+            if (now - frameTimes[i] <= ONE_SECOND)
+                frames++;
+        }
+        return frames;
+    }
+
+    /**
+     * @return The estimated memory of the Undo/Redo stacks of the model (e.g.
+     *         "1.3 MB"); "n/a" if unknown
+     */
+    private String getUndoRedoMemory() {
+        String modelName = drawPanel.getModelName();
+        long bytes = 0;
+        for (IUndoRedoStatistics source : undoRedoSources) {
+            long sourceBytes = source.getUndoRedoEstimatedBytes(modelName);
+            if (sourceBytes < 0)
+                return "n/a";
+            bytes += sourceBytes;
+        }
+
+        int depth = undoRedoSources.length > 0 ? undoRedoSources[0].getUndoStackSize(modelName) : 0;
+        return format("%.1f MB (%d undo steps)", bytes / 1048576.0, depth);
+    }
+
+    /**
+     * @param pattern
+     *            The format pattern
+     * @param args
+     *            The arguments
+     * @return The formatted String (independent of the default locale)
+     */
+    private static String format(String pattern, Object... args) {
+        return String.format(Locale.ROOT, pattern, args);
+    }
+
+}
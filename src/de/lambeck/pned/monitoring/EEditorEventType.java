@@ -0,0 +1,27 @@
+package de.lambeck.pned.monitoring;
+
+/**
+ * The types of the editor operations recorded as events by the Java Flight
+ * Recorder (JFR). See {@link EditorEvents}.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public enum EEditorEventType {
+    /** Parsing of a PNML file */
+    PARSE,
+    /** Saving of a PNML file */
+    SAVE,
+    /** One run of one validator */
+    VALIDATION,
+    /** One paintComponent() of a draw panel */
+    PAINT,
+    /** Copying the current model onto the Undo stack */
+    MAKE_UNDOABLE,
+    /** One Undo operation */
+    UNDO,
+    /** One Redo operation */
+    REDO,
+    /** Firing of a transition */
+    FIRE_TRANSITION;
+}
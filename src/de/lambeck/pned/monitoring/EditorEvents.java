@@ -0,0 +1,92 @@
+package de.lambeck.pned.monitoring;
+
+/**
+ * Creates the events of the editor for the Java Flight Recorder (JFR), e.g.
+ * for parsing, validation, painting, Undo and Redo. With these events, a
+ * recording shows the CPU and GC profiles together with the operations of the
+ * editor.<BR>
+ * <BR>
+ * Usage:<BR>
+ * IEditorEvent event = EditorEvents.begin(EEditorEventType.PAINT);<BR>
+ * ... (the operation)<BR>
+ * event.commit(modelName, elementCount, null);<BR>
+ * <BR>
+ * The events are created only while a flight recording is running (e.g. with
+ * -XX:StartFlightRecording or in JDK Mission Control). The settings of the
+ * recording can disable them by name (e.g. "de.lambeck.pned.Paint"). A
+ * disabled event costs only one check.<BR>
+ * <BR>
+ * Note: The JFR API (jdk.jfr) is not available in older Java 8 runtimes. In
+ * this case, all events are dummies without any function. (The JFR classes are
+ * loaded only if jdk.jfr exists.)
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class EditorEvents {
+
+    /**
+     * Factory for the events (implemented with the JFR API in
+     * {@link JfrEditorEventFactory}).
+     */
+    interface IFactory {
+        /**
+         * @param type
+         *            The {@link EEditorEventType}
+         * @return A started event; or {@link EditorEvents#NO_EVENT} if this
+         *         type of events is disabled
+         */
+        IEditorEvent begin(EEditorEventType type);
+    }
+
+    /** The dummy event if JFR is not available or the event is disabled */
+    static final IEditorEvent NO_EVENT = new IEditorEvent() {
+        @Override
+        public void commit(String modelName, int elementCount, String detail) {
+            /* Nothing to do */
+        }
+    };
+
+    /** The factory; null if JFR is not available */
+    private static final IFactory factory = createFactory();
+
+    /** No instances */
+    private EditorEvents() {
+    }
+
+    /**
+     * Starts an event of the specified type.
+     * 
+     * @param type
+     *            The {@link EEditorEventType}
+     * @return The started {@link IEditorEvent}
+     */
+    public static IEditorEvent begin(EEditorEventType type) {
+        if (factory == null)
+            return NO_EVENT;
+        return factory.begin(type);
+    }
+
+    /**
+     * @return true if the JFR API is available; otherwise false
+     */
+    public static boolean isAvailable() {
+        return factory != null;
+    }
+
+    /**
+     * Loads the {@link JfrEditorEventFactory} if the JFR API is available.
+     * 
+     * @return The factory; null if JFR is not available
+     */
+    private static IFactory createFactory() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            Class<?> factoryClass = Class.forName(EditorEvents.class.getPackage().getName() + ".JfrEditorEventFactory");
+            return (IFactory) factoryClass.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,240 @@
+package de.lambeck.pned.monitoring;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the timings of the editor (parsing, saving, validation, painting
+ * and paging of inactive models) for the monitoring (JMX).<BR>
+ * <BR>
+ * Note: Thread-safe. The validators run on the validation thread, everything
+ * else on the Event Dispatch Thread. Recording a value costs only a few atomic
+ * operations.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class EditorMetrics {
+
+    /**
+     * Count, sum and last value of one kind of operation.
+     */
+    public static final class Timing {
+
+        /** The number of recorded operations */
+        private final AtomicLong count = new AtomicLong();
+
+        /** The sum of all durations (nanoseconds) */
+        private final AtomicLong totalNanos = new AtomicLong();
+
+        /** The duration of the last operation (nanoseconds) */
+        private final AtomicLong lastNanos = new AtomicLong();
+
+        /**
+         * Records the duration of one operation.
+         * 
+         * @param nanos
+         *            The duration in nanoseconds
+         */
+        public void record(long nanos) {
+            lastNanos.set(nanos);
+            totalNanos.addAndGet(nanos);
+            count.incrementAndGet();
+        }
+
+        /**
+         * @return The number of recorded operations
+         */
+        public long getCount() {
+            return count.get();
+        }
+
+        /**
+         * @return The duration of the last operation in milliseconds; 0 if
+         *         nothing was recorded
+         */
+        public double getLastMillis() {
+            return lastNanos.get() / 1000000.0;
+        }
+
+        /**
+         * @return The average duration in milliseconds; 0 if nothing was
+         *         recorded
+         */
+        public double getAverageMillis() {
+            long n = count.get();
+            if (n == 0)
+                return 0;
+            return totalNanos.get() / 1000000.0 / n;
+        }
+
+        /**
+         * Resets all values to 0.
+         */
+        public void reset() {
+            count.set(0);
+            totalNanos.set(0);
+            lastNanos.set(0);
+        }
+    }
+
+    /** Parsing of PNML files */
+    private static final Timing parse = new Timing();
+
+    /** Saving of PNML files */
+    private static final Timing save = new Timing();
+
+    /** Painting of the draw panels (paintComponent) */
+    private static final Timing paint = new Timing();
+
+    /** Validation runs (all validators) */
+    private static final Timing validation = new Timing();
+
+    /** Paging out of inactive models */
+    private static final Timing pageOut = new Timing();
+
+    /** Paging in of models on activation of their tab */
+    private static final Timing pageIn = new Timing();
+
+    /**
+     * The duration of the last run of each validator in milliseconds
+     * (LinkedHashMap to preserve the order of the validators)
+     */
+    private static final Map<String, Double> lastValidationMillis = Collections
+            .synchronizedMap(new LinkedHashMap<String, Double>());
+
+    /** No instances */
+    private EditorMetrics() {
+    }
+
+    /**
+     * Records the duration of parsing a PNML file.
+     * 
+     * @param nanos
+     *            The duration in nanoseconds
+     */
+    public static void recordParse(long nanos) {
+        parse.record(nanos);
+    }
+
+    /**
+     * Records the duration of saving a PNML file.
+     * 
+     * @param nanos
+     *            The duration in nanoseconds
+     */
+    public static void recordSave(long nanos) {
+        save.record(nanos);
+    }
+
+    /**
+     * Records the duration of one paintComponent() of a draw panel.
+     * 
+     * @param nanos
+     *            The duration in nanoseconds
+     */
+    public static void recordPaint(long nanos) {
+        paint.record(nanos);
+    }
+
+    /**
+     * Records the duration of one run of the specified validator.
+     * 
+     * @param validatorName
+     *            The name of the validator
+     * @param nanos
+     *            The duration in nanoseconds
+     */
+    public static void recordValidation(String validatorName, long nanos) {
+        validation.record(nanos);
+        lastValidationMillis.put(validatorName, nanos / 1000000.0);
+    }
+
+    /**
+     * Records the duration of paging out an inactive model.
+     * 
+     * @param nanos
+     *            The duration in nanoseconds
+     */
+    public static void recordPageOut(long nanos) {
+        pageOut.record(nanos);
+    }
+
+    /**
+     * Records the duration of paging in a model.
+     * 
+     * @param nanos
+     *            The duration in nanoseconds
+     */
+    public static void recordPageIn(long nanos) {
+        pageIn.record(nanos);
+    }
+
+    /**
+     * @return The {@link Timing} of parsing PNML files
+     */
+    public static Timing getParseTiming() {
+        return parse;
+    }
+
+    /**
+     * @return The {@link Timing} of saving PNML files
+     */
+    public static Timing getSaveTiming() {
+        return save;
+    }
+
+    /**
+     * @return The {@link Timing} of painting the draw panels
+     */
+    public static Timing getPaintTiming() {
+        return paint;
+    }
+
+    /**
+     * @return The {@link Timing} of all validator runs
+     */
+    public static Timing getValidationTiming() {
+        return validation;
+    }
+
+    /**
+     * @return The {@link Timing} of paging out inactive models
+     */
+    public static Timing getPageOutTiming() {
+        return pageOut;
+    }
+
+    /**
+     * @return The {@link Timing} of paging in models
+     */
+    public static Timing getPageInTiming() {
+        return pageIn;
+    }
+
+    /**
+     * @return A copy of the durations of the last run of each validator in
+     *         milliseconds
+     */
+    public static Map<String, Double> getLastValidationMillis() {
+        synchronized (lastValidationMillis) {
+            return new LinkedHashMap<String, Double>(lastValidationMillis);
+        }
+    }
+
+    /**
+     * Resets all timings.
+     */
+    public static void reset() {
+        parse.reset();
+        save.reset();
+        paint.reset();
+        validation.reset();
+        pageOut.reset();
+        pageIn.reset();
+        lastValidationMillis.clear();
+    }
+
+}
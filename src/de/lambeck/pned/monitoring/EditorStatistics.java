@@ -0,0 +1,136 @@
+package de.lambeck.pned.monitoring;
+
+import java.util.Map;
+
+/**
+ * Implements the {@link IEditorStatisticsMXBean} with the values of the
+ * {@link EditorMetrics} and the open models of the {@link MBeanManager}.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class EditorStatistics implements IEditorStatisticsMXBean {
+
+    /** Reference to the {@link MBeanManager} */
+    private final MBeanManager manager;
+
+    /**
+     * @param manager
+     *            The {@link MBeanManager}
+     */
+    @SuppressWarnings("hiding")
+    public EditorStatistics(MBeanManager manager) {
+        this.manager = manager;
+    }
+
+    @Override
+    public int getOpenModelCount() {
+        return manager.getOpenModelCount();
+    }
+
+    @Override
+    public int getValidationQueueDepth() {
+        return manager.getUncheckedModelCount();
+    }
+
+    @Override
+    public Map<String, Double> getLastValidationMillis() {
+        return EditorMetrics.getLastValidationMillis();
+    }
+
+    @Override
+    public long getValidationCount() {
+        return EditorMetrics.getValidationTiming().getCount();
+    }
+
+    @Override
+    public double getAverageValidationMillis() {
+        return EditorMetrics.getValidationTiming().getAverageMillis();
+    }
+
+    @Override
+    public long getParseCount() {
+        return EditorMetrics.getParseTiming().getCount();
+    }
+
+    @Override
+    public double getLastParseMillis() {
+        return EditorMetrics.getParseTiming().getLastMillis();
+    }
+
+    @Override
+    public double getAverageParseMillis() {
+        return EditorMetrics.getParseTiming().getAverageMillis();
+    }
+
+    @Override
+    public long getSaveCount() {
+        return EditorMetrics.getSaveTiming().getCount();
+    }
+
+    @Override
+    public double getLastSaveMillis() {
+        return EditorMetrics.getSaveTiming().getLastMillis();
+    }
+
+    @Override
+    public double getAverageSaveMillis() {
+        return EditorMetrics.getSaveTiming().getAverageMillis();
+    }
+
+    @Override
+    public long getRepaintCount() {
+        return EditorMetrics.getPaintTiming().getCount();
+    }
+
+    @Override
+    public double getLastPaintMillis() {
+        return EditorMetrics.getPaintTiming().getLastMillis();
+    }
+
+    @Override
+    public double getAveragePaintMillis() {
+        return EditorMetrics.getPaintTiming().getAverageMillis();
+    }
+
+    @Override
+    public long getPageOutCount() {
+        return EditorMetrics.getPageOutTiming().getCount();
+    }
+
+    @Override
+    public long getPageInCount() {
+        return EditorMetrics.getPageInTiming().getCount();
+    }
+
+    @Override
+    public double getAveragePageInMillis() {
+        return EditorMetrics.getPageInTiming().getAverageMillis();
+    }
+
+    @Override
+    public long getTimeToFirstFrameMillis() {
+        return StartupTimings.getTimeToFirstFrameMillis();
+    }
+
+    @Override
+    public long getEdtStallCount() {
+        return EdtWatchdog.getStallCount();
+    }
+
+    @Override
+    public int getEdtStallThresholdMillis() {
+        return EdtWatchdog.getThresholdMillis();
+    }
+
+    @Override
+    public void setEdtStallThresholdMillis(int millis) {
+        EdtWatchdog.setThresholdMillis(millis);
+    }
+
+    @Override
+    public void resetStatistics() {
+        EditorMetrics.reset();
+    }
+
+}
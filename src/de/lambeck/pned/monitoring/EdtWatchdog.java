@@ -0,0 +1,388 @@
+package de.lambeck.pned.monitoring;
+
+import java.awt.EventQueue;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+
+import de.lambeck.pned.filesystem.FSInfo;
+import de.lambeck.pned.util.logging.Logger;
+
+/**
+ * Watchdog for the Event Dispatch Thread (EDT): A background thread posts a
+ * "heartbeat" into the event queue and checks whether the EDT executes it in
+ * time. If the EDT is blocked longer than the threshold, the stack trace of
+ * the EDT and the current operation are written into the diagnostics file
+ * ("edt-stalls.log" in the diagnostics directory, rotated by size).<BR>
+ * <BR>
+ * Operations which might block the EDT (parsing, saving, Undo snapshots,
+ * waiting for the validation) are marked with beginOperation() and
+ * endOperation(). (Nested operations are possible.)<BR>
+ * <BR>
+ * Configuration with system properties:<BR>
+ * - "de.lambeck.pned.edtStallThreshold": Threshold in ms (default: 500; 0 =
+ * disabled)<BR>
+ * - "de.lambeck.pned.diagnosticsDir": The diagnostics directory (default:
+ * ".pned/diagnostics" in the home directory of the user)<BR>
+ * <BR>
+ * Note: The threshold can be changed at runtime (e.g. via the
+ * {@link IEditorStatisticsMXBean}).
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class EdtWatchdog {
+
+    /** The logger */
+    private static final Logger logger = Logger.getLogger(EdtWatchdog.class);
+
+    /** The system property for the threshold */
+    public static final String THRESHOLD_PROPERTY = "de.lambeck.pned.edtStallThreshold";
+
+    /** The system property for the diagnostics directory */
+    public static final String DIAGNOSTICS_DIR_PROPERTY = "de.lambeck.pned.diagnosticsDir";
+
+    /** The default threshold [ms] */
+    public static final int DEFAULT_THRESHOLD_MILLIS = 500;
+
+    /** The name of the diagnostics file */
+    private static final String FILE_NAME = "edt-stalls.log";
+
+    /** The max. size of the diagnostics file before it is rotated [bytes] */
+    private static final long MAX_FILE_SIZE = 1024 * 1024;
+
+    /** The number of old diagnostics files (edt-stalls.log.1 etc.) */
+    private static final int MAX_OLD_FILES = 3;
+
+    /** The interval of the checks while disabled [ms] */
+    private static final long DISABLED_INTERVAL = 1000;
+
+    /** The threshold [ms]; 0 = disabled */
+    private static volatile int thresholdMillis = getInitialThreshold();
+
+    /** The number of detected stalls since the start */
+    private static volatile long stallCount = 0;
+
+    /** The watchdog thread; null if not running */
+    private static Thread watchdogThread = null;
+
+    /** The EDT (recorded by the heartbeat); null if unknown */
+    private static volatile Thread edt = null;
+
+    /** The time when the current heartbeat was posted [ns]; 0 if none */
+    private static volatile long heartbeatPosted = 0;
+
+    /** The current operation on the EDT; null if none */
+    private static volatile Operation currentOperation = null;
+
+    /** The stack of the nested operations (EDT only) */
+    private static final Deque<Operation> operations = new ArrayDeque<Operation>();
+
+    /** The heartbeat for the event queue */
+    private static final Runnable HEARTBEAT = new Runnable() {
+        @Override
+        public void run() {
+            edt = Thread.currentThread();
+            heartbeatPosted = 0;
+        }
+    };
+
+    /**
+     * An operation which might block the EDT.
+     */
+    private static class Operation {
+        /** The description (e.g. "Save &lt;file&gt;") */
+        final String description;
+
+        /** The start time [ns] */
+        final long start;
+
+        /**
+         * @param description
+         *            The description of this operation
+         */
+        @SuppressWarnings("hiding")
+        Operation(String description) {
+            this.description = description;
+            this.start = System.nanoTime();
+        }
+    }
+
+    /** No instances */
+    private EdtWatchdog() {
+    }
+
+    /* Start and stop */
+
+    /**
+     * Starts the watchdog thread. (Does nothing if already running.)
+     */
+    public static synchronized void start() {
+        if (watchdogThread != null)
+            return;
+
+        watchdogThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                watch();
+            }
+        }, "PNED EDT watchdog");
+        watchdogThread.setDaemon(true);
+        watchdogThread.start();
+    }
+
+    /**
+     * Stops the watchdog thread.<BR>
+     * <BR>
+     * Note: The heartbeats keep the EDT busy. Without System.exit(), the JVM
+     * ends only after the watchdog was stopped (AWT auto-shutdown).
+     */
+    public static synchronized void stop() {
+        if (watchdogThread == null)
+            return;
+
+        watchdogThread.interrupt();
+        watchdogThread = null;
+    }
+
+    /* Getter and Setter */
+
+    /**
+     * @return The threshold [ms]; 0 if disabled
+     */
+    public static int getThresholdMillis() {
+        return thresholdMillis;
+    }
+
+    /**
+     * @param millis
+     *            The new threshold [ms]; 0 (or less) to disable the checks
+     */
+    public static void setThresholdMillis(int millis) {
+        thresholdMillis = Math.max(0, millis);
+    }
+
+    /**
+     * @return The number of detected stalls since the start
+     */
+    public static long getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * @return The diagnostics file
+     */
+    public static File getDiagnosticsFile() {
+        String dirName = System.getProperty(DIAGNOSTICS_DIR_PROPERTY);
+        File dir;
+        if (dirName != null && !dirName.isEmpty()) {
+            dir = new File(dirName);
+        } else {
+            dir = FSInfo.getAppDataDir("diagnostics");
+        }
+        return new File(dir, FILE_NAME);
+    }
+
+    /* Operations on the EDT */
+
+    /**
+     * Marks the start of an operation which might block the EDT. Must be
+     * followed by endOperation() (in a finally block).<BR>
+     * <BR>
+     * Note: Does nothing on other threads than the EDT.
+     * 
+     * @param description
+     *            The description of the operation (e.g. "Save &lt;file&gt;")
+     */
+    public static void beginOperation(String description) {
+        if (!EventQueue.isDispatchThread())
+            return;
+
+        Operation operation = new Operation(description);
+        operations.push(operation);
+        currentOperation = operation;
+    }
+
+    /**
+     * Marks the end of the last operation started with beginOperation().
+     */
+    public static void endOperation() {
+        if (!EventQueue.isDispatchThread())
+            return;
+
+        operations.poll();
+        currentOperation = operations.peek();
+    }
+
+    /* Private helpers */
+
+    /**
+     * The loop of the watchdog thread.
+     */
+    private static void watch() {
+        long reportedHeartbeat = 0;
+        Operation reportedOperation = null;
+
+        while (!Thread.currentThread().isInterrupted()) {
+            int threshold = thresholdMillis;
+            try {
+                if (threshold <= 0) {
+                    Thread.sleep(DISABLED_INTERVAL);
+                    continue;
+                }
+                Thread.sleep(Math.max(10, Math.min(250, threshold / 4)));
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            long posted = heartbeatPosted;
+            long now = System.nanoTime();
+            if (posted == 0) {
+                /* The last heartbeat was executed. */
+                if (reportedHeartbeat != 0) {
+                    stallEnded(reportedHeartbeat, now, reportedOperation);
+                    reportedHeartbeat = 0;
+                    reportedOperation = null;
+                }
+
+                heartbeatPosted = now;
+                EventQueue.invokeLater(HEARTBEAT);
+
+            } else if (posted != reportedHeartbeat && (now - posted) / 1000000 >= threshold) {
+                /* Stalled: report only once per heartbeat */
+                reportedHeartbeat = posted;
+                reportedOperation = currentOperation;
+                stallCount++;
+                stallDetected(now - posted, threshold, reportedOperation);
+            }
+        }
+    }
+
+    /**
+     * Writes the stack trace of the blocked EDT and the current operation.
+     * 
+     * @param blockedNanos
+     *            The duration of the stall so far [ns]
+     * @param threshold
+     *            The threshold [ms]
+     * @param operation
+     *            The current {@link Operation}; null if none
+     */
+    private static void stallDetected(long blockedNanos, int threshold, Operation operation) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("=== EDT stall at ").append(now()).append(" ===\n");
+        sb.append("Blocked for: ").append(blockedNanos / 1000000).append(" ms (threshold ").append(threshold)
+                .append(" ms)\n");
+        sb.append("Operation: ");
+        if (operation == null) {
+            sb.append("unknown\n");
+        } else {
+            sb.append(operation.description).append(" (running for ")
+                    .append((System.nanoTime() - operation.start) / 1000000).append(" ms)\n");
+        }
+
+        Thread thread = edt;
+        if (thread == null) {
+            sb.append("EDT: unknown\n");
+        } else {
+            sb.append("EDT: ").append(thread.getName()).append(" (").append(thread.getState()).append(")\n");
+            for (StackTraceElement element : thread.getStackTrace()) {
+                sb.append("    at ").append(element).append('\n');
+            }
+        }
+        sb.append('\n');
+
+        logger.warn("EDT stall detected (" + (blockedNanos / 1000000) + " ms, operation: "
+                + ((operation == null) ? "unknown" : operation.description) + "), see " + getDiagnosticsFile());
+        write(sb.toString());
+    }
+
+    /**
+     * Writes the total duration of a reported stall.
+     * 
+     * @param posted
+     *            The time when the heartbeat was posted [ns]
+     * @param now
+     *            The time when the end was detected [ns]
+     * @param operation
+     *            The reported {@link Operation}; null if none
+     */
+    private static void stallEnded(long posted, long now, Operation operation) {
+        String message = "EDT stall ended at " + now() + " after about " + ((now - posted) / 1000000)
+                + " ms (operation: " + ((operation == null) ? "unknown" : operation.description) + ")\n\n";
+        write(message);
+    }
+
+    /**
+     * Appends the specified text to the diagnostics file. Rotates the file
+     * if it is too large.
+     * 
+     * @param text
+     *            The text
+     */
+    private static void write(String text) {
+        File file = getDiagnosticsFile();
+        File dir = file.getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+            System.err.println("EdtWatchdog: Cannot create " + dir);
+            return;
+        }
+
+        if (file.length() > MAX_FILE_SIZE)
+            rotate(file);
+
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            writer.write(text);
+        } catch (IOException e) {
+            System.err.println("EdtWatchdog: Cannot write " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Renames the diagnostics file to "*.1" (and older files to "*.2" etc.).
+     * The oldest file is deleted.
+     * 
+     * @param file
+     *            The diagnostics file
+     */
+    private static void rotate(File file) {
+        File oldest = new File(file.getPath() + "." + MAX_OLD_FILES);
+        if (oldest.exists() && !oldest.delete())
+            System.err.println("EdtWatchdog: Cannot delete " + oldest);
+
+        for (int i = MAX_OLD_FILES - 1; i >= 1; i--) {
+            File older = new File(file.getPath() + "." + i);
+            if (older.exists())
+                older.renameTo(new File(file.getPath() + "." + (i + 1)));
+        }
+        file.renameTo(new File(file.getPath() + ".1"));
+    }
+
+    /**
+     * @return The current time (e.g. "2017-06-30 14:05:12.345")
+     */
+    private static String now() {
+        return new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date());
+    }
+
+    /**
+     * @return The threshold from the system property; the default value if
+     *         not set or invalid
+     */
+    private static int getInitialThreshold() {
+        String value = System.getProperty(THRESHOLD_PROPERTY);
+        if (value == null)
+            return DEFAULT_THRESHOLD_MILLIS;
+
+        try {
+            return Math.max(0, Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value of " + THRESHOLD_PROPERTY + ": " + value);
+            return DEFAULT_THRESHOLD_MILLIS;
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package de.lambeck.pned.monitoring;
+
+/**
+ * One editor operation recorded by the Java Flight Recorder. Returned by
+ * {@link EditorEvents#begin(EEditorEventType)}; the duration starts with
+ * begin() and ends with commit().<BR>
+ * <BR>
+ * Note: An event which is never committed (e.g. if the operation failed) is
+ * simply discarded.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public interface IEditorEvent {
+
+    /**
+     * Ends this event and writes it into the recording. (Does nothing if the
+     * event is disabled or shorter than the threshold of the recording.)
+     * 
+     * @param modelName
+     *            The name of the model (full path name of the PNML file)
+     * @param elementCount
+     *            The number of elements of the model
+     * @param detail
+     *            Additional information depending on the type of the event
+     *            (e.g. the name of the validator); may be null
+     */
+    void commit(String modelName, int elementCount, String detail);
+
+}
@@ -0,0 +1,135 @@
+package de.lambeck.pned.monitoring;
+
+import java.util.Map;
+
+/**
+ * Management interface (MXBean) with the statistics of the whole editor:
+ * Parsing, saving, validation and painting. Readable with JConsole or
+ * VisualVM under "de.lambeck.pned:type=Editor".<BR>
+ * <BR>
+ * Note: All durations in milliseconds.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public interface IEditorStatisticsMXBean {
+
+    /**
+     * @return The number of open models (tabs)
+     */
+    int getOpenModelCount();
+
+    /**
+     * Returns the number of open models waiting for their validation. (The
+     * validation thread checks only the model of the active tab. Other
+     * unchecked models will be validated when their tab becomes active.)
+     * 
+     * @return The number of unchecked models
+     */
+    int getValidationQueueDepth();
+
+    /**
+     * @return The duration of the last run of each validator
+     */
+    Map<String, Double> getLastValidationMillis();
+
+    /**
+     * @return The number of validator runs
+     */
+    long getValidationCount();
+
+    /**
+     * @return The average duration of all validator runs
+     */
+    double getAverageValidationMillis();
+
+    /**
+     * @return The number of parsed PNML files
+     */
+    long getParseCount();
+
+    /**
+     * @return The duration of parsing the last PNML file
+     */
+    double getLastParseMillis();
+
+    /**
+     * @return The average duration of parsing a PNML file
+     */
+    double getAverageParseMillis();
+
+    /**
+     * @return The number of saved PNML files
+     */
+    long getSaveCount();
+
+    /**
+     * @return The duration of saving the last PNML file
+     */
+    double getLastSaveMillis();
+
+    /**
+     * @return The average duration of saving a PNML file
+     */
+    double getAverageSaveMillis();
+
+    /**
+     * @return The number of paintComponent() calls of all draw panels
+     */
+    long getRepaintCount();
+
+    /**
+     * @return The duration of the last paintComponent()
+     */
+    double getLastPaintMillis();
+
+    /**
+     * @return The average duration of paintComponent()
+     */
+    double getAveragePaintMillis();
+
+    /**
+     * @return The number of inactive models paged out to the disk
+     */
+    long getPageOutCount();
+
+    /**
+     * @return The number of models paged in on activation of their tab
+     */
+    long getPageInCount();
+
+    /**
+     * @return The average duration of paging in a model
+     */
+    double getAveragePageInMillis();
+
+    /**
+     * @return The time from the start of the JVM until the first interactive
+     *         frame (see {@link StartupTimings}); -1 if not shown yet
+     */
+    long getTimeToFirstFrameMillis();
+
+    /**
+     * @return The number of stalls of the Event Dispatch Thread detected by
+     *         the {@link EdtWatchdog}
+     */
+    long getEdtStallCount();
+
+    /**
+     * @return The threshold of the {@link EdtWatchdog}; 0 if disabled
+     */
+    int getEdtStallThresholdMillis();
+
+    /**
+     * @param millis
+     *            The new threshold of the {@link EdtWatchdog}; 0 to disable
+     *            the checks
+     */
+    void setEdtStallThresholdMillis(int millis);
+
+    /**
+     * Resets all counters and durations. (Operation)
+     */
+    void resetStatistics();
+
+}
@@ -0,0 +1,47 @@
+package de.lambeck.pned.monitoring;
+
+import java.util.Map;
+
+/**
+ * Management interface (MXBean) to change the log levels at runtime. Readable
+ * with JConsole or VisualVM under "de.lambeck.pned:type=Logging".
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public interface ILoggingMXBean {
+
+    /**
+     * @return The level for loggers without a matching name (e.g. "INFO")
+     */
+    String getRootLevel();
+
+    /**
+     * @param level
+     *            The new level for loggers without a matching name
+     */
+    void setRootLevel(String level);
+
+    /**
+     * @return The levels per class or package
+     */
+    Map<String, String> getLevels();
+
+    /**
+     * Sets the level for the specified class or package. (Operation)
+     * 
+     * @param name
+     *            The full name of the class or package
+     * @param level
+     *            The new level (TRACE, DEBUG, INFO, WARN, ERROR or OFF); empty
+     *            to remove the level
+     */
+    void setLevel(String name, String level);
+
+    /**
+     * @return The number of log messages dropped because the buffer of the
+     *         asynchronous output was full
+     */
+    long getDroppedMessages();
+
+}
@@ -0,0 +1,60 @@
+package de.lambeck.pned.monitoring;
+
+/**
+ * Management interface (MXBean) with the statistics of one open model. Readable
+ * with JConsole or VisualVM under "de.lambeck.pned:type=Model,name=...".
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public interface IModelStatisticsMXBean {
+
+    /**
+     * @return The name of the model (full path name of the PNML file)
+     */
+    String getModelName();
+
+    /**
+     * @return true if the model has unsaved changes
+     */
+    boolean isModified();
+
+    /**
+     * @return The number of all elements; -1 if not available
+     */
+    int getElementCount();
+
+    /**
+     * @return The number of places; -1 if not available
+     */
+    int getPlaceCount();
+
+    /**
+     * @return The number of transitions; -1 if not available
+     */
+    int getTransitionCount();
+
+    /**
+     * @return The number of arcs; -1 if not available
+     */
+    int getArcCount();
+
+    /**
+     * @return The depth of the Undo stack; -1 if not available
+     */
+    int getUndoDepth();
+
+    /**
+     * @return The depth of the Redo stack; -1 if not available
+     */
+    int getRedoDepth();
+
+    /**
+     * Returns the estimated memory retained by the Undo and Redo stacks (data
+     * models and GUI models). Based on the size of the serialized copies.
+     * 
+     * @return The estimated size in bytes; -1 if not available
+     */
+    long getUndoRedoEstimatedBytes();
+
+}
@@ -0,0 +1,44 @@
+package de.lambeck.pned.monitoring;
+
+/**
+ * Interface for controllers with Undo and Redo stacks to provide statistics
+ * for the monitoring (JMX).<BR>
+ * <BR>
+ * Note: Not thread-safe! The stacks are changed on the Event Dispatch Thread
+ * only. So these methods have to be invoked on the EDT as well.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public interface IUndoRedoStatistics {
+
+    /**
+     * Returns the number of items on the Undo stack of the specified model.
+     * 
+     * @param modelName
+     *            The name of the model (This is intended to be the full path
+     *            name of the PNML file represented by this model.)
+     * @return The depth of the Undo stack; -1 if there is no such model
+     */
+    int getUndoStackSize(String modelName);
+
+    /**
+     * Returns the number of items on the Redo stack of the specified model.
+     * 
+     * @param modelName
+     *            The name of the model
+     * @return The depth of the Redo stack; -1 if there is no such model
+     */
+    int getRedoStackSize(String modelName);
+
+    /**
+     * Returns the estimated memory retained by the Undo and Redo stacks of the
+     * specified model. (Based on the size of the serialized copies.)
+     * 
+     * @param modelName
+     *            The name of the model
+     * @return The estimated size in bytes; -1 if there is no such model
+     */
+    long getUndoRedoEstimatedBytes(String modelName);
+
+}
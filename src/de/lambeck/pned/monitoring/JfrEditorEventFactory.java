@@ -0,0 +1,189 @@
+package de.lambeck.pned.monitoring;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import jdk.jfr.*;
+
+/**
+ * Implements the events of the editor with the JFR API (jdk.jfr). All events
+ * are in the category "Petri net Editor" and named "de.lambeck.pned.*" (e.g.
+ * "de.lambeck.pned.Paint").<BR>
+ * <BR>
+ * Note: This class is loaded by {@link EditorEvents} only if the JFR API is
+ * available. Don't reference it anywhere else!
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+final class JfrEditorEventFactory implements EditorEvents.IFactory {
+
+    /**
+     * The JFR event type of each {@link EEditorEventType} (to check if the
+     * event is enabled before an event object is created)
+     */
+    private final Map<EEditorEventType, EventType> eventTypes = new EnumMap<EEditorEventType, EventType>(
+            EEditorEventType.class);
+
+    /**
+     * Registers the event classes of all {@link EEditorEventType}.
+     */
+    JfrEditorEventFactory() {
+        for (EEditorEventType type : EEditorEventType.values()) {
+            eventTypes.put(type, EventType.getEventType(getEventClass(type)));
+        }
+    }
+
+    /**
+     * The base class of all events with the common fields.
+     */
+    @Category("Petri net Editor")
+    @StackTrace(false)
+    abstract static class EditorEvent extends Event implements IEditorEvent {
+
+        /** The name of the model */
+        @Label("Model")
+        String modelName;
+
+        /** The number of elements of the model */
+        @Label("Elements")
+        int elementCount;
+
+        /** Additional information (depending on the type of the event) */
+        @Label("Detail")
+        String detail;
+
+        @SuppressWarnings("hiding")
+        @Override
+        public void commit(String modelName, int elementCount, String detail) {
+            end();
+            if (shouldCommit()) {
+                this.modelName = modelName;
+                this.elementCount = elementCount;
+                this.detail = detail;
+                commit();
+            }
+        }
+    }
+
+    /**
+     * Parsing of a PNML file (Detail: the exit code of the parser; "cache" if
+     * loaded from the cache)
+     */
+    @Name("de.lambeck.pned.Parse")
+    @Label("Parse PNML")
+    static class ParseEvent extends EditorEvent {
+    }
+
+    /** Saving of a PNML file (Detail: the exit code of the writer) */
+    @Name("de.lambeck.pned.Save")
+    @Label("Save PNML")
+    static class SaveEvent extends EditorEvent {
+    }
+
+    /** One run of one validator (Detail: the name of the validator) */
+    @Name("de.lambeck.pned.Validation")
+    @Label("Validation")
+    static class ValidationEvent extends EditorEvent {
+    }
+
+    /**
+     * One paintComponent() of a draw panel (Detail: "base layer" or "direct")
+     */
+    @Name("de.lambeck.pned.Paint")
+    @Label("Paint")
+    static class PaintEvent extends EditorEvent {
+    }
+
+    /** Copying the model onto the Undo stack (Detail: the size in bytes) */
+    @Name("de.lambeck.pned.MakeUndoable")
+    @Label("Make Undoable")
+    static class MakeUndoableEvent extends EditorEvent {
+    }
+
+    /** One Undo operation */
+    @Name("de.lambeck.pned.Undo")
+    @Label("Undo")
+    static class UndoEvent extends EditorEvent {
+    }
+
+    /** One Redo operation */
+    @Name("de.lambeck.pned.Redo")
+    @Label("Redo")
+    static class RedoEvent extends EditorEvent {
+    }
+
+    /** Firing of a transition (Detail: the id of the transition) */
+    @Name("de.lambeck.pned.FireTransition")
+    @Label("Fire Transition")
+    static class FireTransitionEvent extends EditorEvent {
+    }
+
+    @Override
+    public IEditorEvent begin(EEditorEventType type) {
+        /* No object at all if there is no recording with this event. */
+        if (!eventTypes.get(type).isEnabled())
+            return EditorEvents.NO_EVENT;
+
+        EditorEvent event = createEvent(type);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * @param type
+     *            The {@link EEditorEventType}
+     * @return The event class of the specified type
+     */
+    private static Class<? extends EditorEvent> getEventClass(EEditorEventType type) {
+        switch (type) {
+        case PARSE:
+            return ParseEvent.class;
+        case SAVE:
+            return SaveEvent.class;
+        case VALIDATION:
+            return ValidationEvent.class;
+        case PAINT:
+            return PaintEvent.class;
+        case MAKE_UNDOABLE:
+            return MakeUndoableEvent.class;
+        case UNDO:
+            return UndoEvent.class;
+        case REDO:
+            return RedoEvent.class;
+        case FIRE_TRANSITION:
+            return FireTransitionEvent.class;
+        default:
+            throw new IllegalArgumentException("Unknown event type: " + type);
+        }
+    }
+
+    /**
+     * @param type
+     *            The {@link EEditorEventType}
+     * @return A new event of the specified type
+     */
+    private static EditorEvent createEvent(EEditorEventType type) {
+        switch (type) {
+        case PARSE:
+            return new ParseEvent();
+        case SAVE:
+            return new SaveEvent();
+        case VALIDATION:
+            return new ValidationEvent();
+        case PAINT:
+            return new PaintEvent();
+        case MAKE_UNDOABLE:
+            return new MakeUndoableEvent();
+        case UNDO:
+            return new UndoEvent();
+        case REDO:
+            return new RedoEvent();
+        case FIRE_TRANSITION:
+            return new FireTransitionEvent();
+        default:
+            throw new IllegalArgumentException("Unknown event type: " + type);
+        }
+    }
+
+}
@@ -0,0 +1,63 @@
+package de.lambeck.pned.monitoring;
+
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import de.lambeck.pned.util.logging.AsyncRingBufferAppender;
+import de.lambeck.pned.util.logging.ELogLevel;
+import de.lambeck.pned.util.logging.IAppender;
+import de.lambeck.pned.util.logging.LogConfig;
+
+/**
+ * Implements the {@link ILoggingMXBean} with the {@link LogConfig}.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class LoggingControl implements ILoggingMXBean {
+
+    @Override
+    public String getRootLevel() {
+        return LogConfig.getRootLevel().name();
+    }
+
+    @Override
+    public void setRootLevel(String level) {
+        ELogLevel newLevel = ELogLevel.parse(level);
+        if (newLevel == null)
+            throw new IllegalArgumentException("Unknown log level: " + level);
+
+        LogConfig.setRootLevel(newLevel);
+    }
+
+    @Override
+    public Map<String, String> getLevels() {
+        Map<String, String> levels = new TreeMap<String, String>();
+        for (Entry<String, ELogLevel> entry : LogConfig.getLevels().entrySet()) {
+            levels.put(entry.getKey(), entry.getValue().name());
+        }
+        return levels;
+    }
+
+    @Override
+    public void setLevel(String name, String level) {
+        ELogLevel newLevel = null;
+        if (level != null && !level.trim().isEmpty()) {
+            newLevel = ELogLevel.parse(level);
+            if (newLevel == null)
+                throw new IllegalArgumentException("Unknown log level: " + level);
+        }
+
+        LogConfig.setLevel(name, newLevel);
+    }
+
+    @Override
+    public long getDroppedMessages() {
+        IAppender appender = LogConfig.getAppender();
+        if (appender instanceof AsyncRingBufferAppender)
+            return ((AsyncRingBufferAppender) appender).getDroppedCount();
+        return 0;
+    }
+
+}
@@ -0,0 +1,292 @@
+package de.lambeck.pned.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.management.*;
+import javax.swing.SwingUtilities;
+
+import de.lambeck.pned.models.data.IDataModel;
+import de.lambeck.pned.models.data.IDataModelController;
+import de.lambeck.pned.models.gui.IGuiModelController;
+import de.lambeck.pned.util.ConsoleLogger;
+
+/**
+ * Registers the MXBeans of the editor at the platform MBean server: One
+ * {@link IEditorStatisticsMXBean} ("de.lambeck.pned:type=Editor"), the
+ * {@link ILoggingMXBean} ("de.lambeck.pned:type=Logging") and one
+ * {@link IModelStatisticsMXBean} for each open model
+ * ("de.lambeck.pned:type=Model,name=...").<BR>
+ * <BR>
+ * The values can be read with JConsole or VisualVM (local process, no further
+ * configuration required).<BR>
+ * <BR>
+ * Note: The methods for added, removed and renamed models have to be invoked
+ * on the Event Dispatch Thread (like all methods of the controllers).
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class MBeanManager {
+
+    /** Show debug messages? */
+    private static boolean debug = false;
+
+    /** The domain of all ObjectNames */
+    public static final String DOMAIN = "de.lambeck.pned";
+
+    /**
+     * The max. time to wait for the Event Dispatch Thread. (JMX should not
+     * block if the EDT is busy.)
+     */
+    private static final long EDT_TIMEOUT_MILLIS = 2000;
+
+    /** The platform MBean server; null if not available */
+    private final MBeanServer server;
+
+    /** Reference to the {@link IDataModelController} */
+    private final IDataModelController dataModelController;
+
+    /** Reference to the {@link IGuiModelController} */
+    private final IGuiModelController guiModelController;
+
+    /** The names of all open models with a registered MXBean */
+    private final Set<String> modelNames = new LinkedHashSet<String>();
+
+    /**
+     * Constructs this manager and registers the
+     * {@link IEditorStatisticsMXBean} and the {@link ILoggingMXBean}.
+     * 
+     * @param dataModelController
+     *            The {@link IDataModelController}
+     * @param guiModelController
+     *            The {@link IGuiModelController}
+     */
+    @SuppressWarnings("hiding")
+    public MBeanManager(IDataModelController dataModelController, IGuiModelController guiModelController) {
+        this.dataModelController = dataModelController;
+        this.guiModelController = guiModelController;
+
+        MBeanServer platformServer = null;
+        try {
+            platformServer = ManagementFactory.getPlatformMBeanServer();
+        } catch (SecurityException e) {
+            System.err.println("MBeanManager: platform MBean server not available: " + e.getMessage());
+        }
+        this.server = platformServer;
+
+        register(getEditorObjectName(), new EditorStatistics(this));
+        register(getObjectName(DOMAIN + ":type=Logging"), new LoggingControl());
+    }
+
+    /* Models */
+
+    /**
+     * Registers an {@link IModelStatisticsMXBean} for the specified model.
+     * 
+     * @param modelName
+     *            The name of the model (This is intended to be the full path
+     *            name of the PNML file represented by this model.)
+     */
+    public void modelAdded(String modelName) {
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("MBeanManager.modelAdded", modelName);
+        }
+
+        if (!modelNames.add(modelName))
+            return;
+
+        ModelStatistics statistics = new ModelStatistics(modelName, dataModelController, guiModelController);
+        register(getModelObjectName(modelName), statistics);
+    }
+
+    /**
+     * Unregisters the {@link IModelStatisticsMXBean} of the specified model.
+     * 
+     * @param modelName
+     *            The name of the model
+     */
+    public void modelRemoved(String modelName) {
+        if (debug) {
+            ConsoleLogger.consoleLogMethodCall("MBeanManager.modelRemoved", modelName);
+        }
+
+        if (!modelNames.remove(modelName))
+            return;
+
+        unregister(getModelObjectName(modelName));
+    }
+
+    /**
+     * Replaces the {@link IModelStatisticsMXBean} of the specified model after
+     * the model has been renamed (SaveAs).
+     * 
+     * @param oldModelName
+     *            The old name of the model
+     * @param newModelName
+     *            The new name of the model
+     */
+    public void modelRenamed(String oldModelName, String newModelName) {
+        modelRemoved(oldModelName);
+        modelAdded(newModelName);
+    }
+
+    /**
+     * Unregisters all MXBeans. (On exit)
+     */
+    public void unregisterAll() {
+        for (String modelName : modelNames) {
+            unregister(getModelObjectName(modelName));
+        }
+        modelNames.clear();
+        unregister(getEditorObjectName());
+        unregister(getObjectName(DOMAIN + ":type=Logging"));
+    }
+
+    /* Values for the EditorStatistics */
+
+    /**
+     * @return The number of open models
+     */
+    int getOpenModelCount() {
+        return callOnEdt(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return modelNames.size();
+            }
+        }, -1);
+    }
+
+    /**
+     * @return The number of open models which are not checked by the
+     *         validators yet
+     */
+    int getUncheckedModelCount() {
+        return callOnEdt(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                int count = 0;
+                for (String modelName : modelNames) {
+                    IDataModel model = dataModelController.getDataModel(modelName);
+                    if (model != null && !model.isModelChecked())
+                        count++;
+                }
+                return count;
+            }
+        }, -1);
+    }
+
+    /* Helpers */
+
+    /**
+     * Executes the specified task on the Event Dispatch Thread and waits for
+     * the result. (Directly if invoked on the EDT.)
+     * 
+     * @param <T>
+     *            The type of the result
+     * @param task
+     *            The task
+     * @param fallback
+     *            The result if the task failed or the EDT did not respond
+     *            in time
+     * @return The result of the task; or the fallback
+     */
+    static <T> T callOnEdt(Callable<T> task, T fallback) {
+        if (SwingUtilities.isEventDispatchThread()) {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                return fallback;
+            }
+        }
+
+        FutureTask<T> future = new FutureTask<T>(task);
+        SwingUtilities.invokeLater(future);
+        try {
+            return future.get(EDT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return fallback;
+        } catch (ExecutionException | TimeoutException e) {
+            future.cancel(false);
+            return fallback;
+        }
+    }
+
+    /**
+     * Registers the specified MXBean.
+     * 
+     * @param name
+     *            The {@link ObjectName}
+     * @param mxBean
+     *            The MXBean
+     */
+    private void register(ObjectName name, Object mxBean) {
+        if (server == null || name == null)
+            return;
+
+        try {
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+            server.registerMBean(mxBean, name);
+        } catch (JMException e) {
+            System.err.println("MBeanManager: unable to register " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Unregisters the specified MXBean if registered.
+     * 
+     * @param name
+     *            The {@link ObjectName}
+     */
+    private void unregister(ObjectName name) {
+        if (server == null || name == null)
+            return;
+
+        try {
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+        } catch (JMException e) {
+            System.err.println("MBeanManager: unable to unregister " + name + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return The {@link ObjectName} of the {@link IEditorStatisticsMXBean}
+     */
+    private static ObjectName getEditorObjectName() {
+        return getObjectName(DOMAIN + ":type=Editor");
+    }
+
+    /**
+     * @param modelName
+     *            The name of the model
+     * @return The {@link ObjectName} of the {@link IModelStatisticsMXBean} of
+     *         the specified model
+     */
+    private static ObjectName getModelObjectName(String modelName) {
+        return getObjectName(DOMAIN + ":type=Model,name=" + ObjectName.quote(modelName));
+    }
+
+    /**
+     * @param name
+     *            The String representation of an {@link ObjectName}
+     * @return The {@link ObjectName}; null if the name is malformed
+     */
+    private static ObjectName getObjectName(String name) {
+        try {
+            return new ObjectName(name);
+        } catch (MalformedObjectNameException e) {
+            System.err.println("MBeanManager: " + e.getMessage());
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,168 @@
+package de.lambeck.pned.monitoring;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import de.lambeck.pned.elements.data.IDataArc;
+import de.lambeck.pned.elements.data.IDataElement;
+import de.lambeck.pned.elements.data.IDataPlace;
+import de.lambeck.pned.elements.data.IDataTransition;
+import de.lambeck.pned.models.data.IDataModel;
+import de.lambeck.pned.models.data.IDataModelController;
+import de.lambeck.pned.models.gui.IGuiModelController;
+
+/**
+ * Implements the {@link IModelStatisticsMXBean} for one open model.<BR>
+ * <BR>
+ * Note: The models and the Undo/Redo stacks are not thread-safe. Therefore all
+ * values are determined on the Event Dispatch Thread. (JMX invokes the getters
+ * on its own threads.)
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class ModelStatistics implements IModelStatisticsMXBean {
+
+    /** Index of the count of places in the array from countElements() */
+    private static final int PLACES = 0;
+
+    /** Index of the count of transitions */
+    private static final int TRANSITIONS = 1;
+
+    /** Index of the count of arcs */
+    private static final int ARCS = 2;
+
+    /** Index of the count of all elements */
+    private static final int ALL = 3;
+
+    /** The name of the model (full path name of the PNML file) */
+    private final String modelName;
+
+    /** Reference to the {@link IDataModelController} */
+    private final IDataModelController dataModelController;
+
+    /** Reference to the {@link IGuiModelController} */
+    private final IGuiModelController guiModelController;
+
+    /**
+     * @param modelName
+     *            The name of the model
+     * @param dataModelController
+     *            The {@link IDataModelController}
+     * @param guiModelController
+     *            The {@link IGuiModelController}
+     */
+    @SuppressWarnings("hiding")
+    public ModelStatistics(String modelName, IDataModelController dataModelController,
+            IGuiModelController guiModelController) {
+        this.modelName = modelName;
+        this.dataModelController = dataModelController;
+        this.guiModelController = guiModelController;
+    }
+
+    @Override
+    public String getModelName() {
+        return this.modelName;
+    }
+
+    @Override
+    public boolean isModified() {
+        return MBeanManager.callOnEdt(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                IDataModel model = dataModelController.getDataModel(modelName);
+                return model != null && model.isModified();
+            }
+        }, false);
+    }
+
+    @Override
+    public int getElementCount() {
+        return countElements()[ALL];
+    }
+
+    @Override
+    public int getPlaceCount() {
+        return countElements()[PLACES];
+    }
+
+    @Override
+    public int getTransitionCount() {
+        return countElements()[TRANSITIONS];
+    }
+
+    @Override
+    public int getArcCount() {
+        return countElements()[ARCS];
+    }
+
+    @Override
+    public int getUndoDepth() {
+        return MBeanManager.callOnEdt(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return dataModelController.getUndoStackSize(modelName);
+            }
+        }, -1);
+    }
+
+    @Override
+    public int getRedoDepth() {
+        return MBeanManager.callOnEdt(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return dataModelController.getRedoStackSize(modelName);
+            }
+        }, -1);
+    }
+
+    @Override
+    public long getUndoRedoEstimatedBytes() {
+        return MBeanManager.callOnEdt(new Callable<Long>() {
+            @Override
+            public Long call() {
+                long dataBytes = dataModelController.getUndoRedoEstimatedBytes(modelName);
+                long guiBytes = guiModelController.getUndoRedoEstimatedBytes(modelName);
+                if (dataBytes < 0 || guiBytes < 0)
+                    return -1L;
+                return dataBytes + guiBytes;
+            }
+        }, -1L);
+    }
+
+    /* Private helpers */
+
+    /**
+     * Counts the elements of the data model.
+     * 
+     * @return The counts of places, transitions, arcs and all elements; -1 if
+     *         the model does not exist (anymore)
+     */
+    private int[] countElements() {
+        final int[] unknown = new int[] { -1, -1, -1, -1 };
+
+        return MBeanManager.callOnEdt(new Callable<int[]>() {
+            @Override
+            public int[] call() {
+                IDataModel model = dataModelController.getDataModel(modelName);
+                if (model == null)
+                    return unknown;
+
+                int[] counts = new int[4];
+                List<IDataElement> elements = model.getElementsView();
+                for (IDataElement element : elements) {
+                    if (element instanceof IDataPlace) {
+                        counts[PLACES]++;
+                    } else if (element instanceof IDataTransition) {
+                        counts[TRANSITIONS]++;
+                    } else if (element instanceof IDataArc) {
+                        counts[ARCS]++;
+                    }
+                }
+                counts[ALL] = elements.size();
+                return counts;
+            }
+        }, unknown);
+    }
+
+}
@@ -0,0 +1,120 @@
+package de.lambeck.pned.monitoring;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import de.lambeck.pned.util.logging.Logger;
+
+/**
+ * Measures the phases of the application start until the first interactive
+ * frame (main window shown and painted, the EDT is idle).<BR>
+ * <BR>
+ * Usage: {@link #begin()} at the start of main(), {@link #phaseFinished(String)}
+ * after each phase, {@link #firstFrameShown()} when the main window is open.
+ * The phases and the total time since the start of the JVM are logged (level
+ * INFO) and available for the monitoring (JMX).<BR>
+ * <BR>
+ * Note: Thread-safe. main() runs on the main thread, everything else on the
+ * Event Dispatch Thread.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class StartupTimings {
+
+    /** The logger */
+    private static final Logger logger = Logger.getLogger(StartupTimings.class);
+
+    /** The durations of the phases in milliseconds (in the order of the start) */
+    private static final Map<String, Double> phaseMillis = new LinkedHashMap<String, Double>();
+
+    /** The end of the last phase (System.nanoTime()); 0 before begin() */
+    private static long lastPhaseEnd = 0;
+
+    /** The time from the start of the JVM until the first frame; -1 if unknown */
+    private static long timeToFirstFrameMillis = -1;
+
+    /** No instances */
+    private StartupTimings() {
+    }
+
+    /**
+     * Starts the measurement. (At the start of main())
+     */
+    public static synchronized void begin() {
+        phaseMillis.clear();
+        lastPhaseEnd = System.nanoTime();
+        timeToFirstFrameMillis = -1;
+    }
+
+    /**
+     * Records the duration of the specified phase (since the end of the
+     * previous phase).
+     *
+     * @param phase
+     *            The name of the phase (e.g. "Look and feel")
+     */
+    public static synchronized void phaseFinished(String phase) {
+        if (lastPhaseEnd == 0 || timeToFirstFrameMillis >= 0)
+            return; // Not started or already finished
+
+        long now = System.nanoTime();
+        phaseMillis.put(phase, (now - lastPhaseEnd) / 1000000.0);
+        lastPhaseEnd = now;
+    }
+
+    /**
+     * Finishes the measurement when the first frame is shown and logs the
+     * results.
+     */
+    public static void firstFrameShown() {
+        synchronized (StartupTimings.class) {
+            if (lastPhaseEnd == 0 || timeToFirstFrameMillis >= 0)
+                return;
+
+            phaseFinished("First frame");
+            timeToFirstFrameMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        }
+
+        logger.info(getReport());
+    }
+
+    /**
+     * @return The time from the start of the JVM until the first interactive
+     *         frame in milliseconds; -1 if not shown yet
+     */
+    public static synchronized long getTimeToFirstFrameMillis() {
+        return timeToFirstFrameMillis;
+    }
+
+    /**
+     * @return A copy of the durations of the phases in milliseconds
+     */
+    public static synchronized Map<String, Double> getPhaseMillis() {
+        return new LinkedHashMap<String, Double>(phaseMillis);
+    }
+
+    /**
+     * @return One line with the time to the first frame and all phases
+     */
+    public static synchronized String getReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Startup: first interactive frame after ").append(timeToFirstFrameMillis).append(" ms (");
+
+        double sum = 0;
+        for (Entry<String, Double> entry : phaseMillis.entrySet()) {
+            sum += entry.getValue();
+        }
+        sb.append(String.format(Locale.ROOT, "JVM until main: %.1f ms", timeToFirstFrameMillis - sum));
+
+        for (Entry<String, Double> entry : phaseMillis.entrySet()) {
+            sb.append(String.format(Locale.ROOT, ", %s: %.1f ms", entry.getKey(), entry.getValue()));
+        }
+        sb.append(")");
+        return sb.toString();
+    }
+
+}
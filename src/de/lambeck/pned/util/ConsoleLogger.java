@@ -1,7 +1,15 @@
 package de.lambeck.pned.util;
 
+import de.lambeck.pned.util.logging.ELogLevel;
+import de.lambeck.pned.util.logging.LogConfig;
+import de.lambeck.pned.util.logging.Logger;
+
 /**
- * Helper for logging of method calls etc.
+ * Helper for logging of method calls etc.<BR>
+ * <BR>
+ * Note: The output goes asynchronously to the standard output (stdout) via the
+ * appender of the {@link LogConfig}. New code should use a {@link Logger} with
+ * levels per class instead of a "debug" attribute.
  * 
  * @author Thomas Lambeck, 4128320
  *
@@ -15,7 +23,7 @@ public class ConsoleLogger {
      *            The message
      */
     public static void logAlways(String message) {
-        System.out.println(message);
+        LogConfig.getAppender().append(ELogLevel.INFO, message);
     }
 
     /**
@@ -26,7 +34,10 @@ public class ConsoleLogger {
      *            not be printed
      * @param message
      *            The message
+     * @deprecated The message is built even if debug == false. Use a
+     *             {@link Logger} with isDebugEnabled() or a Supplier instead.
      */
+    @Deprecated
     public static void logIfDebug(boolean debug, String message) {
         if (!debug) { return; }
 
@@ -46,27 +57,9 @@ public class ConsoleLogger {
      *            method call
      */
     public static void consoleLogMethodCall(String methodName, Object... params) {
-        String parameterlist = "";
-
-        if (params == null) {
-            parameterlist = "null";
-        } else {
-            for (int i = 0; i < params.length; i++) {
-                if (parameterlist != "")
-                    parameterlist = parameterlist + ", ";
-
-                if (params[i] == null) {
-                    parameterlist = parameterlist + "null";
-                } else {
-                    parameterlist = parameterlist + params[i].toString();
-                }
-            }
-        }
-
-        String message = methodName + "(" + parameterlist + ")";
-
-        System.out.println(message);
+        String message = Logger.formatMethodCall(methodName, params);
 
+        LogConfig.getAppender().append(ELogLevel.DEBUG, message);
     }
 
 }
@@ -33,6 +33,17 @@ public interface ILIFOStack<T> {
      */
     void push(T item);
 
+    /**
+     * Pushes an item onto the top of this stack and stores the estimated
+     * memory size of this item.
+     * 
+     * @param item
+     *            the item to be pushed onto this stack.
+     * @param estimatedBytes
+     *            the estimated size of the item in bytes
+     */
+    void push(T item, long estimatedBytes);
+
     /**
      * Removes the object at the top of this stack and returns that object as
      * the value of this function.
@@ -61,6 +72,21 @@ public interface ILIFOStack<T> {
      */
     boolean empty();
 
+    /**
+     * Returns the number of items in this stack.
+     * 
+     * @return the number of items in this stack
+     */
+    int size();
+
+    /**
+     * Returns the sum of the estimated sizes of all items in this stack.
+     * (Items pushed without a size count as 0 bytes.)
+     * 
+     * @return the estimated size in bytes
+     */
+    long getEstimatedBytes();
+
     /* We do not need "search()" from the class Stack<E>. */
     // int search(Object o);
 
@@ -15,6 +15,17 @@ import de.lambeck.pned.exceptions.PNObjectNotClonedException;
  */
 public class ObjectCloner {
 
+    /**
+     * The size of the serialized object of the last deepCopy() in the current
+     * thread. (Used as estimated size of the copy.)
+     */
+    private static final ThreadLocal<Integer> lastSerializedSize = new ThreadLocal<Integer>() {
+        @Override
+        protected Integer initialValue() {
+            return 0;
+        }
+    };
+
     /*
      * Original method from:
      * http://www.tutego.de/blog/javainsel/2013/09/tiefe-objektkopien-deep-copy/
@@ -62,6 +73,8 @@ public class ObjectCloner {
             throw new PNObjectNotClonedException(e.getMessage());
         }
 
+        lastSerializedSize.set(baos.size());
+
         ByteArrayInputStream bais = new ByteArrayInputStream(baos.toByteArray());
         try {
             return new ObjectInputStream(bais).readObject();
@@ -75,4 +88,17 @@ public class ObjectCloner {
         }
     }
 
+    /**
+     * Returns the size of the serialized object of the last call of
+     * {@link #deepCopy(Object)} in the current thread.<BR>
+     * <BR>
+     * Note: This is a rough estimate of the memory retained by the copy. (The
+     * objects on the heap are usually larger than their serialized form.)
+     * 
+     * @return The size in bytes; 0 if there was no deepCopy() in this thread
+     */
+    public static int getLastSerializedSize() {
+        return lastSerializedSize.get();
+    }
+
 }
@@ -0,0 +1,186 @@
+package de.lambeck.pned.util.logging;
+
+/**
+ * Passes the messages asynchronously to another {@link IAppender} (e.g. the
+ * {@link ConsoleAppender}): append() only stores the message in a ring buffer,
+ * a background thread writes the messages. This way, the console output does
+ * not slow down the Event Dispatch Thread or the validation thread.<BR>
+ * <BR>
+ * If the buffer is full, the oldest message will be overwritten. The number
+ * of dropped messages is written with the next messages.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class AsyncRingBufferAppender implements IAppender {
+
+    /** The default capacity of the ring buffer */
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    /** The max. time to wait in flush() */
+    private static final long FLUSH_TIMEOUT_MILLIS = 5000;
+
+    /** The appender for the actual output */
+    private final IAppender target;
+
+    /** The capacity of the ring buffer */
+    private final int capacity;
+
+    /** The levels of the buffered messages */
+    private final ELogLevel[] levels;
+
+    /** The buffered messages */
+    private final String[] messages;
+
+    /** Index of the oldest message in the buffer */
+    private int head = 0;
+
+    /** The number of messages in the buffer */
+    private int count = 0;
+
+    /** The number of dropped messages since the last output */
+    private long dropped = 0;
+
+    /** The number of dropped messages since the start */
+    private long totalDropped = 0;
+
+    /** true while the writer thread writes a batch of messages */
+    private boolean writing = false;
+
+    /** The lock for all attributes above */
+    private final Object lock = new Object();
+
+    /** The background thread */
+    private final Thread writer;
+
+    /**
+     * Constructs this appender and starts the background thread.
+     * 
+     * @param target
+     *            The {@link IAppender} for the actual output
+     * @param capacity
+     *            The capacity of the ring buffer (number of messages)
+     */
+    @SuppressWarnings("hiding")
+    public AsyncRingBufferAppender(IAppender target, int capacity) {
+        this.target = target;
+        this.capacity = Math.max(1, capacity);
+        this.levels = new ELogLevel[this.capacity];
+        this.messages = new String[this.capacity];
+
+        this.writer = new Thread("PNED log writer") {
+            @Override
+            public void run() {
+                writeMessages();
+            }
+        };
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void append(ELogLevel level, String message) {
+        synchronized (lock) {
+            if (count == capacity) {
+                /* Overwrite the oldest message. */
+                head = (head + 1) % capacity;
+                count--;
+                dropped++;
+                totalDropped++;
+            }
+
+            int tail = (head + count) % capacity;
+            levels[tail] = level;
+            messages[tail] = message;
+            count++;
+
+            if (count == 1)
+                lock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits until all buffered messages are written. (At most 5 seconds.)
+     */
+    @Override
+    public void flush() {
+        if (Thread.currentThread() == writer)
+            return;
+
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MILLIS;
+        synchronized (lock) {
+            while (count > 0 || writing) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0)
+                    break;
+
+                try {
+                    lock.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        target.flush();
+    }
+
+    /**
+     * @return The number of messages dropped because the buffer was full
+     */
+    public long getDroppedCount() {
+        synchronized (lock) {
+            return totalDropped;
+        }
+    }
+
+    /**
+     * The loop of the background thread: Takes all buffered messages at once
+     * and writes them without holding the lock.
+     */
+    private void writeMessages() {
+        ELogLevel[] batchLevels = new ELogLevel[capacity];
+        String[] batchMessages = new String[capacity];
+
+        while (true) {
+            int batchSize;
+            long lost;
+
+            synchronized (lock) {
+                writing = false;
+                lock.notifyAll();
+
+                while (count == 0) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+
+                batchSize = count;
+                for (int i = 0; i < batchSize; i++) {
+                    int index = (head + i) % capacity;
+                    batchLevels[i] = levels[index];
+                    batchMessages[i] = messages[index];
+                    messages[index] = null;
+                }
+                head = (head + batchSize) % capacity;
+                count = 0;
+
+                lost = dropped;
+                dropped = 0;
+                writing = true;
+            }
+
+            if (lost > 0)
+                target.append(ELogLevel.WARN, "AsyncRingBufferAppender: " + lost + " messages dropped (buffer full)");
+
+            for (int i = 0; i < batchSize; i++) {
+                target.append(batchLevels[i], batchMessages[i]);
+                batchMessages[i] = null;
+            }
+        }
+    }
+
+}
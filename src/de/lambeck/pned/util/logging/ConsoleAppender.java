@@ -0,0 +1,26 @@
+package de.lambeck.pned.util.logging;
+
+import java.io.PrintStream;
+
+/**
+ * Writes the messages synchronously to the console: Warnings and errors to
+ * stderr, everything else to stdout.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class ConsoleAppender implements IAppender {
+
+    @Override
+    public void append(ELogLevel level, String message) {
+        PrintStream stream = (level.compareTo(ELogLevel.WARN) >= 0) ? System.err : System.out;
+        stream.println(message);
+    }
+
+    @Override
+    public void flush() {
+        System.out.flush();
+        System.err.flush();
+    }
+
+}
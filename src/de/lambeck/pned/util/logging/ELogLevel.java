@@ -0,0 +1,41 @@
+package de.lambeck.pned.util.logging;
+
+/**
+ * The levels of the {@link Logger} in ascending order. A logger with level
+ * INFO writes messages with level INFO, WARN and ERROR; OFF writes nothing.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public enum ELogLevel {
+    /** Very detailed messages (e.g. for each element) */
+    TRACE,
+    /** Debug messages (e.g. method calls) */
+    DEBUG,
+    /** Informational messages */
+    INFO,
+    /** Warnings */
+    WARN,
+    /** Errors */
+    ERROR,
+    /** No messages at all */
+    OFF;
+
+    /**
+     * Returns the level with the specified name (case insensitive).
+     * 
+     * @param name
+     *            The name of the level (e.g. "debug")
+     * @return The {@link ELogLevel}; null if there is no such level
+     */
+    public static ELogLevel parse(String name) {
+        if (name == null)
+            return null;
+
+        for (ELogLevel level : values()) {
+            if (level.name().equalsIgnoreCase(name.trim()))
+                return level;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,26 @@
+package de.lambeck.pned.util.logging;
+
+/**
+ * Interface for the output of the {@link Logger}.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public interface IAppender {
+
+    /**
+     * Writes the specified message.
+     * 
+     * @param level
+     *            The {@link ELogLevel} of the message
+     * @param message
+     *            The message
+     */
+    void append(ELogLevel level, String message);
+
+    /**
+     * Waits until all messages are written.
+     */
+    void flush();
+
+}
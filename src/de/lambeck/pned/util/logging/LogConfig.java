@@ -0,0 +1,232 @@
+package de.lambeck.pned.util.logging;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The configuration of all {@link Logger}: The levels per class or package and
+ * the {@link IAppender} for the output.<BR>
+ * <BR>
+ * The levels can be changed at runtime (e.g. via JMX). The initial levels can
+ * be specified with the system property "de.lambeck.pned.log", e.g.:<BR>
+ * -Dde.lambeck.pned.log=INFO,de.lambeck.pned.models.data.validation=DEBUG<BR>
+ * (An entry without name is the root level.)<BR>
+ * <BR>
+ * A logger uses the level of the longest matching name: The name of its class,
+ * of the package, of the parent package etc. Default: INFO
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class LogConfig {
+
+    /** The name of the system property with the initial levels */
+    public static final String LEVELS_PROPERTY = "de.lambeck.pned.log";
+
+    /** The level for loggers without a matching name */
+    private static volatile ELogLevel rootLevel = ELogLevel.INFO;
+
+    /** The levels per class or package (Sorted for the output via JMX) */
+    private static final Map<String, ELogLevel> levels = new TreeMap<String, ELogLevel>();
+
+    /** All loggers identified by their name */
+    private static final ConcurrentMap<String, Logger> loggers = new ConcurrentHashMap<String, Logger>();
+
+    /** The appender for all messages */
+    private static volatile IAppender appender;
+
+    static {
+        configureLevels(System.getProperty(LEVELS_PROPERTY));
+
+        final AsyncRingBufferAppender asyncAppender = new AsyncRingBufferAppender(new ConsoleAppender(),
+                AsyncRingBufferAppender.DEFAULT_CAPACITY);
+        appender = asyncAppender;
+
+        /* Don't lose the last messages on exit. */
+        Runtime.getRuntime().addShutdownHook(new Thread("PNED log flush") {
+            @Override
+            public void run() {
+                asyncAppender.flush();
+            }
+        });
+    }
+
+    /** No instances */
+    private LogConfig() {
+    }
+
+    /* Loggers */
+
+    /**
+     * Returns the logger with the specified name. (Creates it on the first
+     * call.)
+     * 
+     * @param name
+     *            The name of the logger (usually the name of the class)
+     * @return The {@link Logger}
+     */
+    static Logger getLogger(String name) {
+        Logger logger = loggers.get(name);
+        if (logger != null)
+            return logger;
+
+        Logger newLogger = new Logger(name);
+        logger = loggers.putIfAbsent(name, newLogger);
+        return (logger != null) ? logger : newLogger;
+    }
+
+    /* Levels */
+
+    /**
+     * @return The level for loggers without a matching name
+     */
+    public static ELogLevel getRootLevel() {
+        return rootLevel;
+    }
+
+    /**
+     * Sets the level for loggers without a matching name.
+     * 
+     * @param level
+     *            The new {@link ELogLevel}
+     */
+    public static void setRootLevel(ELogLevel level) {
+        if (level == null)
+            return;
+
+        rootLevel = level;
+        updateLoggers();
+    }
+
+    /**
+     * Sets the level for the specified class or package (and all classes in
+     * subpackages without a more specific level).
+     * 
+     * @param name
+     *            The full name of the class or package
+     * @param level
+     *            The new {@link ELogLevel}; null to remove the level
+     */
+    public static void setLevel(String name, ELogLevel level) {
+        if (name == null || name.isEmpty())
+            return;
+
+        synchronized (levels) {
+            if (level == null) {
+                levels.remove(name);
+            } else {
+                levels.put(name, level);
+            }
+        }
+        updateLoggers();
+    }
+
+    /**
+     * @return A copy of all levels per class or package
+     */
+    public static Map<String, ELogLevel> getLevels() {
+        synchronized (levels) {
+            return new TreeMap<String, ELogLevel>(levels);
+        }
+    }
+
+    /**
+     * Returns the level for the specified logger: The level of the longest
+     * matching class or package name; otherwise the root level.
+     * 
+     * @param loggerName
+     *            The name of the logger
+     * @return The effective {@link ELogLevel}
+     */
+    public static ELogLevel getEffectiveLevel(String loggerName) {
+        synchronized (levels) {
+            String name = loggerName;
+            while (name != null) {
+                ELogLevel level = levels.get(name);
+                if (level != null)
+                    return level;
+
+                int lastDot = name.lastIndexOf('.');
+                name = (lastDot > 0) ? name.substring(0, lastDot) : null;
+            }
+        }
+        return rootLevel;
+    }
+
+    /**
+     * Sets the levels from the specified configuration String (Format like
+     * the system property "de.lambeck.pned.log").
+     * 
+     * @param configuration
+     *            Comma separated entries "name=LEVEL" or "LEVEL" (root)
+     */
+    public static void configureLevels(String configuration) {
+        if (configuration == null)
+            return;
+
+        for (String entry : configuration.split(",")) {
+            int equalsIndex = entry.indexOf('=');
+            String name = (equalsIndex < 0) ? null : entry.substring(0, equalsIndex).trim();
+            String levelName = (equalsIndex < 0) ? entry : entry.substring(equalsIndex + 1);
+
+            ELogLevel level = ELogLevel.parse(levelName);
+            if (level == null) {
+                if (!entry.trim().isEmpty())
+                    System.err.println("LogConfig: invalid log level in '" + entry + "'");
+                continue;
+            }
+
+            if (name == null || name.isEmpty()) {
+                setRootLevel(level);
+            } else {
+                setLevel(name, level);
+            }
+        }
+    }
+
+    /* Appender */
+
+    /**
+     * @return The {@link IAppender} for all messages
+     */
+    public static IAppender getAppender() {
+        return appender;
+    }
+
+    /**
+     * Replaces the {@link IAppender} for all messages. (The old appender will
+     * be flushed.)
+     * 
+     * @param newAppender
+     *            The new {@link IAppender}
+     */
+    public static void setAppender(IAppender newAppender) {
+        if (newAppender == null)
+            return;
+
+        IAppender oldAppender = appender;
+        appender = newAppender;
+        oldAppender.flush();
+    }
+
+    /**
+     * Waits until all messages are written. (e.g. before System.exit())
+     */
+    public static void flush() {
+        appender.flush();
+    }
+
+    /* Private helpers */
+
+    /**
+     * Updates the effective level of all loggers after changes of the levels.
+     */
+    private static void updateLoggers() {
+        for (Logger logger : loggers.values()) {
+            logger.updateLevel();
+        }
+    }
+
+}
@@ -0,0 +1,227 @@
+package de.lambeck.pned.util.logging;
+
+import java.util.function.Supplier;
+
+/**
+ * Leveled logger with lazy messages: The {@link Supplier} of a message is only
+ * invoked if the level is enabled. This avoids building message Strings which
+ * are never written.<BR>
+ * <BR>
+ * Usage (e.g. in a validator):<BR>
+ * private static final Logger logger =
+ * Logger.getLogger(MyValidator.class);<BR>
+ * ...<BR>
+ * logger.debug(new Supplier&lt;String&gt;() {...});<BR>
+ * <BR>
+ * or with a guard for several messages:<BR>
+ * if (logger.isDebugEnabled()) {...}<BR>
+ * <BR>
+ * The levels are configured in {@link LogConfig} (per class or package, at
+ * runtime). The output is asynchronous by default.
+ * 
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class Logger {
+
+    /** The name of this logger (usually the name of the class) */
+    private final String name;
+
+    /** The effective level (updated by {@link LogConfig}) */
+    private volatile ELogLevel level;
+
+    /**
+     * @param name
+     *            The name of this logger
+     */
+    @SuppressWarnings("hiding")
+    Logger(String name) {
+        this.name = name;
+        this.level = LogConfig.getEffectiveLevel(name);
+    }
+
+    /**
+     * Returns the logger for the specified class.
+     * 
+     * @param c
+     *            The class
+     * @return The {@link Logger}
+     */
+    public static Logger getLogger(Class<?> c) {
+        return LogConfig.getLogger(c.getName());
+    }
+
+    /**
+     * @return The name of this logger
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return The effective level of this logger
+     */
+    public ELogLevel getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Updates the effective level after changes in {@link LogConfig}.
+     */
+    void updateLevel() {
+        this.level = LogConfig.getEffectiveLevel(name);
+    }
+
+    /* Checks */
+
+    /**
+     * @param messageLevel
+     *            The {@link ELogLevel} of a message
+     * @return true if messages with this level will be written
+     */
+    public boolean isEnabled(ELogLevel messageLevel) {
+        return messageLevel != ELogLevel.OFF && messageLevel.compareTo(level) >= 0;
+    }
+
+    /**
+     * @return true if TRACE messages will be written
+     */
+    public boolean isTraceEnabled() {
+        return isEnabled(ELogLevel.TRACE);
+    }
+
+    /**
+     * @return true if DEBUG messages will be written
+     */
+    public boolean isDebugEnabled() {
+        return isEnabled(ELogLevel.DEBUG);
+    }
+
+    /* Output */
+
+    /**
+     * Writes the specified message if the level is enabled.
+     * 
+     * @param messageLevel
+     *            The {@link ELogLevel} of the message
+     * @param message
+     *            The message
+     */
+    public void log(ELogLevel messageLevel, String message) {
+        if (isEnabled(messageLevel))
+            LogConfig.getAppender().append(messageLevel, message);
+    }
+
+    /**
+     * Writes the message of the specified {@link Supplier} if the level is
+     * enabled. (Otherwise the Supplier will not be invoked.)
+     * 
+     * @param messageLevel
+     *            The {@link ELogLevel} of the message
+     * @param message
+     *            The {@link Supplier} of the message
+     */
+    public void log(ELogLevel messageLevel, Supplier<String> message) {
+        if (isEnabled(messageLevel))
+            LogConfig.getAppender().append(messageLevel, message.get());
+    }
+
+    /**
+     * @param message
+     *            The message
+     */
+    public void trace(String message) {
+        log(ELogLevel.TRACE, message);
+    }
+
+    /**
+     * @param message
+     *            The {@link Supplier} of the message
+     */
+    public void trace(Supplier<String> message) {
+        log(ELogLevel.TRACE, message);
+    }
+
+    /**
+     * @param message
+     *            The message
+     */
+    public void debug(String message) {
+        log(ELogLevel.DEBUG, message);
+    }
+
+    /**
+     * @param message
+     *            The {@link Supplier} of the message
+     */
+    public void debug(Supplier<String> message) {
+        log(ELogLevel.DEBUG, message);
+    }
+
+    /**
+     * @param message
+     *            The message
+     */
+    public void info(String message) {
+        log(ELogLevel.INFO, message);
+    }
+
+    /**
+     * @param message
+     *            The message
+     */
+    public void warn(String message) {
+        log(ELogLevel.WARN, message);
+    }
+
+    /**
+     * @param message
+     *            The message
+     */
+    public void error(String message) {
+        log(ELogLevel.ERROR, message);
+    }
+
+    /**
+     * Writes the specified method call (level DEBUG) in the format of
+     * ConsoleLogger.consoleLogMethodCall(). The parameters will only be
+     * converted if DEBUG is enabled.
+     * 
+     * @param methodName
+     *            The name of the method that was called
+     * @param params
+     *            The parameters of the method call
+     */
+    public void methodCall(String methodName, Object... params) {
+        if (isDebugEnabled())
+            LogConfig.getAppender().append(ELogLevel.DEBUG, formatMethodCall(methodName, params));
+    }
+
+    /**
+     * Formats a method call: "methodName(param1, param2...)". Each parameter is
+     * converted with String.valueOf().
+     * 
+     * @param methodName
+     *            The name of the method
+     * @param params
+     *            The parameters of the method call
+     * @return The formatted method call
+     */
+    public static String formatMethodCall(String methodName, Object... params) {
+        StringBuilder sb = new StringBuilder(methodName.length() + 32);
+        sb.append(methodName).append('(');
+
+        if (params == null) {
+            sb.append("null");
+        } else {
+            for (int i = 0; i < params.length; i++) {
+                if (i > 0)
+                    sb.append(", ");
+                sb.append(String.valueOf(params[i]));
+            }
+        }
+
+        return sb.append(')').toString();
+    }
+
+}
@@ -0,0 +1,62 @@
+package de.lambeck.pned.benchmark;
+
+/**
+ * One benchmark for the {@link BenchmarkRunner}: setUp() prepares the input for
+ * one problem size (e.g. a model with 10k elements), run() is the measured
+ * operation.<BR>
+ * <BR>
+ * Note: run() has to return a result of the operation. The runner consumes it,
+ * so the JIT compiler cannot remove the operation as dead code.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public abstract class AbstractBenchmark {
+
+    /** The name of this benchmark (e.g. "DataModel.getElementById") */
+    private final String name;
+
+    /**
+     * @param name
+     *            The name of this benchmark
+     */
+    @SuppressWarnings("hiding")
+    protected AbstractBenchmark(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return The name of this benchmark
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Prepares the input for the specified problem size. (Not measured)
+     *
+     * @param size
+     *            The problem size (number of elements)
+     * @throws Exception
+     *             If the input could not be created
+     */
+    public abstract void setUp(int size) throws Exception;
+
+    /**
+     * Executes the measured operation once.
+     *
+     * @return The result of the operation (or any value depending on it)
+     * @throws Exception
+     *             If the operation failed
+     */
+    public abstract Object run() throws Exception;
+
+    /**
+     * Releases the input after all iterations for one problem size. (Not
+     * measured)
+     */
+    public void tearDown() {
+        /* Nothing to do by default */
+    }
+
+}
@@ -0,0 +1,274 @@
+package de.lambeck.pned.benchmark;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Simple benchmark harness in the style of JMH (mode "average time"): For each
+ * benchmark and problem size, a number of warmup iterations is followed by a
+ * number of measured iterations. Each iteration invokes the operation
+ * repeatedly for a fixed time (at least once).<BR>
+ * <BR>
+ * The results can be written as JSON in the format of the JMH result files
+ * (-rf json), so they can be compared with the usual JMH tools.<BR>
+ * <BR>
+ * Note: This project has no build system for a JMH dependency. The harness
+ * needs nothing but the JDK.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class BenchmarkRunner {
+
+    /** Number of warmup iterations */
+    private int warmupIterations = 3;
+
+    /** Number of measured iterations */
+    private int measurementIterations = 5;
+
+    /** Duration of one iteration in milliseconds */
+    private long iterationMillis = 500;
+
+    /** The results of all benchmarks run so far */
+    private List<Result> results = new ArrayList<Result>();
+
+    /**
+     * Sink for the results of the operations. (Volatile: The JIT compiler must
+     * not remove the operations.)
+     */
+    private volatile int sink = 0;
+
+    /**
+     * The result of one benchmark for one problem size.
+     */
+    private static class Result {
+        /** The name of the benchmark */
+        final String benchmark;
+
+        /** The problem size */
+        final int size;
+
+        /** The average time of each measured iteration (ns/op) */
+        final double[] scores;
+
+        /** The total number of operations during the measured iterations */
+        final long operations;
+
+        /**
+         * @param benchmark
+         *            The name of the benchmark
+         * @param size
+         *            The problem size
+         * @param scores
+         *            The average time of each iteration
+         * @param operations
+         *            The total number of operations
+         */
+        @SuppressWarnings("hiding")
+        Result(String benchmark, int size, double[] scores, long operations) {
+            this.benchmark = benchmark;
+            this.size = size;
+            this.scores = scores;
+            this.operations = operations;
+        }
+
+        /**
+         * @return The mean of all iterations (ns/op)
+         */
+        double getMean() {
+            double sum = 0;
+            for (double score : scores) {
+                sum += score;
+            }
+            return sum / scores.length;
+        }
+
+        /**
+         * @return The half width of the 99.9% confidence interval (like JMH,
+         *         with the normal approximation); NaN for one iteration
+         */
+        double getError() {
+            if (scores.length < 2)
+                return Double.NaN;
+
+            double mean = getMean();
+            double sum = 0;
+            for (double score : scores) {
+                sum += (score - mean) * (score - mean);
+            }
+            double stdDev = Math.sqrt(sum / (scores.length - 1));
+            return 3.29 * stdDev / Math.sqrt(scores.length);
+        }
+    }
+
+    /**
+     * @param warmupIterations
+     *            The number of warmup iterations
+     * @param measurementIterations
+     *            The number of measured iterations (at least 1)
+     * @param iterationMillis
+     *            The duration of one iteration in milliseconds
+     */
+    @SuppressWarnings("hiding")
+    public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationMillis) {
+        this.warmupIterations = Math.max(0, warmupIterations);
+        this.measurementIterations = Math.max(1, measurementIterations);
+        this.iterationMillis = Math.max(1, iterationMillis);
+    }
+
+    /**
+     * Runs the specified benchmark for all specified problem sizes and prints
+     * the results to stdout.
+     *
+     * @param benchmark
+     *            The {@link AbstractBenchmark}
+     * @param sizes
+     *            The problem sizes
+     */
+    public void run(AbstractBenchmark benchmark, int[] sizes) {
+        for (int size : sizes) {
+            try {
+                benchmark.setUp(size);
+                try {
+                    for (int i = 0; i < warmupIterations; i++) {
+                        iteration(benchmark);
+                    }
+
+                    double[] scores = new double[measurementIterations];
+                    long operations = 0;
+                    for (int i = 0; i < measurementIterations; i++) {
+                        long[] timeAndCount = iteration(benchmark);
+                        scores[i] = (double) timeAndCount[0] / timeAndCount[1];
+                        operations += timeAndCount[1];
+                    }
+
+                    Result result = new Result(benchmark.getName(), size, scores, operations);
+                    results.add(result);
+                    System.out.println(format(result));
+                } finally {
+                    benchmark.tearDown();
+                }
+            } catch (Exception e) {
+                System.err.println("Benchmark " + benchmark.getName() + " (size " + size + ") failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Writes the results of all benchmarks as JSON (format of the JMH result
+     * files).
+     *
+     * @param file
+     *            The output file
+     * @throws IOException
+     *             If the file could not be written
+     */
+    public void writeJson(File file) throws IOException {
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(toJson());
+        }
+    }
+
+    /**
+     * @return The results of all benchmarks as JSON array
+     */
+    public String toJson() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[\n");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            sb.append("    {\n");
+            sb.append("        \"benchmark\" : \"").append(escape(result.benchmark)).append("\",\n");
+            sb.append("        \"mode\" : \"avgt\",\n");
+            sb.append("        \"warmupIterations\" : ").append(warmupIterations).append(",\n");
+            sb.append("        \"warmupTime\" : \"").append(iterationMillis).append(" ms\",\n");
+            sb.append("        \"measurementIterations\" : ").append(measurementIterations).append(",\n");
+            sb.append("        \"measurementTime\" : \"").append(iterationMillis).append(" ms\",\n");
+            sb.append("        \"params\" : {\n");
+            sb.append("            \"size\" : \"").append(result.size).append("\"\n");
+            sb.append("        },\n");
+            sb.append("        \"primaryMetric\" : {\n");
+            sb.append("            \"score\" : ").append(number(result.getMean())).append(",\n");
+            sb.append("            \"scoreError\" : ").append(number(result.getError())).append(",\n");
+            sb.append("            \"scoreUnit\" : \"ns/op\",\n");
+            sb.append("            \"operations\" : ").append(result.operations).append(",\n");
+            sb.append("            \"rawData\" : [\n");
+            sb.append("                [");
+            for (int j = 0; j < result.scores.length; j++) {
+                if (j > 0)
+                    sb.append(", ");
+                sb.append(number(result.scores[j]));
+            }
+            sb.append("]\n");
+            sb.append("            ]\n");
+            sb.append("        }\n");
+            sb.append((i < results.size() - 1) ? "    },\n" : "    }\n");
+        }
+        sb.append("]\n");
+        return sb.toString();
+    }
+
+    /* Private helpers */
+
+    /**
+     * Invokes the operation repeatedly until the duration of one iteration has
+     * passed.
+     *
+     * @param benchmark
+     *            The {@link AbstractBenchmark}
+     * @return The elapsed time in nanoseconds and the number of operations
+     * @throws Exception
+     *             If the operation failed
+     */
+    private long[] iteration(AbstractBenchmark benchmark) throws Exception {
+        long duration = iterationMillis * 1000000L;
+        long count = 0;
+        int hash = 0;
+
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            Object result = benchmark.run();
+            hash += (result == null) ? 0 : System.identityHashCode(result);
+            count++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < duration);
+
+        sink += hash;
+        return new long[] { elapsed, count };
+    }
+
+    /**
+     * @param result
+     *            The {@link Result}
+     * @return One line for the console
+     */
+    private static String format(Result result) {
+        return String.format(Locale.ROOT, "%-45s %9d %16.1f +- %12.1f ns/op", result.benchmark, result.size,
+                result.getMean(), result.getError());
+    }
+
+    /**
+     * @param value
+     *            A double value
+     * @return The value for JSON ("NaN" as String like JMH)
+     */
+    private static String number(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value))
+            return "\"NaN\"";
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    /**
+     * @param s
+     *            A String
+     * @return The String with escaped quotes and backslashes
+     */
+    private static String escape(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+}
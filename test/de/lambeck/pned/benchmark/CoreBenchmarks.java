@@ -0,0 +1,446 @@
+package de.lambeck.pned.benchmark;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.*;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.elements.data.IDataElement;
+import de.lambeck.pned.exceptions.PNElementCreationException;
+import de.lambeck.pned.filesystem.pnml.PNMLModelReader;
+import de.lambeck.pned.filesystem.pnml.PNMLModelWriter;
+import de.lambeck.pned.i18n.I18NManager;
+import de.lambeck.pned.models.data.DataModel;
+import de.lambeck.pned.models.data.IDataModel;
+import de.lambeck.pned.models.data.IDataModelController;
+import de.lambeck.pned.models.data.validation.*;
+import de.lambeck.pned.models.gui.GuiModel;
+import de.lambeck.pned.models.gui.IGuiModel;
+import de.lambeck.pned.util.ObjectCloner;
+
+/**
+ * Benchmarks for the hot paths of the editor (models, PNML files, validators,
+ * Undo/Redo copies and hit tests).<BR>
+ * <BR>
+ * Usage: java de.lambeck.pned.benchmark.CoreBenchmarks [options]<BR>
+ * -sizes 1000,10000,100000 : The problem sizes (number of elements)<BR>
+ * -filter text : Only benchmarks whose name contains the text<BR>
+ * -wi 3 -i 5 -time 500 : Warmup iterations, measured iterations, duration of
+ * one iteration (ms)<BR>
+ * -json file : Write the results as JSON (format of the JMH result files)<BR>
+ * <BR>
+ * Note: The models (sound workflow nets from the {@link WorkflowNetGenerator})
+ * are created once per size and shared by all benchmarks. Benchmarks which
+ * modify a model restore it. (Start with -Xmx2g or more for 100k elements.)
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class CoreBenchmarks {
+
+    /** Number of precomputed random inputs (IDs, points) per benchmark */
+    private static final int INPUTS = 1024;
+
+    /** The data models by size */
+    private static Map<Integer, IDataModel> dataModels = new HashMap<Integer, IDataModel>();
+
+    /** The GUI models by size */
+    private static Map<Integer, IGuiModel> guiModels = new HashMap<Integer, IGuiModel>();
+
+    /** The manager for localized strings (for the validators) */
+    private static I18NManager i18n = null;
+
+    /**
+     * Runs all (or the selected) benchmarks.
+     *
+     * @param args
+     *            See class description
+     * @throws Exception
+     *             If the JSON file could not be written
+     */
+    public static void main(String[] args) throws Exception {
+        int[] sizes = { 1000, 10000, 100000 };
+        String filter = null;
+        String jsonFile = null;
+        int warmupIterations = 3;
+        int measurementIterations = 5;
+        long iterationMillis = 500;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+            case "-sizes":
+                String[] parts = value.split(",");
+                sizes = new int[parts.length];
+                for (int j = 0; j < parts.length; j++) {
+                    sizes[j] = Integer.parseInt(parts[j].trim());
+                }
+                break;
+            case "-filter":
+                filter = value;
+                break;
+            case "-json":
+                jsonFile = value;
+                break;
+            case "-wi":
+                warmupIterations = Integer.parseInt(value);
+                break;
+            case "-i":
+                measurementIterations = Integer.parseInt(value);
+                break;
+            case "-time":
+                iterationMillis = Long.parseLong(value);
+                break;
+            default:
+                System.err.println("Unknown option: " + args[i]);
+            }
+        }
+
+        BenchmarkRunner runner = new BenchmarkRunner(warmupIterations, measurementIterations, iterationMillis);
+        for (AbstractBenchmark benchmark : getBenchmarks()) {
+            if (filter == null || benchmark.getName().contains(filter))
+                runner.run(benchmark, sizes);
+        }
+
+        if (jsonFile != null) {
+            runner.writeJson(new File(jsonFile));
+            System.out.println("Results written to " + jsonFile);
+        }
+    }
+
+    /**
+     * @return All benchmarks
+     */
+    private static List<AbstractBenchmark> getBenchmarks() {
+        List<AbstractBenchmark> benchmarks = new ArrayList<AbstractBenchmark>();
+
+        /* DataModel */
+
+        benchmarks.add(new AbstractBenchmark("DataModel.getElementById") {
+            private IDataModel model;
+            private String[] ids;
+            private int next;
+
+            @Override
+            public void setUp(int size) {
+                model = getDataModel(size);
+                ids = getRandomIds(model, "");
+                next = 0;
+            }
+
+            @Override
+            public Object run() throws Exception {
+                next = (next + 1) % ids.length;
+                return model.getElementById(ids[next]);
+            }
+        });
+
+        benchmarks.add(new AbstractBenchmark("DataModel.addArc+removeElement") {
+            private IDataModel model;
+            private String[] transitionIds;
+            private int next;
+
+            @Override
+            public void setUp(int size) {
+                model = getDataModel(size);
+                transitionIds = getRandomIds(model, "t");
+                next = 0;
+
+                /* A separate place, so the arcs do not exist yet. */
+                model.addPlace("benchPlace", "", EPlaceToken.ZERO, new Point(0, 0));
+            }
+
+            @Override
+            public Object run() throws Exception {
+                next = (next + 1) % transitionIds.length;
+                model.addArc("benchArc", transitionIds[next], "benchPlace");
+                model.removeElement("benchArc");
+                return model;
+            }
+
+            @Override
+            public void tearDown() {
+                try {
+                    model.removeElement("benchPlace");
+                } catch (Exception e) {
+                    System.err.println("CoreBenchmarks: " + e.getMessage());
+                }
+            }
+        });
+
+        /* PNML files */
+
+        benchmarks.add(new AbstractBenchmark("PNMLModelReader.read") {
+            private File file;
+
+            @Override
+            public void setUp(int size) throws Exception {
+                file = File.createTempFile("bench", ".pnml");
+                file.deleteOnExit();
+                PNMLModelWriter.write(getDataModel(size), file);
+            }
+
+            @Override
+            public Object run() {
+                return PNMLModelReader.read(file, file.getPath());
+            }
+
+            @Override
+            public void tearDown() {
+                file.delete();
+            }
+        });
+
+        benchmarks.add(new AbstractBenchmark("PNMLModelWriter.write") {
+            private IDataModel model;
+            private File file;
+
+            @Override
+            public void setUp(int size) throws Exception {
+                model = getDataModel(size);
+                file = File.createTempFile("bench", ".pnml");
+                file.deleteOnExit();
+            }
+
+            @Override
+            public Object run() {
+                return PNMLModelWriter.write(model, file);
+            }
+
+            @Override
+            public void tearDown() {
+                file.delete();
+            }
+        });
+
+        /* Validators */
+
+        benchmarks.add(new ValidatorBenchmark("StartPlacesValidator"));
+        benchmarks.add(new ValidatorBenchmark("EndPlacesValidator"));
+        benchmarks.add(new ValidatorBenchmark("AllNodesOnPathsValidator"));
+        benchmarks.add(new ValidatorBenchmark("InitialMarkingValidator"));
+        benchmarks.add(new ValidatorBenchmark("EnabledTransitionsValidator"));
+
+        /* GuiModel */
+
+        benchmarks.add(new AbstractBenchmark("ObjectCloner.deepCopy(GuiModel)") {
+            private IGuiModel model;
+
+            @Override
+            public void setUp(int size) {
+                model = getGuiModel(size);
+            }
+
+            @Override
+            public Object run() throws Exception {
+                return ObjectCloner.deepCopy(model);
+            }
+        });
+
+        benchmarks.add(new AbstractBenchmark("GuiModel.getElementAtLocation") {
+            private IGuiModel model;
+            private Point[] points;
+            private int next;
+
+            @Override
+            public void setUp(int size) {
+                model = getGuiModel(size);
+                Rectangle extent = model.getElementsExtent();
+                Random random = new Random(42);
+                points = new Point[INPUTS];
+                for (int i = 0; i < INPUTS; i++) {
+                    points[i] = new Point(extent.x + random.nextInt(extent.width),
+                            extent.y + random.nextInt(extent.height));
+                }
+                next = 0;
+            }
+
+            @Override
+            public Object run() {
+                next = (next + 1) % points.length;
+                return model.getElementAtLocation(points[next]);
+            }
+        });
+
+        return benchmarks;
+    }
+
+    /**
+     * Benchmark for IValidator.startValidation() of one validator (including
+     * fetching its messages).
+     */
+    private static class ValidatorBenchmark extends AbstractBenchmark {
+        /** The simple class name of the validator */
+        private final String validatorName;
+
+        /** The validator */
+        private IValidator validator;
+
+        /** The model to check */
+        private IDataModel model;
+
+        /**
+         * @param validatorName
+         *            The simple class name of the validator
+         */
+        @SuppressWarnings("hiding")
+        ValidatorBenchmark(String validatorName) {
+            super(validatorName + ".startValidation");
+            this.validatorName = validatorName;
+        }
+
+        @Override
+        public void setUp(int size) throws Exception {
+            model = getDataModel(size);
+            validator = createValidator(validatorName);
+        }
+
+        @Override
+        public Object run() {
+            validator.startValidation(model, false);
+
+            int count = 0;
+            while (validator.hasMoreMessages()) {
+                validator.nextMessage();
+                count++;
+            }
+            return count;
+        }
+    }
+
+    /* Input data */
+
+    /**
+     * Returns the data model for the specified size. (Creates it once.)
+     *
+     * @param size
+     *            The number of elements
+     * @return The {@link IDataModel}
+     */
+    private static IDataModel getDataModel(int size) {
+        IDataModel model = dataModels.get(size);
+        if (model == null) {
+            model = new DataModel("bench" + size, "bench" + size);
+            try {
+                getGenerator(size).fill(model);
+            } catch (PNElementCreationException e) {
+                System.err.println("CoreBenchmarks: " + e.getMessage());
+            }
+            dataModels.put(size, model);
+        }
+        return model;
+    }
+
+    /**
+     * Returns the GUI model for the specified size. (Creates it once.)
+     *
+     * @param size
+     *            The number of elements
+     * @return The {@link IGuiModel}
+     */
+    private static IGuiModel getGuiModel(int size) {
+        IGuiModel model = guiModels.get(size);
+        if (model == null) {
+            model = new GuiModel("bench" + size, "bench" + size);
+            try {
+                getGenerator(size).fill(model);
+            } catch (PNElementCreationException e) {
+                System.err.println("CoreBenchmarks: " + e.getMessage());
+            }
+            guiModels.put(size, model);
+        }
+        return model;
+    }
+
+    /**
+     * Returns a generator with a sound workflow net of the specified size.
+     * (Always the same net for the same size.)
+     *
+     * @param size
+     *            The number of elements (nodes and arcs)
+     * @return The {@link WorkflowNetGenerator}
+     */
+    private static WorkflowNetGenerator getGenerator(int size) {
+        /* Approximately 1.3 arcs per node */
+        WorkflowNetGenerator generator = new WorkflowNetGenerator(42, true);
+        generator.generate(Math.max(3, (int) (size / 2.3)));
+        return generator;
+    }
+
+    /**
+     * @param model
+     *            The {@link IDataModel}
+     * @param prefix
+     *            The prefix of the IDs (e.g. "t" for transitions; "" for all
+     *            elements)
+     * @return IDs of random elements of the model
+     */
+    private static String[] getRandomIds(IDataModel model, String prefix) {
+        List<String> candidates = new ArrayList<String>();
+        for (IDataElement element : model.getElementsView()) {
+            if (element.getId().startsWith(prefix))
+                candidates.add(element.getId());
+        }
+
+        Random random = new Random(42);
+        String[] ids = new String[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            ids[i] = candidates.get(random.nextInt(candidates.size()));
+        }
+        return ids;
+    }
+
+    /**
+     * Creates the specified validator with controllers which ignore all
+     * callbacks (no GUI, no validation thread).
+     *
+     * @param validatorName
+     *            The simple class name of the validator
+     * @return The {@link IValidator}
+     * @throws Exception
+     *             If the validator could not be created
+     */
+    private static IValidator createValidator(String validatorName) throws Exception {
+        if (i18n == null)
+            i18n = new I18NManager(Locale.US);
+
+        IValidationController validationController = createDummy(IValidationController.class);
+        IDataModelController dataModelController = createDummy(IDataModelController.class);
+
+        Class<?> validatorClass = Class.forName("de.lambeck.pned.models.data.validation." + validatorName);
+        return (IValidator) validatorClass
+                .getConstructor(IValidationController.class, IDataModelController.class, I18NManager.class)
+                .newInstance(validationController, dataModelController, i18n);
+    }
+
+    /**
+     * Creates an implementation of the specified interface which ignores all
+     * invocations. (Returns false, 0, the first enum constant or null.)
+     *
+     * @param type
+     *            The interface
+     * @return The dummy implementation
+     */
+    private static <T> T createDummy(Class<T> type) {
+        Object dummy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object proxy, Method method, Object[] methodArgs) {
+                        Class<?> returnType = method.getReturnType();
+                        if (returnType == boolean.class)
+                            return false;
+                        if (returnType == int.class)
+                            return 0;
+                        if (returnType.isEnum())
+                            return returnType.getEnumConstants()[0];
+                        return null;
+                    }
+                });
+        return type.cast(dummy);
+    }
+
+}
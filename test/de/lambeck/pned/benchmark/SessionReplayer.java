@@ -0,0 +1,501 @@
+package de.lambeck.pned.benchmark;
+
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.MouseEvent;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.List;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import de.lambeck.pned.application.ApplicationController;
+import de.lambeck.pned.filesystem.session.ESessionCommand;
+import de.lambeck.pned.filesystem.session.SessionEntry;
+import de.lambeck.pned.filesystem.session.SessionRecorder;
+import de.lambeck.pned.gui.statusBar.StatusBar;
+import de.lambeck.pned.i18n.I18NManager;
+import de.lambeck.pned.models.gui.IDrawPanel;
+import de.lambeck.pned.models.gui.IGuiModelController;
+
+/**
+ * Replays a session recorded by the {@link SessionRecorder} against the
+ * controllers of the application and reports the latency percentiles of each
+ * command (macro benchmark with a realistic workload).<BR>
+ * <BR>
+ * Usage: java de.lambeck.pned.benchmark.SessionReplayer file [options]<BR>
+ * -realtime : Keep the recorded pauses between the commands (otherwise: as
+ * fast as possible)<BR>
+ * -show : Show the application window (The latencies include the painting.
+ * Needs a display.)<BR>
+ * -locale en_US : The locale of the application<BR>
+ * <BR>
+ * The latency of a command is the time from the start of the command until
+ * the EDT has processed all events queued by the command (e.g. repaints).<BR>
+ * <BR>
+ * Note: With a display, the application window is created, but hidden by
+ * default. In a headless JVM (-Djava.awt.headless=true, e.g. on a build
+ * server) no window is created at all: The commands run against the
+ * controllers and the draw panels are not painted. Commands which would show
+ * a message box there are not measured.<BR>
+ * <BR>
+ * Commands with dialogs or changes of files (Save, Close, Rename, Exit) are
+ * skipped, message boxes (e.g. of the validators) are closed automatically.
+ * The home directory is replaced with a temporary directory, so the edit
+ * journals and the parser cache of the user stay untouched.<BR>
+ * <BR>
+ * Smoke test (headless): java -Djava.awt.headless=true
+ * de.lambeck.pned.benchmark.SessionReplayer
+ * test/de/lambeck/pned/benchmark/smoke.session
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class SessionReplayer {
+
+    /** The interval of the check for message boxes [ms] */
+    private static final int DIALOG_CHECK_INTERVAL = 200;
+
+    /** The percentiles of the report */
+    private static final double[] PERCENTILES = { 50, 90, 99 };
+
+    /** The application controller */
+    private ApplicationController appController;
+
+    /** The latencies [ns] by command */
+    private Map<ESessionCommand, List<Long>> latencies = new EnumMap<ESessionCommand, List<Long>>(
+            ESessionCommand.class);
+
+    /** The number of skipped commands (dialogs or changes of files) */
+    private int skippedCommands = 0;
+
+    /** The number of skipped commands (model not open) */
+    private int skippedModels = 0;
+
+    /** The number of automatically closed message boxes */
+    private int dismissedDialogs = 0;
+
+    /** The number of commands with message boxes in a headless JVM */
+    private int headlessDialogs = 0;
+
+    /**
+     * Replays the specified session.
+     *
+     * @param args
+     *            See class description
+     * @throws Exception
+     *             If the session file cannot be read or the application
+     *             cannot be started
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: SessionReplayer file [-realtime] [-show] [-locale en_US]");
+            System.exit(1);
+        }
+
+        File sessionFile = new File(args[0]);
+        boolean realtime = false;
+        boolean show = false;
+        Locale locale = new Locale("en", "US");
+        for (int i = 1; i < args.length; i++) {
+            switch (args[i]) {
+            case "-realtime":
+                realtime = true;
+                break;
+            case "-show":
+                show = true;
+                break;
+            case "-locale":
+                String[] parts = args[++i].split("_");
+                locale = new Locale(parts[0], (parts.length > 1) ? parts[1] : "");
+                break;
+            default:
+                System.err.println("Unknown option: " + args[i]);
+            }
+        }
+
+        if (show && GraphicsEnvironment.isHeadless()) {
+            System.err.println("-show needs a display (java.awt.headless=false)");
+            System.exit(1);
+        }
+
+        List<SessionEntry> entries = SessionRecorder.read(sessionFile);
+        System.out.println("Session: " + sessionFile + " (" + entries.size() + " commands)");
+
+        /* Keep the journals and the cache of the user untouched. */
+        File home = Files.createTempDirectory("pned-replay").toFile();
+        System.setProperty("user.home", home.getPath());
+
+        SessionReplayer replayer = new SessionReplayer();
+        int exitCode = 0;
+        try {
+            replayer.start(locale, show);
+            replayer.replay(entries, realtime);
+            replayer.printReport();
+        } catch (Exception e) {
+            System.err.println("Replay failed: " + e);
+            e.printStackTrace();
+            exitCode = 2;
+        } finally {
+            delete(home);
+        }
+
+        /* Not via the application: it would ask for saving the models. */
+        System.exit(exitCode);
+    }
+
+    /**
+     * Starts the application (on the EDT) and the automatic closing of
+     * message boxes.
+     *
+     * @param locale
+     *            The locale of the application
+     * @param show
+     *            Show the application window?
+     * @throws Exception
+     *             If the application cannot be started
+     */
+    private void start(final Locale locale, final boolean show) throws Exception {
+        final Exception[] error = new Exception[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                /* No window at all in a headless JVM */
+                JFrame frame = GraphicsEnvironment.isHeadless() ? null : new JFrame("Session replay");
+                I18NManager i18n = new I18NManager(locale);
+                StatusBar statusBar = new StatusBar(i18n);
+                try {
+                    appController = new ApplicationController(frame, i18n, statusBar);
+                } catch (Exception e) {
+                    error[0] = e;
+                    return;
+                }
+                if (frame != null) {
+                    frame.pack();
+                    if (show)
+                        frame.setVisible(true);
+                }
+
+                Timer dialogTimer = new Timer(DIALOG_CHECK_INTERVAL, new ActionListener() {
+                    @Override
+                    public void actionPerformed(ActionEvent e) {
+                        dismissDialogs();
+                    }
+                });
+                dialogTimer.start();
+            }
+        });
+
+        if (error[0] != null)
+            throw error[0];
+    }
+
+    /**
+     * Replays all entries and stores the latencies.
+     *
+     * @param entries
+     *            The {@link List} of {@link SessionEntry}
+     * @param realtime
+     *            Keep the recorded pauses between the commands?
+     * @throws Exception
+     *             If a command has thrown an exception
+     */
+    private void replay(List<SessionEntry> entries, boolean realtime) throws Exception {
+        final Runnable noOp = new Runnable() {
+            @Override
+            public void run() {
+                /* Only to wait for the events queued before */
+            }
+        };
+
+        long start = System.nanoTime();
+        for (final SessionEntry entry : entries) {
+            ESessionCommand command = entry.getCommand();
+            if (!command.isReplayable()) {
+                skippedCommands++;
+                continue;
+            }
+
+            if (realtime) {
+                long wait = entry.getTime() - (System.nanoTime() - start) / 1000000;
+                if (wait > 0)
+                    Thread.sleep(wait);
+            }
+
+            if (!activateModel(entry)) {
+                skippedModels++;
+                continue;
+            }
+
+            final boolean[] headlessDialog = new boolean[1];
+            long commandStart = System.nanoTime();
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        execute(entry);
+                    } catch (HeadlessException e) {
+                        /* A message box without a display */
+                        headlessDialog[0] = true;
+                    }
+                }
+            });
+            SwingUtilities.invokeAndWait(noOp);
+            long latency = System.nanoTime() - commandStart;
+
+            if (headlessDialog[0]) {
+                headlessDialogs++;
+                continue;
+            }
+
+            List<Long> commandLatencies = latencies.get(command);
+            if (commandLatencies == null) {
+                commandLatencies = new ArrayList<Long>();
+                latencies.put(command, commandLatencies);
+            }
+            commandLatencies.add(latency);
+        }
+    }
+
+    /**
+     * Activates the model of the specified entry. (Not measured)
+     *
+     * @param entry
+     *            The {@link SessionEntry}
+     * @return true if the command can be executed; false if the model is not
+     *         open
+     * @throws Exception
+     *             If the EDT was interrupted
+     */
+    private boolean activateModel(final SessionEntry entry) throws Exception {
+        final String modelName = entry.getModelName();
+        final boolean[] activated = new boolean[1];
+        SwingUtilities.invokeAndWait(new Runnable() {
+            @Override
+            public void run() {
+                activated[0] = modelName.isEmpty() || appController.activateFile(modelName);
+            }
+        });
+
+        switch (entry.getCommand()) {
+        case FILE_NEW:
+        case FILE_OPEN:
+            return true; // Independent of the active model
+        default:
+            return activated[0];
+        }
+    }
+
+    /**
+     * Executes the command of the specified entry. (On the EDT)
+     *
+     * @param entry
+     *            The {@link SessionEntry}
+     */
+    private void execute(SessionEntry entry) {
+        IGuiModelController guiController = appController.getGuiModelController();
+
+        switch (entry.getCommand()) {
+        case FILE_NEW:
+            appController.menuCmd_FileNew();
+            break;
+        case FILE_OPEN:
+            appController.menuCmd_FileOpen(new File(entry.getValue(0)));
+            break;
+        case EDIT_UNDO:
+            appController.menuCmd_EditUndo();
+            break;
+        case EDIT_REDO:
+            appController.menuCmd_EditRedo();
+            break;
+        case EDIT_DELETE:
+            appController.menuCmd_EditDelete();
+            break;
+        case SELECT_ALL:
+            appController.menuCmd_SelectAll();
+            break;
+        case ELEMENT_TO_THE_FOREGROUND:
+            appController.menuCmd_ElementToTheForeground();
+            break;
+        case ELEMENT_TO_THE_BACKGROUND:
+            appController.menuCmd_ElementToTheBackground();
+            break;
+        case ELEMENT_ONE_LAYER_UP:
+            appController.menuCmd_ElementOneLayerUp();
+            break;
+        case ELEMENT_ONE_LAYER_DOWN:
+            appController.menuCmd_ElementOneLayerDown();
+            break;
+        case NEW_PLACE:
+            setPopupMenuLocation(guiController, entry.getPoint(0));
+            appController.menuCmd_NewPlace();
+            break;
+        case NEW_TRANSITION:
+            setPopupMenuLocation(guiController, entry.getPoint(0));
+            appController.menuCmd_NewTransition();
+            break;
+        case NEW_ARC_FROM_HERE:
+            setPopupMenuLocation(guiController, entry.getPoint(0));
+            appController.menuCmd_NewArcFromHere();
+            break;
+        case NEW_ARC_TO_HERE:
+            guiController.checkDrawArcFinalEndLocation(entry.getPoint(0));
+            break;
+        case FIRE_TRANSITION:
+            setPopupMenuLocation(guiController, entry.getPoint(0));
+            appController.menuCmd_FireTransition();
+            break;
+        case STOP_SIMULATION:
+            appController.menuCmd_StopSimulation();
+            break;
+        case VIEW_PERFORMANCE_HUD:
+            appController.menuCmd_ViewPerformanceHud(Boolean.parseBoolean(entry.getValue(0)));
+            break;
+        case MOUSE_CLICK:
+            guiController.mouseClick_Occurred(entry.getPoint(0), createClickEvent(guiController, entry.getPoint(2)));
+            break;
+        case MOUSE_CLICK_WITH_CTRL:
+            guiController.mouseClick_WithCtrl_Occurred(entry.getPoint(0),
+                    createClickEvent(guiController, entry.getPoint(2)));
+            break;
+        case MOUSE_DRAGGED:
+            Point distance = entry.getPoint(0);
+            guiController.mouseDragged(distance.x, distance.y);
+            break;
+        case DRAG_FINISHED:
+            guiController.updateDataNodePositions();
+            /* Like MyMouseAdapter.mouseReleased() */
+            guiController.getCurrentDrawPanel().updateDrawing(null);
+            break;
+        default:
+            /* Not replayable */
+            break;
+        }
+    }
+
+    /**
+     * Sets the location of the popup menu on the current draw panel.
+     *
+     * @param guiController
+     *            The {@link IGuiModelController}
+     * @param p
+     *            The location (model coordinates); (-1, -1) for none
+     */
+    private static void setPopupMenuLocation(IGuiModelController guiController, Point p) {
+        Point location = (p.x < 0 && p.y < 0) ? null : p;
+        guiController.getCurrentDrawPanel().setPopupMenuLocation(location);
+    }
+
+    /**
+     * Creates the mouseClicked event for the specified location.
+     *
+     * @param guiController
+     *            The {@link IGuiModelController}
+     * @param modelLocation
+     *            The location of the mouse (model coordinates)
+     * @return The {@link MouseEvent} (view coordinates)
+     */
+    private static MouseEvent createClickEvent(IGuiModelController guiController, Point modelLocation) {
+        IDrawPanel drawPanel = guiController.getCurrentDrawPanel();
+        Rectangle view = drawPanel.modelToView(new Rectangle(modelLocation));
+        return new MouseEvent((Component) drawPanel, MouseEvent.MOUSE_CLICKED, System.currentTimeMillis(), 0,
+                view.x, view.y, 1, false, MouseEvent.BUTTON1);
+    }
+
+    /**
+     * Closes all visible dialogs (e.g. message boxes of the validators).
+     */
+    private void dismissDialogs() {
+        for (Window window : Window.getWindows()) {
+            if (window instanceof Dialog && window.isShowing()) {
+                window.dispose();
+                dismissedDialogs++;
+            }
+        }
+    }
+
+    /**
+     * Prints the latency percentiles of each command.
+     */
+    private void printReport() {
+        System.out.println();
+        System.out.println(String.format(Locale.ROOT, "%-28s %7s %10s %10s %10s %10s %10s", "Command [ms]", "Count",
+                "Mean", "p50", "p90", "p99", "Max"));
+
+        List<Long> all = new ArrayList<Long>();
+        for (Map.Entry<ESessionCommand, List<Long>> entry : latencies.entrySet()) {
+            System.out.println(format(entry.getKey().name(), entry.getValue()));
+            all.addAll(entry.getValue());
+        }
+        if (!all.isEmpty())
+            System.out.println(format("ALL", all));
+
+        System.out.println();
+        System.out.println("Skipped commands (dialogs, changes of files): " + skippedCommands);
+        System.out.println("Skipped commands (model not open): " + skippedModels);
+        System.out.println("Closed message boxes: " + dismissedDialogs);
+        if (GraphicsEnvironment.isHeadless())
+            System.out.println("Not measured (message box in a headless JVM): " + headlessDialogs);
+    }
+
+    /**
+     * @param name
+     *            The name of the row
+     * @param values
+     *            The latencies [ns]
+     * @return One line of the report
+     */
+    private static String format(String name, List<Long> values) {
+        long[] sorted = new long[values.size()];
+        double sum = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = values.get(i);
+            sum += sorted[i];
+        }
+        Arrays.sort(sorted);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ROOT, "%-28s %7d %10.3f", name, sorted.length, sum / sorted.length / 1e6));
+        for (double percentile : PERCENTILES) {
+            sb.append(String.format(Locale.ROOT, " %10.3f", percentile(sorted, percentile) / 1e6));
+        }
+        sb.append(String.format(Locale.ROOT, " %10.3f", sorted[sorted.length - 1] / 1e6));
+        return sb.toString();
+    }
+
+    /**
+     * Returns the specified percentile (nearest rank).
+     *
+     * @param sorted
+     *            The sorted values
+     * @param percentile
+     *            The percentile (0 - 100)
+     * @return The value
+     */
+    private static long percentile(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    /**
+     * Deletes the specified file or directory (recursively).
+     *
+     * @param file
+     *            The file or directory
+     */
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (!file.delete() && file.exists())
+            System.err.println("Cannot delete " + file);
+    }
+
+}
@@ -0,0 +1,635 @@
+package de.lambeck.pned.benchmark;
+
+import java.awt.Point;
+import java.io.File;
+import java.util.*;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.exceptions.PNElementCreationException;
+import de.lambeck.pned.filesystem.pnml.PNMLWriter;
+import de.lambeck.pned.models.data.IDataModel;
+import de.lambeck.pned.models.gui.IGuiModel;
+
+/**
+ * Generator for synthetic workflow nets (e.g. for benchmarks, validators and
+ * rendering tests): One start place (with a token) and one end place, the
+ * nodes between them built from nested blocks (sequences, XOR splits and
+ * joins, AND splits and joins, loops).<BR>
+ * <BR>
+ * The same seed and size give the same net. Sound nets contain only properly
+ * nested blocks. Unsound nets contain additional faulty blocks: XOR splits
+ * followed by AND joins (deadlocks) and dead parts (places without input
+ * which are not reachable from the start place).<BR>
+ * <BR>
+ * The nodes get coordinates in columns by their distance from the start
+ * place. Long nets are folded into bands of columns.<BR>
+ * <BR>
+ * Usage: java de.lambeck.pned.benchmark.WorkflowNetGenerator nodes seed
+ * [sound|unsound] file.pnml<BR>
+ * <BR>
+ * Note: Adding elements to IDataModel and IGuiModel takes quadratic time
+ * (check for duplicate IDs). For very large nets, write() the net into a PNML
+ * file.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class WorkflowNetGenerator {
+
+    /** Distance between the columns and between the rows */
+    private static final int SPACING = 80;
+
+    /** Distance between the nodes and the top left corner */
+    private static final int MARGIN = 60;
+
+    /** Number of columns before the net is continued in a new band */
+    private static final int COLUMNS_PER_BAND = 200;
+
+    /** The random generator (initialized with the seed) */
+    private final Random random;
+
+    /** Generate a sound net? */
+    private final boolean sound;
+
+    /** The IDs of all nodes */
+    private List<String> nodeIds = new ArrayList<String>();
+
+    /** The nodes which are places (by index) */
+    private BitSet places = new BitSet();
+
+    /** The positions of all nodes (by index) */
+    private List<Point> positions = new ArrayList<Point>();
+
+    /** The source node of each arc */
+    private int[] arcSources = new int[1024];
+
+    /** The target node of each arc */
+    private int[] arcTargets = new int[1024];
+
+    /** The number of arcs */
+    private int arcCount = 0;
+
+    /** The number of places */
+    private int placeCount = 0;
+
+    /** The number of transitions */
+    private int transitionCount = 0;
+
+    /** The number of faulty blocks (unsound nets only) */
+    private int faultCount = 0;
+
+    /** The index of the start place */
+    private int startPlace = -1;
+
+    /** The blocks which still have to be created: {from, to, budget} */
+    private Deque<int[]> holes = new ArrayDeque<int[]>();
+
+    /**
+     * Constructs a generator.
+     *
+     * @param seed
+     *            The seed for the random generator
+     * @param sound
+     *            True = sound nets; false = nets with faulty blocks
+     */
+    @SuppressWarnings("hiding")
+    public WorkflowNetGenerator(long seed, boolean sound) {
+        this.random = new Random(seed);
+        this.sound = sound;
+    }
+
+    /**
+     * Generates a new net with approximately the specified number of nodes.
+     * (Replaces the previous net.)
+     *
+     * @param targetNodes
+     *            The number of places and transitions (at least 3)
+     */
+    public void generate(int targetNodes) {
+        reset();
+
+        int start = newPlace();
+        int end = newPlace();
+        startPlace = start;
+
+        holes.push(new int[] { start, end, Math.max(1, targetNodes - 2) });
+        while (!holes.isEmpty()) {
+            int[] hole = holes.pop();
+            createBlock(hole[0], hole[1], hole[2]);
+        }
+
+        layout();
+    }
+
+    /* Getter */
+
+    /**
+     * @return The number of places
+     */
+    public int getPlaceCount() {
+        return placeCount;
+    }
+
+    /**
+     * @return The number of transitions
+     */
+    public int getTransitionCount() {
+        return transitionCount;
+    }
+
+    /**
+     * @return The number of arcs
+     */
+    public int getArcCount() {
+        return arcCount;
+    }
+
+    /**
+     * @return The number of faulty blocks (0 for sound nets)
+     */
+    public int getFaultCount() {
+        return faultCount;
+    }
+
+    /* Output */
+
+    /**
+     * Adds the generated net to the specified {@link IDataModel}.
+     *
+     * @param model
+     *            The {@link IDataModel} (should be empty)
+     * @throws PNElementCreationException
+     *             If an arc could not be created
+     */
+    public void fill(IDataModel model) throws PNElementCreationException {
+        for (int i = 0; i < nodeIds.size(); i++) {
+            String id = nodeIds.get(i);
+            if (places.get(i)) {
+                model.addPlace(id, id, getTokens(i), positions.get(i));
+            } else {
+                model.addTransition(id, id, positions.get(i));
+            }
+        }
+        for (int i = 0; i < arcCount; i++) {
+            model.addArc("a" + i, nodeIds.get(arcSources[i]), nodeIds.get(arcTargets[i]));
+        }
+    }
+
+    /**
+     * Adds the generated net to the specified {@link IGuiModel}.
+     *
+     * @param model
+     *            The {@link IGuiModel} (should be empty)
+     * @throws PNElementCreationException
+     *             If an arc could not be created
+     */
+    public void fill(IGuiModel model) throws PNElementCreationException {
+        for (int i = 0; i < nodeIds.size(); i++) {
+            String id = nodeIds.get(i);
+            if (places.get(i)) {
+                model.addPlace(id, id, getTokens(i), positions.get(i));
+            } else {
+                model.addTransition(id, id, positions.get(i));
+            }
+        }
+        for (int i = 0; i < arcCount; i++) {
+            model.addArc("a" + i, nodeIds.get(arcSources[i]), nodeIds.get(arcTargets[i]));
+        }
+    }
+
+    /**
+     * Writes the generated net into the specified PNML file.
+     *
+     * @param pnmlFile
+     *            The PNML file (compressed if the name ends with ".gz")
+     * @return Exit code 0 if completed without errors; 1 on IO errors; 2 on XML
+     *         errors (the exit codes of the {@link PNMLWriter})
+     */
+    public int write(File pnmlFile) {
+        PNMLWriter writer = new PNMLWriter(pnmlFile);
+        int result = writer.startXMLDocument();
+        if (result > 0)
+            return result;
+
+        for (int i = 0; i < nodeIds.size() && result <= 0; i++) {
+            String id = nodeIds.get(i);
+            String x = Integer.toString(positions.get(i).x);
+            String y = Integer.toString(positions.get(i).y);
+            if (places.get(i)) {
+                result = writer.addPlace(id, id, x, y, getTokens(i).toPnedString());
+            } else {
+                result = writer.addTransition(id, id, x, y);
+            }
+        }
+        for (int i = 0; i < arcCount && result <= 0; i++) {
+            result = writer.addArc("a" + i, nodeIds.get(arcSources[i]), nodeIds.get(arcTargets[i]));
+        }
+        if (result > 0)
+            return result;
+
+        return writer.finishXMLDocument();
+    }
+
+    /**
+     * Writes a generated net into a PNML file.
+     *
+     * @param args
+     *            nodes seed [sound|unsound] file.pnml
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("Usage: WorkflowNetGenerator nodes seed [sound|unsound] file.pnml");
+            return;
+        }
+
+        int nodes = Integer.parseInt(args[0]);
+        long seed = Long.parseLong(args[1]);
+        boolean sound = args.length < 4 || !args[2].equalsIgnoreCase("unsound");
+        File file = new File(args[args.length - 1]);
+
+        WorkflowNetGenerator generator = new WorkflowNetGenerator(seed, sound);
+        generator.generate(nodes);
+        int result = generator.write(file);
+
+        System.out.println(file + ": " + generator.getPlaceCount() + " places, " + generator.getTransitionCount()
+                + " transitions, " + generator.getArcCount() + " arcs, " + generator.getFaultCount()
+                + " faulty blocks (exit code " + result + ")");
+    }
+
+    /* Private helpers */
+
+    /**
+     * Removes the previous net.
+     */
+    private void reset() {
+        nodeIds.clear();
+        places.clear();
+        positions.clear();
+        arcCount = 0;
+        placeCount = 0;
+        transitionCount = 0;
+        faultCount = 0;
+        startPlace = -1;
+        holes.clear();
+    }
+
+    /**
+     * Creates a block between the specified places. Larger inner parts are
+     * added to the holes.
+     *
+     * @param from
+     *            The input place of the block
+     * @param to
+     *            The output place of the block
+     * @param budget
+     *            The number of nodes for the block (at least 1)
+     */
+    private void createBlock(int from, int to, int budget) {
+        if (!sound && budget >= 7 && (faultCount == 0 || random.nextInt(50) == 0)) {
+            if (random.nextBoolean()) {
+                createDeadlock(from, to, budget);
+            } else {
+                createDeadPart(from, to, budget);
+            }
+            return;
+        }
+
+        if (budget < 3) {
+            if (budget == 2) {
+                createXor(from, to, budget);
+            } else {
+                createTask(from, to);
+            }
+            return;
+        }
+
+        int choice = random.nextInt(10);
+        if (choice < 5) {
+            createSequence(from, to, budget);
+        } else if (choice < 7) {
+            createXor(from, to, budget);
+        } else if (choice < 9 && budget >= 8) {
+            createAnd(from, to, budget);
+        } else if (budget >= 6) {
+            createLoop(from, to, budget);
+        } else {
+            createSequence(from, to, budget);
+        }
+    }
+
+    /**
+     * One transition: from -> t -> to
+     *
+     * @param from
+     *            The input place
+     * @param to
+     *            The output place
+     */
+    private void createTask(int from, int to) {
+        int t = newTransition();
+        addArc(from, t);
+        addArc(t, to);
+    }
+
+    /**
+     * Two blocks in a row: from -> [block] -> m -> [block] -> to
+     *
+     * @param from
+     *            The input place
+     * @param to
+     *            The output place
+     * @param budget
+     *            The number of nodes (at least 3)
+     */
+    private void createSequence(int from, int to, int budget) {
+        int m = newPlace();
+        int[] parts = split(budget - 1, 2);
+        holes.push(new int[] { m, to, parts[1] });
+        holes.push(new int[] { from, m, parts[0] });
+    }
+
+    /**
+     * Alternative blocks between the same places (XOR split at "from", XOR
+     * join at "to").
+     *
+     * @param from
+     *            The input place
+     * @param to
+     *            The output place
+     * @param budget
+     *            The number of nodes (at least 2)
+     */
+    private void createXor(int from, int to, int budget) {
+        int branches = (budget >= 6 && random.nextInt(3) == 0) ? 3 : 2;
+        int[] parts = split(budget, branches);
+        for (int i = branches - 1; i >= 0; i--) {
+            holes.push(new int[] { from, to, parts[i] });
+        }
+    }
+
+    /**
+     * Parallel blocks: from -> split -> (a(i) -> [block] -> c(i))* -> join ->
+     * to
+     *
+     * @param from
+     *            The input place
+     * @param to
+     *            The output place
+     * @param budget
+     *            The number of nodes (at least 8)
+     */
+    private void createAnd(int from, int to, int budget) {
+        int branches = (budget >= 12 && random.nextInt(3) == 0) ? 3 : 2;
+        int split = newTransition();
+        int join = newTransition();
+        addArc(from, split);
+        addArc(join, to);
+
+        int[] parts = split(budget - 2 - 2 * branches, branches);
+        for (int i = branches - 1; i >= 0; i--) {
+            int a = newPlace();
+            int c = newPlace();
+            addArc(split, a);
+            addArc(c, join);
+            holes.push(new int[] { a, c, parts[i] });
+        }
+    }
+
+    /**
+     * A loop: from -> in -> m1 -> [block] -> m2 -> out -> to, with the way
+     * back m2 -> back -> m1
+     *
+     * @param from
+     *            The input place
+     * @param to
+     *            The output place
+     * @param budget
+     *            The number of nodes (at least 6)
+     */
+    private void createLoop(int from, int to, int budget) {
+        int in = newTransition();
+        int m1 = newPlace();
+        int m2 = newPlace();
+        int back = newTransition();
+        int out = newTransition();
+
+        addArc(from, in);
+        addArc(in, m1);
+        addArc(m2, back);
+        addArc(back, m1);
+        addArc(m2, out);
+        addArc(out, to);
+        holes.push(new int[] { m1, m2, budget - 5 });
+    }
+
+    /**
+     * Faulty block: XOR split followed by an AND join (the join can never
+     * fire): from -> t1 -> a, from -> t2 -> b, (a, b) -> join -> m, then a
+     * block m -> to.
+     *
+     * @param from
+     *            The input place
+     * @param to
+     *            The output place
+     * @param budget
+     *            The number of nodes (at least 7)
+     */
+    private void createDeadlock(int from, int to, int budget) {
+        int t1 = newTransition();
+        int t2 = newTransition();
+        int a = newPlace();
+        int b = newPlace();
+        int join = newTransition();
+        int m = newPlace();
+
+        addArc(from, t1);
+        addArc(t1, a);
+        addArc(from, t2);
+        addArc(t2, b);
+        addArc(a, join);
+        addArc(b, join);
+        addArc(join, m);
+        holes.push(new int[] { m, to, budget - 6 });
+        faultCount++;
+    }
+
+    /**
+     * Faulty block: A dead part (a place without input, not reachable from the
+     * start place) next to a normal block: d -> dt -> to, from -> [block] ->
+     * to.
+     *
+     * @param from
+     *            The input place
+     * @param to
+     *            The output place
+     * @param budget
+     *            The number of nodes (at least 3)
+     */
+    private void createDeadPart(int from, int to, int budget) {
+        int d = newPlace();
+        int dt = newTransition();
+        addArc(d, dt);
+        addArc(dt, to);
+        holes.push(new int[] { from, to, budget - 2 });
+        faultCount++;
+    }
+
+    /**
+     * Splits the specified number into random parts (each at least 1).
+     *
+     * @param total
+     *            The number to split (at least count)
+     * @param count
+     *            The number of parts
+     * @return The parts
+     */
+    private int[] split(int total, int count) {
+        int[] parts = new int[count];
+        int remaining = total - count;
+        for (int i = 0; i < count - 1; i++) {
+            int share = (remaining > 0) ? random.nextInt(remaining + 1) : 0;
+            parts[i] = 1 + share;
+            remaining -= share;
+        }
+        parts[count - 1] = 1 + remaining;
+
+        /* The first part must not always get the largest share. */
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = parts[i];
+            parts[i] = parts[j];
+            parts[j] = tmp;
+        }
+        return parts;
+    }
+
+    /**
+     * @return The index of a new place
+     */
+    private int newPlace() {
+        int index = nodeIds.size();
+        nodeIds.add("p" + placeCount++);
+        places.set(index);
+        return index;
+    }
+
+    /**
+     * @return The index of a new transition
+     */
+    private int newTransition() {
+        int index = nodeIds.size();
+        nodeIds.add("t" + transitionCount++);
+        return index;
+    }
+
+    /**
+     * Adds an arc between the specified nodes.
+     *
+     * @param source
+     *            The index of the source node
+     * @param target
+     *            The index of the target node
+     */
+    private void addArc(int source, int target) {
+        if (arcCount == arcSources.length) {
+            arcSources = Arrays.copyOf(arcSources, arcCount * 2);
+            arcTargets = Arrays.copyOf(arcTargets, arcCount * 2);
+        }
+        arcSources[arcCount] = source;
+        arcTargets[arcCount] = target;
+        arcCount++;
+    }
+
+    /**
+     * @param node
+     *            The index of a place
+     * @return The initial marking of the place (a token on the start place)
+     */
+    private EPlaceToken getTokens(int node) {
+        return (node == startPlace) ? EPlaceToken.ONE : EPlaceToken.ZERO;
+    }
+
+    /**
+     * Assigns the positions: The column of each node is its distance from the
+     * start place, the rows are filled from top to bottom. Dead parts are
+     * placed one column before their successor.
+     */
+    private void layout() {
+        int nodes = nodeIds.size();
+
+        /* Successors of each node (compressed: offsets + targets) */
+        int[] offsets = new int[nodes + 1];
+        for (int i = 0; i < arcCount; i++) {
+            offsets[arcSources[i] + 1]++;
+        }
+        for (int i = 0; i < nodes; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] successors = new int[arcCount];
+        int[] fill = Arrays.copyOf(offsets, nodes);
+        for (int i = 0; i < arcCount; i++) {
+            successors[fill[arcSources[i]]++] = arcTargets[i];
+        }
+
+        /* Breadth-first search from the start place */
+        int[] depth = new int[nodes];
+        Arrays.fill(depth, -1);
+        int[] queue = new int[nodes];
+        int head = 0;
+        int tail = 0;
+        depth[startPlace] = 0;
+        queue[tail++] = startPlace;
+        while (head < tail) {
+            int node = queue[head++];
+            for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                int next = successors[k];
+                if (depth[next] < 0) {
+                    depth[next] = depth[node] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        /* Unreachable nodes (dead parts): one column before the successor */
+        for (int round = 0; round < 2; round++) {
+            for (int node = 0; node < nodes; node++) {
+                if (depth[node] >= 0)
+                    continue;
+                for (int k = offsets[node]; k < offsets[node + 1]; k++) {
+                    if (depth[successors[k]] >= 0)
+                        depth[node] = Math.max(0, depth[successors[k]] - 1);
+                }
+            }
+        }
+
+        /* Rows per column and height of each band */
+        int maxDepth = 0;
+        for (int node = 0; node < nodes; node++) {
+            if (depth[node] < 0)
+                depth[node] = 0;
+            maxDepth = Math.max(maxDepth, depth[node]);
+        }
+        int[] rows = new int[maxDepth + 1];
+        int[] row = new int[nodes];
+        for (int node = 0; node < nodes; node++) {
+            row[node] = rows[depth[node]]++;
+        }
+        int bands = maxDepth / COLUMNS_PER_BAND + 1;
+        int[] bandTop = new int[bands + 1];
+        for (int band = 0; band < bands; band++) {
+            int maxRows = 0;
+            for (int d = band * COLUMNS_PER_BAND; d <= maxDepth && d < (band + 1) * COLUMNS_PER_BAND; d++) {
+                maxRows = Math.max(maxRows, rows[d]);
+            }
+            bandTop[band + 1] = bandTop[band] + (maxRows + 1) * SPACING;
+        }
+
+        positions.clear();
+        for (int node = 0; node < nodes; node++) {
+            int band = depth[node] / COLUMNS_PER_BAND;
+            int column = depth[node] % COLUMNS_PER_BAND;
+            positions.add(new Point(MARGIN + column * SPACING, MARGIN + bandTop[band] + row[node] * SPACING));
+        }
+    }
+
+}
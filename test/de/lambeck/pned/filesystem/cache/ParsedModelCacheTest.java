@@ -0,0 +1,240 @@
+package de.lambeck.pned.filesystem.cache;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.JFrame;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.elements.data.DataArc;
+import de.lambeck.pned.elements.data.DataPlace;
+import de.lambeck.pned.elements.data.DataTransition;
+import de.lambeck.pned.elements.data.IDataElement;
+import de.lambeck.pned.exceptions.PNElementCreationException;
+import de.lambeck.pned.filesystem.cache.ParsedModelCache.CacheKey;
+import de.lambeck.pned.filesystem.pnml.IPNMLImportTarget;
+import de.lambeck.pned.models.data.DataModel;
+import de.lambeck.pned.util.SelfTest;
+
+/**
+ * Self test for the {@link ParsedModelCache}: store, load and invalidation
+ * (in a temporary directory).<BR>
+ * <BR>
+ * Note: The "PNML file" is only a dummy file because the cache does not parse
+ * it. It only checks its size, modification time and content.<BR>
+ * <BR>
+ * Exit code 1 if a check has failed.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class ParsedModelCacheTest implements IPNMLImportTarget {
+
+    /** Max. time to wait for the background writer (in ms) */
+    private static final long WRITER_TIMEOUT = 5000;
+
+    /** The elements pushed by the cache (as lines, see toLines()) */
+    private List<String> pushed = new ArrayList<String>();
+
+    /**
+     * Self test...
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        File dir = Files.createTempDirectory("pned-cache-test").toFile();
+        File cacheDir = new File(dir, "cache");
+        File pnmlFile = new File(dir, "net.pnml");
+        try {
+            doTest(cacheDir, pnmlFile);
+        } finally {
+            SelfTest.deleteAll(cacheDir);
+            SelfTest.deleteAll(dir);
+        }
+
+        SelfTest.finish();
+    }
+
+    /**
+     * Runs all checks.
+     *
+     * @param cacheDir
+     *            The cache directory
+     * @param pnmlFile
+     *            The dummy PNML file
+     * @throws Exception
+     */
+    private static void doTest(File cacheDir, File pnmlFile) throws Exception {
+        writeFile(pnmlFile, "<pnml>version 1</pnml>", 1000000000000L);
+        ParsedModelCache cache = new ParsedModelCache(cacheDir, ParsedModelCache.DEFAULT_MAX_CACHE_SIZE);
+
+        SelfTest.check("No key for a missing file", cache.getKey(new File(pnmlFile.getPath() + ".missing")) == null);
+        SelfTest.check("Miss before store", load(cache, pnmlFile) == null);
+
+        DataModel model = createModel();
+        cache.store(cache.getKey(pnmlFile), model);
+        SelfTest.check("Cache file written", waitForCacheFile(cacheDir));
+
+        List<String> loaded = load(cache, pnmlFile);
+        SelfTest.check("Hit after store", loaded != null);
+        SelfTest.check("Hit: same elements as the model", toLines(model).equals(loaded));
+
+        /* Same content, other modification time (e.g. copied or touched) */
+        pnmlFile.setLastModified(1000000005000L);
+        SelfTest.check("Touched file: hit (same content)", toLines(model).equals(load(cache, pnmlFile)));
+        SelfTest.check("Touched file: hit again", toLines(model).equals(load(cache, pnmlFile)));
+
+        /* Same size, other content */
+        writeFile(pnmlFile, "<pnml>version 2</pnml>", 1000000010000L);
+        SelfTest.check("Changed content: miss", load(cache, pnmlFile) == null);
+
+        /* Other size, same modification time */
+        writeFile(pnmlFile, "<pnml>version 1</pnml>", 1000000010000L);
+        cache.store(cache.getKey(pnmlFile), model);
+        Thread.sleep(500); // Replaces the existing cache file
+        writeFile(pnmlFile, "<pnml>version 10</pnml>", 1000000010000L);
+        SelfTest.check("Changed size: miss", load(cache, pnmlFile) == null);
+    }
+
+    /* Implementation of IPNMLImportTarget */
+
+    @Override
+    public void addPlaceToCurrentDataModel(String id, String name, EPlaceToken initialTokens, Point position) {
+        pushed.add(placeLine(id, name, initialTokens, position));
+    }
+
+    @Override
+    public void addTransitionToCurrentDataModel(String id, String name, Point position) {
+        pushed.add(transitionLine(id, name, position));
+    }
+
+    @Override
+    public void addArcToCurrentDataModel(String id, String sourceId, String targetId) {
+        pushed.add(arcLine(id, sourceId, targetId));
+    }
+
+    @Override
+    public JFrame getMainFrame() {
+        return null;
+    }
+
+    /* Helpers */
+
+    /**
+     * @return A small model with all element types (arcs added last, like the
+     *         parser does)
+     * @throws PNElementCreationException
+     */
+    private static DataModel createModel() throws PNElementCreationException {
+        DataModel model = new DataModel("net.pnml", "net");
+        model.addPlace("p1", "Start", EPlaceToken.ONE, new Point(10, 20));
+        model.addTransition("t1", "Tab\tand ä", new Point(100, 20));
+        model.addPlace("p2", "", EPlaceToken.ZERO, new Point(200, -20));
+        model.addArc("a1", "p1", "t1");
+        model.addArc("a2", "t1", "p2");
+        return model;
+    }
+
+    /**
+     * Loads the cached model of the specified file.
+     *
+     * @param cache
+     *            The {@link ParsedModelCache}
+     * @param pnmlFile
+     *            The PNML file
+     * @return The pushed elements (as lines); null on a cache miss
+     */
+    private static List<String> load(ParsedModelCache cache, File pnmlFile) {
+        CacheKey key = cache.getKey(pnmlFile);
+        ParsedModelCacheTest target = new ParsedModelCacheTest();
+        if (!cache.load(key, target))
+            return null;
+        return target.pushed;
+    }
+
+    /**
+     * @param model
+     *            The {@link DataModel}
+     * @return The elements of the model as lines (nodes before arcs)
+     */
+    private static List<String> toLines(DataModel model) {
+        List<String> lines = new ArrayList<String>();
+        List<String> arcs = new ArrayList<String>();
+        for (IDataElement element : model.getElements()) {
+            if (element instanceof DataPlace) {
+                DataPlace place = (DataPlace) element;
+                lines.add(placeLine(place.getId(), place.getName(), place.getTokensCount(), place.getPosition()));
+            } else if (element instanceof DataTransition) {
+                DataTransition transition = (DataTransition) element;
+                lines.add(transitionLine(transition.getId(), transition.getName(), transition.getPosition()));
+            } else if (element instanceof DataArc) {
+                DataArc arc = (DataArc) element;
+                arcs.add(arcLine(arc.getId(), arc.getSourceId(), arc.getTargetId()));
+            }
+        }
+        lines.addAll(arcs);
+        return lines;
+    }
+
+    /** @return A place as line */
+    private static String placeLine(String id, String name, EPlaceToken tokens, Point position) {
+        return "place " + id + " '" + name + "' " + tokens + " " + position.x + "," + position.y;
+    }
+
+    /** @return A transition as line */
+    private static String transitionLine(String id, String name, Point position) {
+        return "transition " + id + " '" + name + "' " + position.x + "," + position.y;
+    }
+
+    /** @return An arc as line */
+    private static String arcLine(String id, String sourceId, String targetId) {
+        return "arc " + id + " " + sourceId + " -> " + targetId;
+    }
+
+    /**
+     * Writes the specified content into the file and sets its modification
+     * time.
+     *
+     * @param file
+     *            The file
+     * @param content
+     *            The content
+     * @param lastModified
+     *            The modification time
+     * @throws IOException
+     */
+    private static void writeFile(File file, String content, long lastModified) throws IOException {
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        file.setLastModified(lastModified);
+    }
+
+    /**
+     * Waits until the background writer has written a cache file.
+     *
+     * @param cacheDir
+     *            The cache directory
+     * @return True if a cache file exists; false on timeout
+     * @throws InterruptedException
+     */
+    private static boolean waitForCacheFile(File cacheDir) throws InterruptedException {
+        long end = System.currentTimeMillis() + WRITER_TIMEOUT;
+        while (System.currentTimeMillis() < end) {
+            File[] files = cacheDir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    if (file.getName().endsWith(".pnmlcache"))
+                        return true;
+                }
+            }
+            Thread.sleep(20);
+        }
+        return false;
+    }
+
+}
@@ -0,0 +1,200 @@
+package de.lambeck.pned.filesystem.journal;
+
+import java.awt.Point;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.util.SelfTest;
+
+/**
+ * Self test for the {@link EditJournal}: Writes journals (in a temporary
+ * directory) and compares the recovered entries with the written entries.<BR>
+ * <BR>
+ * Note: Exit code 1 if a check has failed.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class EditJournalTest {
+
+    /** The name of the model in the journals */
+    private static final String MODEL_NAME = "C:\\Temp\\Test net.pnml";
+
+    /**
+     * Self test...
+     *
+     * @param args
+     * @throws IOException
+     */
+    public static void main(String[] args) throws IOException {
+        File journalDir = Files.createTempDirectory("pned-journal-test").toFile();
+        try {
+            testRoundTrip(journalDir);
+            testClearCompactsJournal(journalDir);
+            testDiscard(journalDir);
+            testIncompleteLastLine(journalDir);
+        } finally {
+            SelfTest.deleteAll(journalDir);
+        }
+
+        SelfTest.finish();
+    }
+
+    /**
+     * All operations (incl. MARKING and names with tabs, line breaks and
+     * backslashes) are recovered unchanged.
+     *
+     * @param journalDir
+     *            The journal directory
+     */
+    private static void testRoundTrip(File journalDir) {
+        List<EditJournalEntry> written = new ArrayList<EditJournalEntry>();
+        written.add(EditJournalEntry.place("p1", "Start\twith tab", EPlaceToken.ONE, new Point(10, 20)));
+        written.add(EditJournalEntry.transition("t1", "Line\nbreak \\ backslash", new Point(100, 20)));
+        written.add(EditJournalEntry.place("p2", "", EPlaceToken.ZERO, new Point(200, 20)));
+        written.add(EditJournalEntry.arc("a1", "p1", "t1"));
+        written.add(EditJournalEntry.arc("a2", "t1", "p2"));
+        written.add(EditJournalEntry.move("t1", new Point(-5, 7)));
+        written.add(EditJournalEntry.rename("p2", "End"));
+        written.add(EditJournalEntry.marking("p1", EPlaceToken.ZERO));
+        written.add(EditJournalEntry.marking("p2", EPlaceToken.ONE));
+        written.add(EditJournalEntry.remove("a2"));
+
+        List<EditJournalEntry> recovered = writeAndRecover(journalDir, written);
+        SelfTest.check("Round trip: all operations", toLines(written).equals(toLines(recovered)));
+    }
+
+    /**
+     * A CLEAR entry (snapshot of the whole model follows) removes all older
+     * entries from the journal.
+     *
+     * @param journalDir
+     *            The journal directory
+     */
+    private static void testClearCompactsJournal(File journalDir) {
+        List<EditJournalEntry> written = new ArrayList<EditJournalEntry>();
+        written.add(EditJournalEntry.place("p1", "Old", EPlaceToken.ZERO, new Point(10, 20)));
+        written.add(EditJournalEntry.move("p1", new Point(30, 40)));
+        written.add(EditJournalEntry.clear());
+        written.add(EditJournalEntry.place("p1", "New", EPlaceToken.ONE, new Point(50, 60)));
+        written.add(EditJournalEntry.marking("p1", EPlaceToken.ZERO));
+
+        List<EditJournalEntry> expected = written.subList(2, written.size());
+        List<EditJournalEntry> recovered = writeAndRecover(journalDir, written);
+        SelfTest.check("CLEAR: only the entries after the last CLEAR", toLines(expected).equals(toLines(recovered)));
+    }
+
+    /**
+     * A discarded journal (model saved or closed) is not recovered.
+     *
+     * @param journalDir
+     *            The journal directory
+     */
+    private static void testDiscard(File journalDir) {
+        EditJournal journal = new EditJournal(journalDir);
+        journal.append(MODEL_NAME, EditJournalEntry.remove("p1"));
+        journal.discard(MODEL_NAME);
+        journal.shutdown();
+
+        EditJournal recovery = new EditJournal(journalDir);
+        List<RecoveredJournal> journals = recovery.getRecoverableJournals();
+        recovery.shutdown();
+        SelfTest.check("Discard: nothing to recover", journals.isEmpty());
+    }
+
+    /**
+     * An incomplete last line (crash while writing) is ignored, the complete
+     * lines before are recovered.
+     *
+     * @param journalDir
+     *            The journal directory
+     * @throws IOException
+     */
+    private static void testIncompleteLastLine(File journalDir) throws IOException {
+        List<EditJournalEntry> written = new ArrayList<EditJournalEntry>();
+        written.add(EditJournalEntry.transition("t1", "T1", new Point(1, 2)));
+        written.add(EditJournalEntry.move("t1", new Point(3, 4)));
+
+        EditJournal journal = new EditJournal(journalDir);
+        for (EditJournalEntry entry : written) {
+            journal.append(MODEL_NAME, entry);
+        }
+        journal.shutdown();
+
+        File[] files = journalDir.listFiles();
+        SelfTest.check("Incomplete line: one journal file", files != null && files.length == 1);
+        if (files == null || files.length != 1)
+            return;
+
+        try (FileOutputStream out = new FileOutputStream(files[0], true)) {
+            out.write("MOVE\tt1\t5".getBytes(StandardCharsets.UTF_8));
+        }
+
+        List<EditJournalEntry> recovered = recover(journalDir);
+        SelfTest.check("Incomplete line: complete lines recovered", toLines(written).equals(toLines(recovered)));
+    }
+
+    /* Helpers */
+
+    /**
+     * Writes the entries into a new journal and reads them back with another
+     * instance (like after a crash and restart).
+     *
+     * @param journalDir
+     *            The journal directory
+     * @param entries
+     *            The entries to write
+     * @return The recovered entries
+     */
+    private static List<EditJournalEntry> writeAndRecover(File journalDir, List<EditJournalEntry> entries) {
+        EditJournal journal = new EditJournal(journalDir);
+        for (EditJournalEntry entry : entries) {
+            journal.append(MODEL_NAME, entry);
+        }
+        journal.shutdown();
+
+        return recover(journalDir);
+    }
+
+    /**
+     * Recovers the journal of {@link #MODEL_NAME} and deletes all journal
+     * files.
+     *
+     * @param journalDir
+     *            The journal directory
+     * @return The recovered entries; an empty list if there is no journal
+     */
+    private static List<EditJournalEntry> recover(File journalDir) {
+        EditJournal recovery = new EditJournal(journalDir);
+        List<EditJournalEntry> result = new ArrayList<EditJournalEntry>();
+        for (RecoveredJournal journal : recovery.getRecoverableJournals()) {
+            if (journal.getModelName().equals(MODEL_NAME))
+                result = journal.getEntries();
+        }
+        recovery.shutdown();
+
+        SelfTest.deleteAll(journalDir);
+        journalDir.mkdirs();
+        return result;
+    }
+
+    /**
+     * @param entries
+     *            The entries
+     * @return The lines of the entries (for comparisons)
+     */
+    private static List<String> toLines(List<EditJournalEntry> entries) {
+        List<String> lines = new ArrayList<String>();
+        for (EditJournalEntry entry : entries) {
+            lines.add(entry.toLine());
+        }
+        return lines;
+    }
+
+}
@@ -0,0 +1,278 @@
+package de.lambeck.pned.filesystem.pnml;
+
+import java.awt.Point;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.JFrame;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.exceptions.PNElementCreationException;
+import de.lambeck.pned.models.data.DataModel;
+import de.lambeck.pned.util.SelfTest;
+
+/**
+ * Self test for the {@link ParallelPNMLScanner}: Scans PNML files with
+ * different (small) chunk sizes and compares the elements and exit codes with
+ * the results of the {@link PNMLParser} for the same file.<BR>
+ * <BR>
+ * Note: Random nets (fixed seed) written by the {@link PNMLModelWriter}, with
+ * names containing XML entities and multi-byte UTF-8 characters (which are
+ * split at chunk boundaries, too). Exit code 1 if a check has failed.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class ParallelPNMLScannerTest implements IPNMLImportTarget {
+
+    /** Number of random nets */
+    private static final int RANDOM_RUNS = 40;
+
+    /** The chunk sizes to test [bytes] */
+    private static final int[] CHUNK_SIZES = { 97, 256, 1000, 4096, 65536 };
+
+    /** Characters for the names of the nodes */
+    private static final String NAME_CHARS = "abcXYZ 019_-<>&\"'äöüß€中";
+
+    /** The elements passed to this import target (as lines) */
+    private List<String> lines = new ArrayList<String>();
+
+    /** Has an arc been passed before a node? */
+    private boolean nodeAfterArc = false;
+
+    /**
+     * Self test...
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        File pnmlFile = File.createTempFile("pned-scanner-test", ".pnml");
+        try {
+            testRandomNets(pnmlFile);
+            testInvalidValues(pnmlFile);
+            testCommentsAndCData(pnmlFile);
+        } finally {
+            pnmlFile.delete();
+        }
+
+        SelfTest.finish();
+    }
+
+    /**
+     * Valid files: same elements and exit codes as the parser.
+     *
+     * @param pnmlFile
+     *            The temporary file
+     * @throws Exception
+     */
+    private static void testRandomNets(File pnmlFile) throws Exception {
+        Random random = new Random(SelfTest.SEED);
+        int failuresBefore = SelfTest.getFailures();
+        for (int run = 0; run < RANDOM_RUNS && SelfTest.getFailures() == failuresBefore; run++) {
+            DataModel model = randomModel(random, 1 + random.nextInt(200));
+            PNMLModelWriter.write(model, pnmlFile);
+            compareWithParser("Random net " + run, pnmlFile);
+        }
+        if (SelfTest.getFailures() == failuresBefore)
+            SelfTest.check(RANDOM_RUNS + " random nets: same results as the parser", true);
+    }
+
+    /**
+     * Files with invalid values: same exit codes as the parser.
+     *
+     * @param pnmlFile
+     *            The temporary file
+     * @throws Exception
+     */
+    private static void testInvalidValues(File pnmlFile) throws Exception {
+        DataModel model = randomModel(new Random(SelfTest.SEED), 50);
+        PNMLModelWriter.write(model, pnmlFile);
+        String valid = new String(Files.readAllBytes(pnmlFile.toPath()), StandardCharsets.UTF_8);
+
+        String[][] replacements = { { "x=\"", "x=\"abc" }, { "<value>1</value>", "<value>2</value>" },
+                { "</transition>", "<unknown>1</unknown></transition>" } };
+        for (String[] replacement : replacements) {
+            String invalid = valid.replace(replacement[0], replacement[1]);
+            SelfTest.check("Test file contains " + replacement[0], !invalid.equals(valid));
+            Files.write(pnmlFile.toPath(), invalid.getBytes(StandardCharsets.UTF_8));
+            compareWithParser("Invalid: " + replacement[1], pnmlFile);
+        }
+    }
+
+    /**
+     * Elements inside of comments and CDATA sections are ignored, even if a
+     * chunk boundary lies inside of the section.
+     *
+     * @param pnmlFile
+     *            The temporary file
+     * @throws Exception
+     */
+    private static void testCommentsAndCData(File pnmlFile) throws Exception {
+        DataModel model = randomModel(new Random(SelfTest.SEED), 30);
+        PNMLModelWriter.write(model, pnmlFile);
+        String valid = new String(Files.readAllBytes(pnmlFile.toPath()), StandardCharsets.UTF_8);
+
+        /* Fillers with parts of the terminators (no "--" inside of comments) */
+        StringBuilder commentFiller = new StringBuilder();
+        StringBuilder cdataFiller = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            commentFiller.append(" - -> ]]> x");
+            cdataFiller.append(" ]] ]> -- --> x");
+        }
+        String ghostPlace = "<place id=\"ghost\"><name><value>G</value></name><initialMarking><token>"
+                + "<value>1</value></token></initialMarking><graphics><position x=\"1\" y=\"2\"/></graphics>"
+                + "</place>";
+        String ghostArc = "<arc id=\"ghostArc\" source=\"ghost\" target=\"n1\"/>";
+        String comment = "<!--" + commentFiller + ghostPlace + commentFiller + ghostArc + commentFiller + "-->";
+        String cdata = "<![CDATA[" + cdataFiller + ghostPlace + cdataFiller + ghostArc + cdataFiller + "]]]>";
+
+        String withSections = valid.replaceFirst("<net>", "<net>" + comment + cdata).replace("</net>",
+                cdata + comment + "</net>");
+        Files.write(pnmlFile.toPath(), withSections.getBytes(StandardCharsets.UTF_8));
+
+        ParallelPNMLScannerTest parserTarget = new ParallelPNMLScannerTest();
+        PNMLParser parser = new PNMLParser(pnmlFile, parserTarget);
+        parser.initParser();
+        parser.parse();
+        SelfTest.check("Comments and CDATA: parser ignores the ghost elements",
+                !parserTarget.lines.isEmpty() && !parserTarget.lines.toString().contains("ghost"));
+
+        int failuresBefore = SelfTest.getFailures();
+        compareWithParser("Comments and CDATA", pnmlFile);
+        if (SelfTest.getFailures() == failuresBefore)
+            SelfTest.check("Comments and CDATA: same results as the parser", true);
+    }
+
+    /**
+     * Reads the file with the parser and with the scanner (all chunk sizes)
+     * and compares the results.
+     *
+     * @param name
+     *            The name of the check
+     * @param pnmlFile
+     *            The PNML file
+     */
+    private static void compareWithParser(String name, File pnmlFile) {
+        ParallelPNMLScannerTest parserTarget = new ParallelPNMLScannerTest();
+        PNMLParser parser = new PNMLParser(pnmlFile, parserTarget);
+        parser.initParser();
+        int parserExitCode = parser.parse();
+
+        for (int chunkSize : CHUNK_SIZES) {
+            ParallelPNMLScannerTest scannerTarget = new ParallelPNMLScannerTest();
+            ParallelPNMLScanner scanner = new ParallelPNMLScanner(pnmlFile, scannerTarget, chunkSize);
+            int scannerExitCode = scanner.parse();
+
+            String result = name + ", chunk size " + chunkSize;
+            if (scannerExitCode != parserExitCode)
+                SelfTest.check(result + ": exit code " + scannerExitCode + " (parser: " + parserExitCode + ")", false);
+            if (!scannerTarget.getSortedLines().equals(parserTarget.getSortedLines()))
+                SelfTest.check(result + ": same elements as the parser", false);
+            if (scannerTarget.nodeAfterArc)
+                SelfTest.check(result + ": all nodes before the arcs", false);
+        }
+    }
+
+    /* Implementation of IPNMLImportTarget */
+
+    @Override
+    public void addPlaceToCurrentDataModel(String id, String name, EPlaceToken initialTokens, Point position) {
+        nodeAfterArc |= hasArcs();
+        lines.add("place " + id + " '" + name + "' " + initialTokens + " " + position.x + "," + position.y);
+    }
+
+    @Override
+    public void addTransitionToCurrentDataModel(String id, String name, Point position) {
+        nodeAfterArc |= hasArcs();
+        lines.add("transition " + id + " '" + name + "' " + position.x + "," + position.y);
+    }
+
+    @Override
+    public void addArcToCurrentDataModel(String id, String sourceId, String targetId) {
+        lines.add("arc " + id + " " + sourceId + " -> " + targetId);
+    }
+
+    @Override
+    public JFrame getMainFrame() {
+        return null;
+    }
+
+    /* Helpers */
+
+    /**
+     * @return True if an arc has been passed already
+     */
+    private boolean hasArcs() {
+        return !lines.isEmpty() && lines.get(lines.size() - 1).startsWith("arc ");
+    }
+
+    /**
+     * @return The passed elements (sorted, independent of the order)
+     */
+    private List<String> getSortedLines() {
+        List<String> sorted = new ArrayList<String>(lines);
+        Collections.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * @param random
+     *            The {@link Random}
+     * @param nodeCount
+     *            The number of nodes
+     * @return A random model (Arcs only between places and transitions.)
+     * @throws PNElementCreationException
+     */
+    private static DataModel randomModel(Random random, int nodeCount) throws PNElementCreationException {
+        DataModel model = new DataModel("test.pnml", "test");
+        List<String> places = new ArrayList<String>();
+        List<String> transitions = new ArrayList<String>();
+        for (int i = 0; i < nodeCount; i++) {
+            String id = "n" + i;
+            Point position = new Point(random.nextInt(5000) - 100, random.nextInt(5000) - 100);
+            if (random.nextBoolean()) {
+                EPlaceToken tokens = random.nextBoolean() ? EPlaceToken.ONE : EPlaceToken.ZERO;
+                model.addPlace(id, randomName(random), tokens, position);
+                places.add(id);
+            } else {
+                model.addTransition(id, randomName(random), position);
+                transitions.add(id);
+            }
+        }
+
+        if (places.isEmpty() || transitions.isEmpty())
+            return model;
+
+        for (int i = 0; i < nodeCount; i++) {
+            String place = places.get(random.nextInt(places.size()));
+            String transition = transitions.get(random.nextInt(transitions.size()));
+            if (i % 2 == 0) {
+                model.addArc("a" + i, place, transition);
+            } else {
+                model.addArc("a" + i, transition, place);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * @param random
+     *            The {@link Random}
+     * @return A random name (may be empty)
+     */
+    private static String randomName(Random random) {
+        int length = random.nextInt(20);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(NAME_CHARS.charAt(random.nextInt(NAME_CHARS.length())));
+        }
+        return sb.toString();
+    }
+
+}
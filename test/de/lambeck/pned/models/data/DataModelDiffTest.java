@@ -0,0 +1,418 @@
+package de.lambeck.pned.models.data;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.elements.data.DataArc;
+import de.lambeck.pned.elements.data.DataNode;
+import de.lambeck.pned.elements.data.DataPlace;
+import de.lambeck.pned.elements.data.DataTransition;
+import de.lambeck.pned.elements.data.IDataElement;
+import de.lambeck.pned.exceptions.PNElementCreationException;
+import de.lambeck.pned.exceptions.PNNoSuchElementException;
+import de.lambeck.pned.util.SelfTest;
+
+/**
+ * Self test for the {@link DataModelDiff}: Applies the differences to the old
+ * model and compares the result with the new model (like a complete reload of
+ * the PNML file).<BR>
+ * <BR>
+ * Note: Some hand written cases and random changes of random nets (fixed
+ * seed). Exit code 1 if a check has failed.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class DataModelDiffTest {
+
+    /** Number of random nets */
+    private static final int RANDOM_RUNS = 500;
+
+    /**
+     * Self test...
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        testSingleChanges();
+        testRandomChanges();
+
+        SelfTest.finish();
+    }
+
+    /**
+     * One change of each kind: exactly this change is found and applying it
+     * results in the new model.
+     *
+     * @throws Exception
+     */
+    private static void testSingleChanges() throws Exception {
+        NetSpec oldNet = new NetSpec();
+        oldNet.addNode("p1", true, "Start", EPlaceToken.ONE, 10, 10);
+        oldNet.addNode("t1", false, "T1", null, 100, 10);
+        oldNet.addNode("p2", true, "End", EPlaceToken.ZERO, 200, 10);
+        oldNet.addArc("a1", "p1", "t1");
+        oldNet.addArc("a2", "t1", "p2");
+
+        DataModelDiff diff = checkDiff("Same model", oldNet, oldNet.copy());
+        SelfTest.check("Same model: no changes", diff.isEmpty());
+
+        NetSpec newNet = oldNet.copy();
+        newNet.nodes.get("t1").x = 120;
+        diff = checkDiff("Moved", oldNet, newNet);
+        SelfTest.check("Moved: 1 change", diff.getChangesCount() == 1 && diff.getMovedNodes().containsKey("t1"));
+
+        newNet = oldNet.copy();
+        newNet.nodes.get("p2").name = "Finish";
+        diff = checkDiff("Renamed", oldNet, newNet);
+        SelfTest.check("Renamed: 1 change",
+                diff.getChangesCount() == 1 && "Finish".equals(diff.getRenamedNodes().get("p2")));
+
+        newNet = oldNet.copy();
+        newNet.nodes.get("p1").tokens = EPlaceToken.ZERO;
+        diff = checkDiff("Marking", oldNet, newNet);
+        SelfTest.check("Marking: 1 change", diff.getChangesCount() == 1 && diff.getChangedMarkings().containsKey("p1"));
+
+        newNet = oldNet.copy();
+        newNet.addNode("p3", true, "New", EPlaceToken.ZERO, 200, 100);
+        newNet.arcs.put("a2", new String[] { "t1", "p3" });
+        diff = checkDiff("Arc with other target", oldNet, newNet);
+        SelfTest.check("Arc with other target: removed and added",
+                diff.getRemovedIds().equals(Collections.singletonList("a2")) && diff.getAddedElements().size() == 2);
+
+        newNet = oldNet.copy();
+        newNet.removeNode("t1");
+        newNet.addNode("t1", true, "Now a place", EPlaceToken.ZERO, 100, 10);
+        diff = checkDiff("Node with other type", oldNet, newNet);
+        SelfTest.check("Node with other type: node and arcs replaced", diff.getRemovedIds().size() == 3
+                && diff.getRemovedIds().indexOf("t1") == 2 && diff.getAddedElements().size() == 1);
+    }
+
+    /**
+     * Random changes of random nets.
+     *
+     * @throws Exception
+     */
+    private static void testRandomChanges() throws Exception {
+        Random random = new Random(SelfTest.SEED);
+        int failuresBefore = SelfTest.getFailures();
+        for (int run = 0; run < RANDOM_RUNS && SelfTest.getFailures() == failuresBefore; run++) {
+            NetSpec oldNet = randomNet(random, 1 + random.nextInt(30));
+            NetSpec newNet = oldNet.copy();
+            int changes = random.nextInt(8);
+            for (int i = 0; i < changes; i++) {
+                randomChange(random, newNet);
+            }
+
+            String name = "Random net " + run + " (" + changes + " changes)";
+            DataModelDiff diff = new DataModelDiff(oldNet.toModel(), newNet.toModel());
+            DataModel patched = oldNet.toModel();
+            apply(diff, patched);
+            if (!describe(patched).equals(describe(newNet.toModel())))
+                SelfTest.check(name + ": diff applied == new model", false);
+        }
+        if (SelfTest.getFailures() == failuresBefore)
+            SelfTest.check(RANDOM_RUNS + " random nets: diff applied == new model", true);
+    }
+
+    /* Helpers */
+
+    /**
+     * Computes the differences and checks that applying them to the old model
+     * results in the new model.
+     *
+     * @param name
+     *            The name of the check
+     * @param oldNet
+     *            The old net
+     * @param newNet
+     *            The new net
+     * @return The {@link DataModelDiff}
+     * @throws Exception
+     */
+    private static DataModelDiff checkDiff(String name, NetSpec oldNet, NetSpec newNet) throws Exception {
+        DataModelDiff diff = new DataModelDiff(oldNet.toModel(), newNet.toModel());
+        DataModel patched = oldNet.toModel();
+        apply(diff, patched);
+        SelfTest.check(name + ": diff applied == new model", describe(patched).equals(describe(newNet.toModel())));
+        return diff;
+    }
+
+    /**
+     * Applies the differences to the specified model. (In the same order as
+     * the ApplicationController does.)
+     *
+     * @param diff
+     *            The {@link DataModelDiff}
+     * @param model
+     *            The old model
+     * @throws PNNoSuchElementException
+     * @throws PNElementCreationException
+     */
+    private static void apply(DataModelDiff diff, DataModel model)
+            throws PNNoSuchElementException, PNElementCreationException {
+        for (String id : diff.getRemovedIds()) {
+            model.removeElement(id);
+        }
+
+        for (IDataElement element : diff.getAddedElements()) {
+            if (element instanceof DataPlace) {
+                DataPlace place = (DataPlace) element;
+                model.addPlace(place.getId(), place.getName(), place.getTokensCount(), place.getPosition());
+            } else if (element instanceof DataTransition) {
+                DataTransition transition = (DataTransition) element;
+                model.addTransition(transition.getId(), transition.getName(), transition.getPosition());
+            } else if (element instanceof DataArc) {
+                DataArc arc = (DataArc) element;
+                model.addArc(arc.getId(), arc.getSourceId(), arc.getTargetId());
+            }
+        }
+
+        for (Map.Entry<String, Point> entry : diff.getMovedNodes().entrySet()) {
+            ((DataNode) model.getNodeById(entry.getKey())).setPosition(entry.getValue());
+        }
+
+        for (Map.Entry<String, String> entry : diff.getRenamedNodes().entrySet()) {
+            ((DataNode) model.getNodeById(entry.getKey())).setName(entry.getValue());
+        }
+
+        for (Map.Entry<String, EPlaceToken> entry : diff.getChangedMarkings().entrySet()) {
+            ((DataPlace) model.getPlaceById(entry.getKey())).setTokens(entry.getValue());
+        }
+    }
+
+    /**
+     * @param model
+     *            The {@link DataModel}
+     * @return All elements as lines (sorted, independent of the order in the
+     *         model)
+     */
+    private static List<String> describe(DataModel model) {
+        List<String> lines = new ArrayList<String>();
+        for (IDataElement element : model.getElements()) {
+            if (element instanceof DataPlace) {
+                DataPlace place = (DataPlace) element;
+                lines.add("place " + place.getId() + " '" + place.getName() + "' " + place.getTokensCount() + " "
+                        + place.getPosition().x + "," + place.getPosition().y);
+            } else if (element instanceof DataTransition) {
+                DataTransition transition = (DataTransition) element;
+                lines.add("transition " + transition.getId() + " '" + transition.getName() + "' "
+                        + transition.getPosition().x + "," + transition.getPosition().y);
+            } else if (element instanceof DataArc) {
+                DataArc arc = (DataArc) element;
+                lines.add("arc " + arc.getId() + " " + arc.getSourceId() + " -> " + arc.getTargetId());
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    /**
+     * @param random
+     *            The {@link Random}
+     * @param nodeCount
+     *            The number of nodes
+     * @return A random net (Arcs only between places and transitions.)
+     */
+    private static NetSpec randomNet(Random random, int nodeCount) {
+        NetSpec net = new NetSpec();
+        for (int i = 0; i < nodeCount; i++) {
+            addRandomNode(random, net);
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            addRandomArc(random, net);
+        }
+        return net;
+    }
+
+    /**
+     * Applies one random change to the specified net.
+     *
+     * @param random
+     *            The {@link Random}
+     * @param net
+     *            The net
+     */
+    private static void randomChange(Random random, NetSpec net) {
+        List<String> nodeIds = new ArrayList<String>(net.nodes.keySet());
+        if (nodeIds.isEmpty()) {
+            addRandomNode(random, net);
+            return;
+        }
+        String nodeId = nodeIds.get(random.nextInt(nodeIds.size()));
+        NodeSpec node = net.nodes.get(nodeId);
+
+        switch (random.nextInt(8)) {
+        case 0:
+            addRandomNode(random, net);
+            break;
+        case 1:
+            net.removeNode(nodeId);
+            break;
+        case 2:
+            node.x += 1 + random.nextInt(50);
+            break;
+        case 3:
+            node.name = node.name + "'";
+            break;
+        case 4:
+            if (node.place)
+                node.tokens = (node.tokens == EPlaceToken.ONE) ? EPlaceToken.ZERO : EPlaceToken.ONE;
+            break;
+        case 5:
+            /* Other type with the same ID (and without the old arcs) */
+            net.removeNode(nodeId);
+            net.addNode(nodeId, !node.place, node.name, node.place ? null : EPlaceToken.ZERO, node.x, node.y);
+            break;
+        case 6:
+            addRandomArc(random, net);
+            break;
+        default:
+            /* Remove an arc and add another one with the same ID */
+            if (net.arcs.isEmpty())
+                break;
+            String arcId = new ArrayList<String>(net.arcs.keySet()).get(random.nextInt(net.arcs.size()));
+            net.arcs.remove(arcId);
+            addRandomArc(random, net, arcId);
+            break;
+        }
+    }
+
+    private static void addRandomNode(Random random, NetSpec net) {
+        String id = "n" + net.nextId++;
+        boolean place = random.nextBoolean();
+        EPlaceToken tokens = !place ? null : random.nextBoolean() ? EPlaceToken.ONE : EPlaceToken.ZERO;
+        net.addNode(id, place, "Node " + id, tokens, random.nextInt(1000), random.nextInt(1000));
+    }
+
+    private static void addRandomArc(Random random, NetSpec net) {
+        addRandomArc(random, net, "a" + net.nextId++);
+    }
+
+    /**
+     * Adds an arc between a random place and a random transition (if there
+     * are both).
+     *
+     * @param random
+     *            The {@link Random}
+     * @param net
+     *            The net
+     * @param arcId
+     *            The ID of the new arc
+     */
+    private static void addRandomArc(Random random, NetSpec net, String arcId) {
+        List<String> places = new ArrayList<String>();
+        List<String> transitions = new ArrayList<String>();
+        for (Map.Entry<String, NodeSpec> entry : net.nodes.entrySet()) {
+            if (entry.getValue().place) {
+                places.add(entry.getKey());
+            } else {
+                transitions.add(entry.getKey());
+            }
+        }
+        if (places.isEmpty() || transitions.isEmpty())
+            return;
+
+        String place = places.get(random.nextInt(places.size()));
+        String transition = transitions.get(random.nextInt(transitions.size()));
+        if (random.nextBoolean()) {
+            net.addArc(arcId, place, transition);
+        } else {
+            net.addArc(arcId, transition, place);
+        }
+    }
+
+    /**
+     * A node of a {@link NetSpec}.
+     */
+    private static class NodeSpec {
+        boolean place;
+        String name;
+        EPlaceToken tokens;
+        int x;
+        int y;
+
+        NodeSpec copy() {
+            NodeSpec copy = new NodeSpec();
+            copy.place = place;
+            copy.name = name;
+            copy.tokens = tokens;
+            copy.x = x;
+            copy.y = y;
+            return copy;
+        }
+    }
+
+    /**
+     * The description of a net which can be changed and copied easily and
+     * creates equal {@link DataModel} on each call of toModel().
+     */
+    private static class NetSpec {
+        Map<String, NodeSpec> nodes = new LinkedHashMap<String, NodeSpec>();
+        Map<String, String[]> arcs = new LinkedHashMap<String, String[]>();
+        int nextId = 0;
+
+        void addNode(String id, boolean place, String name, EPlaceToken tokens, int x, int y) {
+            NodeSpec node = new NodeSpec();
+            node.place = place;
+            node.name = name;
+            node.tokens = tokens;
+            node.x = x;
+            node.y = y;
+            nodes.put(id, node);
+        }
+
+        void addArc(String id, String sourceId, String targetId) {
+            /* No second arc between the same nodes */
+            for (String[] arc : arcs.values()) {
+                if (arc[0].equals(sourceId) && arc[1].equals(targetId))
+                    return;
+            }
+            arcs.put(id, new String[] { sourceId, targetId });
+        }
+
+        void removeNode(String id) {
+            nodes.remove(id);
+            List<String> adjacentArcs = new ArrayList<String>();
+            for (Map.Entry<String, String[]> entry : arcs.entrySet()) {
+                if (entry.getValue()[0].equals(id) || entry.getValue()[1].equals(id))
+                    adjacentArcs.add(entry.getKey());
+            }
+            arcs.keySet().removeAll(adjacentArcs);
+        }
+
+        NetSpec copy() {
+            NetSpec copy = new NetSpec();
+            for (Map.Entry<String, NodeSpec> entry : nodes.entrySet()) {
+                copy.nodes.put(entry.getKey(), entry.getValue().copy());
+            }
+            copy.arcs.putAll(arcs);
+            copy.nextId = nextId;
+            return copy;
+        }
+
+        DataModel toModel() throws PNElementCreationException {
+            DataModel model = new DataModel("test.pnml", "test");
+            for (Map.Entry<String, NodeSpec> entry : nodes.entrySet()) {
+                NodeSpec node = entry.getValue();
+                if (node.place) {
+                    model.addPlace(entry.getKey(), node.name, node.tokens, new Point(node.x, node.y));
+                } else {
+                    model.addTransition(entry.getKey(), node.name, new Point(node.x, node.y));
+                }
+            }
+            for (Map.Entry<String, String[]> entry : arcs.entrySet()) {
+                model.addArc(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+            }
+            return model;
+        }
+    }
+
+}
@@ -0,0 +1,161 @@
+package de.lambeck.pned.models.gui;
+
+import java.awt.Rectangle;
+import java.awt.geom.Area;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import de.lambeck.pned.util.SelfTest;
+
+/**
+ * Self test for {@link DirtyRegions}: Some hand written cases and random
+ * lists of areas (fixed seed).<BR>
+ * <BR>
+ * For every result: All input areas are covered, the rectangles are inside of
+ * the bounds of the input areas, there are at most MAX_REGIONS rectangles and
+ * no two of them would be worth merging. Exit code 1 if a check has failed.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class DirtyRegionsTest {
+
+    /** Number of random lists */
+    private static final int RANDOM_RUNS = 5000;
+
+    /**
+     * Self test...
+     *
+     * @param args
+     */
+    public static void main(String[] args) {
+        testSimpleCases();
+        testRandomAreas();
+
+        SelfTest.finish();
+    }
+
+    /**
+     * Hand written cases with known results.
+     */
+    private static void testSimpleCases() {
+        List<Rectangle> result = DirtyRegions.merge(Arrays.asList((Rectangle) null, new Rectangle(5, 5, 0, 10)));
+        SelfTest.check("Null and empty areas: no regions", result.isEmpty());
+
+        result = DirtyRegions.merge(Arrays.asList(new Rectangle(0, 0, 100, 100), new Rectangle(20, 0, 100, 100)));
+        SelfTest.check("Overlapping areas: 1 region", result.equals(Arrays.asList(new Rectangle(0, 0, 120, 100))));
+
+        /* Union 150 x 150 is larger than 2 x 100 x 100 */
+        result = DirtyRegions.merge(Arrays.asList(new Rectangle(0, 0, 100, 100), new Rectangle(50, 50, 100, 100)));
+        SelfTest.check("Diagonally overlapping areas: 2 regions", result.size() == 2);
+
+        result = DirtyRegions.merge(Arrays.asList(new Rectangle(0, 0, 100, 100), new Rectangle(100, 0, 50, 100)));
+        SelfTest.check("Adjacent areas (same height): 1 region",
+                result.equals(Arrays.asList(new Rectangle(0, 0, 150, 100))));
+
+        result = DirtyRegions.merge(Arrays.asList(new Rectangle(10, 10, 20, 20), new Rectangle(0, 0, 100, 100)));
+        SelfTest.check("Contained area: the outer area", result.equals(Arrays.asList(new Rectangle(0, 0, 100, 100))));
+
+        result = DirtyRegions.merge(Arrays.asList(new Rectangle(0, 0, 10, 10), new Rectangle(1000, 1000, 10, 10)));
+        SelfTest.check("Distant areas: 2 regions", result.size() == 2);
+
+        List<Rectangle> many = new ArrayList<Rectangle>();
+        for (int i = 0; i <= DirtyRegions.MAX_REGIONS; i++) {
+            many.add(new Rectangle(i * 1000, 0, 10, 10));
+        }
+        result = DirtyRegions.merge(many);
+        SelfTest.check("Too many areas: 1 region", result.equals(Arrays.asList(new Rectangle(0, 0, 16010, 10))));
+
+        Rectangle input = new Rectangle(0, 0, 10, 10);
+        DirtyRegions.merge(Arrays.asList(input, new Rectangle(5, 5, 10, 10)));
+        SelfTest.check("Input areas unchanged", input.equals(new Rectangle(0, 0, 10, 10)));
+    }
+
+    /**
+     * Random lists of areas (like the old and new areas of dragged nodes).
+     */
+    private static void testRandomAreas() {
+        Random random = new Random(SelfTest.SEED);
+        int failuresBefore = SelfTest.getFailures();
+        for (int run = 0; run < RANDOM_RUNS && SelfTest.getFailures() == failuresBefore; run++) {
+            List<Rectangle> areas = new ArrayList<Rectangle>();
+            int count = random.nextInt(40);
+            int range = 200 + random.nextInt(3000);
+            for (int i = 0; i < count; i++) {
+                int x = random.nextInt(range) - 100;
+                int y = random.nextInt(range) - 100;
+                Rectangle area = new Rectangle(x, y, random.nextInt(150), random.nextInt(150));
+                areas.add(area);
+                if (random.nextBoolean()) {
+                    /* The area after a small move */
+                    areas.add(new Rectangle(x + random.nextInt(21) - 10, y + random.nextInt(21) - 10, area.width,
+                            area.height));
+                }
+            }
+
+            checkInvariants("Random areas " + run, areas, DirtyRegions.merge(areas));
+        }
+        if (SelfTest.getFailures() == failuresBefore)
+            SelfTest.check(RANDOM_RUNS + " random lists of areas", true);
+    }
+
+    /* Helpers */
+
+    /**
+     * Checks the invariants of a result. (Reports SelfTest.getFailures() only.)
+     *
+     * @param name
+     *            The name of the check
+     * @param areas
+     *            The input areas
+     * @param result
+     *            The merged regions
+     */
+    private static void checkInvariants(String name, List<Rectangle> areas, List<Rectangle> result) {
+        Area covered = new Area();
+        for (Rectangle region : result) {
+            covered.add(new Area(region));
+        }
+
+        Rectangle bounds = null;
+        for (Rectangle area : areas) {
+            if (area.isEmpty())
+                continue;
+            Area uncovered = new Area(area);
+            uncovered.subtract(covered);
+            if (!uncovered.isEmpty())
+                SelfTest.check(name + ": " + area + " covered", false);
+            bounds = (bounds == null) ? new Rectangle(area) : bounds.union(area);
+        }
+
+        for (Rectangle region : result) {
+            if (bounds == null || !bounds.contains(region))
+                SelfTest.check(name + ": " + region + " inside of the input areas", false);
+        }
+
+        if (result.size() > DirtyRegions.MAX_REGIONS)
+            SelfTest.check(name + ": at most " + DirtyRegions.MAX_REGIONS + " regions", false);
+
+        for (int i = 0; i < result.size(); i++) {
+            for (int j = i + 1; j < result.size(); j++) {
+                Rectangle r1 = result.get(i);
+                Rectangle r2 = result.get(j);
+                long union = area(r1.union(r2));
+                if (r1.contains(r2) || r2.contains(r1) || union <= area(r1) + area(r2))
+                    SelfTest.check(name + ": " + r1 + " and " + r2 + " not merged", false);
+            }
+        }
+    }
+
+    /**
+     * @param r
+     *            The {@link Rectangle}
+     * @return The area of the rectangle
+     */
+    private static long area(Rectangle r) {
+        return (long) r.width * r.height;
+    }
+
+}
@@ -0,0 +1,261 @@
+package de.lambeck.pned.models.gui;
+
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import de.lambeck.pned.elements.EPlaceToken;
+import de.lambeck.pned.elements.gui.IGuiArc;
+import de.lambeck.pned.elements.gui.IGuiElement;
+import de.lambeck.pned.elements.gui.IGuiNode;
+import de.lambeck.pned.exceptions.PNElementCreationException;
+import de.lambeck.pned.exceptions.PNNoSuchElementException;
+import de.lambeck.pned.util.SelfTest;
+
+/**
+ * Self test for the {@link SpatialGrid}: Compares the results of the queries
+ * with a brute force search over all elements.<BR>
+ * <BR>
+ * Note: Point queries through the {@link GuiModel} (real shapes of places,
+ * transitions and arcs), area queries on a grid with random bounds (incl.
+ * negative coordinates, elements on many cells and without bounds). Random
+ * data with a fixed seed. Exit code 1 if a check has failed.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public class SpatialGridTest {
+
+    /** Number of queries per test */
+    private static final int QUERIES = 20000;
+
+    /**
+     * Self test...
+     *
+     * @param args
+     * @throws Exception
+     */
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(SelfTest.SEED);
+        testPointQueries(random);
+        testAreaQueries(random);
+
+        SelfTest.finish();
+    }
+
+    /**
+     * getElementAtLocation() of the {@link GuiModel} returns the topmost
+     * element which contains the point, also after removing elements.
+     *
+     * @param random
+     *            The {@link Random}
+     * @throws Exception
+     */
+    private static void testPointQueries(Random random) throws Exception {
+        GuiModel model = randomModel(random, 400, 3000);
+        int errors = comparePointQueries(random, model, 3000);
+        SelfTest.check("Point queries: same as brute force (" + errors + " differences)", errors == 0);
+
+        /* Remove every 3rd node (with its arcs) */
+        List<String> nodeIds = new ArrayList<String>();
+        for (IGuiElement element : model.getElements()) {
+            if (element.getId().startsWith("n") && Integer.parseInt(element.getId().substring(1)) % 3 == 0)
+                nodeIds.add(element.getId());
+        }
+        for (String id : nodeIds) {
+            removeNodeWithArcs(model, id);
+        }
+        errors = comparePointQueries(random, model, 3000);
+        SelfTest.check("Point queries after removing: same as brute force (" + errors + " differences)", errors == 0);
+    }
+
+    /**
+     * getElementsIn() returns the elements whose bounds intersect the area
+     * (sorted by z value) after random puts, updates and removals.
+     *
+     * @param random
+     *            The {@link Random}
+     * @throws Exception
+     */
+    private static void testAreaQueries(Random random) throws Exception {
+        GuiModel model = randomModel(random, 300, 0);
+        List<IGuiElement> elements = model.getElements();
+
+        SpatialGrid grid = new SpatialGrid();
+        Map<IGuiElement, Rectangle> bounds = new IdentityHashMap<IGuiElement, Rectangle>();
+        for (IGuiElement element : elements) {
+            putRandomBounds(random, grid, bounds, element);
+        }
+
+        int errors = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            /* Change some elements between the queries */
+            IGuiElement element = elements.get(random.nextInt(elements.size()));
+            if (random.nextInt(10) == 0) {
+                grid.remove(element);
+                bounds.remove(element);
+            } else {
+                putRandomBounds(random, grid, bounds, element);
+            }
+
+            Rectangle area = randomRectangle(random, random.nextInt(4) == 0 ? 20000 : 600);
+            if (!grid.getElementsIn(area).equals(bruteForceArea(bounds, area)))
+                errors++;
+        }
+        SelfTest.check("Area queries: same as brute force (" + errors + " differences)", errors == 0);
+        SelfTest.check("Area queries: size", grid.size() == bounds.size());
+    }
+
+    /* Helpers */
+
+    /**
+     * @param random
+     *            The {@link Random}
+     * @param model
+     *            The {@link GuiModel}
+     * @param range
+     *            The coordinates of the points (from -range/10 to range)
+     * @return The number of differences
+     */
+    private static int comparePointQueries(Random random, GuiModel model, int range) {
+        List<IGuiElement> elements = model.getElements();
+        int errors = 0;
+        for (int i = 0; i < QUERIES; i++) {
+            Point p = new Point(random.nextInt(range * 11 / 10) - range / 10,
+                    random.nextInt(range * 11 / 10) - range / 10);
+
+            /* Topmost: the last one in z order */
+            IGuiElement expected = null;
+            for (IGuiElement element : elements) {
+                if (element.contains(p))
+                    expected = element;
+            }
+
+            if (model.getElementAtLocation(p) != expected)
+                errors++;
+        }
+        return errors;
+    }
+
+    /**
+     * @param bounds
+     *            The bounds of all elements in the grid (null if unknown)
+     * @param area
+     *            The {@link Rectangle}
+     * @return All elements whose bounds intersect the area (or which have no
+     *         bounds), sorted by z value
+     */
+    private static List<IGuiElement> bruteForceArea(Map<IGuiElement, Rectangle> bounds, Rectangle area) {
+        List<IGuiElement> result = new ArrayList<IGuiElement>();
+        for (Map.Entry<IGuiElement, Rectangle> entry : bounds.entrySet()) {
+            if (entry.getValue() == null || entry.getValue().intersects(area))
+                result.add(entry.getKey());
+        }
+        Collections.sort(result, GuiModel.Z_VALUE_ORDER);
+        return result;
+    }
+
+    /**
+     * Puts the element into the grid with random bounds: mostly small, some
+     * on many cells, some unknown (null).
+     *
+     * @param random
+     *            The {@link Random}
+     * @param grid
+     *            The {@link SpatialGrid}
+     * @param bounds
+     *            The bounds of all elements in the grid
+     * @param element
+     *            The {@link IGuiElement}
+     */
+    private static void putRandomBounds(Random random, SpatialGrid grid, Map<IGuiElement, Rectangle> bounds,
+            IGuiElement element) {
+        int kind = random.nextInt(50);
+        Rectangle rectangle;
+        if (kind == 0) {
+            rectangle = null;
+        } else if (kind < 3) {
+            rectangle = randomRectangle(random, 10000);
+        } else {
+            rectangle = randomRectangle(random, 100);
+        }
+        grid.put(element, rectangle);
+        bounds.put(element, rectangle);
+    }
+
+    /**
+     * @param random
+     *            The {@link Random}
+     * @param maxSize
+     *            The max. width and height
+     * @return A random rectangle (x and y from -2000 to 8000)
+     */
+    private static Rectangle randomRectangle(Random random, int maxSize) {
+        return new Rectangle(random.nextInt(10000) - 2000, random.nextInt(10000) - 2000, random.nextInt(maxSize),
+                random.nextInt(maxSize));
+    }
+
+    /**
+     * @param random
+     *            The {@link Random}
+     * @param nodeCount
+     *            The number of nodes
+     * @param range
+     *            The coordinates of the nodes (0 to range); 0 = 1000
+     * @return A random {@link GuiModel} with places, transitions and arcs
+     *         (increasing z values)
+     * @throws PNElementCreationException
+     */
+    private static GuiModel randomModel(Random random, int nodeCount, int range) throws PNElementCreationException {
+        int max = (range == 0) ? 1000 : range;
+        GuiModel model = new GuiModel("test.pnml", "test");
+        List<String> places = new ArrayList<String>();
+        List<String> transitions = new ArrayList<String>();
+        for (int i = 0; i < nodeCount; i++) {
+            String id = "n" + i;
+            Point position = new Point(random.nextInt(max), random.nextInt(max));
+            if (random.nextBoolean()) {
+                model.addPlace(id, id, EPlaceToken.ZERO, position);
+                places.add(id);
+            } else {
+                model.addTransition(id, id, position);
+                transitions.add(id);
+            }
+        }
+
+        for (int i = 0; i < nodeCount && !places.isEmpty() && !transitions.isEmpty(); i++) {
+            String place = places.get(random.nextInt(places.size()));
+            String transition = transitions.get(random.nextInt(transitions.size()));
+            if (i % 2 == 0) {
+                model.addArc("a" + i, place, transition);
+            } else {
+                model.addArc("a" + i, transition, place);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Removes the specified node and its arcs from the model.
+     *
+     * @param model
+     *            The {@link GuiModel}
+     * @param nodeId
+     *            The id of the node
+     * @throws PNNoSuchElementException
+     */
+    private static void removeNodeWithArcs(GuiModel model, String nodeId) throws PNNoSuchElementException {
+        List<IGuiNode> nodes = new ArrayList<IGuiNode>();
+        nodes.add(model.getNodeById(nodeId));
+        for (IGuiArc arc : model.getAdjacentArcs(nodes)) {
+            model.removeElement(arc.getId());
+        }
+        model.removeElement(nodeId);
+    }
+
+}
@@ -0,0 +1,79 @@
+package de.lambeck.pned.util;
+
+import java.io.File;
+
+/**
+ * Common parts of the self tests (main() classes named XxxTest): Counts and
+ * prints the results of the checks and sets the exit code.<BR>
+ * <BR>
+ * Usage:<BR>
+ * SelfTest.check("Name of the check", result);<BR>
+ * ...<BR>
+ * SelfTest.finish(); // Exit code 1 if a check has failed.
+ *
+ * @author Thomas Lambeck, 4128320
+ *
+ */
+public final class SelfTest {
+
+    /** Seed for random test data (reproducible runs) */
+    public static final long SEED = 4128320;
+
+    /** The number of failed checks */
+    private static int failures = 0;
+
+    /**
+     * Not intended to be instantiated.
+     */
+    private SelfTest() {
+    }
+
+    /**
+     * Prints the result of a check.
+     *
+     * @param name
+     *            The name of the check
+     * @param ok
+     *            The result
+     */
+    public static void check(String name, boolean ok) {
+        System.out.println((ok ? "OK:     " : "FAILED: ") + name);
+        if (!ok)
+            failures++;
+    }
+
+    /**
+     * @return The number of failed checks so far (e.g. to stop a loop of
+     *         random runs after the first failure)
+     */
+    public static int getFailures() {
+        return failures;
+    }
+
+    /**
+     * Prints the summary and exits with code 1 if a check has failed.
+     */
+    public static void finish() {
+        System.out.println();
+        System.out.println((failures == 0) ? "All checks OK" : failures + " check(s) FAILED");
+        if (failures > 0)
+            System.exit(1);
+    }
+
+    /**
+     * Deletes the specified directory with all files. (No subdirectories!)
+     *
+     * @param dir
+     *            The directory
+     */
+    public static void deleteAll(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+}